@@ -25,8 +25,13 @@ public class AncientMethods implements Methods {
 
     @Override
     public void setType(@NotNull Block block, @NotNull XMaterial xMaterial) {
+        setType(block, xMaterial, true);
+    }
+
+    @Override
+    public void setType(@NotNull Block block, @NotNull XMaterial xMaterial, boolean applyPhysics) {
         /* Raw data is set correctly through the #setType() method. */
-        XBlock.setType(block, xMaterial);
+        XBlock.setType(block, xMaterial, applyPhysics);
     }
 
     // Basically copy XBlock.getType(), but fix the 1.8 "Wood not found" and match only material outside of Colorable & Tree
@@ -76,14 +76,19 @@ public class LegacyMethods implements Methods {
 
     @Override
     public void setType(@NotNull Block block, @NotNull XMaterial xMaterial) {
+        setType(block, xMaterial, true);
+    }
+
+    @Override
+    public void setType(@NotNull Block block, @NotNull XMaterial xMaterial, boolean applyPhysics) {
         // Quick and dirty fix for XMaterial being wrong.
         if (xMaterial == XMaterial.WHEAT) {
-            block.setType(Material.CROPS);
+            block.setType(Material.CROPS, applyPhysics);
             block.getState().setData(new MaterialData(xMaterial.parseMaterial(), xMaterial.getData()));
             return;
         }
 
-        XBlock.setType(block, xMaterial);
+        XBlock.setType(block, xMaterial, applyPhysics);
     }
 
     @Override
@@ -3,40 +3,66 @@ package nl.aurorion.blockregen.version.legacy;
 import com.cryptomorin.xseries.profiles.builder.XSkull;
 import com.cryptomorin.xseries.profiles.exceptions.InvalidProfileContainerException;
 import com.cryptomorin.xseries.profiles.objects.Profileable;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
-import lombok.Setter;
-import lombok.ToString;
 import lombok.extern.java.Log;
 import nl.aurorion.blockregen.util.Serialization;
-import nl.aurorion.blockregen.version.api.NodeData;
+import nl.aurorion.blockregen.version.PackedField;
+import nl.aurorion.blockregen.version.PackedNodeData;
 import org.bukkit.CropState;
 import org.bukkit.TreeSpecies;
 import org.bukkit.block.Block;
 import org.bukkit.block.BlockFace;
 import org.bukkit.block.BlockState;
 import org.bukkit.material.*;
+import org.jetbrains.annotations.NotNull;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Objects;
 
 @Log
-@ToString
-@Setter
+@EqualsAndHashCode
 @NoArgsConstructor
-public class LegacyNodeData implements NodeData {
+public class LegacyNodeData implements PackedNodeData {
 
-    private BlockFace facing;
+    private static final BlockFace[] BLOCK_FACES = BlockFace.values();
+    private static final TreeSpecies[] SPECIES = TreeSpecies.values();
+    private static final CropState[] CROP_STATES = CropState.values();
 
+    private static final PackedField FACING = PackedField.first(5);
     // Trees
-    private TreeSpecies treeSpecies;
-
+    private static final PackedField TREE_SPECIES = FACING.next(3);
     // Stairs
-    private Boolean inverted;
+    private static final PackedField INVERTED = TREE_SPECIES.next(2);
+    private static final PackedField CROP_STATE = INVERTED.next(4);
 
-    private CropState cropState;
+    // All the properties packed, see the fields above. Persisted through getProperties().
+    private long state;
 
     private String skull;
 
+    public void setFacing(BlockFace facing) {
+        this.state = FACING.setEnum(state, facing);
+    }
+
+    public void setTreeSpecies(TreeSpecies treeSpecies) {
+        this.state = TREE_SPECIES.setEnum(state, treeSpecies);
+    }
+
+    public void setInverted(Boolean inverted) {
+        this.state = INVERTED.setBoolean(state, inverted);
+    }
+
+    public void setCropState(CropState cropState) {
+        this.state = CROP_STATE.setEnum(state, cropState);
+    }
+
+    public void setSkull(String skull) {
+        this.skull = skull;
+    }
+
     @Override
     public boolean matches(Block block) {
         MaterialData data = block.getState().getData();
@@ -54,37 +80,37 @@ public class LegacyNodeData implements NodeData {
             }
         }
 
-        if (data instanceof Directional && this.facing != null) {
+        if (data instanceof Directional && FACING.isSet(state)) {
             Directional directional = (Directional) data;
-            if (directional.getFacing() != this.facing) {
+            if (directional.getFacing() != FACING.getEnum(state, BLOCK_FACES)) {
                 return false;
             }
         }
 
-        if (data instanceof Tree && this.facing != null) {
+        if (data instanceof Tree && FACING.isSet(state)) {
             Tree tree = (Tree) data;
-            if (tree.getDirection() != this.facing) {
+            if (tree.getDirection() != FACING.getEnum(state, BLOCK_FACES)) {
                 return false;
             }
         }
 
-        if (data instanceof Wood && this.treeSpecies != null) {
+        if (data instanceof Wood && TREE_SPECIES.isSet(state)) {
             Wood wood = (Wood) data;
-            if (wood.getSpecies() != this.treeSpecies) {
+            if (wood.getSpecies() != TREE_SPECIES.getEnum(state, SPECIES)) {
                 return false;
             }
         }
 
-        if (data instanceof Stairs && this.inverted != null) {
+        if (data instanceof Stairs && INVERTED.isSet(state)) {
             Stairs stairs = (Stairs) data;
-            if (stairs.isInverted() != this.inverted) {
+            if (stairs.isInverted() != INVERTED.getBoolean(state)) {
                 return false;
             }
         }
 
-        if (data instanceof Crops && this.cropState != null) {
+        if (data instanceof Crops && CROP_STATE.isSet(state)) {
             Crops crops = (Crops) data;
-            if (crops.getState() != this.cropState) {
+            if (crops.getState() != CROP_STATE.getEnum(state, CROP_STATES)) {
                 return false;
             }
         }
@@ -104,27 +130,27 @@ public class LegacyNodeData implements NodeData {
 
         if (data instanceof Directional) {
             Directional directional = (Directional) data;
-            this.facing = directional.getFacing();
+            setFacing(directional.getFacing());
         }
 
         if (data instanceof Tree) {
             Tree tree = (Tree) data;
-            this.facing = tree.getDirection();
+            setFacing(tree.getDirection());
         }
 
         if (data instanceof Stairs) {
             Stairs stairs = (Stairs) data;
-            this.inverted = stairs.isInverted();
+            setInverted(stairs.isInverted());
         }
 
         if (data instanceof Crops) {
             Crops crops = (Crops) data;
-            this.cropState = crops.getState();
+            setCropState(crops.getState());
         }
 
         if (data instanceof Wood) {
             Wood wood = (Wood) data;
-            this.treeSpecies = wood.getSpecies();
+            setTreeSpecies(wood.getSpecies());
         }
 
         log.fine(() -> String.format("Loaded block data %s (%s)", block.getType(), this));
@@ -132,32 +158,32 @@ public class LegacyNodeData implements NodeData {
 
     @Override
     public void apply(Block block) {
-        BlockState state = block.getState();
-        MaterialData data = state.getData();
+        BlockState blockState = block.getState();
+        MaterialData data = blockState.getData();
 
-        if (data instanceof Directional && this.facing != null) {
+        if (data instanceof Directional && FACING.isSet(state)) {
             Directional directional = (Directional) data;
-            directional.setFacingDirection(this.facing);
+            directional.setFacingDirection(FACING.getEnum(state, BLOCK_FACES));
         }
 
-        if (data instanceof Tree && this.facing != null) {
+        if (data instanceof Tree && FACING.isSet(state)) {
             Tree tree = (Tree) data;
-            tree.setDirection(this.facing);
+            tree.setDirection(FACING.getEnum(state, BLOCK_FACES));
         }
 
-        if (data instanceof Wood && this.treeSpecies != null) {
+        if (data instanceof Wood && TREE_SPECIES.isSet(state)) {
             Wood wood = (Wood) data;
-            wood.setSpecies(this.treeSpecies);
+            wood.setSpecies(TREE_SPECIES.getEnum(state, SPECIES));
         }
 
-        if (data instanceof Stairs && this.inverted != null && this.inverted) {
+        if (data instanceof Stairs && INVERTED.get(state) == 2) {
             Stairs stairs = (Stairs) data;
             stairs.setInverted(true);
         }
 
-        if (data instanceof Crops && this.cropState != null) {
+        if (data instanceof Crops && CROP_STATE.isSet(state)) {
             Crops crops = (Crops) data;
-            crops.setState(cropState);
+            crops.setState(CROP_STATE.getEnum(state, CROP_STATES));
         }
 
         if (this.skull != null) {
@@ -166,21 +192,38 @@ public class LegacyNodeData implements NodeData {
                     .apply();
         }
 
-        state.setData(data);
+        blockState.setData(data);
+    }
+
+    @Override
+    public @NotNull Map<String, Object> getProperties() {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("facing", FACING.getEnum(state, BLOCK_FACES));
+        properties.put("treeSpecies", TREE_SPECIES.getEnum(state, SPECIES));
+        properties.put("inverted", INVERTED.getBoolean(state));
+        properties.put("cropState", CROP_STATE.getEnum(state, CROP_STATES));
+        properties.put("skull", this.skull);
+        properties.values().removeIf(Objects::isNull);
+        return properties;
     }
 
     @Override
     public boolean isEmpty() {
-        return this.facing == null && this.treeSpecies == null && this.inverted == null && this.cropState == null;
+        return this.state == 0;
     }
 
     @Override
     public String getPrettyString() {
         Map<String, Object> entries = new HashMap<>();
-        entries.put("facing", this.facing);
-        entries.put("species", this.treeSpecies);
-        entries.put("inverted", this.inverted);
-        entries.put("age", this.cropState == null ? null : this.cropState.ordinal());
+        entries.put("facing", FACING.getEnum(state, BLOCK_FACES));
+        entries.put("species", TREE_SPECIES.getEnum(state, SPECIES));
+        entries.put("inverted", INVERTED.getBoolean(state));
+        entries.put("age", CROP_STATE.isSet(state) ? CROP_STATE.get(state) - 1 : null);
         return Serialization.serializeNodeDataEntries(entries);
     }
+
+    @Override
+    public String toString() {
+        return "LegacyNodeData" + getPrettyString();
+    }
 }
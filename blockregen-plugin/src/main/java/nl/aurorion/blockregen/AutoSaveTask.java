@@ -32,7 +32,8 @@ public class AutoSaveTask implements Runnable {
         }
 
         running = true;
-        task = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, this, period * 20L, period * 20L);
+        // Only collects the data, it's written on the persistence thread.
+        task = Bukkit.getScheduler().runTaskTimer(plugin, this, period * 20L, period * 20L);
         log.info("Starting auto-save.. with an interval of " + period + " seconds.");
     }
 
@@ -53,7 +54,7 @@ public class AutoSaveTask implements Runnable {
 
     @Override
     public void run() {
-        plugin.getRegenerationManager().save();
+        plugin.getRegenerationManager().autoSave();
         plugin.getRegionManager().save();
     }
 }
\ No newline at end of file
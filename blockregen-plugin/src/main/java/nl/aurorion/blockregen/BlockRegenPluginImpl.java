@@ -8,8 +8,10 @@ import nl.aurorion.blockregen.api.version.VersionManager;
 import nl.aurorion.blockregen.command.Commands;
 import nl.aurorion.blockregen.compatibility.CompatibilityManager;
 import nl.aurorion.blockregen.configuration.Files;
+import nl.aurorion.blockregen.configuration.RuntimeSettings;
 import nl.aurorion.blockregen.drop.ItemManager;
 import nl.aurorion.blockregen.event.EventManager;
+import nl.aurorion.blockregen.listener.ChunkListener;
 import nl.aurorion.blockregen.listener.PlayerListener;
 import nl.aurorion.blockregen.listener.RegenerationListener;
 import nl.aurorion.blockregen.material.MaterialManager;
@@ -19,10 +21,14 @@ import nl.aurorion.blockregen.particle.impl.FireCube;
 import nl.aurorion.blockregen.particle.impl.FireWorks;
 import nl.aurorion.blockregen.particle.impl.FlameCrown;
 import nl.aurorion.blockregen.particle.impl.WitchSpell;
+import nl.aurorion.blockregen.permission.PermissionCache;
 import nl.aurorion.blockregen.preset.PresetManager;
 import nl.aurorion.blockregen.preset.condition.DefaultConditions;
 import nl.aurorion.blockregen.regeneration.RegenerationManager;
 import nl.aurorion.blockregen.region.RegionManager;
+import nl.aurorion.blockregen.reward.PendingDeposits;
+import nl.aurorion.blockregen.reward.RewardDispatcher;
+import nl.aurorion.blockregen.storage.*;
 import nl.aurorion.blockregen.version.NodeDataAdapter;
 import nl.aurorion.blockregen.version.NodeDataInstanceCreator;
 import nl.aurorion.blockregen.version.VersionManagerImpl;
@@ -36,8 +42,11 @@ import org.bukkit.plugin.PluginManager;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.Objects;
-import java.util.Random;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -68,6 +77,13 @@ public class BlockRegenPluginImpl extends JavaPlugin implements Listener, BlockR
     @Getter
     private final Files files = new Files(this);
 
+    // Swapped as a whole on reload.
+    @Getter
+    private volatile RuntimeSettings runtimeSettings;
+
+    @Getter
+    private final PermissionCache permissionCache = new PermissionCache();
+
     @Getter
     private final PresetManager presetManager = new PresetManager(this);
 
@@ -83,6 +99,12 @@ public class BlockRegenPluginImpl extends JavaPlugin implements Listener, BlockR
     @Getter
     private final EventManager eventManager = new EventManager(this);
 
+    @Getter
+    private final RewardDispatcher rewardDispatcher = new RewardDispatcher(this);
+
+    @Getter
+    private final PendingDeposits pendingDeposits = new PendingDeposits(this);
+
     @Getter
     private final MaterialManager materialManager = new MaterialManager(this);
 
@@ -98,6 +120,12 @@ public class BlockRegenPluginImpl extends JavaPlugin implements Listener, BlockR
     @Getter
     private ConsoleHandler consoleHandler;
 
+    // Open when using the sqlite storage.
+    private SqlDatabase database;
+
+    @Getter
+    private PersistenceExecutor persistence;
+
     @Override
     public void onEnable() {
         BlockRegenPluginImpl.instance = this;
@@ -110,12 +138,16 @@ public class BlockRegenPluginImpl extends JavaPlugin implements Listener, BlockR
 
         versionManager.load();
 
+        compileSettings();
+
         GsonBuilder gsonBuilder = new GsonBuilder()
                 .registerTypeHierarchyAdapter(NodeData.class, new NodeDataAdapter<>())
                 .registerTypeAdapter(NodeData.class, new NodeDataInstanceCreator(versionManager.getNodeProvider()))
                 .setPrettyPrinting();
         gsonHelper = new GsonHelper(gsonBuilder);
 
+        setupStorage();
+
         // Add default particles
         new FireWorks().register();
         new FlameCrown().register();
@@ -137,6 +169,10 @@ public class BlockRegenPluginImpl extends JavaPlugin implements Listener, BlockR
 
         presetManager.load();
         regionManager.load();
+        regenerationManager.getQueue().load();
+        regenerationManager.getScheduler().start();
+        rewardDispatcher.start();
+        pendingDeposits.start();
         regenerationManager.load();
 
         finishedLoading = true;
@@ -195,6 +231,11 @@ public class BlockRegenPluginImpl extends JavaPlugin implements Listener, BlockR
         checkPlaceholderAPI();
 
         files.getSettings().load();
+        compileSettings();
+
+        // Presets, regions or the permission setup might have changed.
+        permissionCache.invalidateAll();
+        compatibilityManager.getProtectionCache().invalidateAll();
 
         configureLogger();
 
@@ -206,6 +247,12 @@ public class BlockRegenPluginImpl extends JavaPlugin implements Listener, BlockR
 
         regionManager.reload();
 
+        regenerationManager.getQueue().load();
+
+        // Deposit with the old interval, start collecting with the new one.
+        pendingDeposits.stop();
+        pendingDeposits.start();
+
         if (getConfig().getBoolean("Auto-Save.Enabled", false))
             regenerationManager.reloadAutoSave();
 
@@ -213,26 +260,78 @@ public class BlockRegenPluginImpl extends JavaPlugin implements Listener, BlockR
         sender.sendMessage(Message.RELOAD.get());
     }
 
+    private void compileSettings() {
+        this.runtimeSettings = RuntimeSettings.compile(getConfig(), versionManager);
+    }
+
     @Override
     public void onDisable() {
+        long start = System.nanoTime();
+        // Phase -> milliseconds, for the shutdown report.
+        Map<String, Long> timings = new LinkedHashMap<>();
+
         if (regenerationManager.getAutoSaveTask() != null) {
             regenerationManager.getAutoSaveTask().stop();
         }
 
         if (finishedLoading) {
-            regenerationManager.revertAll();
-            regenerationManager.save(true);
+            regenerationManager.getScheduler().stop();
+
+            // Hand out rewards of the last tick.
+            rewardDispatcher.stop();
+            time(timings, "deposits", pendingDeposits::stop);
+
+            if ("persist".equalsIgnoreCase(getConfig().getString("Shutdown.Mode", "revert"))) {
+                // Blocks stay replaced, only remember which replace blocks weren't placed yet.
+                time(timings, "state", () -> {
+                    try {
+                        new ShutdownState(getDataFolder().toPath()).markPersisted(regenerationManager.getReplacePending());
+                    } catch (IOException e) {
+                        log.severe("Could not save the shutdown state, replace blocks will be placed again: " + e.getMessage());
+                        e.printStackTrace();
+                    }
+                });
+            } else {
+                time(timings, "revert", () -> regenerationManager.revertAll(getConfig().getLong("Shutdown.Revert-Time-Limit", 30) * 1000L));
+            }
+
+            time(timings, "processes", () -> regenerationManager.save(true));
+            time(timings, "regions", regionManager::save);
+        }
 
-            regionManager.save();
+        // Let queued writes finish before closing the storage.
+        if (persistence != null) {
+            time(timings, "pending writes", () -> persistence.shutdown(getConfig().getLong("Storage.Shutdown-Timeout", 30) * 1000L));
         }
 
+        time(timings, "storage", () -> {
+            if (regenerationManager.getStorage() != null) {
+                regenerationManager.getStorage().close();
+            }
+
+            if (database != null) {
+                database.close();
+            }
+        });
+
+        StringJoiner report = new StringJoiner(", ");
+        timings.forEach((phase, millis) -> report.add(phase + " " + millis + "ms"));
+        log.info(String.format("Shut down in %dms (%s).", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), report));
+
         this.teardownLogger();
     }
 
+    private static void time(Map<String, Long> timings, String phase, Runnable runnable) {
+        long start = System.nanoTime();
+        runnable.run();
+        timings.put(phase, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
     private void registerListeners() {
         PluginManager pluginManager = this.getServer().getPluginManager();
         pluginManager.registerEvents(new RegenerationListener(this), this);
         pluginManager.registerEvents(new PlayerListener(this), this);
+        pluginManager.registerEvents(new ChunkListener(this), this);
     }
 
     public void checkDependencies(boolean reloadPresets) {
@@ -240,6 +339,42 @@ public class BlockRegenPluginImpl extends JavaPlugin implements Listener, BlockR
 
     }
 
+    private void setupStorage() {
+        Path dataFolder = getDataFolder().toPath();
+
+        this.persistence = new PersistenceExecutor();
+        regenerationManager.setPersistence(persistence);
+        regionManager.setPersistence(persistence);
+
+        ProcessStorage processStorage = new FileProcessStorage(gsonHelper, dataFolder, getConfig().getBoolean("Compress-Data", false));
+        RegionStorage regionStorage = new YamlRegionStorage(files.getRegions());
+
+        String type = getConfig().getString("Storage.Type", "file");
+
+        if ("sqlite".equalsIgnoreCase(type)) {
+            SqlDatabase database = new SqlDatabase(dataFolder.resolve(getConfig().getString("Storage.File", "Data.db")));
+            try {
+                database.open();
+
+                // Files are imported into an empty database.
+                processStorage = new ImportingProcessStorage(new SqlProcessStorage(database, gsonHelper), processStorage, "the database");
+                regionStorage = new SqlRegionStorage(database, regionStorage);
+                this.database = database;
+            } catch (SQLException e) {
+                log.severe("Could not open the database, using files instead: " + e.getMessage());
+                e.printStackTrace();
+            }
+        } else if ("mapped".equalsIgnoreCase(type)) {
+            // Files are imported into an empty mapped file.
+            processStorage = new ImportingProcessStorage(new MappedProcessStorage(gsonHelper, dataFolder.resolve("Data.map")), processStorage, "Data.map");
+        } else if (!"file".equalsIgnoreCase(type)) {
+            log.warning("Unknown storage type " + type + ", using files.");
+        }
+
+        regenerationManager.setStorage(processStorage);
+        regionManager.setStorage(regionStorage);
+    }
+
     private void checkPlaceholderAPI() {
         if (getServer().getPluginManager().isPluginEnabled("PlaceholderAPI") && !usePlaceholderAPI) {
             usePlaceholderAPI = true;
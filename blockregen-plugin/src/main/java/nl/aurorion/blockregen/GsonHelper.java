@@ -3,8 +3,10 @@ package nl.aurorion.blockregen;
 import com.google.common.base.Strings;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
 import com.google.gson.reflect.TypeToken;
 import lombok.extern.java.Log;
+import nl.aurorion.blockregen.util.AtomicFiles;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -59,6 +61,15 @@ public class GsonHelper {
         }.getType();
     }
 
+    @NotNull
+    public JsonElement toJsonTree(@NotNull Object input) {
+        return gson.toJsonTree(input);
+    }
+
+    public <T> T fromJson(@NotNull JsonElement element, @NotNull Class<T> clazz) {
+        return gson.fromJson(element, clazz);
+    }
+
     /**
      * Asynchronously read ByteBuffer from a file.
      */
@@ -153,25 +164,12 @@ public class GsonHelper {
     }
 
     /**
-     * Asynchronously save data to json.
-     *
-     * @return CompletableFuture with the number of bytes written
+     * Save data to json. Replaces the file atomically, run on the {@link nl.aurorion.blockregen.storage.PersistenceExecutor}.
      */
-    @NotNull
-    public <T> CompletableFuture<Void> save(@NotNull final T input, @NotNull final String dataPath) {
-
-        Path path = Paths.get(dataPath);
-
+    public <T> void save(@NotNull final T input, @NotNull final String dataPath) throws IOException {
         final Type type = map(input.getClass());
 
-        return CompletableFuture.runAsync(() -> {
-            String jsonString = gson.toJson(input, type).trim();
-
-            try {
-                Files.write(path, jsonString.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
-            } catch (IOException e) {
-                throw new RuntimeException(e);
-            }
-        });
+        String jsonString = gson.toJson(input, type).trim();
+        AtomicFiles.write(Paths.get(dataPath), jsonString.getBytes(StandardCharsets.UTF_8));
     }
 }
\ No newline at end of file
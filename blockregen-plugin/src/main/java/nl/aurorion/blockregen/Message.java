@@ -1,9 +1,8 @@
 package nl.aurorion.blockregen;
 
 import lombok.Getter;
-import lombok.Setter;
 import nl.aurorion.blockregen.util.Colors;
-import nl.aurorion.blockregen.util.Text;
+import nl.aurorion.blockregen.util.TextTemplate;
 import org.bukkit.command.CommandSender;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.entity.Player;
@@ -74,6 +73,7 @@ public enum Message {
     SELECT_FIRST("Select-First", "&7Set first position to &f%x%, %y%, %z%."),
     SELECT_SECOND("Select-Second", "&7Set second position to &f%x%, %y%, %z%."),
     SET_ALL("Set-All", "&7Region set to %s &7presets."),
+    SET_AUTHORITATIVE("Set-Authoritative", "&7Protection plugins are %state% &7in region &f%region%&7."),
     INVALID_PRESET("Invalid-Preset", "&cPreset %preset% does not exist."),
 
     HAS_PRESET_ALREADY("Has-Preset-Already", "&7Region &f%region% &7has preset &f%preset% &7already."),
@@ -100,15 +100,22 @@ public enum Message {
     ENCHANT_REQUIRED_ERROR("Enchant-Required-Error", "&cYour tool has to have at least one of the following enchantment(s): &b%enchant%&c."),
     JOBS_REQUIRED_ERROR("Jobs-Error", "&cYou need to reach following job levels in order to break this block: &b%job%"),
     PERMISSION_BLOCK_ERROR("Permission-Error", "&cYou don't have the permission to break this block."),
-    PERMISSION_REGION_ERROR("Permission-Region-Error", "&cYou don't have the permission to break in this region.");
+    PERMISSION_REGION_ERROR("Permission-Region-Error", "&cYou don't have the permission to break in this region."),
+
+    /**
+     * Rewards
+     */
+    MONEY_EARNED("Money-Earned", "&7You earned &a%amount% &7from &f%count% &7block(s).");
 
     @Getter
     private final String path;
 
     @Getter
-    @Setter
     private String value;
 
+    // Compiled value, with the prefix inserted if enabled. Reset when the value changes.
+    private TextTemplate template;
+
     @Getter
     private static boolean insertPrefix = false;
 
@@ -117,12 +124,26 @@ public enum Message {
         this.value = value;
     }
 
+    public void setValue(String value) {
+        this.value = value;
+        this.template = null;
+    }
+
+    private TextTemplate getTemplate() {
+        TextTemplate template = this.template;
+        if (template == null) {
+            template = TextTemplate.compile(insertPrefix ? "%prefix%" + this.value : this.value);
+            this.template = template;
+        }
+        return template;
+    }
+
     public String get() {
-        return Colors.color(Text.parse(insertPrefix ? "%prefix%" + this.value : this.value));
+        return Colors.color(getTemplate().render(null, null));
     }
 
     public String get(Player player) {
-        return Colors.color(Text.parse(insertPrefix ? "%prefix%" + this.value : this.value, player));
+        return Colors.color(getTemplate().render(player, null));
     }
 
     public void send(CommandSender target) {
@@ -140,6 +161,10 @@ public enum Message {
             messages.set("Insert-Prefix", true);
         insertPrefix = messages.getBoolean("Insert-Prefix", true);
 
+        for (Message msg : values()) {
+            msg.template = null;
+        }
+
         for (Message msg : values()) {
             String str = messages.getString("Messages." + msg.getPath());
 
@@ -5,19 +5,28 @@ import nl.aurorion.blockregen.ConsoleHandler;
 import nl.aurorion.blockregen.GsonHelper;
 import nl.aurorion.blockregen.compatibility.CompatibilityManager;
 import nl.aurorion.blockregen.configuration.Files;
+import nl.aurorion.blockregen.configuration.RuntimeSettings;
 import nl.aurorion.blockregen.drop.ItemManager;
 import nl.aurorion.blockregen.event.EventManager;
 import nl.aurorion.blockregen.material.MaterialManager;
 import nl.aurorion.blockregen.particle.ParticleManager;
+import nl.aurorion.blockregen.permission.PermissionCache;
 import nl.aurorion.blockregen.preset.PresetManager;
 import nl.aurorion.blockregen.regeneration.RegenerationManager;
 import nl.aurorion.blockregen.region.RegionManager;
+import nl.aurorion.blockregen.reward.PendingDeposits;
+import nl.aurorion.blockregen.reward.RewardDispatcher;
+import nl.aurorion.blockregen.storage.PersistenceExecutor;
 import nl.aurorion.blockregen.api.version.VersionManager;
+import org.bukkit.Chunk;
+import org.bukkit.Location;
 import org.bukkit.command.CommandSender;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.plugin.Plugin;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.util.List;
 import java.util.Random;
 import java.util.logging.Level;
 
@@ -45,6 +54,13 @@ public interface BlockRegenPlugin extends Plugin {
 
     @NotNull Files getFiles();
 
+    /**
+     * Settings compiled on the last load or reload. Read this in event handlers instead of the configuration.
+     */
+    @NotNull RuntimeSettings getRuntimeSettings();
+
+    @NotNull PermissionCache getPermissionCache();
+
     @NotNull PresetManager getPresetManager();
 
     @NotNull ParticleManager getParticleManager();
@@ -55,13 +71,51 @@ public interface BlockRegenPlugin extends Plugin {
 
     @NotNull EventManager getEventManager();
 
+    @NotNull RewardDispatcher getRewardDispatcher();
+
+    @NotNull PendingDeposits getPendingDeposits();
+
     @NotNull MaterialManager getMaterialManager();
 
     @NotNull ItemManager getItemManager();
 
     GsonHelper getGsonHelper();
 
+    PersistenceExecutor getPersistence();
+
     ConsoleHandler getConsoleHandler();
 
     @NotNull CompatibilityManager getCompatibilityManager();
+
+    // --- Spatial queries, safe to call from any thread.
+
+    /**
+     * Regenerating blocks in the cuboid between the two corners, both included.
+     */
+    @NotNull
+    default List<RegeneratingBlock> getRegeneratingBlocks(@NotNull Location first, @NotNull Location second) {
+        if (first.getWorld() == null || first.getWorld() != second.getWorld()) {
+            throw new IllegalArgumentException("Both corners have to be in the same world.");
+        }
+        return getRegenerationManager().getRegeneratingBlocks(first.getWorld().getName(),
+                first.getBlockX(), first.getBlockY(), first.getBlockZ(),
+                second.getBlockX(), second.getBlockY(), second.getBlockZ());
+    }
+
+    @NotNull
+    default List<RegeneratingBlock> getRegeneratingBlocks(@NotNull Chunk chunk) {
+        return getRegenerationManager().getRegeneratingBlocks(chunk.getWorld().getName(), chunk.getX(), chunk.getZ());
+    }
+
+    /**
+     * Regenerating block closest to the location, null if there's none within the distance in blocks.
+     */
+    @Nullable
+    default RegeneratingBlock getNearestRegeneratingBlock(@NotNull Location location, int maxDistance) {
+        if (location.getWorld() == null) {
+            throw new IllegalArgumentException("Location has no world.");
+        }
+        return getRegenerationManager().getNearestRegenerating(location.getWorld().getName(),
+                location.getBlockX(), location.getBlockY(), location.getBlockZ(), maxDistance);
+    }
 }
@@ -0,0 +1,58 @@
+package nl.aurorion.blockregen.api;
+
+import lombok.Getter;
+import nl.aurorion.blockregen.regeneration.struct.RegenerationProcess;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Immutable view of a regenerating block, safe to pass between threads.
+ */
+@Getter
+public final class RegeneratingBlock {
+
+    private final String worldName;
+    private final int x, y, z;
+
+    private final String presetName;
+    @Nullable
+    private final String regionName;
+
+    // Epoch millis at which the block regenerates. Blocks in unloaded chunks regenerate once the chunk loads.
+    private final long regenerationTime;
+
+    // False if the chunk of the block is not loaded, its timer is paused.
+    private final boolean loaded;
+
+    public RegeneratingBlock(@NotNull String worldName, int x, int y, int z, String presetName, @Nullable String regionName,
+                             long regenerationTime, boolean loaded) {
+        this.worldName = worldName;
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.presetName = presetName;
+        this.regionName = regionName;
+        this.regenerationTime = regenerationTime;
+        this.loaded = loaded;
+    }
+
+    public RegeneratingBlock(@NotNull RegenerationProcess process) {
+        this(process.getLocation().getWorld(), process.getLocation().getX(), process.getLocation().getY(),
+                process.getLocation().getZ(), process.getPresetName(), process.getRegionName(),
+                process.getRegenerationTime(), true);
+    }
+
+    // Squared distance to the block position.
+    public long distanceSquared(int x, int y, int z) {
+        long dx = this.x - x;
+        long dy = this.y - y;
+        long dz = this.z - z;
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("{world=%s; x=%d; y=%d; z=%d; preset=%s; region=%s; regenerationTime=%d; loaded=%b}",
+                worldName, x, y, z, presetName, regionName, regenerationTime, loaded);
+    }
+}
@@ -1,5 +1,6 @@
 package nl.aurorion.blockregen.api.version;
 
+import nl.aurorion.blockregen.version.NodeDataPalette;
 import nl.aurorion.blockregen.version.api.*;
 
 public interface VersionManager {
@@ -27,6 +28,8 @@ public interface VersionManager {
 
     NodeDataParser getNodeDataParser();
 
+    NodeDataPalette getNodeDataPalette();
+
     interface NodeDataProvider {
         NodeData provide();
     }
@@ -4,16 +4,18 @@ import com.cryptomorin.xseries.XMaterial;
 import com.google.common.collect.Lists;
 import nl.aurorion.blockregen.api.BlockRegenPlugin;
 import nl.aurorion.blockregen.Message;
+import nl.aurorion.blockregen.compatibility.ProtectionCache;
 import nl.aurorion.blockregen.util.Colors;
 import nl.aurorion.blockregen.event.struct.PresetEvent;
 import nl.aurorion.blockregen.preset.BlockPreset;
-import nl.aurorion.blockregen.regeneration.struct.RegenerationProcess;
+import nl.aurorion.blockregen.regeneration.RegenerationQueue;
 import nl.aurorion.blockregen.region.struct.RegenerationArea;
 import nl.aurorion.blockregen.region.struct.RegenerationRegion;
 import nl.aurorion.blockregen.region.struct.RegenerationWorld;
 import nl.aurorion.blockregen.region.RegionSelection;
+import nl.aurorion.blockregen.reward.PendingDeposits;
+import nl.aurorion.blockregen.storage.PersistenceExecutor;
 import nl.aurorion.blockregen.util.Locations;
-import org.bukkit.Bukkit;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
@@ -24,7 +26,6 @@ import org.jetbrains.annotations.NotNull;
 
 import java.util.*;
 import java.util.logging.Level;
-import java.util.stream.Collectors;
 
 public class Commands implements CommandExecutor {
 
@@ -38,6 +39,7 @@ public class Commands implements CommandExecutor {
             + "\n&3/%label% region set <region> &8- &7Create a region from your selection."
             + "\n&3/%label% region world <region> <worldName> &8- &7Create a region for the world."
             + "\n&3/%label% region all <region> &8- &7Switch 'all presets' mode."
+            + "\n&3/%label% region authoritative <region> &8- &7Switch skipping protection plugin checks in the region."
             + "\n&3/%label% region add <region> <preset> &8- &7Add a preset to the region."
             + "\n&3/%label% region remove <region> <preset> &8- &7Remove a preset from region."
             + "\n&3/%label% region clear <region> &8- &7Clear all presets from the region."
@@ -240,8 +242,7 @@ public class Commands implements CommandExecutor {
                         }
 
                         RegenerationArea area = plugin.getRegionManager().getArea(args[2]);
-                        area.setPriority(priority);
-                        plugin.getRegionManager().sort();
+                        plugin.getRegionManager().setPriority(area, priority);
                         player.sendMessage(Colors.color(Message.REGION_PRIORITY_CHANGED.get(player)
                                 .replace("%region%", args[2])
                                 .replace("%priority%", args[3])));
@@ -326,6 +327,32 @@ public class Commands implements CommandExecutor {
                         player.sendMessage(Colors.color(String.format(Message.SET_ALL.get(player), region.switchAll() ? "&aall" : "&cnot all")));
                         return false;
                     }
+                    case "authoritative": {
+                        if (args.length > 3) {
+                            sender.sendMessage(Message.TOO_MANY_ARGS.get(player)
+                                    .replace("%help%", String.format("/%s region authoritative <name>", label)));
+                            return false;
+                        } else if (args.length < 3) {
+                            sender.sendMessage(Message.NOT_ENOUGH_ARGS.get(player)
+                                    .replace("%help%", String.format("/%s region authoritative <name>", label)));
+                            return false;
+                        }
+
+                        RegenerationArea region = plugin.getRegionManager().getArea(args[2]);
+
+                        if (region == null) {
+                            Message.UNKNOWN_REGION.send(player);
+                            return false;
+                        }
+
+                        // Outcomes cached before don't apply to the region anymore.
+                        plugin.getCompatibilityManager().getProtectionCache().invalidateAll();
+
+                        player.sendMessage(Colors.color(Message.SET_AUTHORITATIVE.get(player)
+                                .replace("%region%", region.getName())
+                                .replace("%state%", region.switchAuthoritative() ? "&askipped" : "&cchecked")));
+                        return false;
+                    }
                     case "add": {
                         if (args.length > 4) {
                             sender.sendMessage(Message.TOO_MANY_ARGS.get(player)
@@ -496,20 +523,14 @@ public class Commands implements CommandExecutor {
                     }
                 }
 
-                Set<RegenerationProcess> toRegen = new HashSet<>();
-
-                for (RegenerationProcess process : plugin.getRegenerationManager().getCache()) {
-                    if ((preset == null || preset.equals(process.getPreset())) &&
-                            (region == null || region.getName().equalsIgnoreCase(process.getRegionName())) &&
-                            (worldName == null || worldName.equalsIgnoreCase(process.getWorldName()))) {
-                        toRegen.add(process);
-                    }
-                }
-
-                Bukkit.getScheduler().runTask(plugin, () -> toRegen.forEach(RegenerationProcess::regenerate));
+                // Blocks in unloaded chunks regenerate when the chunk loads.
+                int count = plugin.getRegenerationManager().regenerate(
+                        preset == null ? null : preset.getName(),
+                        region == null ? null : region.getName(),
+                        worldName);
 
                 sender.sendMessage(Message.REGENERATED_PROCESSES.get()
-                        .replace("%count%", String.valueOf(toRegen.size())));
+                        .replace("%count%", String.valueOf(count)));
                 break;
             }
             case "stats": {
@@ -521,6 +542,31 @@ public class Commands implements CommandExecutor {
                 // Compile statistics
                 StringBuilder stats = new StringBuilder("&8&m        &r &3BlockRegen processes &8&m        &r\n");
 
+                RegenerationQueue queue = plugin.getRegenerationManager().getQueue();
+                stats.append(String.format("&7Queued: &f%d &7(&f%.1f&7/s)\n", queue.getSize(), queue.getDrainRate()));
+                stats.append(String.format("&7Unloaded chunks: &f%d &7(&f%d &7KiB)\n", plugin.getRegenerationManager().getDormantCount(),
+                        plugin.getRegenerationManager().getDormantMemoryUsage() / 1024));
+
+                PersistenceExecutor persistence = plugin.getPersistence();
+                stats.append(String.format("&7Saves: &f%d &7pending, last took &f%d &7ms (&f%d &7ms after the request)\n",
+                        persistence.getPendingCount(), persistence.getLastDuration(), persistence.getLastLatency()));
+
+                PendingDeposits deposits = plugin.getPendingDeposits();
+                if (deposits.getAdded() > 0) {
+                    stats.append(String.format("&7Money rewards: &f%d&7, deposited in &f%d &7transactions, &f%d &7player(s) pending\n",
+                            deposits.getAdded(), deposits.getDeposited(), deposits.getPendingCount()));
+                    stats.append(String.format("&7Last deposit flush: &f%d &7player(s) in &f%d &7ms\n",
+                            deposits.getLastFlushSize(), deposits.getLastFlushMillis()));
+                }
+
+                ProtectionCache protection = plugin.getCompatibilityManager().getProtectionCache();
+                for (ProtectionCache.Provider provider : ProtectionCache.Provider.values()) {
+                    if (protection.getChecks(provider) > 0) {
+                        stats.append(String.format("&7Protection checks (%s): &f%d&7, &f%.0f%% &7cached\n", provider.name().toLowerCase(Locale.ROOT),
+                                protection.getChecks(provider), protection.getHitRate(provider) * 100));
+                    }
+                }
+
                 // Per-world, per-region, per-preset
 
                 /*
@@ -530,43 +576,35 @@ public class Commands implements CommandExecutor {
                  *
                  * */
 
-                Collection<RegenerationProcess> processes = plugin.getRegenerationManager().getCache();
+                // Kept up to date on register and remove, no need to go through the processes.
+                Map<String, Map<String, Map<String, Integer>>> counts = plugin.getRegenerationManager().getProcessCounts();
 
-                if (processes.isEmpty()) {
+                if (counts.isEmpty()) {
                     stats.append("&7None to show.");
                     sender.sendMessage(Colors.color(stats.toString()));
                     break;
                 }
 
-                Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-                    Map<String, List<RegenerationProcess>> byWorldCollect = processes.stream()
-                            .collect(Collectors.groupingBy(RegenerationProcess::getWorldName));
-
-                    for (Map.Entry<String, List<RegenerationProcess>> byWorld : byWorldCollect.entrySet()) {
-                        int byWorldCount = byWorld.getValue().size();
-
-                        stats.append("&f").append(byWorld.getKey()).append(" &7(&f").append(byWorldCount).append("&7)&8:&7\n");
+                for (Map.Entry<String, Map<String, Map<String, Integer>>> byWorld : counts.entrySet()) {
+                    int byWorldCount = byWorld.getValue().values().stream()
+                            .mapToInt(presets -> presets.values().stream().mapToInt(Integer::intValue).sum())
+                            .sum();
 
-                        Map<String, List<RegenerationProcess>> byRegionCollect = processes.stream()
-                                .collect(Collectors.groupingBy(RegenerationProcess::getRegionName));
+                    stats.append("&f").append(byWorld.getKey()).append(" &7(&f").append(byWorldCount).append("&7)&8:&7\n");
 
-                        for (Map.Entry<String, List<RegenerationProcess>> byRegion : byRegionCollect.entrySet()) {
-                            int byRegionCount = byRegion.getValue().size();
+                    for (Map.Entry<String, Map<String, Integer>> byRegion : byWorld.getValue().entrySet()) {
+                        int byRegionCount = byRegion.getValue().values().stream().mapToInt(Integer::intValue).sum();
 
-                            stats.append(" &f").append(byRegion.getKey()).append(" &7(&f").append(byRegionCount).append("&7)&8:&7 ");
+                        String regionName = byRegion.getKey() == null ? "-" : byRegion.getKey();
+                        stats.append(" &f").append(regionName).append(" &7(&f").append(byRegionCount).append("&7)&8:&7 ");
 
-                            Map<String, List<RegenerationProcess>> byPresetCollect = processes.stream()
-                                    .collect(Collectors.groupingBy(RegenerationProcess::getPresetName));
-
-                            for (Map.Entry<String, List<RegenerationProcess>> byPreset : byPresetCollect.entrySet()) {
-                                int byPresetCount = byPreset.getValue().size();
-                                stats.append("&f").append(byPreset.getKey()).append(" &7(&f").append(byPresetCount).append("&7) ");
-                            }
-                            stats.append("\n");
+                        for (Map.Entry<String, Integer> byPreset : byRegion.getValue().entrySet()) {
+                            stats.append("&f").append(byPreset.getKey()).append(" &7(&f").append(byPreset.getValue()).append("&7) ");
                         }
+                        stats.append("\n");
                     }
-                    sender.sendMessage(Colors.color(stats.toString()));
-                });
+                }
+                sender.sendMessage(Colors.color(stats.toString()));
                 break;
             }
             case "debug":
@@ -30,6 +30,8 @@ public class CompatibilityManager {
     @Getter
     private final ProviderContainer<MMOItemsProvider> mmoItems;
 
+    @Getter
+    private final ProviderContainer<TownyProvider> towny;
     @Getter
     private final ProviderContainer<GriefPreventionProvider> griefPrevention;
     @Getter
@@ -37,6 +39,10 @@ public class CompatibilityManager {
     @Getter
     private final ProviderContainer<EconomyProvider> economy;
 
+    // Outcomes of Towny, GriefPrevention, WorldGuard and Residence checks.
+    @Getter
+    private final ProtectionCache protectionCache = new ProtectionCache();
+
     public CompatibilityManager(BlockRegenPlugin plugin) {
         this.plugin = plugin;
 
@@ -48,6 +54,7 @@ public class CompatibilityManager {
         this.nexo = createProvider("Nexo", () -> new NexoProvider(plugin));
         this.mmoItems = createProvider("MMOItems", () -> new MMOItemsProvider(plugin));
 
+        this.towny = createProvider("Towny", () -> new TownyProvider(plugin));
         this.griefPrevention = createProvider("GriefPrevention", () -> new GriefPreventionProvider(plugin));
         this.residence = createProvider("Residence", () -> new ResidenceProvider(plugin));
 
@@ -0,0 +1,138 @@
+package nl.aurorion.blockregen.compatibility;
+
+import nl.aurorion.blockregen.listener.EventType;
+import nl.aurorion.blockregen.util.BlockPositions;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Short-lived outcomes of protection plugin checks per player and chunk.
+ * <p>
+ * Claims and regions of protection plugins don't have to line up with chunks, an outcome might be reused for a block
+ * the provider would answer differently for. Keep the time short. Outcomes are dropped whenever a provider reports a
+ * claim change, on reload and when the player quits.
+ * <p>
+ * Not thread-safe, used from the main thread only.
+ */
+public class ProtectionCache {
+
+    public enum Provider {
+        TOWNY, GRIEF_PREVENTION, WORLD_GUARD, RESIDENCE
+    }
+
+    // Expired outcomes are purged once there's more of them.
+    private static final int PURGE_THRESHOLD = 4096;
+
+    private static final class Key {
+        private final Provider provider;
+        private final UUID player;
+        private final String worldName;
+        private final long chunkKey;
+        private final EventType type;
+        private final int hash;
+
+        private Key(Provider provider, UUID player, String worldName, long chunkKey, EventType type) {
+            this.provider = provider;
+            this.player = player;
+            this.worldName = worldName;
+            this.chunkKey = chunkKey;
+            this.type = type;
+            this.hash = Objects.hash(provider, player, worldName, chunkKey, type);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return chunkKey == key.chunkKey && provider == key.provider && type == key.type
+                    && player.equals(key.player) && worldName.equals(key.worldName);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class Outcome {
+        private final boolean protect;
+        private final long expires;
+
+        private Outcome(boolean protect, long expires) {
+            this.protect = protect;
+            this.expires = expires;
+        }
+    }
+
+    private final Map<Key, Outcome> outcomes = new HashMap<>();
+
+    private final long[] hits = new long[Provider.values().length];
+    private final long[] misses = new long[Provider.values().length];
+
+    /**
+     * Whether the provider protects the block against the player. Asks the provider through check unless there's
+     * a recent outcome for the chunk. A cache time of 0 always asks.
+     */
+    public boolean isProtected(@NotNull Provider provider, @NotNull Player player, @NotNull Block block, @NotNull EventType type,
+                               long cacheMillis, @NotNull BooleanSupplier check) {
+        if (cacheMillis <= 0) {
+            return check.getAsBoolean();
+        }
+
+        long now = System.currentTimeMillis();
+        Key key = new Key(provider, player.getUniqueId(), block.getWorld().getName(),
+                BlockPositions.chunkKeyAt(block.getX(), block.getZ()), type);
+
+        Outcome outcome = outcomes.get(key);
+        if (outcome != null && outcome.expires > now) {
+            hits[provider.ordinal()]++;
+            return outcome.protect;
+        }
+
+        misses[provider.ordinal()]++;
+
+        boolean protect = check.getAsBoolean();
+
+        if (outcomes.size() >= PURGE_THRESHOLD) {
+            outcomes.values().removeIf(o -> o.expires <= now);
+        }
+        outcomes.put(key, new Outcome(protect, now + cacheMillis));
+        return protect;
+    }
+
+    /**
+     * Share of checks answered from the cache since the last reset, between 0 and 1.
+     */
+    public double getHitRate(@NotNull Provider provider) {
+        long hits = this.hits[provider.ordinal()];
+        long total = hits + this.misses[provider.ordinal()];
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    public long getChecks(@NotNull Provider provider) {
+        return hits[provider.ordinal()] + misses[provider.ordinal()];
+    }
+
+    public void resetStats() {
+        Arrays.fill(hits, 0);
+        Arrays.fill(misses, 0);
+    }
+
+    public void invalidate(@NotNull UUID player) {
+        outcomes.keySet().removeIf(key -> key.player.equals(player));
+    }
+
+    // Claims changed somewhere.
+    public void invalidateAll() {
+        outcomes.clear();
+    }
+
+    public int size() {
+        return outcomes.size();
+    }
+}
@@ -19,8 +19,12 @@ public class EconomyProvider extends CompatibilityProvider {
         setFeatures("rewards");
     }
 
-    public void depositPlayer(OfflinePlayer player, double money) {
-        this.economy.depositPlayer(player, money);
+    public boolean depositPlayer(OfflinePlayer player, double money) {
+        return this.economy.depositPlayer(player, money).transactionSuccess();
+    }
+
+    public String format(double money) {
+        return this.economy.format(money);
     }
 
     @Override
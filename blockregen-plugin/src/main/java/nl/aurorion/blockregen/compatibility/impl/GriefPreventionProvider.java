@@ -3,13 +3,19 @@ package nl.aurorion.blockregen.compatibility.impl;
 import lombok.Getter;
 import lombok.extern.java.Log;
 import me.ryanhamshire.GriefPrevention.GriefPrevention;
+import me.ryanhamshire.GriefPrevention.events.ClaimCreatedEvent;
+import me.ryanhamshire.GriefPrevention.events.ClaimDeletedEvent;
+import me.ryanhamshire.GriefPrevention.events.ClaimModifiedEvent;
+import me.ryanhamshire.GriefPrevention.events.TrustChangedEvent;
 import nl.aurorion.blockregen.api.BlockRegenPlugin;
 import nl.aurorion.blockregen.compatibility.CompatibilityProvider;
 import org.bukkit.block.Block;
 import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
 
 @Log
-public class GriefPreventionProvider extends CompatibilityProvider {
+public class GriefPreventionProvider extends CompatibilityProvider implements Listener {
 
     @Getter
     private GriefPrevention griefPrevention;
@@ -31,5 +37,28 @@ public class GriefPreventionProvider extends CompatibilityProvider {
     @Override
     public void onLoad() {
         this.griefPrevention = GriefPrevention.instance;
+        plugin.getServer().getPluginManager().registerEvents(this, plugin);
+    }
+
+    // Claims or trust changed, cached protection outcomes might be wrong now.
+
+    @EventHandler
+    public void onClaimCreated(ClaimCreatedEvent event) {
+        plugin.getCompatibilityManager().getProtectionCache().invalidateAll();
+    }
+
+    @EventHandler
+    public void onClaimDeleted(ClaimDeletedEvent event) {
+        plugin.getCompatibilityManager().getProtectionCache().invalidateAll();
+    }
+
+    @EventHandler
+    public void onClaimModified(ClaimModifiedEvent event) {
+        plugin.getCompatibilityManager().getProtectionCache().invalidateAll();
+    }
+
+    @EventHandler
+    public void onTrustChanged(TrustChangedEvent event) {
+        plugin.getCompatibilityManager().getProtectionCache().invalidateAll();
     }
 }
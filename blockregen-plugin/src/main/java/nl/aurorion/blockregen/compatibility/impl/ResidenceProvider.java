@@ -2,6 +2,9 @@ package nl.aurorion.blockregen.compatibility.impl;
 
 import com.bekvon.bukkit.residence.api.ResidenceApi;
 import com.bekvon.bukkit.residence.containers.Flags;
+import com.bekvon.bukkit.residence.event.ResidenceCreationEvent;
+import com.bekvon.bukkit.residence.event.ResidenceDeleteEvent;
+import com.bekvon.bukkit.residence.event.ResidenceFlagChangeEvent;
 import com.bekvon.bukkit.residence.protection.ClaimedResidence;
 import com.bekvon.bukkit.residence.protection.ResidencePermissions;
 import lombok.extern.java.Log;
@@ -10,9 +13,11 @@ import nl.aurorion.blockregen.listener.EventType;
 import nl.aurorion.blockregen.compatibility.CompatibilityProvider;
 import org.bukkit.block.Block;
 import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
 
 @Log
-public class ResidenceProvider extends CompatibilityProvider {
+public class ResidenceProvider extends CompatibilityProvider implements Listener {
 
     public ResidenceProvider(BlockRegenPlugin plugin) {
         super(plugin);
@@ -41,4 +46,26 @@ public class ResidenceProvider extends CompatibilityProvider {
         }
         return true;
     }
+
+    @Override
+    public void onLoad() {
+        plugin.getServer().getPluginManager().registerEvents(this, plugin);
+    }
+
+    // Residences or their flags changed, cached protection outcomes might be wrong now.
+
+    @EventHandler
+    public void onCreate(ResidenceCreationEvent event) {
+        plugin.getCompatibilityManager().getProtectionCache().invalidateAll();
+    }
+
+    @EventHandler
+    public void onDelete(ResidenceDeleteEvent event) {
+        plugin.getCompatibilityManager().getProtectionCache().invalidateAll();
+    }
+
+    @EventHandler
+    public void onFlagChange(ResidenceFlagChangeEvent event) {
+        plugin.getCompatibilityManager().getProtectionCache().invalidateAll();
+    }
 }
@@ -0,0 +1,53 @@
+package nl.aurorion.blockregen.compatibility.impl;
+
+import com.palmergames.bukkit.towny.TownyAPI;
+import com.palmergames.bukkit.towny.event.DeleteTownEvent;
+import com.palmergames.bukkit.towny.event.TownClaimEvent;
+import com.palmergames.bukkit.towny.event.TownUnclaimEvent;
+import com.palmergames.bukkit.towny.object.TownBlock;
+import lombok.extern.java.Log;
+import nl.aurorion.blockregen.api.BlockRegenPlugin;
+import nl.aurorion.blockregen.compatibility.CompatibilityProvider;
+import org.bukkit.block.Block;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+
+@Log
+public class TownyProvider extends CompatibilityProvider implements Listener {
+
+    public TownyProvider(BlockRegenPlugin plugin) {
+        super(plugin);
+    }
+
+    // Blocks inside towns are left to Towny.
+    public boolean isInTown(Block block) {
+        TownBlock townBlock = TownyAPI.getInstance().getTownBlock(block.getLocation());
+
+        if (townBlock != null && townBlock.hasTown()) {
+            log.fine(() -> "Let Towny handle this.");
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void onLoad() {
+        plugin.getServer().getPluginManager().registerEvents(this, plugin);
+    }
+
+    // Cached results for the claimed or released blocks are out of date.
+    @EventHandler
+    public void onClaim(TownClaimEvent event) {
+        plugin.getCompatibilityManager().getProtectionCache().invalidateAll();
+    }
+
+    @EventHandler
+    public void onUnclaim(TownUnclaimEvent event) {
+        plugin.getCompatibilityManager().getProtectionCache().invalidateAll();
+    }
+
+    @EventHandler
+    public void onDelete(DeleteTownEvent event) {
+        plugin.getCompatibilityManager().getProtectionCache().invalidateAll();
+    }
+}
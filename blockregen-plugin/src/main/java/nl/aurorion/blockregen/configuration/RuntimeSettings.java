@@ -0,0 +1,93 @@
+package nl.aurorion.blockregen.configuration;
+
+import lombok.Getter;
+import nl.aurorion.blockregen.api.version.VersionManager;
+import nl.aurorion.blockregen.reward.PendingDeposits;
+import org.bukkit.configuration.ConfigurationSection;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Settings read on every event, compiled from Settings.yml once per load.
+ * <p>
+ * Immutable, a reload builds a new one and swaps it in. Anything checked in listeners should be read from here instead
+ * of the configuration, which parses lists and walks the section tree on every call.
+ */
+@Getter
+public class RuntimeSettings {
+
+    private final Set<String> enabledWorlds;
+
+    private final boolean useRegions;
+
+    // Unset lets presets decide, false turns physics handling off completely.
+    private final boolean disablePhysics;
+
+    private final boolean disableOtherBreak;
+
+    private final boolean bypassInCreative;
+
+    private final boolean townySupport;
+    private final boolean griefPreventionSupport;
+    private final boolean worldGuardSupport;
+    private final boolean residenceSupport;
+
+    // Leave breaks GriefPrevention or Residence deny to them. Their outcome used to be ignored.
+    private final boolean honorClaimDenials;
+
+    private final boolean jobsRewards;
+
+    // How long permission decisions are remembered, 0 to check every time.
+    private final long permissionCacheMillis;
+
+    // How long protection plugin outcomes are reused within a chunk, 0 to check every time.
+    private final long protectionCacheMillis;
+
+    // How often collected money rewards are deposited, 0 to deposit on every break.
+    private final long depositIntervalTicks;
+
+    private final PendingDeposits.Summary depositSummary;
+
+    // 1.8 and below. No boss bars, particles or BlockBreakEvent#setDropItems.
+    private final boolean legacy;
+
+    // 1.9+, interact events fire for both hands.
+    private final boolean offHand;
+
+    private RuntimeSettings(ConfigurationSection config, VersionManager versionManager) {
+        this.enabledWorlds = Collections.unmodifiableSet(new HashSet<>(config.getStringList("Worlds-Enabled")));
+        this.useRegions = config.getBoolean("Use-Regions", false);
+        this.disablePhysics = !config.isSet("Disable-Physics") || config.getBoolean("Disable-Physics", false);
+        this.disableOtherBreak = config.getBoolean("Disable-Other-Break", false);
+        this.bypassInCreative = config.getBoolean("Bypass-In-Creative", false);
+
+        this.townySupport = config.getBoolean("Towny-Support", true);
+        this.griefPreventionSupport = config.getBoolean("GriefPrevention-Support", true);
+        this.worldGuardSupport = config.getBoolean("WorldGuard-Support", true);
+        this.residenceSupport = config.getBoolean("Residence-Support", true);
+        this.honorClaimDenials = config.getBoolean("Honor-Claim-Denials", false);
+
+        this.jobsRewards = config.getBoolean("Jobs-Rewards", false);
+
+        this.permissionCacheMillis = Math.max(config.getLong("Permission-Cache-Time", 0), 0) * 1000L;
+        this.protectionCacheMillis = Math.max(config.getLong("Protection-Cache-Time", 0), 0) * 1000L;
+
+        this.depositIntervalTicks = Math.max(config.getLong("Economy.Deposit-Interval", 5), 0) * 20L;
+        this.depositSummary = PendingDeposits.Summary.parse(config.getString("Economy.Summary"));
+
+        this.legacy = versionManager.isCurrentBelow("1.8", true);
+        this.offHand = versionManager.isCurrentAbove("1.9", true);
+    }
+
+    @NotNull
+    public static RuntimeSettings compile(@NotNull ConfigurationSection config, @NotNull VersionManager versionManager) {
+        return new RuntimeSettings(config, versionManager);
+    }
+
+    public boolean isWorldEnabled(@NotNull String worldName) {
+        return enabledWorlds.contains(worldName);
+    }
+}
@@ -37,7 +37,7 @@ public class EventManager {
      * Remove Player from all active bars.
      */
     public void removeBars(Player player) {
-        if (plugin.getVersionManager().isCurrentBelow("1.8", true))
+        if (plugin.getRuntimeSettings().isLegacy())
             return;
 
         for (PresetEvent event : getEvents(e -> e.isEnabled() && e.getActiveBossBar() != null)) {
@@ -49,7 +49,7 @@ public class EventManager {
      * Add player to all active bars.
      */
     public void addBars(Player player) {
-        if (plugin.getVersionManager().isCurrentBelow("1.8", true))
+        if (plugin.getRuntimeSettings().isLegacy())
             return;
 
         for (PresetEvent event : getEvents(e -> e.isEnabled() && e.getActiveBossBar() != null)) {
@@ -64,7 +64,7 @@ public class EventManager {
         event.setEnabled(false);
         log.fine(() -> "Disabled event " + event.getName());
 
-        if (plugin.getVersionManager().isCurrentBelow("1.8", true))
+        if (plugin.getRuntimeSettings().isLegacy())
             return;
 
         // Boss bar
@@ -95,7 +95,7 @@ public class EventManager {
         event.setEnabled(true);
         log.fine(() -> "Enabled event " + event.getName());
 
-        if (plugin.getVersionManager().isCurrentBelow("1.8", true) || event.getBossBar() == null)
+        if (plugin.getRuntimeSettings().isLegacy() || event.getBossBar() == null)
             return;
 
         // Boss bar
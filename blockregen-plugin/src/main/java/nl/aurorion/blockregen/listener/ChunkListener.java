@@ -0,0 +1,37 @@
+package nl.aurorion.blockregen.listener;
+
+import nl.aurorion.blockregen.api.BlockRegenPlugin;
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.ChunkLoadEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+
+// Suspend and resume regeneration processes with their chunks.
+public class ChunkListener implements Listener {
+
+    private final BlockRegenPlugin plugin;
+
+    public ChunkListener(BlockRegenPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkLoad(ChunkLoadEvent event) {
+        Chunk chunk = event.getChunk();
+
+        // Don't modify blocks while the chunk is still loading.
+        Bukkit.getScheduler().runTask(plugin, () -> {
+            if (chunk.isLoaded()) {
+                plugin.getRegenerationManager().handleChunkLoad(chunk);
+            }
+        });
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkUnload(ChunkUnloadEvent event) {
+        plugin.getRegenerationManager().handleChunkUnload(event.getChunk());
+    }
+}
@@ -9,15 +9,19 @@ import nl.aurorion.blockregen.regeneration.struct.RegenerationProcess;
 import nl.aurorion.blockregen.region.RegionSelection;
 import nl.aurorion.blockregen.region.struct.RegenerationArea;
 import nl.aurorion.blockregen.version.api.NodeData;
+import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.block.Action;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
 import org.bukkit.event.player.PlayerInteractEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.inventory.EquipmentSlot;
 
+import java.util.UUID;
+
 @Log
 public class PlayerListener implements Listener {
 
@@ -32,7 +36,7 @@ public class PlayerListener implements Listener {
         Player player = event.getPlayer();
 
         // Ignore offhand events at 1.9+
-        if (plugin.getVersionManager().isCurrentAbove("1.9", true) && event.getHand() == EquipmentSlot.OFF_HAND) {
+        if (plugin.getRuntimeSettings().isOffHand() && event.getHand() == EquipmentSlot.OFF_HAND) {
             return;
         }
 
@@ -163,5 +167,17 @@ public class PlayerListener implements Listener {
     @EventHandler
     public void onQuit(PlayerQuitEvent event) {
         plugin.getEventManager().removeBars(event.getPlayer());
+        plugin.getPermissionCache().invalidate(event.getPlayer().getUniqueId());
+        plugin.getCompatibilityManager().getProtectionCache().invalidate(event.getPlayer().getUniqueId());
+
+        // Deposit collected money, off the main thread.
+        UUID id = event.getPlayer().getUniqueId();
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> plugin.getPendingDeposits().flush(id));
+    }
+
+    // Permissions can be per world.
+    @EventHandler
+    public void onWorldChange(PlayerChangedWorldEvent event) {
+        plugin.getPermissionCache().invalidate(event.getPlayer().getUniqueId());
     }
 }
\ No newline at end of file
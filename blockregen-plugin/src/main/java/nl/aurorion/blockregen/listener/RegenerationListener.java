@@ -3,28 +3,30 @@ package nl.aurorion.blockregen.listener;
 import com.cryptomorin.xseries.XBlock;
 import com.cryptomorin.xseries.XMaterial;
 import com.linecorp.conditional.ConditionContext;
-import com.palmergames.bukkit.towny.TownyAPI;
-import com.palmergames.bukkit.towny.object.TownBlock;
 import lombok.extern.java.Log;
 import nl.aurorion.blockregen.Message;
 import nl.aurorion.blockregen.api.BlockRegenBlockBreakEvent;
 import nl.aurorion.blockregen.api.BlockRegenPlugin;
+import nl.aurorion.blockregen.compatibility.CompatibilityManager;
+import nl.aurorion.blockregen.compatibility.ProtectionCache;
+import nl.aurorion.blockregen.configuration.RuntimeSettings;
 import nl.aurorion.blockregen.event.struct.PresetEvent;
+import nl.aurorion.blockregen.permission.PermissionKey;
 import nl.aurorion.blockregen.preset.BlockPreset;
 import nl.aurorion.blockregen.preset.drop.DropItem;
 import nl.aurorion.blockregen.preset.drop.ExperienceDrop;
 import nl.aurorion.blockregen.regeneration.struct.RegenerationProcess;
 import nl.aurorion.blockregen.region.struct.RegenerationArea;
+import nl.aurorion.blockregen.reward.Reward;
 import nl.aurorion.blockregen.util.Blocks;
 import nl.aurorion.blockregen.util.Items;
 import nl.aurorion.blockregen.util.Locations;
-import nl.aurorion.blockregen.util.Text;
+import nl.aurorion.blockregen.util.PlaceholderContext;
+import nl.aurorion.blockregen.version.api.WorldGuardProvider;
 import org.bukkit.*;
 import org.bukkit.block.Block;
 import org.bukkit.block.BlockFace;
 import org.bukkit.block.BlockState;
-import org.bukkit.entity.ExperienceOrb;
-import org.bukkit.entity.Item;
 import org.bukkit.entity.Player;
 import org.bukkit.event.*;
 import org.bukkit.event.block.Action;
@@ -36,7 +38,6 @@ import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
 import java.util.function.BiConsumer;
-import java.util.function.Function;
 import java.util.function.Predicate;
 
 @Log
@@ -50,17 +51,32 @@ public class RegenerationListener implements Listener {
 
     @EventHandler
     public void onPhysics(BlockPhysicsEvent event) {
-        if (plugin.getConfig().isSet("Disable-Physics") && !plugin.getConfig().getBoolean("Disable-Physics", false)) {
+        RuntimeSettings settings = plugin.getRuntimeSettings();
+
+        if (!settings.isDisablePhysics()) {
+            return;
+        }
+
+        Block source = event.getSourceBlock();
+
+        // Fast path, no process that disables physics in the chunk.
+        if (!plugin.getRegenerationManager().mayDisablePhysics(source)) {
+            return;
+        }
+
+        // Only deny physics if the update is caused by a regenerating block.
+        RegenerationProcess process = plugin.getRegenerationManager().getProcess(source);
+        if (process == null || !process.getPreset().isDisablePhysics()) {
             return;
         }
 
         Block block = event.getBlock();
         World world = block.getWorld();
 
-        boolean useRegions = plugin.getConfig().getBoolean("Use-Regions", false);
+        boolean useRegions = settings.isUseRegions();
         RegenerationArea region = plugin.getRegionManager().getArea(block);
 
-        boolean isInWorld = plugin.getConfig().getStringList("Worlds-Enabled").contains(world.getName());
+        boolean isInWorld = settings.isWorldEnabled(world.getName());
         boolean isInRegion = region != null;
 
         boolean isInZone = useRegions ? isInRegion : isInWorld;
@@ -69,11 +85,6 @@ public class RegenerationListener implements Listener {
             return;
         }
 
-        // Only deny physics if the update is caused by a regenerating block.
-        RegenerationProcess process = plugin.getRegenerationManager().getProcess(event.getSourceBlock());
-        if (process == null || !process.getPreset().isDisablePhysics()) {
-            return;
-        }
         event.setCancelled(true);
         log.fine(() -> event.getChangedType() + " " + Blocks.blockToString(event.getBlock()));
     }
@@ -122,13 +133,16 @@ public class RegenerationListener implements Listener {
                 return;
             }
 
-            if (existingProcess.getRegenerationTime() > System.currentTimeMillis()) {
+            // Still regenerating or waiting in the queue to be placed.
+            if (existingProcess.getRegenerationTime() > System.currentTimeMillis() || existingProcess.isQueued()) {
                 log.fine(() -> String.format("Block is regenerating. Process: %s", existingProcess));
                 event.setCancelled(true);
                 return;
             }
         }
 
+        RuntimeSettings settings = plugin.getRuntimeSettings();
+
         // Check bypass
         if (hasBypass(player)) {
             log.fine(() -> "Player has bypass.");
@@ -142,17 +156,24 @@ public class RegenerationListener implements Listener {
             return;
         }
 
-        // If the block is protected, do nothing.
-        if (checkProtection(player, block, type)) {
+        // No preset targets this kind of block, skip protection, region and permission checks.
+        if (!settings.isDisableOtherBreak() && !plugin.getPresetManager().isTargeted(block)) {
+            log.fine(() -> String.format("%s is not a configured preset.", block.getType()));
+            return;
+        }
+
+        RegenerationArea region = plugin.getRegionManager().getArea(block);
+
+        // If the block is protected, do nothing. Authoritative areas aren't claimed by other plugins.
+        if ((region == null || !region.isAuthoritative()) && checkProtection(settings, player, block, type)) {
             return;
         }
 
         World world = block.getWorld();
 
-        boolean useRegions = plugin.getConfig().getBoolean("Use-Regions", false);
-        RegenerationArea region = plugin.getRegionManager().getArea(block);
+        boolean useRegions = settings.isUseRegions();
 
-        boolean isInWorld = plugin.getConfig().getStringList("Worlds-Enabled").contains(world.getName());
+        boolean isInWorld = settings.isWorldEnabled(world.getName());
         boolean isInRegion = region != null;
 
         boolean isInZone = useRegions ? isInRegion : isInWorld;
@@ -172,7 +193,7 @@ public class RegenerationListener implements Listener {
                 log.fine(() -> String.format("Region %s does not have preset %s configured.", region.getName(), preset.getName()));
             }
 
-            if (plugin.getConfig().getBoolean("Disable-Other-Break")) {
+            if (settings.isDisableOtherBreak()) {
                 event.setCancelled(true);
                 log.fine(() -> String.format("%s is not a configured preset. Denied block break.", block.getType()));
                 return;
@@ -183,7 +204,7 @@ public class RegenerationListener implements Listener {
         }
 
         // Check region permissions
-        if (isInRegion && lacksPermission(player, "blockregen.region", region.getName()) && !player.isOp()) {
+        if (isInRegion && lacksPermission(player, region.getPermission()) && !player.isOp()) {
             event.setCancelled(true);
             Message.PERMISSION_REGION_ERROR.send(player);
             log.fine(() -> String.format("Player doesn't have permissions for region %s", region.getName()));
@@ -192,7 +213,7 @@ public class RegenerationListener implements Listener {
 
         // Check block permissions
         // Mostly kept out of backwards compatibility with peoples settings and expectancies over how this works.
-        if (lacksPermission(player, "blockregen.block", block.getType().toString()) && !player.isOp()) {
+        if (lacksPermission(player, plugin.getPermissionCache().getBlockKey(block.getType())) && !player.isOp()) {
             Message.PERMISSION_BLOCK_ERROR.send(player);
             event.setCancelled(true);
             log.fine(() -> String.format("Player doesn't have permission for block %s.", block.getType()));
@@ -200,7 +221,7 @@ public class RegenerationListener implements Listener {
         }
 
         // Check preset permissions
-        if (lacksPermission(player, "blockregen.preset", preset.getName()) && !player.isOp()) {
+        if (lacksPermission(player, preset.getPermission()) && !player.isOp()) {
             Message.PERMISSION_BLOCK_ERROR.send(player);
             event.setCancelled(true);
             log.fine(() -> String.format("Player doesn't have permission for preset %s.", preset.getName()));
@@ -247,7 +268,7 @@ public class RegenerationListener implements Listener {
             BlockBreakEvent blockBreakEvent = (BlockBreakEvent) event;
 
             // We're dropping the items ourselves.
-            if (plugin.getVersionManager().isCurrentAbove("1.8", false)) {
+            if (!plugin.getRuntimeSettings().isLegacy()) {
                 blockBreakEvent.setDropItems(false);
                 log.fine(() -> "Cancelled BlockDropItemEvent");
             }
@@ -294,68 +315,64 @@ public class RegenerationListener implements Listener {
     // Check for supported protection plugins' regions and settings.
     // If any of them are protecting this block, allow them to handle this and do nothing.
     // We do this just in case some protection plugins fire after us and the event wouldn't be cancelled.
-    private boolean checkProtection(Player player, Block block, EventType type) {
-        // Towny
-        if (plugin.getConfig().getBoolean("Towny-Support", true) &&
-                plugin.getServer().getPluginManager().getPlugin("Towny") != null) {
+    private boolean checkProtection(RuntimeSettings settings, Player player, Block block, EventType type) {
+        CompatibilityManager compatibility = plugin.getCompatibilityManager();
+        ProtectionCache cache = compatibility.getProtectionCache();
+        long cacheMillis = settings.getProtectionCacheMillis();
 
-            TownBlock townBlock = TownyAPI.getInstance().getTownBlock(block.getLocation());
-
-            if (townBlock != null && townBlock.hasTown()) {
-                log.fine(() -> "Let Towny handle this.");
-                return true;
-            }
+        // Towny
+        if (settings.isTownySupport() && compatibility.getTowny().isLoaded()
+                && cache.isProtected(ProtectionCache.Provider.TOWNY, player, block, type, cacheMillis,
+                () -> compatibility.getTowny().get().isInTown(block))) {
+            return true;
         }
 
-        // Grief Prevention
-        if (plugin.getConfig().getBoolean("GriefPrevention-Support", true) && plugin.getCompatibilityManager().getGriefPrevention().isLoaded()) {
-            plugin.getCompatibilityManager().getGriefPrevention().get().canBreak(block, player);
+        // Grief Prevention, its outcome only stops the break with Honor-Claim-Denials.
+        if (settings.isGriefPreventionSupport() && compatibility.getGriefPrevention().isLoaded()
+                && cache.isProtected(ProtectionCache.Provider.GRIEF_PREVENTION, player, block, type, cacheMillis,
+                () -> !compatibility.getGriefPrevention().get().canBreak(block, player))
+                && settings.isHonorClaimDenials()) {
+            return true;
         }
 
         // WorldGuard
-        if (plugin.getConfig().getBoolean("WorldGuard-Support", true)
-                && plugin.getVersionManager().getWorldGuardProvider() != null) {
+        WorldGuardProvider worldGuard = plugin.getVersionManager().getWorldGuardProvider();
+        if (settings.isWorldGuardSupport() && worldGuard != null
+                && cache.isProtected(ProtectionCache.Provider.WORLD_GUARD, player, block, type, cacheMillis,
+                () -> isProtectedByWorldGuard(worldGuard, player, block, type))) {
+            return true;
+        }
+
+        // Residence, same as Grief Prevention.
+        return settings.isResidenceSupport() && compatibility.getResidence().isLoaded()
+                && cache.isProtected(ProtectionCache.Provider.RESIDENCE, player, block, type, cacheMillis,
+                () -> !compatibility.getResidence().get().canBreak(block, player, type))
+                && settings.isHonorClaimDenials();
+    }
 
-            if (type == EventType.BLOCK_BREAK) {
-                if (!plugin.getVersionManager().getWorldGuardProvider().canBreak(player, block.getLocation())) {
-                    log.fine(() -> "Let WorldGuard handle block break.");
-                    return true;
-                }
-            } else if (type == EventType.TRAMPLING) {
-                if (!plugin.getVersionManager().getWorldGuardProvider().canTrample(player, block.getLocation())) {
-                    log.fine(() -> "Let WorldGuard handle trampling.");
-                    return true;
-                }
+    private boolean isProtectedByWorldGuard(WorldGuardProvider worldGuard, Player player, Block block, EventType type) {
+        if (type == EventType.BLOCK_BREAK) {
+            if (!worldGuard.canBreak(player, block.getLocation())) {
+                log.fine(() -> "Let WorldGuard handle block break.");
+                return true;
+            }
+        } else if (type == EventType.TRAMPLING) {
+            if (!worldGuard.canTrample(player, block.getLocation())) {
+                log.fine(() -> "Let WorldGuard handle trampling.");
+                return true;
             }
-        }
-
-        // Residence
-        if (plugin.getConfig().getBoolean("Residence-Support", true) && plugin.getCompatibilityManager().getResidence().isLoaded()) {
-            plugin.getCompatibilityManager().getResidence().get().canBreak(block, player, type);
         }
         return false;
     }
 
-    /*
-     We do this our own way, because default permissions don't seem to work well with LuckPerms.
-     (having a wildcard permission with default: true doesn't seem to work)
-
-     When neither of the permissions are defined allow everything.
-     Specific permission takes precedence over wildcards.
-    */
-    private boolean lacksPermission(Player player, String permission, String specific) {
-        boolean hasAll = player.hasPermission(String.format("%s.*", permission));
-        boolean allDefined = player.isPermissionSet(String.format("%s.*", permission));
-
-        boolean hasSpecific = player.hasPermission(String.format("%s.%s", permission, specific));
-        boolean specificDefined = player.isPermissionSet(String.format("%s.%s", permission, specific));
-
-        return !((hasAll && !specificDefined) || (!allDefined && !specificDefined) || (hasSpecific && specificDefined));
+    // See PermissionCache#lacksPermission(Player, PermissionKey) for how wildcards are handled.
+    private boolean lacksPermission(Player player, PermissionKey key) {
+        return plugin.getPermissionCache().lacksPermission(player, key, plugin.getRuntimeSettings().getPermissionCacheMillis());
     }
 
     private boolean hasBypass(Player player) {
         return plugin.getRegenerationManager().hasBypass(player)
-                || (plugin.getConfig().getBoolean("Bypass-In-Creative", false)
+                || (plugin.getRuntimeSettings().isBypassInCreative()
                 && player.getGameMode() == GameMode.CREATIVE);
     }
 
@@ -435,7 +452,7 @@ public class RegenerationListener implements Listener {
         List<ItemStack> vanillaDrops = new ArrayList<>(block.getDrops(plugin.getVersionManager().getMethods().getItemInMainHand(player)));
 
         // Cancels item drops below 1.8.
-        if (plugin.getVersionManager().isCurrentBelow("1.8", true)) {
+        if (plugin.getRuntimeSettings().isLegacy()) {
             block.setType(Material.AIR);
         }
 
@@ -451,7 +468,7 @@ public class RegenerationListener implements Listener {
     private void handleRewards(BlockState state, BlockPreset preset, Player player, List<ItemStack> vanillaDrops, int vanillaExperience) {
         Block block = state.getBlock();
 
-        Function<String, String> parser = (str) -> Text.parse(str, player, block);
+        PlaceholderContext placeholders = new PlaceholderContext(player, block);
 
         // Conditions
         ConditionContext ctx = ConditionContext.of(
@@ -460,16 +477,16 @@ public class RegenerationListener implements Listener {
                 "block", block
         );
 
-        // Run rewards async
+        // Evaluate rewards async, they're applied together with others on the next tick.
         Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-            Map<ItemStack, Boolean> drops = new HashMap<>();
+            Reward reward = new Reward(player, state, placeholders);
             int experience = 0;
 
             // Items and exp
             if (preset.isNaturalBreak()) {
 
                 for (ItemStack drop : vanillaDrops) {
-                    drops.put(drop, preset.isDropNaturally());
+                    reward.addDrop(drop, preset.isDropNaturally());
                 }
 
                 experience += vanillaExperience;
@@ -480,7 +497,7 @@ public class RegenerationListener implements Listener {
                         continue;
                     }
 
-                    ItemStack itemStack = drop.toItemStack(parser);
+                    ItemStack itemStack = drop.toItemStack(placeholders);
 
                     if (itemStack == null) {
                         continue;
@@ -492,7 +509,7 @@ public class RegenerationListener implements Listener {
                                 + itemStack.getAmount());
                     }
 
-                    drops.put(itemStack, drop.isDropNaturally());
+                    reward.addDrop(itemStack, drop.isDropNaturally());
 
                     ExperienceDrop experienceDrop = drop.getExperienceDrop();
                     if (experienceDrop != null) {
@@ -508,7 +525,7 @@ public class RegenerationListener implements Listener {
 
                 // Double drops and exp
                 if (presetEvent.isDoubleDrops()) {
-                    drops.keySet().forEach(drop -> drop.setAmount(drop.getAmount() * 2));
+                    reward.getDrops().keySet().forEach(drop -> drop.setAmount(drop.getAmount() * 2));
                 }
                 if (presetEvent.isDoubleExperience()) {
                     experience *= 2;
@@ -520,10 +537,10 @@ public class RegenerationListener implements Listener {
 
                     // Event item
                     if (eventDrop != null && eventDrop.shouldDrop() && eventDrop.getCondition().matches(ctx)) {
-                        ItemStack eventStack = eventDrop.toItemStack(parser);
+                        ItemStack eventStack = eventDrop.toItemStack(placeholders);
 
                         if (eventStack != null) {
-                            drops.put(eventStack, eventDrop.isDropNaturally());
+                            reward.addDrop(eventStack, eventDrop.isDropNaturally());
                         }
                     }
 
@@ -533,108 +550,33 @@ public class RegenerationListener implements Listener {
                             continue;
                         }
 
-                        ItemStack item = drop.toItemStack(parser);
+                        ItemStack item = drop.toItemStack(placeholders);
 
                         if (item != null) {
-                            drops.put(item, drop.isDropNaturally());
+                            reward.addDrop(item, drop.isDropNaturally());
                         }
                     }
 
-                    presetEvent.getRewards().give(player, parser);
+                    presetEvent.getRewards().give(reward);
                 }
             }
 
-            // Drop/give all the items & experience at once
-            giveItems(drops, state, player);
-            giveExp(block.getLocation(), player, experience, preset.isDropNaturally());
+            reward.setExperience(experience);
+            reward.setExperienceNaturally(preset.isDropNaturally());
 
             // Trigger Jobs Break if enabled
-            if (plugin.getConfig().getBoolean("Jobs-Rewards", false) && plugin.getCompatibilityManager().getJobs().isLoaded()) {
-                Bukkit.getScheduler().runTask(plugin, () -> plugin.getCompatibilityManager().getJobs().get().triggerBlockBreakAction(player, block));
-            }
+            reward.setJobs(plugin.getRuntimeSettings().isJobsRewards());
 
             // Other rewards - commands, money etc.
-            preset.getRewards().give(player, (str) -> Text.parse(str, player, block));
+            preset.getRewards().give(reward);
 
-            if (preset.getSound() != null) {
-                preset.getSound().play(block.getLocation());
-            }
+            reward.setSound(preset.getSound());
 
-            if (preset.getParticle() != null && plugin.getVersionManager().isCurrentAbove("1.8", false)) {
-                Bukkit.getScheduler().runTask(plugin,
-                        () -> plugin.getParticleManager().displayParticle(preset.getParticle(), block));
+            if (!plugin.getRuntimeSettings().isLegacy()) {
+                reward.setParticle(preset.getParticle());
             }
-        });
-    }
-
-    private void spawnExp(Location location, int amount) {
-        if (location.getWorld() == null) {
-            return;
-        }
-
-        Bukkit.getScheduler().runTask(plugin,
-                () -> location.getWorld().spawn(location, ExperienceOrb.class).setExperience(amount));
-        log.fine(() -> String.format("Spawning xp (%d).", amount));
-    }
 
-    private void giveExp(Location location, Player player, int amount, boolean naturally) {
-
-        if (amount == 0) {
-            return;
-        }
-
-        if (naturally) {
-            spawnExp(location, amount);
-        } else {
-            player.giveExp(amount);
-        }
-    }
-
-    private void giveItems(Map<ItemStack, Boolean> itemStacks, BlockState blockState, Player player) {
-        Bukkit.getScheduler().runTask(plugin, () -> {
-            List<Item> items = new ArrayList<>();
-
-            Location optimalSpawnLocation = getOptimalDropLocation(blockState.getBlock(), player);
-
-            for (Map.Entry<ItemStack, Boolean> entry : itemStacks.entrySet()) {
-                ItemStack item = entry.getKey();
-
-                if (entry.getValue()) {
-                    items.add(blockState.getWorld().dropItemNaturally(optimalSpawnLocation, item));
-                    log.fine(() -> "Dropping item " + item.getType() + "x" + item.getAmount());
-                } else {
-                    player.getInventory().addItem(item);
-                    log.fine(() -> "Giving item " + item.getType() + "x" + item.getAmount());
-                }
-            }
-
-            plugin.getVersionManager().getMethods().handleDropItemEvent(player, blockState, items);
+            plugin.getRewardDispatcher().submit(reward);
         });
     }
-
-    private Location getOptimalDropLocation(Block block, Player player) {
-        final BlockFace[] faces = new BlockFace[]{BlockFace.UP, BlockFace.NORTH, BlockFace.EAST, BlockFace.SOUTH, BlockFace.WEST};
-
-        BlockFace closestFace = null;
-        double closestDistance = Double.MAX_VALUE;
-
-        for (BlockFace face : faces) {
-            Block relative = block.getRelative(face);
-            if (relative.getType() != Material.AIR)
-                continue;
-
-            double distance = player.getLocation().distanceSquared(relative.getLocation());
-            if (distance < closestDistance) {
-                closestFace = face;
-                closestDistance = distance;
-            }
-        }
-
-        // drop items in the direction of the closest face
-        if (closestFace != null) {
-            return block.getRelative(closestFace).getLocation();
-        }
-
-        return block.getLocation();
-    }
 }
@@ -1,6 +1,8 @@
 package nl.aurorion.blockregen.material;
 
+import com.cryptomorin.xseries.XMaterial;
 import org.bukkit.block.Block;
+import org.jetbrains.annotations.Nullable;
 
 // A material either vanilla or from other plugins used to compare and place blocks.
 public interface BlockRegenMaterial {
@@ -10,6 +12,13 @@ public interface BlockRegenMaterial {
      */
     boolean check(Block block);
 
+    /**
+     * Same as {@link #check(Block)} with the type of the block already resolved, null if it couldn't be.
+     */
+    default boolean check(Block block, @Nullable XMaterial type) {
+        return check(block);
+    }
+
     /**
      * Set the type of the block and apply data.
      * */
@@ -23,6 +32,13 @@ public interface BlockRegenMaterial {
      */
     void setType(Block block);
 
+    /**
+     * Set the type of the block, without updating neighbouring blocks when applyPhysics is false.
+     */
+    default void setType(Block block, boolean applyPhysics) {
+        setType(block);
+    }
+
     /**
      * Apply any additional data of this material.
      * */
@@ -30,6 +46,13 @@ public interface BlockRegenMaterial {
         //
     }
 
+    /**
+     * Apply any additional data of this material, without updating neighbouring blocks when applyPhysics is false.
+     */
+    default void applyData(Block block, boolean applyPhysics) {
+        applyData(block);
+    }
+
     /**
      * Whether the material requires a block underneath it.
      * */
@@ -42,16 +42,34 @@ public class MinecraftMaterial implements BlockRegenMaterial {
         return res;
     }
 
+    @Override
+    public boolean check(Block block, @Nullable XMaterial type) {
+        if (type == null) {
+            return check(block);
+        }
+        return type == this.material && (this.nodeData == null || this.nodeData.matches(block));
+    }
+
     @Override
     public void applyData(Block block) {
+        applyData(block, true);
+    }
+
+    @Override
+    public void applyData(Block block, boolean applyPhysics) {
         if (this.nodeData != null) {
-            this.nodeData.apply(block);
+            this.nodeData.apply(block, applyPhysics);
         }
     }
 
     @Override
     public void setType(Block block) {
-        plugin.getVersionManager().getMethods().setType(block, this.material);
+        setType(block, true);
+    }
+
+    @Override
+    public void setType(Block block, boolean applyPhysics) {
+        plugin.getVersionManager().getMethods().setType(block, this.material, applyPhysics);
     }
 
     @Override
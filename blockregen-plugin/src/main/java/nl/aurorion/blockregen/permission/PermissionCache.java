@@ -0,0 +1,94 @@
+package nl.aurorion.blockregen.permission;
+
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers region, block and preset permission decisions per player for a while.
+ * <p>
+ * Permission plugins with large trees make every check noticeable, and a break checks up to three of them. Decisions
+ * are dropped when the player quits or changes worlds, on reload and once they get older than the configured time.
+ */
+public class PermissionCache {
+
+    private static final class Decisions {
+        private final long expires;
+        private final Map<PermissionKey, Boolean> lacks = new HashMap<>();
+
+        private Decisions(long expires) {
+            this.expires = expires;
+        }
+    }
+
+    private final Map<UUID, Decisions> players = new ConcurrentHashMap<>();
+
+    // Block type permissions, one key per material.
+    private final Map<Material, PermissionKey> blocks = new EnumMap<>(Material.class);
+
+    public PermissionCache() {
+        for (Material material : Material.values()) {
+            blocks.put(material, new PermissionKey("blockregen.block", material.toString()));
+        }
+    }
+
+    @NotNull
+    public PermissionKey getBlockKey(@NotNull Material material) {
+        return blocks.get(material);
+    }
+
+    /*
+     We do this our own way, because default permissions don't seem to work well with LuckPerms.
+     (having a wildcard permission with default: true doesn't seem to work)
+
+     When neither of the permissions are defined allow everything.
+     Specific permission takes precedence over wildcards.
+    */
+    public static boolean lacksPermission(@NotNull Player player, @NotNull PermissionKey key) {
+        boolean hasAll = player.hasPermission(key.getAll());
+        boolean allDefined = player.isPermissionSet(key.getAll());
+
+        boolean hasSpecific = player.hasPermission(key.getSpecific());
+        boolean specificDefined = player.isPermissionSet(key.getSpecific());
+
+        return !((hasAll && !specificDefined) || (!allDefined && !specificDefined) || (hasSpecific && specificDefined));
+    }
+
+    /**
+     * Same as {@link #lacksPermission(Player, PermissionKey)}, remembered for the given time. 0 doesn't cache.
+     */
+    public boolean lacksPermission(@NotNull Player player, @NotNull PermissionKey key, long cacheMillis) {
+        if (cacheMillis <= 0) {
+            return lacksPermission(player, key);
+        }
+
+        long now = System.currentTimeMillis();
+
+        Decisions decisions = players.get(player.getUniqueId());
+        if (decisions == null || decisions.expires <= now) {
+            decisions = new Decisions(now + cacheMillis);
+            players.put(player.getUniqueId(), decisions);
+        }
+
+        Boolean lacks = decisions.lacks.get(key);
+        if (lacks == null) {
+            lacks = lacksPermission(player, key);
+            decisions.lacks.put(key, lacks);
+        }
+        return lacks;
+    }
+
+    public void invalidate(@NotNull UUID uniqueId) {
+        players.remove(uniqueId);
+    }
+
+    public void invalidateAll() {
+        players.clear();
+    }
+}
@@ -0,0 +1,42 @@
+package nl.aurorion.blockregen.permission;
+
+import lombok.Getter;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Permission nodes of a wildcard-able check like {@code blockregen.preset.<name>}, built once instead of on every
+ * check.
+ */
+@Getter
+public class PermissionKey {
+
+    // ex.: blockregen.preset.*
+    private final String all;
+    // ex.: blockregen.preset.diamond_ore
+    private final String specific;
+
+    private final int hash;
+
+    public PermissionKey(@NotNull String namespace, @NotNull String specific) {
+        this.all = namespace + ".*";
+        this.specific = namespace + "." + specific;
+        this.hash = this.specific.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return specific.equals(((PermissionKey) o).specific);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return specific;
+    }
+}
@@ -3,6 +3,7 @@ package nl.aurorion.blockregen.preset;
 import com.cryptomorin.xseries.XSound;
 import com.linecorp.conditional.Condition;
 import lombok.Data;
+import nl.aurorion.blockregen.permission.PermissionKey;
 import nl.aurorion.blockregen.preset.material.PlacementMaterial;
 import nl.aurorion.blockregen.preset.material.TargetMaterial;
 import org.jetbrains.annotations.Nullable;
@@ -12,6 +13,9 @@ public class BlockPreset {
 
     private final String name;
 
+    // blockregen.preset.<name>
+    private final PermissionKey permission;
+
     private TargetMaterial targetMaterial;
 
     @Nullable
@@ -28,7 +32,7 @@ public class BlockPreset {
     private boolean applyFortune;
     private boolean dropNaturally;
 
-    // Disable physics of neighbouring blocks
+    // Disable physics of neighbouring blocks, blocks are also placed without updating them
     private boolean disablePhysics;
 
     // Specific handling for crops (cactus, sugarcane, wheat,...)
@@ -52,5 +56,6 @@ public class BlockPreset {
 
     public BlockPreset(String name) {
         this.name = name;
+        this.permission = new PermissionKey("blockregen.preset", name);
     }
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package nl.aurorion.blockregen.preset;
 
+import nl.aurorion.blockregen.util.TextTemplate;
+
 import java.util.Random;
 
 public class Command {
@@ -10,9 +12,12 @@ public class Command {
 
     private final double chance;
 
+    private final TextTemplate template;
+
     public Command(String command, double chance) {
         this.command = command;
         this.chance = chance;
+        this.template = TextTemplate.compile(command);
     }
 
     protected boolean shouldExecute() {
@@ -23,6 +28,10 @@ public class Command {
         return command;
     }
 
+    public TextTemplate getTemplate() {
+        return template;
+    }
+
     public double getChance() {
         return chance;
     }
@@ -0,0 +1,86 @@
+package nl.aurorion.blockregen.preset;
+
+import com.cryptomorin.xseries.XMaterial;
+import nl.aurorion.blockregen.material.BlockRegenMaterial;
+import nl.aurorion.blockregen.material.MinecraftMaterial;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Presets by the vanilla block type they target.
+ * <p>
+ * Presets targeting custom materials (ItemsAdder, Oraxen,...) can't be narrowed down by type and are candidates for
+ * every block. Candidates keep the order the presets were given in, the first matching one wins as before.
+ */
+public class PresetIndex {
+
+    private static final BlockPreset[] EMPTY = new BlockPreset[0];
+
+    private final Map<XMaterial, BlockPreset[]> byType = new EnumMap<>(XMaterial.class);
+
+    // Presets with at least one custom target material.
+    private final BlockPreset[] custom;
+
+    public PresetIndex(@NotNull Collection<BlockPreset> presets) {
+        Map<XMaterial, List<BlockPreset>> candidates = new EnumMap<>(XMaterial.class);
+        List<BlockPreset> custom = new ArrayList<>();
+
+        for (BlockPreset preset : presets) {
+            if (preset.getTargetMaterial() == null) {
+                continue;
+            }
+
+            for (BlockRegenMaterial material : preset.getTargetMaterial().getMaterials()) {
+                if (material instanceof MinecraftMaterial) {
+                    candidates.computeIfAbsent(((MinecraftMaterial) material).getMaterial(), k -> new ArrayList<>());
+                }
+            }
+        }
+
+        for (BlockPreset preset : presets) {
+            if (preset.getTargetMaterial() == null) {
+                continue;
+            }
+
+            Set<XMaterial> types = EnumSet.noneOf(XMaterial.class);
+            boolean isCustom = false;
+
+            for (BlockRegenMaterial material : preset.getTargetMaterial().getMaterials()) {
+                if (material instanceof MinecraftMaterial) {
+                    types.add(((MinecraftMaterial) material).getMaterial());
+                } else {
+                    isCustom = true;
+                }
+            }
+
+            if (isCustom) {
+                // Could match any type, in line with the others.
+                custom.add(preset);
+                candidates.values().forEach(list -> list.add(preset));
+            } else {
+                types.forEach(type -> candidates.get(type).add(preset));
+            }
+        }
+
+        candidates.forEach((type, list) -> byType.put(type, list.toArray(EMPTY)));
+        this.custom = custom.toArray(EMPTY);
+    }
+
+    /**
+     * Presets that could match a block of the type, in order. Only custom material presets if the type is null.
+     */
+    @NotNull
+    public BlockPreset[] getCandidates(@Nullable XMaterial type) {
+        BlockPreset[] candidates = type == null ? null : byType.get(type);
+        return candidates == null ? custom : candidates;
+    }
+
+    /**
+     * False if no preset can ever match a block of the type.
+     */
+    public boolean mightMatch(@Nullable XMaterial type) {
+        return custom.length > 0 || (type != null && byType.containsKey(type));
+    }
+}
@@ -39,6 +39,9 @@ public class PresetManager {
 
     private final Map<String, BlockPreset> presets = new HashMap<>();
 
+    // Built on first lookup after the presets change.
+    private PresetIndex index;
+
     @Getter
     private final GenericConditionProvider conditions = GenericConditionProvider.empty();
 
@@ -50,24 +53,44 @@ public class PresetManager {
         return presets.get(name);
     }
 
+    @NotNull
+    private PresetIndex getIndex() {
+        if (index == null) {
+            this.index = new PresetIndex(presets.values());
+        }
+        return index;
+    }
+
+    // Null if the type can't be resolved, only custom materials can match then.
     @Nullable
-    public BlockPreset getPreset(@NotNull Block block) {
-        for (BlockPreset preset : this.presets.values()) {
-            if (preset.getTargetMaterial().matches(block)) {
-                return preset;
-            }
+    private XMaterial getType(@NotNull Block block) {
+        try {
+            return plugin.getVersionManager().getMethods().getType(block);
+        } catch (IllegalArgumentException e) {
+            return null;
         }
-        return null;
+    }
+
+    /**
+     * Whether any preset could match the block. Cheap check to skip blocks that are never handled.
+     */
+    public boolean isTargeted(@NotNull Block block) {
+        PresetIndex index = getIndex();
+        // Don't resolve the type if a custom material could match anyway.
+        return index.mightMatch(null) || index.mightMatch(getType(block));
+    }
+
+    @Nullable
+    public BlockPreset getPreset(@NotNull Block block) {
+        return getPreset(block, null);
     }
 
     @Nullable
     public BlockPreset getPreset(@NotNull Block block, @Nullable RegenerationArea region) {
-        if (region == null) {
-            return getPreset(block);
-        }
+        XMaterial type = getType(block);
 
-        for (BlockPreset preset : this.presets.values()) {
-            if (preset.getTargetMaterial().matches(block) && region.hasPreset(preset.getName())) {
+        for (BlockPreset preset : getIndex().getCandidates(type)) {
+            if (preset.getTargetMaterial().matches(block, type) && (region == null || region.hasPreset(preset.getName()))) {
                 return preset;
             }
         }
@@ -80,6 +103,7 @@ public class PresetManager {
 
     public void load() {
         presets.clear();
+        this.index = null;
 
         // Clear all events before loading.
         plugin.getEventManager().clearEvents();
@@ -241,6 +265,7 @@ public class PresetManager {
         }
 
         presets.put(name, preset);
+        this.index = null;
         log.fine(() -> "Loaded preset " + preset);
     }
 
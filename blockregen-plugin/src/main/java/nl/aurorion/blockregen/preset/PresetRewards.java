@@ -6,13 +6,11 @@ import lombok.Setter;
 import lombok.extern.java.Log;
 import nl.aurorion.blockregen.BlockRegenPluginImpl;
 import nl.aurorion.blockregen.preset.drop.DropItem;
-import org.bukkit.Bukkit;
-import org.bukkit.entity.Player;
+import nl.aurorion.blockregen.reward.Reward;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.function.Function;
 
 @Log
 @NoArgsConstructor
@@ -31,19 +29,16 @@ public class PresetRewards {
     @Getter
     private List<DropItem> drops = new ArrayList<>();
 
-    public void give(Player player, Function<String, String> parser) {
+    /**
+     * Queue the money to deposit and add commands to run to the reward. Commands are dispatched with the rest of the reward.
+     */
+    public void give(Reward reward) {
         if (BlockRegenPluginImpl.getInstance().getCompatibilityManager().getEconomy().isLoaded()) {
-            double money = this.money.getDouble();
-            if (money > 0) {
-                BlockRegenPluginImpl.getInstance().getCompatibilityManager().getEconomy().get().depositPlayer(player, money);
-            }
+            BlockRegenPluginImpl.getInstance().getPendingDeposits().add(reward.getPlayer(), this.money.getDouble());
         }
 
-        // Sync commands
-        Bukkit.getScheduler().runTask(BlockRegenPluginImpl.getInstance(), () -> {
-            playerCommands.stream().filter(Command::shouldExecute).forEach(command -> Bukkit.dispatchCommand(player, parser.apply(command.getCommand())));
-            consoleCommands.stream().filter(Command::shouldExecute).forEach(command -> Bukkit.dispatchCommand(Bukkit.getConsoleSender(), parser.apply(command.getCommand())));
-        });
+        playerCommands.stream().filter(Command::shouldExecute).forEach(command -> reward.addPlayerCommand(command.getTemplate()));
+        consoleCommands.stream().filter(Command::shouldExecute).forEach(command -> reward.addConsoleCommand(command.getTemplate()));
     }
 
     public void parseConsoleCommands(@NotNull List<String> consoleCommands) {
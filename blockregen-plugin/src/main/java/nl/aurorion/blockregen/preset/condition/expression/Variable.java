@@ -2,10 +2,7 @@ package nl.aurorion.blockregen.preset.condition.expression;
 
 import com.linecorp.conditional.ConditionContext;
 import lombok.Getter;
-import me.clip.placeholderapi.PlaceholderAPI;
-import nl.aurorion.blockregen.api.BlockRegenPlugin;
-import nl.aurorion.blockregen.util.Text;
-import org.bukkit.entity.Player;
+import nl.aurorion.blockregen.util.TextTemplate;
 
 // Placeholder or another value. Gets parsed at execution time.
 public class Variable implements Operand {
@@ -13,16 +10,17 @@ public class Variable implements Operand {
     @Getter
     private final String content;
 
+    private final TextTemplate template;
+
     public Variable(String content) {
         this.content = content;
+        this.template = TextTemplate.compile(content);
     }
 
     @Override
     public Object value(ConditionContext ctx) {
-        String result = Text.parse(content, ctx.contextVariables().values().toArray());
-        if (BlockRegenPlugin.getInstance().isUsePlaceholderAPI()) {
-            result = PlaceholderAPI.setPlaceholders((Player) ctx.mustVar("player"), result);
-        }
+        // Resolves PlaceholderAPI placeholders too, with the player in the context.
+        String result = template.render(ctx.contextVariables().values().toArray());
         return Operand.Parser.parseObject(result);
     }
 
@@ -6,10 +6,9 @@ import lombok.Setter;
 import lombok.extern.java.Log;
 import nl.aurorion.blockregen.BlockRegenPluginImpl;
 import nl.aurorion.blockregen.preset.NumberValue;
+import nl.aurorion.blockregen.util.PlaceholderContext;
 import org.bukkit.inventory.ItemStack;
 
-import java.util.function.Function;
-
 @Getter
 @Log
 public abstract class DropItem {
@@ -30,7 +29,7 @@ public abstract class DropItem {
     protected Condition condition;
 
     // Serialize this drop into an item stack.
-    public abstract ItemStack toItemStack(Function<String, String> parser);
+    public abstract ItemStack toItemStack(PlaceholderContext placeholders);
 
     public boolean shouldDrop() {
         // x/100% chance to drop
@@ -1,10 +1,9 @@
 package nl.aurorion.blockregen.preset.drop;
 
 import nl.aurorion.blockregen.drop.ItemProvider;
+import nl.aurorion.blockregen.util.PlaceholderContext;
 import org.bukkit.inventory.ItemStack;
 
-import java.util.function.Function;
-
 public class ExternalDropItem extends DropItem {
 
     private final String id;
@@ -16,12 +15,12 @@ public class ExternalDropItem extends DropItem {
     }
 
     @Override
-    public ItemStack toItemStack(Function<String, String> parser) {
+    public ItemStack toItemStack(PlaceholderContext placeholders) {
         int amount = this.amount.getInt();
         if (amount <= 0) {
             return null;
         }
-        return provider.createItem(this.id, parser, amount);
+        return provider.createItem(this.id, placeholders, amount);
     }
 
     @Override
@@ -1,11 +1,14 @@
 package nl.aurorion.blockregen.preset.drop;
 
 import com.cryptomorin.xseries.XMaterial;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.java.Log;
 import nl.aurorion.blockregen.BlockRegenPluginImpl;
 import nl.aurorion.blockregen.util.Colors;
+import nl.aurorion.blockregen.util.PlaceholderContext;
+import nl.aurorion.blockregen.util.TextTemplate;
 import org.bukkit.NamespacedKey;
 import org.bukkit.inventory.ItemFlag;
 import org.bukkit.inventory.ItemStack;
@@ -16,7 +19,7 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Getter
 @Log
@@ -24,12 +27,16 @@ public class MinecraftDropItem extends DropItem {
 
     private final XMaterial material;
 
-    @Setter
     private String displayName;
 
-    @Setter
     private List<String> lore = new ArrayList<>();
 
+    // Compiled when set, rendered on every drop.
+    @Getter(AccessLevel.NONE)
+    private TextTemplate displayNameTemplate;
+    @Getter(AccessLevel.NONE)
+    private List<TextTemplate> loreTemplates = new ArrayList<>();
+
     @Setter
     private Set<Enchant> enchants = new HashSet<>();
 
@@ -45,6 +52,16 @@ public class MinecraftDropItem extends DropItem {
         this.material = material;
     }
 
+    public void setDisplayName(String displayName) {
+        this.displayName = displayName;
+        this.displayNameTemplate = displayName == null ? null : TextTemplate.compile(displayName);
+    }
+
+    public void setLore(List<String> lore) {
+        this.lore = lore;
+        this.loreTemplates = lore == null ? null : lore.stream().map(TextTemplate::compile).collect(Collectors.toList());
+    }
+
     /**
      * Compose this Drop into an item stack.
      *
@@ -52,7 +69,7 @@ public class MinecraftDropItem extends DropItem {
      */
     @Nullable
     @Override
-    public ItemStack toItemStack(Function<String, String> parser) {
+    public ItemStack toItemStack(PlaceholderContext placeholders) {
         int amount = this.amount.getInt();
         if (amount <= 0) {
             return null;
@@ -72,14 +89,16 @@ public class MinecraftDropItem extends DropItem {
             return null;
         }
 
-        if (displayName != null) {
-            itemMeta.setDisplayName(Colors.color(parser.apply(displayName)));
+        if (displayNameTemplate != null) {
+            itemMeta.setDisplayName(Colors.color(placeholders.render(displayNameTemplate)));
         }
 
-        if (lore != null) {
-            List<String> lore = new ArrayList<>(this.lore);
+        if (loreTemplates != null) {
+            List<String> lore = new ArrayList<>(loreTemplates.size());
 
-            lore.replaceAll(o -> Colors.color(parser.apply(o)));
+            for (TextTemplate line : loreTemplates) {
+                lore.add(Colors.color(placeholders.render(line)));
+            }
 
             itemMeta.setLore(lore);
         }
@@ -1,9 +1,11 @@
 package nl.aurorion.blockregen.preset.material;
 
+import com.cryptomorin.xseries.XMaterial;
 import lombok.Getter;
 import nl.aurorion.blockregen.material.BlockRegenMaterial;
 import org.bukkit.block.Block;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -43,6 +45,16 @@ public class TargetMaterial {
         return false;
     }
 
+    // Same as #matches(Block) with the type of the block already resolved.
+    public boolean matches(@NotNull Block block, @Nullable XMaterial type) {
+        for (BlockRegenMaterial targetMaterial : this.materials) {
+            if (targetMaterial.check(block, type)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     public String toString() {
         return "TargetMaterial{" +
@@ -0,0 +1,491 @@
+package nl.aurorion.blockregen.regeneration;
+
+import com.cryptomorin.xseries.XMaterial;
+import nl.aurorion.blockregen.api.RegeneratingBlock;
+import nl.aurorion.blockregen.regeneration.struct.RegenerationProcess;
+import nl.aurorion.blockregen.regeneration.struct.SimpleLocation;
+import nl.aurorion.blockregen.util.BlockPositions;
+import nl.aurorion.blockregen.util.Dictionary;
+import nl.aurorion.blockregen.util.LongHashMap;
+import nl.aurorion.blockregen.version.api.NodeData;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Compact storage for processes that don't need to be live objects, such as processes in unloaded chunks.
+ * <p>
+ * Every process takes up one slot in a set of parallel primitive arrays. Strings are replaced with ids from small
+ * dictionaries and node data with an index into a palette of shared instances, so a stored process costs around 50
+ * bytes instead of several hundred for a live one. {@link RegenerationProcess} objects are only materialized when
+ * asked for.
+ * <p>
+ * Not thread-safe.
+ */
+public class CompactProcessStore {
+
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private static final short FREE = -1;
+
+    private static final byte REPLACE_PENDING = 1;
+    private static final byte REGENERATE = 2;
+
+    // Approximate bytes per slot, for memory usage reports. Includes the slot's entry in a chunk list.
+    private static final int SLOT_BYTES = 4 * Long.BYTES + 4 * Short.BYTES + Integer.BYTES + Byte.BYTES + Integer.BYTES;
+
+    private static final class SlotList {
+        private int[] slots = new int[4];
+        private int size = 0;
+
+        private void add(int slot) {
+            if (size == slots.length) {
+                this.slots = Arrays.copyOf(slots, size * 2);
+            }
+            slots[size++] = slot;
+        }
+
+        private void removeAt(int i) {
+            slots[i] = slots[--size];
+        }
+    }
+
+    private static final class Materials {
+        private static final XMaterial[] VALUES = XMaterial.values();
+    }
+
+    private final Dictionary<String> worldNames = new Dictionary<>();
+    private final Dictionary<String> presetNames = new Dictionary<>();
+    private final Dictionary<String> regionNames = new Dictionary<>();
+
+    private final Dictionary<NodeData> nodeDataPalette = new Dictionary<>();
+
+    private long[] idMost;
+    private long[] idLeast;
+    private long[] positions;
+    private long[] regenerationTimes;
+    private short[] worlds;
+    private short[] presets;
+    private short[] regions;
+    private short[] materials;
+    private int[] nodeData;
+    private byte[] flags;
+
+    // Slots that were used and freed again.
+    private final SlotList free = new SlotList();
+
+    // World id -> chunk key -> slots.
+    private final List<LongHashMap<SlotList>> chunks = new ArrayList<>();
+
+    // Slots handed out so far, free or not.
+    private int used = 0;
+
+    private int size = 0;
+
+    public CompactProcessStore() {
+        allocate(DEFAULT_CAPACITY);
+    }
+
+    private void allocate(int capacity) {
+        this.idMost = new long[capacity];
+        this.idLeast = new long[capacity];
+        this.positions = new long[capacity];
+        this.regenerationTimes = new long[capacity];
+        this.worlds = new short[capacity];
+        this.presets = new short[capacity];
+        this.regions = new short[capacity];
+        this.materials = new short[capacity];
+        this.nodeData = new int[capacity];
+        this.flags = new byte[capacity];
+    }
+
+    private void grow() {
+        int capacity = worlds.length + (worlds.length >> 1);
+
+        this.idMost = Arrays.copyOf(idMost, capacity);
+        this.idLeast = Arrays.copyOf(idLeast, capacity);
+        this.positions = Arrays.copyOf(positions, capacity);
+        this.regenerationTimes = Arrays.copyOf(regenerationTimes, capacity);
+        this.worlds = Arrays.copyOf(worlds, capacity);
+        this.presets = Arrays.copyOf(presets, capacity);
+        this.regions = Arrays.copyOf(regions, capacity);
+        this.materials = Arrays.copyOf(materials, capacity);
+        this.nodeData = Arrays.copyOf(nodeData, capacity);
+        this.flags = Arrays.copyOf(flags, capacity);
+    }
+
+    private static short shortId(Dictionary<String> dictionary, String value) {
+        int id = dictionary.idOf(value);
+        if (id > Short.MAX_VALUE) {
+            throw new IllegalStateException("Too many distinct values to store compactly.");
+        }
+        return (short) id;
+    }
+
+    @NotNull
+    private LongHashMap<SlotList> worldChunks(int world) {
+        while (chunks.size() <= world) {
+            chunks.add(new LongHashMap<>());
+        }
+        return chunks.get(world);
+    }
+
+    /**
+     * Store the process. The object itself is not retained.
+     */
+    public void add(@NotNull RegenerationProcess process) {
+        SimpleLocation location = process.getLocation();
+
+        int slot;
+        if (free.size > 0) {
+            slot = free.slots[--free.size];
+        } else {
+            if (used == worlds.length) {
+                grow();
+            }
+            slot = used++;
+        }
+
+        UUID id = process.getId();
+        idMost[slot] = id.getMostSignificantBits();
+        idLeast[slot] = id.getLeastSignificantBits();
+        positions[slot] = BlockPositions.pack(location.getX(), location.getY(), location.getZ());
+        regenerationTimes[slot] = process.getRegenerationTime();
+        worlds[slot] = shortId(worldNames, location.getWorld());
+        presets[slot] = shortId(presetNames, process.getPresetName());
+        regions[slot] = shortId(regionNames, process.getRegionName());
+        materials[slot] = (short) (process.getOriginalType() == null ? -1 : process.getOriginalType().ordinal());
+        nodeData[slot] = nodeDataPalette.idOf(process.getOriginalData());
+        flags[slot] = (byte) ((process.isReplacePending() ? REPLACE_PENDING : 0) | (process.isRegenerateOnLoad() ? REGENERATE : 0));
+
+        long chunkKey = BlockPositions.chunkKeyAt(location.getX(), location.getZ());
+        LongHashMap<SlotList> worldChunks = worldChunks(worlds[slot]);
+
+        SlotList list = worldChunks.get(chunkKey);
+        if (list == null) {
+            list = new SlotList();
+            worldChunks.put(chunkKey, list);
+        }
+        list.add(slot);
+
+        size++;
+    }
+
+    @NotNull
+    private RegenerationProcess materialize(int slot) {
+        long position = positions[slot];
+
+        SimpleLocation location = new SimpleLocation(worldNames.get(worlds[slot]),
+                BlockPositions.unpackX(position), BlockPositions.unpackY(position), BlockPositions.unpackZ(position));
+
+        XMaterial material = materials[slot] < 0 ? null : Materials.VALUES[materials[slot]];
+        NodeData data = nodeDataPalette.get(nodeData[slot]);
+
+        RegenerationProcess process = new RegenerationProcess(new UUID(idMost[slot], idLeast[slot]), location,
+                material, data, presetNames.get(presets[slot]));
+
+        process.setWorldName(location.getWorld());
+        process.setRegionName(regionNames.get(regions[slot]));
+        process.setReplacePending((flags[slot] & REPLACE_PENDING) != 0);
+        process.setRegenerateOnLoad((flags[slot] & REGENERATE) != 0);
+
+        long regenerationTime = regenerationTimes[slot];
+        process.setRegenerationTime(regenerationTime);
+        if (regenerationTime != 0) {
+            process.setTimeLeft(regenerationTime - System.currentTimeMillis());
+        }
+        return process;
+    }
+
+    @NotNull
+    private RegeneratingBlock view(int slot) {
+        long position = positions[slot];
+        return new RegeneratingBlock(worldNames.get(worlds[slot]),
+                BlockPositions.unpackX(position), BlockPositions.unpackY(position), BlockPositions.unpackZ(position),
+                presetNames.get(presets[slot]), regionNames.get(regions[slot]), regenerationTimes[slot], false);
+    }
+
+    private void free(int slot) {
+        worlds[slot] = FREE;
+        free.add(slot);
+        size--;
+    }
+
+    /**
+     * Remove all processes in the chunk and return them materialized.
+     */
+    @NotNull
+    public List<RegenerationProcess> removeChunk(@NotNull String worldName, int chunkX, int chunkZ) {
+        int world = worldNames.find(worldName);
+        if (world < 0 || world >= chunks.size()) {
+            return Collections.emptyList();
+        }
+
+        SlotList list = chunks.get(world).remove(BlockPositions.chunkKey(chunkX, chunkZ));
+        if (list == null) {
+            return Collections.emptyList();
+        }
+
+        List<RegenerationProcess> processes = new ArrayList<>(list.size);
+        for (int i = 0; i < list.size; i++) {
+            int slot = list.slots[i];
+            processes.add(materialize(slot));
+            free(slot);
+        }
+        return processes;
+    }
+
+    // Slot of the process at the position or -1.
+    private int slotAt(@NotNull String worldName, int x, int y, int z) {
+        int world = worldNames.find(worldName);
+        if (world < 0 || world >= chunks.size()) {
+            return -1;
+        }
+
+        SlotList list = chunks.get(world).get(BlockPositions.chunkKeyAt(x, z));
+        if (list == null) {
+            return -1;
+        }
+
+        long position = BlockPositions.pack(x, y, z);
+        for (int i = 0; i < list.size; i++) {
+            if (positions[list.slots[i]] == position) {
+                return list.slots[i];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Remove the process at the position and return it materialized.
+     */
+    @Nullable
+    public RegenerationProcess remove(@NotNull String worldName, int x, int y, int z) {
+        int world = worldNames.find(worldName);
+        if (world < 0 || world >= chunks.size()) {
+            return null;
+        }
+
+        LongHashMap<SlotList> worldChunks = chunks.get(world);
+
+        long chunkKey = BlockPositions.chunkKeyAt(x, z);
+        SlotList list = worldChunks.get(chunkKey);
+        if (list == null) {
+            return null;
+        }
+
+        long position = BlockPositions.pack(x, y, z);
+        for (int i = 0; i < list.size; i++) {
+            int slot = list.slots[i];
+            if (positions[slot] == position) {
+                list.removeAt(i);
+                if (list.size == 0) {
+                    worldChunks.remove(chunkKey);
+                }
+
+                RegenerationProcess process = materialize(slot);
+                free(slot);
+                return process;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Materialize a view of the process at the position, the process stays stored. The view is detached, changes to
+     * it are not stored back.
+     */
+    @Nullable
+    public RegenerationProcess get(@NotNull String worldName, int x, int y, int z) {
+        int slot = slotAt(worldName, x, y, z);
+        return slot < 0 ? null : materialize(slot);
+    }
+
+    public boolean contains(@NotNull String worldName, int x, int y, int z) {
+        return slotAt(worldName, x, y, z) >= 0;
+    }
+
+    /**
+     * Pass views of stored processes within the bounds, all of them included, to the consumer.
+     */
+    public void forEachInRange(@NotNull String worldName, int minX, int minY, int minZ, int maxX, int maxY, int maxZ,
+                               @NotNull Consumer<RegeneratingBlock> consumer) {
+        int world = worldNames.find(worldName);
+        if (world < 0 || world >= chunks.size()) {
+            return;
+        }
+
+        SpatialIndex.forEachChunk(chunks.get(world), minX >> 4, minZ >> 4, maxX >> 4, maxZ >> 4, (key, list) -> {
+            for (int i = 0; i < list.size; i++) {
+                int slot = list.slots[i];
+                long position = positions[slot];
+
+                int x = BlockPositions.unpackX(position);
+                int y = BlockPositions.unpackY(position);
+                int z = BlockPositions.unpackZ(position);
+
+                if (x >= minX && x <= maxX && y >= minY && y <= maxY && z >= minZ && z <= maxZ) {
+                    consumer.accept(view(slot));
+                }
+            }
+        });
+    }
+
+    /**
+     * View of the stored process closest to the position, null if there's none within the distance.
+     */
+    @Nullable
+    public RegeneratingBlock findNearest(@NotNull String worldName, int x, int y, int z, int maxDistance) {
+        int world = worldNames.find(worldName);
+        if (world < 0 || world >= chunks.size()) {
+            return null;
+        }
+
+        SpatialIndex.Nearest<Integer> nearest = new SpatialIndex.Nearest<>(maxDistance);
+        SpatialIndex.forEachRing(chunks.get(world), x >> 4, z >> 4, maxDistance, nearest, (key, list) -> {
+            for (int i = 0; i < list.size; i++) {
+                int slot = list.slots[i];
+                long position = positions[slot];
+
+                long dx = BlockPositions.unpackX(position) - x;
+                long dy = BlockPositions.unpackY(position) - y;
+                long dz = BlockPositions.unpackZ(position) - z;
+                long distance = dx * dx + dy * dy + dz * dz;
+
+                if (nearest.isCloser(distance)) {
+                    nearest.set(slot, distance);
+                }
+            }
+        });
+
+        Integer slot = nearest.get();
+        return slot == null ? null : view(slot);
+    }
+
+    /**
+     * First slot at or after the given one that holds a process, -1 if there's none. Together with
+     * {@link #materializeAt(int)} walks the store one process at a time.
+     */
+    public int nextSlot(int from) {
+        for (int slot = Math.max(from, 0); slot < used; slot++) {
+            if (worlds[slot] != FREE) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Materialize a view of the process in a slot returned by {@link #nextSlot(int)}. The view is detached, changes
+     * to it are not stored back.
+     */
+    @NotNull
+    public RegenerationProcess materializeAt(int slot) {
+        return materialize(slot);
+    }
+
+    /**
+     * Materialize a view of every stored process. The views are detached, changes to them are not stored back.
+     */
+    public void forEach(@NotNull Consumer<RegenerationProcess> consumer) {
+        for (int slot = 0; slot < used; slot++) {
+            if (worlds[slot] != FREE) {
+                consumer.accept(materialize(slot));
+            }
+        }
+    }
+
+    // Pass slots of stored processes matching all the filters, a null filter matches everything.
+    private void forEachMatching(@Nullable String presetName, @Nullable String regionName, @Nullable String worldName,
+                                 @NotNull IntConsumer consumer) {
+        for (int slot = 0; slot < used; slot++) {
+            if (worlds[slot] == FREE) {
+                continue;
+            }
+
+            if ((presetName == null || presetName.equals(presetNames.get(presets[slot])))
+                    && (regionName == null || regionName.equalsIgnoreCase(regionNames.get(regions[slot])))
+                    && (worldName == null || worldName.equalsIgnoreCase(worldNames.get(worlds[slot])))) {
+                consumer.accept(slot);
+            }
+        }
+    }
+
+    /**
+     * Materialize views of stored processes matching all the given filters, a null filter matches everything. Region
+     * and world names ignore case. The views are detached, changes to them are not stored back.
+     */
+    public void forEachMatching(@Nullable String presetName, @Nullable String regionName, @Nullable String worldName,
+                                @NotNull Consumer<RegenerationProcess> consumer) {
+        forEachMatching(presetName, regionName, worldName, (IntConsumer) slot -> consumer.accept(materialize(slot)));
+    }
+
+    /**
+     * Mark stored processes matching all the given filters to regenerate as soon as their chunk loads.
+     *
+     * @return Number of marked processes.
+     */
+    public int markRegenerate(@Nullable String presetName, @Nullable String regionName, @Nullable String worldName) {
+        int[] marked = new int[1];
+        forEachMatching(presetName, regionName, worldName, (IntConsumer) slot -> {
+            flags[slot] |= REGENERATE;
+            marked[0]++;
+        });
+        return marked[0];
+    }
+
+    /**
+     * Add the number of stored processes by world, region and preset to the counts.
+     */
+    public void addCounts(@NotNull Map<String, Map<String, Map<String, Integer>>> counts) {
+        for (int slot = 0; slot < used; slot++) {
+            if (worlds[slot] != FREE) {
+                counts.computeIfAbsent(worldNames.get(worlds[slot]), k -> new HashMap<>())
+                        .computeIfAbsent(regionNames.get(regions[slot]), k -> new HashMap<>())
+                        .merge(presetNames.get(presets[slot]), 1, Integer::sum);
+            }
+        }
+    }
+
+    /**
+     * Pass ids of processes whose replace block is not placed to the consumer.
+     */
+    public void forEachReplacePending(@NotNull Consumer<UUID> consumer) {
+        for (int slot = 0; slot < used; slot++) {
+            if (worlds[slot] != FREE && (flags[slot] & REPLACE_PENDING) != 0) {
+                consumer.accept(new UUID(idMost[slot], idLeast[slot]));
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Approximate heap usage of the slots in bytes, dictionaries and palette excluded.
+    public long getMemoryUsage() {
+        return (long) worlds.length * SLOT_BYTES;
+    }
+
+    public void clear() {
+        worldNames.clear();
+        presetNames.clear();
+        regionNames.clear();
+        nodeDataPalette.clear();
+        chunks.clear();
+
+        free.size = 0;
+        used = 0;
+        size = 0;
+        allocate(DEFAULT_CAPACITY);
+    }
+}
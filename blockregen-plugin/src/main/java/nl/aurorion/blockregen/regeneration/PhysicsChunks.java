@@ -0,0 +1,97 @@
+package nl.aurorion.blockregen.regeneration;
+
+import nl.aurorion.blockregen.preset.BlockPreset;
+import nl.aurorion.blockregen.regeneration.struct.RegenerationProcess;
+import nl.aurorion.blockregen.regeneration.struct.SimpleLocation;
+import nl.aurorion.blockregen.util.BlockPositions;
+import nl.aurorion.blockregen.util.LongHashMap;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Chunks with live processes of presets that disable physics, per world.
+ * <p>
+ * Physics events fire constantly around water, redstone and farms. Nearly all of them happen in chunks without such a
+ * process and can be dismissed with a single probe here.
+ * <p>
+ * Not thread-safe.
+ */
+public class PhysicsChunks {
+
+    // World name -> chunk key -> number of processes.
+    private final Map<String, LongHashMap<int[]>> worlds = new HashMap<>();
+
+    private int size = 0;
+
+    private static boolean disablesPhysics(RegenerationProcess process) {
+        BlockPreset preset = process.getPreset();
+        return preset != null && preset.isDisablePhysics();
+    }
+
+    public void add(@NotNull RegenerationProcess process) {
+        if (!disablesPhysics(process)) {
+            return;
+        }
+
+        SimpleLocation location = process.getLocation();
+        LongHashMap<int[]> chunks = worlds.computeIfAbsent(location.getWorld(), k -> new LongHashMap<>());
+        long chunkKey = BlockPositions.chunkKeyAt(location.getX(), location.getZ());
+
+        int[] count = chunks.get(chunkKey);
+        if (count == null) {
+            chunks.put(chunkKey, new int[]{1});
+        } else {
+            count[0]++;
+        }
+        size++;
+    }
+
+    public void remove(@NotNull RegenerationProcess process) {
+        if (!disablesPhysics(process)) {
+            return;
+        }
+
+        SimpleLocation location = process.getLocation();
+        LongHashMap<int[]> chunks = worlds.get(location.getWorld());
+        if (chunks == null) {
+            return;
+        }
+
+        long chunkKey = BlockPositions.chunkKeyAt(location.getX(), location.getZ());
+        int[] count = chunks.get(chunkKey);
+        if (count == null) {
+            return;
+        }
+
+        if (--count[0] == 0) {
+            chunks.remove(chunkKey);
+            if (chunks.isEmpty()) {
+                worlds.remove(location.getWorld());
+            }
+        }
+        size--;
+    }
+
+    public boolean contains(@NotNull String worldName, int chunkX, int chunkZ) {
+        if (size == 0) {
+            return false;
+        }
+
+        LongHashMap<int[]> chunks = worlds.get(worldName);
+        return chunks != null && chunks.containsKey(BlockPositions.chunkKey(chunkX, chunkZ));
+    }
+
+    /**
+     * Number of processes tracked.
+     */
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        worlds.clear();
+        size = 0;
+    }
+}
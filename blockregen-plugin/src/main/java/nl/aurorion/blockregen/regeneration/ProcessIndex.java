@@ -0,0 +1,145 @@
+package nl.aurorion.blockregen.regeneration;
+
+import nl.aurorion.blockregen.regeneration.struct.RegenerationProcess;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Secondary indexes of live processes by preset, region and world, with process counts per world, region and preset.
+ * <p>
+ * Lookups by region and world ignore case. Processes outside of a region are counted under a null region. Not thread
+ * safe.
+ */
+public class ProcessIndex {
+
+    private final Map<String, Set<RegenerationProcess>> byPreset = new HashMap<>();
+    private final Map<String, Set<RegenerationProcess>> byRegion = new HashMap<>();
+    private final Map<String, Set<RegenerationProcess>> byWorld = new HashMap<>();
+
+    // World -> region -> preset -> count.
+    private final Map<String, Map<String, Map<String, Integer>>> counts = new HashMap<>();
+
+    private int size = 0;
+
+    public void add(@NotNull RegenerationProcess process) {
+        if (!byPreset.computeIfAbsent(process.getPresetName(), k -> new HashSet<>()).add(process)) {
+            return;
+        }
+        byRegion.computeIfAbsent(key(process.getRegionName()), k -> new HashSet<>()).add(process);
+        byWorld.computeIfAbsent(key(process.getWorldName()), k -> new HashSet<>()).add(process);
+
+        counts.computeIfAbsent(process.getWorldName(), k -> new HashMap<>())
+                .computeIfAbsent(process.getRegionName(), k -> new HashMap<>())
+                .merge(process.getPresetName(), 1, Integer::sum);
+        size++;
+    }
+
+    public void remove(@NotNull RegenerationProcess process) {
+        if (!removeFrom(byPreset, process.getPresetName(), process)) {
+            return;
+        }
+        removeFrom(byRegion, key(process.getRegionName()), process);
+        removeFrom(byWorld, key(process.getWorldName()), process);
+
+        Map<String, Map<String, Integer>> regions = counts.get(process.getWorldName());
+        Map<String, Integer> presets = regions.get(process.getRegionName());
+
+        if (presets.merge(process.getPresetName(), -1, Integer::sum) == 0) {
+            presets.remove(process.getPresetName());
+            if (presets.isEmpty()) {
+                regions.remove(process.getRegionName());
+                if (regions.isEmpty()) {
+                    counts.remove(process.getWorldName());
+                }
+            }
+        }
+        size--;
+    }
+
+    private static boolean removeFrom(Map<String, Set<RegenerationProcess>> index, String key, RegenerationProcess process) {
+        Set<RegenerationProcess> processes = index.get(key);
+        if (processes == null || !processes.remove(process)) {
+            return false;
+        }
+        if (processes.isEmpty()) {
+            index.remove(key);
+        }
+        return true;
+    }
+
+    private static String key(@Nullable String name) {
+        return name == null ? null : name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Processes matching all the given filters, a null filter matches everything. Only walks the smallest matching
+     * index.
+     */
+    @NotNull
+    public List<RegenerationProcess> query(@Nullable String presetName, @Nullable String regionName, @Nullable String worldName) {
+        Set<RegenerationProcess> smallest = null;
+
+        if (presetName != null) {
+            smallest = smaller(smallest, byPreset.get(presetName));
+        }
+        if (regionName != null) {
+            smallest = smaller(smallest, byRegion.get(key(regionName)));
+        }
+        if (worldName != null) {
+            smallest = smaller(smallest, byWorld.get(key(worldName)));
+        }
+
+        if (smallest == null) {
+            // No filters, everything matches.
+            List<RegenerationProcess> all = new ArrayList<>(size);
+            byPreset.values().forEach(all::addAll);
+            return all;
+        }
+
+        List<RegenerationProcess> result = new ArrayList<>();
+        for (RegenerationProcess process : smallest) {
+            if ((presetName == null || presetName.equals(process.getPresetName()))
+                    && (regionName == null || regionName.equalsIgnoreCase(process.getRegionName()))
+                    && (worldName == null || worldName.equalsIgnoreCase(process.getWorldName()))) {
+                result.add(process);
+            }
+        }
+        return result;
+    }
+
+    // A missing index entry means nothing matches.
+    private static Set<RegenerationProcess> smaller(@Nullable Set<RegenerationProcess> current, @Nullable Set<RegenerationProcess> candidate) {
+        if (candidate == null) {
+            return Collections.emptySet();
+        }
+        return current == null || candidate.size() < current.size() ? candidate : current;
+    }
+
+    /**
+     * Copy of the process counts, world -> region -> preset -> count.
+     */
+    @NotNull
+    public Map<String, Map<String, Map<String, Integer>>> getCounts() {
+        Map<String, Map<String, Map<String, Integer>>> copy = new HashMap<>(counts.size());
+        counts.forEach((world, regions) -> {
+            Map<String, Map<String, Integer>> regionsCopy = new HashMap<>(regions.size());
+            regions.forEach((region, presets) -> regionsCopy.put(region, new HashMap<>(presets)));
+            copy.put(world, regionsCopy);
+        });
+        return copy;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        byPreset.clear();
+        byRegion.clear();
+        byWorld.clear();
+        counts.clear();
+        size = 0;
+    }
+}
@@ -0,0 +1,366 @@
+package nl.aurorion.blockregen.regeneration;
+
+import lombok.extern.java.Log;
+import nl.aurorion.blockregen.api.BlockRegenPlugin;
+import nl.aurorion.blockregen.regeneration.struct.RegenerationProcess;
+import nl.aurorion.blockregen.regeneration.struct.SimpleLocation;
+import nl.aurorion.blockregen.util.BlockPositions;
+import nl.aurorion.blockregen.util.LongHashMap;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Restores loaded processes over multiple ticks instead of starting all of them at once.
+ * <p>
+ * Processes are grouped by chunk. Loaded chunks closest to online players go first, their processes are started under
+ * a time budget per tick. Processes in unloaded chunks go straight to the compact store and start once their chunk
+ * loads. Processes that became due while the server was off are spread over a random delay so they don't all
+ * regenerate in the same tick.
+ */
+@Log
+class ProcessRestorer implements Runnable {
+
+    // Milliseconds between progress reports.
+    private static final long REPORT_INTERVAL = 5_000;
+
+    private static final class ChunkGroup {
+        private final String worldName;
+        private final int chunkX;
+        private final int chunkZ;
+
+        private List<RegenerationProcess> processes = new ArrayList<>();
+
+        private boolean loaded;
+        // Squared distance in chunks to the closest player in the world.
+        private long distance = Long.MAX_VALUE;
+
+        private ChunkGroup(String worldName, int chunkX, int chunkZ) {
+            this.worldName = worldName;
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+        }
+    }
+
+    private final BlockRegenPlugin plugin;
+    private final RegenerationManager manager;
+
+    private final List<ChunkGroup> chunks = new ArrayList<>();
+    private final Map<String, LongHashMap<ChunkGroup>> byWorld = new HashMap<>();
+    // Processes with an invalid preset, reverted before restoring the rest.
+    private final List<RegenerationProcess> invalid;
+
+    // Null if blocks were reverted on shutdown, otherwise ids of processes whose replace block is not in place.
+    @Nullable
+    private final Set<UUID> replacePending;
+
+    private final Runnable onFinish;
+
+    private final int total;
+
+    private long budgetNanos;
+    private long jitterMillis;
+
+    // Everything below is guarded by this.
+
+    private int chunkIndex = 0;
+    private int processIndex = 0;
+
+    private int restored = 0;
+    private int live = 0;
+    private int stored = 0;
+    private int overdue = 0;
+
+    private int ticks = 0;
+    private long started;
+    private long lastReport;
+
+    private BukkitTask task;
+
+    /**
+     * Group the processes by chunk. Safe to call off the main thread.
+     *
+     * @param processes Processes with a resolved preset.
+     * @param invalid        Processes that failed to load, to be reverted.
+     * @param replacePending Null if blocks were reverted on shutdown, otherwise ids of processes whose replace block
+     *                       is not in place.
+     * @param onFinish       Called on the main thread once everything is restored.
+     */
+    ProcessRestorer(@NotNull BlockRegenPlugin plugin, @NotNull RegenerationManager manager,
+                    @NotNull List<RegenerationProcess> processes, @NotNull List<RegenerationProcess> invalid,
+                    @Nullable Set<UUID> replacePending, @NotNull Runnable onFinish) {
+        this.plugin = plugin;
+        this.manager = manager;
+        this.invalid = invalid;
+        this.replacePending = replacePending;
+        this.onFinish = onFinish;
+        this.total = processes.size();
+
+        for (RegenerationProcess process : processes) {
+            SimpleLocation location = process.getLocation();
+            LongHashMap<ChunkGroup> worldChunks = byWorld.computeIfAbsent(location.getWorld(), k -> new LongHashMap<>());
+
+            long key = BlockPositions.chunkKeyAt(location.getX(), location.getZ());
+            ChunkGroup chunk = worldChunks.get(key);
+            if (chunk == null) {
+                chunk = new ChunkGroup(location.getWorld(), location.getChunkX(), location.getChunkZ());
+                worldChunks.put(key, chunk);
+                chunks.add(chunk);
+            }
+            chunk.processes.add(process);
+        }
+    }
+
+    /**
+     * Order the chunks and start restoring. Has to be called from the main thread.
+     */
+    synchronized void start() {
+        double budget = plugin.getConfig().getDouble("Restoration.Tick-Budget", 10.0);
+        this.budgetNanos = (long) (Math.max(budget, 0.1) * 1_000_000L);
+        this.jitterMillis = Math.max(plugin.getConfig().getLong("Restoration.Overdue-Jitter", 30), 0) * 1000L;
+
+        this.started = System.currentTimeMillis();
+        this.lastReport = started;
+
+        for (RegenerationProcess process : invalid) {
+            // Don't load chunks to revert them, reverted when the chunk loads as the preset still doesn't resolve.
+            if (!process.getLocation().isChunkLoaded()) {
+                if (process.getTimeLeft() > 0) {
+                    process.setRegenerationTime(started + process.getTimeLeft());
+                }
+                manager.addDormant(process);
+                continue;
+            }
+
+            process.setBlock(process.getLocation().toBlock());
+            process.revert();
+        }
+
+        prioritize();
+
+        // Physics updates around pending processes are caught as well, their chunks can be loaded already.
+        forEachPending(manager::addPendingPhysics);
+
+        if (total > 0) {
+            log.info(String.format("Restoring %d regeneration process(es) in %d chunk(s)...", total, chunks.size()));
+            if (replacePending != null) {
+                log.info("Blocks were left in place on shutdown, " + replacePending.size() + " replace block(s) to place.");
+            }
+        }
+
+        this.task = schedule();
+    }
+
+    // Run once per tick until finished.
+    BukkitTask schedule() {
+        return Bukkit.getScheduler().runTaskTimer(plugin, this, 0L, 1L);
+    }
+
+    Collection<? extends Player> getOnlinePlayers() {
+        return Bukkit.getOnlinePlayers();
+    }
+
+    // Loaded chunks first, closest to players first.
+    private void prioritize() {
+        Map<String, List<long[]>> players = new HashMap<>();
+        for (Player player : getOnlinePlayers()) {
+            Location location = player.getLocation();
+            if (location.getWorld() == null) {
+                continue;
+            }
+            players.computeIfAbsent(location.getWorld().getName(), k -> new ArrayList<>())
+                    .add(new long[]{location.getBlockX() >> 4, location.getBlockZ() >> 4});
+        }
+
+        for (ChunkGroup chunk : chunks) {
+            chunk.loaded = isLoaded(chunk);
+
+            for (long[] position : players.getOrDefault(chunk.worldName, Collections.emptyList())) {
+                long dx = position[0] - chunk.chunkX;
+                long dz = position[1] - chunk.chunkZ;
+                chunk.distance = Math.min(chunk.distance, dx * dx + dz * dz);
+            }
+        }
+
+        chunks.sort(Comparator.comparing((ChunkGroup chunk) -> !chunk.loaded).thenComparingLong(chunk -> chunk.distance));
+    }
+
+    private boolean isLoaded(ChunkGroup chunk) {
+        return isChunkLoaded(chunk.worldName, chunk.chunkX, chunk.chunkZ);
+    }
+
+    boolean isChunkLoaded(String worldName, int chunkX, int chunkZ) {
+        World world = Bukkit.getWorld(worldName);
+        return world != null && world.isChunkLoaded(chunkX, chunkZ);
+    }
+
+    @Override
+    public synchronized void run() {
+        long deadline = System.nanoTime() + budgetNanos;
+        ticks++;
+
+        while (chunkIndex < chunks.size() && System.nanoTime() < deadline) {
+            ChunkGroup chunk = chunks.get(chunkIndex);
+
+            // Might have loaded or unloaded since the chunks were ordered.
+            if (processIndex == 0) {
+                chunk.loaded = isLoaded(chunk);
+            }
+
+            while (processIndex < chunk.processes.size()) {
+                RegenerationProcess process = chunk.processes.get(processIndex++);
+                // Restored ahead of its turn.
+                if (process != null) {
+                    restore(process, chunk.loaded);
+                }
+
+                if (System.nanoTime() >= deadline) {
+                    break;
+                }
+            }
+
+            if (processIndex == chunk.processes.size()) {
+                // Let go of the restored processes.
+                chunk.processes = Collections.emptyList();
+                chunkIndex++;
+                processIndex = 0;
+            }
+        }
+
+        if (chunkIndex >= chunks.size()) {
+            finish();
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        if (now - lastReport >= REPORT_INTERVAL) {
+            this.lastReport = now;
+            log.info(String.format("Restored %d/%d regeneration process(es) (%.0f%%)...", restored, total, restored * 100.0 / total));
+        }
+    }
+
+    private void restore(RegenerationProcess process, boolean loaded) {
+        restored++;
+        // Counted again once it's registered live.
+        manager.removePendingPhysics(process);
+
+        // Count down the time spent waiting to be restored.
+        long elapsed = System.currentTimeMillis() - started;
+        if (process.getTimeLeft() > 0) {
+            process.setTimeLeft(Math.max(process.getTimeLeft() - elapsed, 0));
+        }
+
+        boolean replace = needsReplace(process);
+
+        if (!loaded) {
+            process.startDormant(replace);
+            manager.addDormant(process);
+            stored++;
+            return;
+        }
+
+        if (process.getTimeLeft() == 0 && process.shouldRegenerate()) {
+            overdue++;
+            if (jitterMillis > 0) {
+                process.setTimeLeft(1 + (long) (plugin.getRandom().nextDouble() * jitterMillis));
+            }
+        }
+
+        process.setBlock(process.getLocation().toBlock());
+        process.start(replace);
+        live++;
+    }
+
+    // Whether the replace block of the process has to be placed.
+    boolean needsReplace(@NotNull RegenerationProcess process) {
+        return replacePending == null || replacePending.contains(process.getId());
+    }
+
+    private void finish() {
+        stop();
+
+        long took = System.currentTimeMillis() - started;
+        log.info(String.format("Loaded %d regeneration process(es) in %dms over %d tick(s). %d started, %d in unloaded chunks, %d overdue%s.",
+                restored, took, ticks, live, stored, overdue,
+                overdue > 0 && jitterMillis > 0 ? String.format(" spread over %ds", jitterMillis / 1000) : ""));
+
+        onFinish.run();
+    }
+
+    synchronized void stop() {
+        if (task != null) {
+            task.cancel();
+            this.task = null;
+        }
+    }
+
+    /**
+     * Pass processes that are not restored yet to the consumer.
+     */
+    synchronized void forEachPending(@NotNull Consumer<RegenerationProcess> consumer) {
+        for (int i = chunkIndex; i < chunks.size(); i++) {
+            List<RegenerationProcess> processes = chunks.get(i).processes;
+            for (int j = i == chunkIndex ? processIndex : 0; j < processes.size(); j++) {
+                if (processes.get(j) != null) {
+                    consumer.accept(processes.get(j));
+                }
+            }
+        }
+    }
+
+    /**
+     * Process at the position that is not restored yet.
+     */
+    @Nullable
+    synchronized RegenerationProcess getPending(@NotNull String worldName, int x, int y, int z) {
+        ChunkGroup chunk = chunkAt(worldName, x, z);
+        int index = chunk == null ? -1 : indexOf(chunk, x, y, z);
+        return index < 0 ? null : chunk.processes.get(index);
+    }
+
+    /**
+     * Restore the process at the position right away if it's not restored yet. A process started there in the meantime
+     * would take its place otherwise. Has to be called from the main thread.
+     */
+    synchronized void restoreAt(@NotNull String worldName, int x, int y, int z) {
+        ChunkGroup chunk = chunkAt(worldName, x, z);
+        int index = chunk == null ? -1 : indexOf(chunk, x, y, z);
+        if (index < 0) {
+            return;
+        }
+
+        RegenerationProcess process = chunk.processes.set(index, null);
+        restore(process, isLoaded(chunk));
+        log.fine(() -> "Restored " + process + " ahead of its turn.");
+    }
+
+    @Nullable
+    private ChunkGroup chunkAt(String worldName, int x, int z) {
+        LongHashMap<ChunkGroup> worldChunks = byWorld.get(worldName);
+        return worldChunks == null ? null : worldChunks.get(BlockPositions.chunkKeyAt(x, z));
+    }
+
+    // Index of the pending process in the chunk, -1 if there's none.
+    private int indexOf(ChunkGroup chunk, int x, int y, int z) {
+        int from = chunkIndex < chunks.size() && chunks.get(chunkIndex) == chunk ? processIndex : 0;
+        for (int i = from; i < chunk.processes.size(); i++) {
+            RegenerationProcess process = chunk.processes.get(i);
+            if (process == null) {
+                continue;
+            }
+
+            SimpleLocation location = process.getLocation();
+            if (location.getX() == x && location.getY() == y && location.getZ() == z) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
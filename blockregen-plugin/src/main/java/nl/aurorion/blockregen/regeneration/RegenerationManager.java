@@ -1,14 +1,24 @@
 package nl.aurorion.blockregen.regeneration;
 
 import lombok.Getter;
+import lombok.Setter;
 import lombok.extern.java.Log;
 import nl.aurorion.blockregen.api.BlockRegenPlugin;
 import nl.aurorion.blockregen.AutoSaveTask;
+import nl.aurorion.blockregen.api.RegeneratingBlock;
 import nl.aurorion.blockregen.preset.BlockPreset;
 import nl.aurorion.blockregen.regeneration.struct.RegenerationProcess;
+import nl.aurorion.blockregen.regeneration.struct.SimpleLocation;
 import nl.aurorion.blockregen.region.struct.RegenerationArea;
+import nl.aurorion.blockregen.storage.PersistenceExecutor;
+import nl.aurorion.blockregen.storage.ProcessStorage;
+import nl.aurorion.blockregen.storage.ShutdownState;
+import nl.aurorion.blockregen.util.BlockPositions;
+import nl.aurorion.blockregen.util.LongHashMap;
 import nl.aurorion.blockregen.version.api.NodeData;
 import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
@@ -16,26 +26,68 @@ import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 @Log
 public class RegenerationManager {
 
+    // Persistence keys.
+    private static final String CHANGES = "process changes";
+    private static final String PROCESSES = "processes";
+    private static final String LOAD = "process load";
+
     private final BlockRegenPlugin plugin;
 
-    private final ConcurrentLinkedDeque<RegenerationProcess> cache = new ConcurrentLinkedDeque<>();
+    // All registered processes. Backs the #getCache() view, safe to iterate from other threads.
+    private final Set<RegenerationProcess> cache = ConcurrentHashMap.newKeySet();
+
+    private final Collection<RegenerationProcess> cacheView = new CacheView();
+
+    // World name -> packed block position -> process. Guarded by itself.
+    private final Map<String, LongHashMap<RegenerationProcess>> index = new HashMap<>();
+
+    // Live processes by chunk. Guarded by the index.
+    private final SpatialIndex spatial = new SpatialIndex();
+
+    // Processes in unloaded chunks, kept compact until their chunk loads. Guarded by the index.
+    private final CompactProcessStore dormant = new CompactProcessStore();
+
+    // Live processes by preset, region and world. Guarded by the index.
+    private final ProcessIndex processIndex = new ProcessIndex();
+
+    // Chunks with processes that disable physics.
+    private final PhysicsChunks physicsChunks = new PhysicsChunks();
+
+    @Getter
+    @Setter
+    private ProcessStorage storage;
+
+    @Setter
+    private PersistenceExecutor persistence;
 
     @Getter
     private AutoSaveTask autoSaveTask;
 
+    @Getter
+    private final RegenerationScheduler scheduler;
+
+    @Getter
+    private final RegenerationQueue queue;
+
     private boolean retry = false;
 
+    // Restores processes loaded from storage, the last one started.
+    private volatile ProcessRestorer restorer;
+
     private final Set<UUID> bypass = new HashSet<>();
 
     private final Set<UUID> dataCheck = new HashSet<>();
 
     public RegenerationManager(BlockRegenPlugin plugin) {
         this.plugin = plugin;
+        this.queue = new RegenerationQueue(plugin);
+        this.scheduler = new RegenerationScheduler(plugin, queue);
     }
 
     // --- Bypass
@@ -83,6 +135,7 @@ public class RegenerationManager {
         // Read the original material
         NodeData nodeData = plugin.getVersionManager().createNodeData();
         nodeData.load(block);
+        nodeData = plugin.getVersionManager().getNodeDataPalette().intern(nodeData);
 
         RegenerationProcess process = new RegenerationProcess(block, nodeData, preset);
 
@@ -99,30 +152,118 @@ public class RegenerationManager {
     public void registerProcess(@NotNull RegenerationProcess process) {
         Objects.requireNonNull(process);
 
-        if (this.getProcess(process.getBlock()) != null) {
-            log.fine(() -> String.format("Cache already contains process %s", process.getId()));
-            return;
+        if (addToIndex(process)) {
+            storePut(process);
+        }
+    }
+
+    /**
+     * Persist a change of a registered process, e.g. a new regeneration time.
+     */
+    public void updateProcess(@NotNull RegenerationProcess process) {
+        storePut(process);
+    }
+
+    // Return false if there's a different process at the location.
+    private boolean addToIndex(@NotNull RegenerationProcess process) {
+        SimpleLocation location = process.getLocation();
+        long key = BlockPositions.pack(location.getX(), location.getY(), location.getZ());
+
+        RegenerationProcess existing;
+        synchronized (index) {
+            existing = index.computeIfAbsent(location.getWorld(), k -> new LongHashMap<>()).putIfAbsent(key, process);
+
+            if (existing == null) {
+                spatial.add(process);
+                processIndex.add(process);
+                physicsChunks.add(process);
+            }
+        }
+
+        if (existing != null) {
+            log.fine(() -> String.format("Cache already contains process %s", existing.getId()));
+            // Started again.
+            return existing == process;
         }
 
         cache.add(process);
         log.fine(() -> "Registered regeneration process " + process);
+        return true;
     }
 
     @Nullable
     public RegenerationProcess getProcess(@NotNull Block block) {
-        for (RegenerationProcess process : cache) {
-            // Try to convert simple location again and exit if the block's not there.
-            if (process.getBlock() == null) {
-                continue;
+        return getProcess(block.getWorld().getName(), block.getX(), block.getY(), block.getZ());
+    }
+
+    /**
+     * Process at the position. A process in an unloaded chunk is returned as a detached view, changes to it are not
+     * stored. A process that is not restored yet is restored right away on the main thread, off it it's returned before
+     * it's started.
+     */
+    @Nullable
+    public RegenerationProcess getProcess(@NotNull String worldName, int x, int y, int z) {
+        ProcessRestorer restorer = this.restorer;
+        if (restorer != null) {
+            if (!Bukkit.isPrimaryThread()) {
+                RegenerationProcess pending = restorer.getPending(worldName, x, y, z);
+                if (pending != null) {
+                    return pending;
+                }
+            } else {
+                // Not restored yet, restore it now so it's found below.
+                restorer.restoreAt(worldName, x, y, z);
             }
+        }
 
-            if (!process.getBlock().equals(block)) {
-                continue;
+        RegenerationProcess stored;
+        synchronized (index) {
+            LongHashMap<RegenerationProcess> worldIndex = index.get(worldName);
+            RegenerationProcess process = worldIndex == null ? null : worldIndex.get(BlockPositions.pack(x, y, z));
+            if (process != null) {
+                return process;
             }
 
-            return process;
+            stored = dormant.get(worldName, x, y, z);
+        }
+
+        // Only made live again on the main thread with the chunk loaded, before its load event got to it.
+        if (stored == null || !Bukkit.isPrimaryThread() || !stored.getLocation().isChunkLoaded()) {
+            return stored;
+        }
+
+        RegenerationProcess restored;
+        synchronized (index) {
+            restored = dormant.remove(worldName, x, y, z);
+        }
+
+        if (restored == null) {
+            return null;
+        }
+
+        if (!restore(restored)) {
+            // Same as on chunk load.
+            restored.revertBlock();
+            storeRemove(restored);
+            return null;
+        }
+        addToIndex(restored);
+        wake(restored);
+        return restored;
+    }
+
+    /**
+     * Whether a process that disables physics could be at the block. False means there's definitely none, checked
+     * before looking up the process itself on physics updates.
+     */
+    public boolean mayDisablePhysics(@NotNull Block block) {
+        return mayDisablePhysics(block.getWorld().getName(), block.getX(), block.getZ());
+    }
+
+    public boolean mayDisablePhysics(@NotNull String worldName, int x, int z) {
+        synchronized (index) {
+            return physicsChunks.contains(worldName, x >> 4, z >> 4);
         }
-        return null;
     }
 
     public boolean isRegenerating(@NotNull Block block) {
@@ -131,6 +272,27 @@ public class RegenerationManager {
     }
 
     public void removeProcess(RegenerationProcess process) {
+        removeFromIndex(process);
+        storeRemove(process);
+    }
+
+    private void removeFromIndex(RegenerationProcess process) {
+        // Drop it from the placement queue as well.
+        process.setQueued(false);
+
+        SimpleLocation location = process.getLocation();
+        long key = BlockPositions.pack(location.getX(), location.getY(), location.getZ());
+
+        synchronized (index) {
+            LongHashMap<RegenerationProcess> worldIndex = index.get(location.getWorld());
+            // Only drop the mapping if it belongs to this process.
+            if (worldIndex != null && worldIndex.remove(key, process)) {
+                spatial.remove(process);
+                processIndex.remove(process);
+                physicsChunks.remove(process);
+            }
+        }
+
         if (cache.remove(process)) {
             log.fine(() -> String.format("Removed process from cache: %s", process));
         } else {
@@ -139,7 +301,214 @@ public class RegenerationManager {
     }
 
     public void removeProcess(@NotNull Block block) {
-        cache.removeIf(process -> process.getBlock().equals(block));
+        RegenerationProcess removed;
+        RegenerationProcess stored;
+        synchronized (index) {
+            stored = dormant.remove(block.getWorld().getName(), block.getX(), block.getY(), block.getZ());
+
+            LongHashMap<RegenerationProcess> worldIndex = index.get(block.getWorld().getName());
+            removed = worldIndex == null ? null : worldIndex.remove(BlockPositions.pack(block.getX(), block.getY(), block.getZ()));
+
+            if (removed != null) {
+                spatial.remove(removed);
+                processIndex.remove(removed);
+                physicsChunks.remove(removed);
+            }
+        }
+
+        if (removed != null) {
+            cache.remove(removed);
+            storeRemove(removed);
+        }
+
+        if (stored != null) {
+            storeRemove(stored);
+        }
+    }
+
+    @NotNull
+    public Collection<RegenerationProcess> getProcessesInChunk(@NotNull String worldName, int chunkX, int chunkZ) {
+        synchronized (index) {
+            Set<RegenerationProcess> bucket = spatial.getChunk(worldName, chunkX, chunkZ);
+            return bucket == null ? Collections.emptyList() : new ArrayList<>(bucket);
+        }
+    }
+
+    // --- Queries
+
+    /**
+     * Running processes matching all the given filters, a null filter matches everything. Region and world names
+     * ignore case. Processes in unloaded chunks are included as detached views.
+     */
+    @NotNull
+    public List<RegenerationProcess> getProcesses(@Nullable String presetName, @Nullable String regionName, @Nullable String worldName) {
+        synchronized (index) {
+            List<RegenerationProcess> processes = processIndex.query(presetName, regionName, worldName);
+            dormant.forEachMatching(presetName, regionName, worldName, processes::add);
+            return processes;
+        }
+    }
+
+    /**
+     * Regenerate running processes matching all the given filters, same as {@link #getProcesses(String, String, String)}.
+     * Processes in loaded chunks are queued, the ones in unloaded chunks regenerate once their chunk loads. Has to be
+     * called from the main thread.
+     *
+     * @return Number of processes regenerated.
+     */
+    public int regenerate(@Nullable String presetName, @Nullable String regionName, @Nullable String worldName) {
+        List<RegenerationProcess> live;
+        int stored;
+        synchronized (index) {
+            live = processIndex.query(presetName, regionName, worldName);
+            stored = dormant.markRegenerate(presetName, regionName, worldName);
+        }
+
+        // Placed gradually.
+        queue.addAll(live);
+        return live.size() + stored;
+    }
+
+    /**
+     * Number of running processes by world, region and preset. Processes outside of regions are under a null region.
+     */
+    @NotNull
+    public Map<String, Map<String, Map<String, Integer>>> getProcessCounts() {
+        synchronized (index) {
+            Map<String, Map<String, Map<String, Integer>>> counts = processIndex.getCounts();
+            dormant.addCounts(counts);
+            return counts;
+        }
+    }
+
+    // --- Spatial queries
+
+    /**
+     * Regenerating blocks in the cuboid between the two corners, both included. Blocks in unloaded chunks are included
+     * as well.
+     */
+    @NotNull
+    public List<RegeneratingBlock> getRegeneratingBlocks(@NotNull String worldName, int x1, int y1, int z1, int x2, int y2, int z2) {
+        int minX = Math.min(x1, x2), minY = Math.min(y1, y2), minZ = Math.min(z1, z2);
+        int maxX = Math.max(x1, x2), maxY = Math.max(y1, y2), maxZ = Math.max(z1, z2);
+
+        List<RegeneratingBlock> blocks = new ArrayList<>();
+        synchronized (index) {
+            spatial.forEachInRange(worldName, minX, minY, minZ, maxX, maxY, maxZ, process -> blocks.add(new RegeneratingBlock(process)));
+            dormant.forEachInRange(worldName, minX, minY, minZ, maxX, maxY, maxZ, blocks::add);
+        }
+        return blocks;
+    }
+
+    @NotNull
+    public List<RegeneratingBlock> getRegeneratingBlocks(@NotNull String worldName, int chunkX, int chunkZ) {
+        return getRegeneratingBlocks(worldName, chunkX << 4, Integer.MIN_VALUE, chunkZ << 4,
+                (chunkX << 4) + 15, Integer.MAX_VALUE, (chunkZ << 4) + 15);
+    }
+
+    /**
+     * Regenerating block closest to the position, null if there's none within the distance.
+     */
+    @Nullable
+    public RegeneratingBlock getNearestRegenerating(@NotNull String worldName, int x, int y, int z, int maxDistance) {
+        RegenerationProcess live;
+        RegeneratingBlock stored;
+        synchronized (index) {
+            live = spatial.findNearest(worldName, x, y, z, maxDistance);
+            stored = dormant.findNearest(worldName, x, y, z, maxDistance);
+        }
+
+        RegeneratingBlock nearest = live == null ? null : new RegeneratingBlock(live);
+        if (nearest == null || (stored != null && stored.distanceSquared(x, y, z) < nearest.distanceSquared(x, y, z))) {
+            return stored;
+        }
+        return nearest;
+    }
+
+    // --- Chunk lifecycle
+
+    /**
+     * Wake up processes in a freshly loaded chunk. Overdue ones are queued for regeneration together.
+     */
+    public void handleChunkLoad(@NotNull Chunk chunk) {
+        String worldName = chunk.getWorld().getName();
+
+        List<RegenerationProcess> stored;
+        synchronized (index) {
+            stored = dormant.removeChunk(worldName, chunk.getX(), chunk.getZ());
+        }
+
+        for (RegenerationProcess process : stored) {
+            if (restore(process)) {
+                addToIndex(process);
+            } else {
+                process.revertBlock();
+                storeRemove(process);
+            }
+        }
+
+        Collection<RegenerationProcess> processes = getProcessesInChunk(worldName, chunk.getX(), chunk.getZ());
+
+        for (RegenerationProcess process : processes) {
+            wake(process);
+        }
+
+        if (!processes.isEmpty()) {
+            log.fine(() -> String.format("Woke up %d process(es) in chunk %d,%d.", processes.size(), chunk.getX(), chunk.getZ()));
+        }
+    }
+
+    private void wake(RegenerationProcess process) {
+        process.wake();
+
+        if (process.isRegenerateOnLoad()) {
+            process.setRegenerateOnLoad(false);
+            queue.add(process);
+        }
+    }
+
+    /**
+     * Suspend timers of processes in an unloading chunk and move them into the compact store.
+     */
+    public void handleChunkUnload(@NotNull Chunk chunk) {
+        compact(getProcessesInChunk(chunk.getWorld().getName(), chunk.getX(), chunk.getZ()));
+    }
+
+    private void compact(Collection<RegenerationProcess> processes) {
+        for (RegenerationProcess process : processes) {
+            process.suspend();
+
+            synchronized (index) {
+                removeFromIndex(process);
+                dormant.add(process);
+            }
+        }
+    }
+
+    // Resolve the preset and block of a materialized process.
+    private boolean restore(@NotNull RegenerationProcess process) {
+        process.setBlock(process.getLocation().toBlock());
+
+        if (!process.convertPreset()) {
+            return false;
+        }
+
+        // Resume the timer on wake.
+        process.setDormant(process.shouldRegenerate());
+        return true;
+    }
+
+    public int getDormantCount() {
+        synchronized (index) {
+            return dormant.size();
+        }
+    }
+
+    // Approximate heap usage of the compact store in bytes.
+    public long getDormantMemoryUsage() {
+        synchronized (index) {
+            return dormant.getMemoryUsage();
+        }
     }
 
     public void startAutoSave() {
@@ -159,16 +528,132 @@ public class RegenerationManager {
         }
     }
 
-    // Revert blocks before disabling
-    public void revertAll() {
-        cache.forEach(RegenerationProcess::revertBlock);
+    private static final class RevertBatch {
+        private final World world;
+        private final long chunkKey;
+        private final boolean loaded;
+        private final List<RegenerationProcess> processes = new ArrayList<>();
+
+        private RevertBatch(World world, long chunkKey) {
+            this.world = world;
+            this.chunkKey = chunkKey;
+            this.loaded = world.isChunkLoaded(BlockPositions.chunkX(chunkKey), BlockPositions.chunkZ(chunkKey));
+        }
+    }
+
+    /**
+     * Revert blocks of all processes before disabling, chunk by chunk. Loaded chunks go first, unloaded ones are loaded
+     * in order of their position. Once the time limit runs out the remaining blocks are left replaced, they're picked
+     * up again on the next start.
+     *
+     * @return Number of reverted blocks.
+     */
+    public int revertAll(long timeLimitMillis) {
+        long start = System.currentTimeMillis();
+
+        Map<String, LongHashMap<RevertBatch>> byWorld = new HashMap<>();
+        List<RevertBatch> batches = new ArrayList<>();
+
+        Consumer<RegenerationProcess> add = process -> {
+            World world = process.getLocation().toWorld();
+            if (world == null) {
+                return;
+            }
+
+            LongHashMap<RevertBatch> worldBatches = byWorld.computeIfAbsent(world.getName(), k -> new LongHashMap<>());
+            long chunkKey = BlockPositions.chunkKeyAt(process.getLocation().getX(), process.getLocation().getZ());
+
+            RevertBatch batch = worldBatches.get(chunkKey);
+            if (batch == null) {
+                batch = new RevertBatch(world, chunkKey);
+                worldBatches.put(chunkKey, batch);
+                batches.add(batch);
+            }
+            batch.processes.add(process);
+        };
+
+        cache.forEach(add);
+        synchronized (index) {
+            dormant.forEach(add);
+        }
+
+        // Not restored yet, but the block is in place.
+        ProcessRestorer restorer = this.restorer;
+        if (restorer != null) {
+            restorer.forEachPending(process -> {
+                if (!restorer.needsReplace(process)) {
+                    add.accept(process);
+                }
+            });
+        }
+
+        batches.sort(Comparator.comparing((RevertBatch batch) -> !batch.loaded)
+                .thenComparing(batch -> batch.world.getName())
+                .thenComparingLong(batch -> batch.chunkKey));
+
+        int reverted = 0;
+        int chunkCount = 0;
+        int skipped = 0;
+
+        for (RevertBatch batch : batches) {
+            if (System.currentTimeMillis() - start >= timeLimitMillis) {
+                skipped += batch.processes.size();
+                continue;
+            }
+
+            for (RegenerationProcess process : batch.processes) {
+                if (process.getBlock() == null) {
+                    process.setBlock(process.getLocation().toBlock());
+                }
+                process.revertBlock();
+                reverted++;
+            }
+            chunkCount++;
+        }
+
+        long took = System.currentTimeMillis() - start;
+        log.info(String.format("Reverted %d block(s) in %d chunk(s) in %dms.", reverted, chunkCount, took));
+
+        if (skipped > 0) {
+            log.warning(String.format("Reverting took longer than %dms, %d block(s) were left replaced.", timeLimitMillis, skipped));
+        }
+        return reverted;
+    }
+
+    /**
+     * Ids of processes whose replace block is not placed, their chunk didn't load since they started.
+     */
+    @NotNull
+    public Set<UUID> getReplacePending() {
+        Set<UUID> ids = new HashSet<>();
+
+        for (RegenerationProcess process : cache) {
+            if (process.isReplacePending()) {
+                ids.add(process.getId());
+            }
+        }
+
+        synchronized (index) {
+            dormant.forEachReplacePending(ids::add);
+        }
+
+        ProcessRestorer restorer = this.restorer;
+        if (restorer != null) {
+            restorer.forEachPending(process -> {
+                if (restorer.needsReplace(process)) {
+                    ids.add(process.getId());
+                }
+            });
+        }
+        return ids;
     }
 
     // Can only be called from the main thread
     private void purgeExpired() {
         // Clear invalid processes
         for (RegenerationProcess process : new HashSet<>(cache)) {
-            if (process.getTimeLeft() < 0 && process.shouldRegenerate()) {
+            // Don't load chunks, they get regenerated when the chunk loads.
+            if (process.getTimeLeft() < 0 && process.shouldRegenerate() && process.getLocation().isChunkLoaded()) {
                 if (Bukkit.isPrimaryThread()) {
                     process.regenerateBlock();
                 } else {
@@ -178,6 +663,46 @@ public class RegenerationManager {
         }
     }
 
+    // --- Persistence
+
+    // Stores a copy, the process keeps changing on the main thread while the storage writes it.
+    private void storePut(RegenerationProcess process) {
+        if (storage != null) {
+            storage.put(process.copyForSave(System.currentTimeMillis()));
+        }
+    }
+
+    private void storeRemove(RegenerationProcess process) {
+        if (storage != null) {
+            storage.remove(process);
+        }
+    }
+
+    /**
+     * Write changes since the last save. Saves everything once the storage asks for it.
+     */
+    public void autoSave() {
+        if (persistence.isPending(CHANGES)) {
+            log.warning("The previous auto-save is still waiting to be written, saving can't keep up with the interval.");
+        }
+
+        int size = cache.size() + getDormantCount();
+        if (!storage.shouldSave(size)) {
+            persistence.submit(CHANGES, storage::flush);
+            return;
+        }
+
+        List<RegenerationProcess> state = stateForSave();
+        persistence.submit(CHANGES, () -> {
+            storage.flush();
+            log.fine(() -> String.format("Saving all %d processes.", size));
+            storage.save(() -> state);
+        });
+    }
+
+    /**
+     * Save all processes.
+     */
     public void save() {
         save(false);
     }
@@ -188,64 +713,145 @@ public class RegenerationManager {
         // TODO: Shouldn't be required
         purgeExpired();
 
-        final List<RegenerationProcess> finalCache = new ArrayList<>(cache);
-
-        CompletableFuture<Void> future = plugin.getGsonHelper().save(finalCache, plugin.getDataFolder().getPath() + "/Data.json")
-                .exceptionally(e -> {
-                    log.severe("Could not save processes: " + e.getMessage());
-                    e.printStackTrace();
-                    return null;
-                });
+        List<RegenerationProcess> state = stateForSave();
+        CompletableFuture<Void> future = persistence.submit(PROCESSES, () -> storage.save(() -> state));
 
         if (sync) {
-            future.join();
+            // Failures are logged by the executor.
+            future.exceptionally(e -> null).join();
         }
+    }
 
-        log.info("Saved " + finalCache.size() + " regeneration processes..");
+    // Taken on the main thread, live processes change there while the persistence thread writes. Changes made after
+    // this are kept by the storage and written on top. Empty if the storage doesn't use the state.
+    private List<RegenerationProcess> stateForSave() {
+        return storage.needsState() ? Collections.unmodifiableList(snapshot()) : Collections.emptyList();
     }
 
-    public void load() {
-        plugin.getGsonHelper().loadListAsync(plugin.getDataFolder().getPath() + "/Data.json", RegenerationProcess.class)
-                .thenAcceptAsync(loadedProcesses -> {
-                    cache.clear();
+    // Current state of all processes, changes made after this is taken are stored separately.
+    private List<RegenerationProcess> snapshot() {
+        ProcessRestorer restorer = this.restorer;
 
-                    if (loadedProcesses == null) {
-                        return;
-                    }
+        // Taken first, a process restored in the meantime shows up twice rather than not at all.
+        List<RegenerationProcess> pending = new ArrayList<>();
+        if (restorer != null) {
+            restorer.forEachPending(pending::add);
+        }
 
-                    for (RegenerationProcess process : loadedProcesses) {
-                        if (process == null) {
-                            log.warning("Failed to load a process from storage. Report this to the maintainer of the plugin.");
-                            continue;
-                        }
+        // Copies, the live processes keep changing.
+        long now = System.currentTimeMillis();
+        final List<RegenerationProcess> finalCache = new ArrayList<>(cache.size());
+        cache.forEach(process -> finalCache.add(process.copyForSave(now)));
 
-                        if (!process.convertLocation()) {
-                            this.retry = true;
-                            break;
-                        }
+        // Detached views, cheap enough for the duration of a save.
+        synchronized (index) {
+            dormant.forEach(finalCache::add);
+        }
 
-                        if (!process.convertPreset()) {
-                            Bukkit.getScheduler().runTask(plugin, process::revert);
-                            continue;
-                        }
-                        log.fine(() -> "Prepared regeneration process " + process);
-                    }
+        if (pending.isEmpty()) {
+            return finalCache;
+        }
+
+        // Processes are equal by id.
+        Set<RegenerationProcess> all = new LinkedHashSet<>(finalCache);
+        all.addAll(pending);
+        return new ArrayList<>(all);
+    }
 
-                    if (!this.retry) {
-                        // Start em
-                        Bukkit.getScheduler().runTask(plugin, () -> {
-                            loadedProcesses.forEach(RegenerationProcess::start);
-                            log.info("Loaded " + this.cache.size() + " regeneration process(es)...");
-                        });
-                    } else {
-                        log.info(
-                                "One of the worlds is probably not loaded. Loading after complete server load instead.");
+    public void load() {
+        if (restorer != null) {
+            restorer.stop();
+        }
+
+        // Loading writes too, the journal is started over and imports are marked. Only the persistence thread writes.
+        CompletableFuture<List<RegenerationProcess>> loaded = new CompletableFuture<>();
+        persistence.submit(LOAD, () -> loaded.complete(storage.load()))
+                .whenComplete((result, e) -> {
+                    if (e != null) {
+                        loaded.completeExceptionally(e);
                     }
-                }).exceptionally(e -> {
-                    log.severe("Could not load processes: " + e.getMessage());
-                    e.printStackTrace();
-                    return null;
                 });
+
+        loaded.thenAcceptAsync(loadedProcesses -> {
+            // Left by a shutdown that didn't revert blocks.
+            Set<UUID> replacePending = new ShutdownState(plugin.getDataFolder().toPath()).consumePersisted();
+
+            List<RegenerationProcess> processes = new ArrayList<>(loadedProcesses.size());
+            List<RegenerationProcess> invalid = new ArrayList<>();
+
+            for (RegenerationProcess process : loadedProcesses) {
+                if (process == null) {
+                    log.warning("Failed to load a process from storage. Report this to the maintainer of the plugin.");
+                    continue;
+                }
+
+                if (process.getOriginalData() != null) {
+                    process.setOriginalData(plugin.getVersionManager().getNodeDataPalette().intern(process.getOriginalData()));
+                }
+
+                if (process.getLocation() == null || process.getLocation().toWorld() == null) {
+                    log.severe("Could not load location for process " + process + ", world is invalid or not loaded.");
+                    this.retry = true;
+                    break;
+                }
+
+                if (!process.convertPreset()) {
+                    invalid.add(process);
+                    continue;
+                }
+                processes.add(process);
+            }
+
+            if (this.retry) {
+                log.info("One of the worlds is probably not loaded. Loading after complete server load instead.");
+                return;
+            }
+
+            // Grouped off the main thread, restored on it over multiple ticks.
+            ProcessRestorer restorer = new ProcessRestorer(plugin, this, processes, invalid, replacePending, () -> {
+                this.restorer = null;
+                // Fold the changes replayed on load into a fresh save.
+                save();
+            });
+
+            Bukkit.getScheduler().runTask(plugin, () -> {
+                clearCache();
+                this.restorer = restorer;
+                restorer.start();
+            });
+        }).exceptionally(e -> {
+            log.severe("Could not load processes: " + e.getMessage());
+            e.printStackTrace();
+            return null;
+        });
+    }
+
+    /**
+     * Count the chunk of a process waiting in the restorer for {@link #mayDisablePhysics(String, int, int)}.
+     */
+    void addPendingPhysics(@NotNull RegenerationProcess process) {
+        synchronized (index) {
+            physicsChunks.add(process);
+        }
+    }
+
+    /**
+     * Stop counting the chunk of a process taken from the restorer.
+     */
+    void removePendingPhysics(@NotNull RegenerationProcess process) {
+        synchronized (index) {
+            physicsChunks.remove(process);
+        }
+    }
+
+    /**
+     * Keep a restored process in the compact store, its chunk is not loaded.
+     */
+    void addDormant(@NotNull RegenerationProcess process) {
+        synchronized (index) {
+            dormant.add(process);
+        }
+        storePut(process);
     }
 
     public void reattemptLoad() {
@@ -259,7 +865,84 @@ public class RegenerationManager {
         this.retry = false;
     }
 
+    private void clearCache() {
+        synchronized (index) {
+            index.clear();
+            spatial.clear();
+            dormant.clear();
+            processIndex.clear();
+            physicsChunks.clear();
+        }
+        cache.clear();
+    }
+
+    /**
+     * Read-only view of all running processes, live ones first.
+     * <p>
+     * Processes in unloaded chunks are materialized one at a time as the iteration reaches them, nothing is copied up
+     * front. They are detached views, changes to them are not stored. The view is weakly consistent like the
+     * concurrent collections, a process added, removed or moved between a loaded and an unloaded chunk during the
+     * iteration might be missed or seen twice. {@link Collection#size()} is constant time, {@code contains} walks
+     * the view.
+     */
     public Collection<RegenerationProcess> getCache() {
-        return Collections.unmodifiableCollection(cache);
+        return cacheView;
+    }
+
+    // Live processes from the cache, then stored ones from the compact store.
+    private class CacheView extends AbstractCollection<RegenerationProcess> {
+        @Override
+        public Iterator<RegenerationProcess> iterator() {
+            Iterator<RegenerationProcess> live = cache.iterator();
+
+            return new Iterator<RegenerationProcess>() {
+                // Next slot of the compact store to look at, -1 once it's done.
+                private int slot = 0;
+                private RegenerationProcess next;
+
+                @Override
+                public boolean hasNext() {
+                    if (next != null) {
+                        return true;
+                    }
+
+                    if (live.hasNext()) {
+                        next = live.next();
+                        return true;
+                    }
+
+                    if (slot < 0) {
+                        return false;
+                    }
+
+                    // The lock is only held for a single process.
+                    synchronized (index) {
+                        int found = dormant.nextSlot(slot);
+                        if (found < 0) {
+                            slot = -1;
+                            return false;
+                        }
+                        next = dormant.materializeAt(found);
+                        slot = found + 1;
+                    }
+                    return true;
+                }
+
+                @Override
+                public RegenerationProcess next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    RegenerationProcess process = next;
+                    next = null;
+                    return process;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return cache.size() + getDormantCount();
+        }
     }
 }
\ No newline at end of file
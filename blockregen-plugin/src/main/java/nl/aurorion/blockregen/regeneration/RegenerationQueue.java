@@ -0,0 +1,220 @@
+package nl.aurorion.blockregen.regeneration;
+
+import lombok.Getter;
+import lombok.extern.java.Log;
+import nl.aurorion.blockregen.api.BlockRegenPlugin;
+import nl.aurorion.blockregen.regeneration.struct.RegenerationProcess;
+import nl.aurorion.blockregen.regeneration.struct.SimpleLocation;
+import nl.aurorion.blockregen.util.BlockPositions;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * Placement queue for processes that are due to regenerate.
+ * <p>
+ * Drained once per tick under a time budget. Pending processes are grouped by world and chunk, so writes to the same
+ * chunk happen together. Worlds take turns, a world with a lot of pending work doesn't starve the others.
+ * <p>
+ * Only accessed from the main thread.
+ */
+@Log
+public class RegenerationQueue {
+
+    // How many processes of a single chunk to place before giving the next world a turn.
+    private static final int BATCH_SIZE = 64;
+
+    // Window for the drain rate, in ticks.
+    private static final int RATE_WINDOW = 20;
+
+    // Attempts at placing a process that keeps failing before it's dropped from the queue.
+    private static final int MAX_ATTEMPTS = 3;
+
+    private static class WorldQueue {
+        private final String worldName;
+
+        // Chunk key -> pending processes, in order of the first process queued in the chunk.
+        private final LinkedHashMap<Long, ArrayDeque<RegenerationProcess>> chunks = new LinkedHashMap<>();
+
+        private WorldQueue(String worldName) {
+            this.worldName = worldName;
+        }
+    }
+
+    private final BlockRegenPlugin plugin;
+
+    private final Map<String, WorldQueue> worlds = new HashMap<>();
+
+    // Worlds with pending work, in turn order.
+    private final ArrayDeque<WorldQueue> turns = new ArrayDeque<>();
+
+    @Getter
+    private int size = 0;
+
+    // Failed placements of processes that are queued again.
+    private final Map<RegenerationProcess, Integer> failures = new IdentityHashMap<>();
+
+    private long budgetNanos;
+
+    @Getter
+    private int drainedLastTick = 0;
+
+    private final int[] drainHistory = new int[RATE_WINDOW];
+    private int historyIndex = 0;
+
+    public RegenerationQueue(BlockRegenPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    public void load() {
+        double budget = plugin.getConfig().getDouble("Regeneration.Tick-Budget", 5.0);
+        this.budgetNanos = (long) (Math.max(budget, 0.1) * 1_000_000L);
+        log.fine(() -> String.format("Regeneration tick budget: %.1fms", budget));
+    }
+
+    public void add(@NotNull RegenerationProcess process) {
+        if (process.isQueued()) {
+            return;
+        }
+
+        SimpleLocation location = process.getLocation();
+
+        WorldQueue world = worlds.get(location.getWorld());
+        if (world == null) {
+            world = new WorldQueue(location.getWorld());
+            worlds.put(location.getWorld(), world);
+        }
+
+        if (world.chunks.isEmpty()) {
+            turns.add(world);
+        }
+
+        long chunkKey = BlockPositions.chunkKeyAt(location.getX(), location.getZ());
+        world.chunks.computeIfAbsent(chunkKey, k -> new ArrayDeque<>()).add(process);
+
+        process.setQueued(true);
+        size++;
+    }
+
+    public void addAll(@NotNull Collection<RegenerationProcess> processes) {
+        for (RegenerationProcess process : processes) {
+            add(process);
+        }
+    }
+
+    /**
+     * Regenerate queued processes until the queue is empty or the tick budget runs out.
+     * <p>
+     * Always places at least one process to guarantee progress. Processes that fail to regenerate are queued again for
+     * the next tick, up to {@link #MAX_ATTEMPTS} times.
+     */
+    public void drain() {
+        int drained = 0;
+
+        List<RegenerationProcess> failed = new ArrayList<>();
+
+        long deadline = System.nanoTime() + budgetNanos;
+
+        while (!turns.isEmpty()) {
+            WorldQueue world = turns.poll();
+
+            Iterator<Map.Entry<Long, ArrayDeque<RegenerationProcess>>> it = world.chunks.entrySet().iterator();
+            ArrayDeque<RegenerationProcess> chunk = it.next().getValue();
+
+            int batch = 0;
+            while (!chunk.isEmpty() && batch < BATCH_SIZE) {
+                RegenerationProcess process = chunk.poll();
+                size--;
+
+                // Removed or reverted while waiting.
+                if (!process.isQueued()) {
+                    continue;
+                }
+                process.setQueued(false);
+
+                // Never load a chunk to regenerate, wait for it to load instead.
+                if (!process.getLocation().isChunkLoaded()) {
+                    process.setDormant(true);
+                    process.setRegenerateOnLoad(true);
+                    continue;
+                }
+
+                try {
+                    process.regenerate();
+                    failures.remove(process);
+                } catch (Exception e) {
+                    int attempts = failures.merge(process, 1, Integer::sum);
+                    // Not the whole process, its toString needs the preset, which may be what's broken.
+                    String name = process.getId() + " at " + process.getLocation();
+                    if (attempts < MAX_ATTEMPTS) {
+                        log.warning("Failed to regenerate process " + name + " (attempt " + attempts + "), trying again next tick: " + e.getMessage());
+                        failed.add(process);
+                    } else {
+                        log.severe("Failed to regenerate process " + name + " " + attempts + " times, giving up: " + e.getMessage());
+                        e.printStackTrace();
+                        failures.remove(process);
+                    }
+                }
+
+                batch++;
+                drained++;
+
+                if (System.nanoTime() >= deadline) {
+                    break;
+                }
+            }
+
+            if (chunk.isEmpty()) {
+                it.remove();
+            }
+
+            if (!world.chunks.isEmpty()) {
+                // Out of budget mid-chunk, continue with the same world first next tick.
+                if (System.nanoTime() >= deadline) {
+                    turns.addFirst(world);
+                    break;
+                }
+                turns.add(world);
+            } else {
+                worlds.remove(world.worldName);
+            }
+
+            if (System.nanoTime() >= deadline) {
+                break;
+            }
+        }
+
+        // Not retried in the same tick, whatever broke might be fixed by then.
+        addAll(failed);
+
+        this.drainedLastTick = drained;
+        drainHistory[historyIndex] = drained;
+        historyIndex = (historyIndex + 1) % RATE_WINDOW;
+
+        if (drained > 0) {
+            int finalDrained = drained;
+            log.fine(() -> String.format("Regenerated %d queued process(es), %d pending.", finalDrained, size));
+        }
+    }
+
+    // Processes regenerated per second, averaged over the last second worth of ticks.
+    public double getDrainRate() {
+        int sum = 0;
+        for (int drained : drainHistory) {
+            sum += drained;
+        }
+        return sum * 20.0 / RATE_WINDOW;
+    }
+
+    public void clear() {
+        for (WorldQueue world : worlds.values()) {
+            for (ArrayDeque<RegenerationProcess> chunk : world.chunks.values()) {
+                chunk.forEach(process -> process.setQueued(false));
+            }
+        }
+        worlds.clear();
+        turns.clear();
+        failures.clear();
+        size = 0;
+    }
+}
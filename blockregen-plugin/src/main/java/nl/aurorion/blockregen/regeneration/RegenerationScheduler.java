@@ -0,0 +1,98 @@
+package nl.aurorion.blockregen.regeneration;
+
+import lombok.extern.java.Log;
+import nl.aurorion.blockregen.api.BlockRegenPlugin;
+import nl.aurorion.blockregen.regeneration.struct.RegenerationProcess;
+import nl.aurorion.blockregen.util.TimingWheel;
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Drives regeneration of all processes from a single repeating task.
+ * <p>
+ * Instead of one BukkitTask per process, processes are put into a hashed timing wheel which is advanced once per
+ * server tick. All processes due in a tick are handed to the {@link RegenerationQueue} in one pass, which then
+ * places them under the tick budget.
+ */
+@Log
+public class RegenerationScheduler implements Runnable {
+
+    // 1024 ticks (~51s) per revolution. Most regen delays fit in a single revolution.
+    private static final int SLOTS = 1024;
+
+    private final BlockRegenPlugin plugin;
+
+    private final RegenerationQueue queue;
+
+    // Guarded by itself.
+    private final TimingWheel<RegenerationProcess> wheel = new TimingWheel<>(SLOTS);
+
+    // Reused between ticks, only touched from the main thread.
+    private final List<RegenerationProcess> due = new ArrayList<>();
+
+    private BukkitTask task;
+
+    public RegenerationScheduler(BlockRegenPlugin plugin, RegenerationQueue queue) {
+        this.plugin = plugin;
+        this.queue = queue;
+    }
+
+    public void start() {
+        if (task != null) {
+            return;
+        }
+        this.task = Bukkit.getScheduler().runTaskTimer(plugin, this, 1L, 1L);
+    }
+
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            this.task = null;
+        }
+
+        synchronized (wheel) {
+            wheel.clear();
+        }
+        queue.clear();
+    }
+
+    /**
+     * Schedule the process to regenerate after the delay in ticks.
+     */
+    @NotNull
+    public TimingWheel.Timeout<RegenerationProcess> schedule(@NotNull RegenerationProcess process, long delay) {
+        synchronized (wheel) {
+            return wheel.schedule(process, delay);
+        }
+    }
+
+    public void cancel(@NotNull TimingWheel.Timeout<RegenerationProcess> timeout) {
+        synchronized (wheel) {
+            timeout.cancel();
+        }
+    }
+
+    public int getScheduledCount() {
+        synchronized (wheel) {
+            return wheel.size();
+        }
+    }
+
+    @Override
+    public void run() {
+        synchronized (wheel) {
+            wheel.advance(due::add);
+        }
+
+        if (!due.isEmpty()) {
+            queue.addAll(due);
+            due.clear();
+        }
+
+        queue.drain();
+    }
+}
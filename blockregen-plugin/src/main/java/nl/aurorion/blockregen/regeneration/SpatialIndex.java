@@ -0,0 +1,213 @@
+package nl.aurorion.blockregen.regeneration;
+
+import nl.aurorion.blockregen.regeneration.struct.RegenerationProcess;
+import nl.aurorion.blockregen.regeneration.struct.SimpleLocation;
+import nl.aurorion.blockregen.util.BlockPositions;
+import nl.aurorion.blockregen.util.LongHashMap;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Chunk grid of live processes per world. Range and nearest queries only visit chunks that can hold a match.
+ * <p>
+ * Not thread-safe.
+ */
+public class SpatialIndex {
+
+    /**
+     * Closest candidate found so far.
+     */
+    static final class Nearest<T> {
+        private final long maxDistanceSquared;
+
+        private T value;
+        private long distanceSquared = Long.MAX_VALUE;
+
+        Nearest(int maxDistance) {
+            this.maxDistanceSquared = (long) maxDistance * maxDistance;
+        }
+
+        boolean isCloser(long distanceSquared) {
+            return distanceSquared <= maxDistanceSquared && distanceSquared < this.distanceSquared;
+        }
+
+        void set(T value, long distanceSquared) {
+            this.value = value;
+            this.distanceSquared = distanceSquared;
+        }
+
+        @Nullable
+        T get() {
+            return value;
+        }
+    }
+
+    // World name -> chunk key -> processes in the chunk.
+    private final Map<String, LongHashMap<Set<RegenerationProcess>>> worlds = new HashMap<>();
+
+    public void add(@NotNull RegenerationProcess process) {
+        SimpleLocation location = process.getLocation();
+
+        LongHashMap<Set<RegenerationProcess>> chunks = worlds.computeIfAbsent(location.getWorld(), k -> new LongHashMap<>());
+        long chunkKey = BlockPositions.chunkKeyAt(location.getX(), location.getZ());
+
+        Set<RegenerationProcess> bucket = chunks.get(chunkKey);
+        if (bucket == null) {
+            bucket = new HashSet<>();
+            chunks.put(chunkKey, bucket);
+        }
+        bucket.add(process);
+    }
+
+    public void remove(@NotNull RegenerationProcess process) {
+        SimpleLocation location = process.getLocation();
+
+        LongHashMap<Set<RegenerationProcess>> chunks = worlds.get(location.getWorld());
+        if (chunks == null) {
+            return;
+        }
+
+        long chunkKey = BlockPositions.chunkKeyAt(location.getX(), location.getZ());
+        Set<RegenerationProcess> bucket = chunks.get(chunkKey);
+        if (bucket != null && bucket.remove(process) && bucket.isEmpty()) {
+            chunks.remove(chunkKey);
+        }
+    }
+
+    /**
+     * Processes in the chunk, null if there are none. The set is live, copy it before letting go of the lock.
+     */
+    @Nullable
+    public Set<RegenerationProcess> getChunk(@NotNull String worldName, int chunkX, int chunkZ) {
+        LongHashMap<Set<RegenerationProcess>> chunks = worlds.get(worldName);
+        return chunks == null ? null : chunks.get(BlockPositions.chunkKey(chunkX, chunkZ));
+    }
+
+    /**
+     * Pass processes within the bounds, all of them included, to the consumer.
+     */
+    public void forEachInRange(@NotNull String worldName, int minX, int minY, int minZ, int maxX, int maxY, int maxZ,
+                               @NotNull Consumer<RegenerationProcess> consumer) {
+        LongHashMap<Set<RegenerationProcess>> chunks = worlds.get(worldName);
+        if (chunks == null) {
+            return;
+        }
+
+        forEachChunk(chunks, minX >> 4, minZ >> 4, maxX >> 4, maxZ >> 4, (key, processes) -> {
+            for (RegenerationProcess process : processes) {
+                SimpleLocation location = process.getLocation();
+                if (location.getX() >= minX && location.getX() <= maxX
+                        && location.getY() >= minY && location.getY() <= maxY
+                        && location.getZ() >= minZ && location.getZ() <= maxZ) {
+                    consumer.accept(process);
+                }
+            }
+        });
+    }
+
+    /**
+     * Closest process to the position, null if there's none within the distance.
+     */
+    @Nullable
+    public RegenerationProcess findNearest(@NotNull String worldName, int x, int y, int z, int maxDistance) {
+        LongHashMap<Set<RegenerationProcess>> chunks = worlds.get(worldName);
+        if (chunks == null) {
+            return null;
+        }
+
+        Nearest<RegenerationProcess> nearest = new Nearest<>(maxDistance);
+        forEachRing(chunks, x >> 4, z >> 4, maxDistance, nearest, (key, processes) -> {
+            for (RegenerationProcess process : processes) {
+                SimpleLocation location = process.getLocation();
+                long dx = location.getX() - x;
+                long dy = location.getY() - y;
+                long dz = location.getZ() - z;
+                long distance = dx * dx + dy * dy + dz * dz;
+
+                if (nearest.isCloser(distance)) {
+                    nearest.set(process, distance);
+                }
+            }
+        });
+        return nearest.get();
+    }
+
+    public void clear() {
+        worlds.clear();
+    }
+
+    // Visit populated chunks in the range. Walks the grid for small ranges and the populated chunks for large ones.
+    static <V> void forEachChunk(@NotNull LongHashMap<V> chunks, int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ,
+                                 @NotNull LongHashMap.Consumer<V> consumer) {
+        long area = ((long) maxChunkX - minChunkX + 1) * ((long) maxChunkZ - minChunkZ + 1);
+
+        if (area <= chunks.size()) {
+            for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+                for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                    long key = BlockPositions.chunkKey(chunkX, chunkZ);
+                    V value = chunks.get(key);
+                    if (value != null) {
+                        consumer.accept(key, value);
+                    }
+                }
+            }
+            return;
+        }
+
+        chunks.forEach((key, value) -> {
+            int chunkX = BlockPositions.chunkX(key);
+            int chunkZ = BlockPositions.chunkZ(key);
+            if (chunkX >= minChunkX && chunkX <= maxChunkX && chunkZ >= minChunkZ && chunkZ <= maxChunkZ) {
+                consumer.accept(key, value);
+            }
+        });
+    }
+
+    // Visit populated chunks ring by ring around the center chunk. Stops once no chunk further out can hold anything
+    // closer than the nearest candidate.
+    static <V> void forEachRing(@NotNull LongHashMap<V> chunks, int centerX, int centerZ, int maxDistance,
+                                @NotNull Nearest<?> nearest, @NotNull LongHashMap.Consumer<V> consumer) {
+        int radius = (maxDistance >> 4) + 1;
+
+        // Sparse world, cheaper to go through the populated chunks.
+        if ((2L * radius + 1) * (2L * radius + 1) > chunks.size()) {
+            forEachChunk(chunks, centerX - radius, centerZ - radius, centerX + radius, centerZ + radius, consumer);
+            return;
+        }
+
+        for (int ring = 0; ring <= radius; ring++) {
+            if (ring == 0) {
+                visit(chunks, centerX, centerZ, consumer);
+            } else {
+                for (int d = -ring; d <= ring; d++) {
+                    visit(chunks, centerX + d, centerZ - ring, consumer);
+                    visit(chunks, centerX + d, centerZ + ring, consumer);
+                }
+                for (int d = -ring + 1; d < ring; d++) {
+                    visit(chunks, centerX - ring, centerZ + d, consumer);
+                    visit(chunks, centerX + ring, centerZ + d, consumer);
+                }
+            }
+
+            // Blocks in chunks further out are more than this many blocks away.
+            long bound = (long) ring * 16;
+            if (nearest.distanceSquared <= bound * bound) {
+                return;
+            }
+        }
+    }
+
+    private static <V> void visit(LongHashMap<V> chunks, int chunkX, int chunkZ, LongHashMap.Consumer<V> consumer) {
+        long key = BlockPositions.chunkKey(chunkX, chunkZ);
+        V value = chunks.get(key);
+        if (value != null) {
+            consumer.accept(key, value);
+        }
+    }
+}
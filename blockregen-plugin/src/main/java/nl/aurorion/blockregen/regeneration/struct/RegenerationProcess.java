@@ -14,21 +14,28 @@ import nl.aurorion.blockregen.preset.BlockPreset;
 import nl.aurorion.blockregen.preset.FixedNumberValue;
 import nl.aurorion.blockregen.util.Blocks;
 import nl.aurorion.blockregen.util.Locations;
+import nl.aurorion.blockregen.util.TimingWheel;
 import nl.aurorion.blockregen.version.api.NodeData;
 import org.bukkit.Bukkit;
 import org.bukkit.block.Block;
 import org.bukkit.block.BlockFace;
-import org.bukkit.scheduler.BukkitTask;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Log
 @Data
 public class RegenerationProcess {
 
-    private final UUID id = UUID.randomUUID();
+    // Random per server run, the sequence keeps ids unique within it. Way cheaper than UUID#randomUUID().
+    private static final long ID_PREFIX = ThreadLocalRandom.current().nextLong();
+    private static final AtomicLong ID_SEQUENCE = new AtomicLong();
+
+    private final UUID id;
 
     private SimpleLocation location;
 
@@ -63,9 +70,23 @@ public class RegenerationProcess {
     @Setter
     private transient BlockRegenMaterial regenerateInto;
 
-    private transient BukkitTask task;
+    // Pending entry in the RegenerationScheduler.
+    private transient TimingWheel.Timeout<RegenerationProcess> task;
+
+    // Waiting in the RegenerationQueue to be placed.
+    private transient boolean queued = false;
+
+    // The chunk is not loaded, the timer is suspended until it loads again.
+    private transient boolean dormant = false;
+
+    // The replace block couldn't be placed yet, the chunk was not loaded.
+    private transient boolean replacePending = false;
+
+    // Regenerate as soon as the chunk loads, it was unloaded when the regeneration was due or requested.
+    private transient boolean regenerateOnLoad = false;
 
     public RegenerationProcess(Block block, NodeData originalData, BlockPreset preset) {
+        this.id = new UUID(ID_PREFIX, ID_SEQUENCE.incrementAndGet());
         this.block = block;
         this.location = new SimpleLocation(block);
 
@@ -78,8 +99,42 @@ public class RegenerationProcess {
         this.originalMaterial = XMaterial.matchXMaterial(block.getType());
     }
 
+    /**
+     * Restore a process from storage. The preset and block have to be resolved afterwards.
+     */
+    public RegenerationProcess(UUID id, SimpleLocation location, XMaterial originalMaterial, NodeData originalData, String presetName) {
+        this.id = id;
+        this.location = location;
+        this.worldName = location.getWorld();
+        this.originalMaterial = originalMaterial;
+        this.originalData = originalData;
+        this.presetName = presetName;
+    }
+
+    /**
+     * Copy of the stored state with the time left as of now, if the timer runs. The process itself is not changed, the
+     * copy can be written off the main thread.
+     */
+    @NotNull
+    public RegenerationProcess copyForSave(long now) {
+        RegenerationProcess copy = new RegenerationProcess(id, location, originalMaterial, originalData, presetName);
+        copy.worldName = worldName;
+        copy.regionName = regionName;
+        copy.regenerationTime = regenerationTime;
+        // Not started yet or never regenerating, the time left is all there is.
+        copy.timeLeft = regenerationTime > 0 ? regenerationTime - now : timeLeft;
+        return copy;
+    }
+
     // Return true if the process started, false otherwise.
     public boolean start() {
+        return start(true);
+    }
+
+    /**
+     * @param replace Place the replace block. False when it's known to be in place already.
+     */
+    public boolean start(boolean replace) {
 
         // Ensure to stop and null anything that ran before.
         stop();
@@ -101,13 +156,22 @@ public class RegenerationProcess {
 
             // No need to start a task when it's time to regenerate already.
             if (timeLeft == 0 || regenerationTime <= System.currentTimeMillis()) {
-                Bukkit.getScheduler().runTask(plugin, this::regenerate);
-                log.fine(() -> "Regenerated the process upon start.");
+                Bukkit.getScheduler().runTask(plugin, () -> plugin.getRegenerationManager().getQueue().add(this));
+                log.fine(() -> "Queued the process for regeneration upon start.");
                 return false;
             }
         }
 
-        Bukkit.getScheduler().runTask(plugin, this::replaceBlock);
+        if (replace) {
+            Bukkit.getScheduler().runTask(plugin, () -> {
+                // Don't load chunks to replace blocks nobody can see, do it once the chunk loads.
+                if (location.isChunkLoaded()) {
+                    replaceBlock();
+                } else {
+                    this.replacePending = true;
+                }
+            });
+        }
 
         // No regeneration will be happening. Don't start the task.
         if (!shouldRegenerate()) {
@@ -118,24 +182,104 @@ public class RegenerationProcess {
         return true;
     }
 
+    /**
+     * Prepare the process to be kept in the compact store instead of starting it, its chunk is not loaded. The
+     * regeneration time is fixed as in {@link #start()}, the replace block is placed when the chunk loads.
+     *
+     * @param replace Place the replace block. False when it's known to be in place already.
+     */
+    public void startDormant(boolean replace) {
+        if (shouldRegenerate()) {
+            if (timeLeft == -1) {
+                int regenDelay = preset.getDelay().getInt();
+                this.timeLeft = regenDelay * 1000L;
+            }
+
+            this.regenerationTime = System.currentTimeMillis() + timeLeft;
+        }
+
+        this.replacePending = replace;
+    }
+
     // <0 => don't regenerate. wait for manual regeneration.
     public boolean shouldRegenerate() {
         return !(preset.getDelay() instanceof FixedNumberValue && preset.getDelay().getInt() < 0);
     }
 
     private void startTask() {
-        // Start the task
-        this.task = Bukkit.getScheduler().runTaskLater(BlockRegenPluginImpl.getInstance(), this::regenerate, timeLeft / 50);
+        // Schedule with the shared scheduler
+        this.task = BlockRegenPluginImpl.getInstance().getRegenerationManager().getScheduler().schedule(this, timeLeft / 50);
         log.fine(() -> String.format("Regenerate %s in %ds", this, timeLeft / 1000));
     }
 
     public void stop() {
+        this.queued = false;
+        this.dormant = false;
+
         if (task != null) {
-            task.cancel();
+            BlockRegenPluginImpl.getInstance().getRegenerationManager().getScheduler().cancel(task);
             this.task = null;
         }
     }
 
+    /**
+     * Suspend the timer while the chunk is unloaded. The regeneration time is kept.
+     */
+    public void suspend() {
+        if (task == null && !queued) {
+            return;
+        }
+
+        if (task != null) {
+            BlockRegenPluginImpl.getInstance().getRegenerationManager().getScheduler().cancel(task);
+            this.task = null;
+        }
+        // Waiting for regeneration, e.g. forced by a command. Regenerates when the chunk loads.
+        if (queued) {
+            this.regenerateOnLoad = true;
+        }
+        this.queued = false;
+        this.dormant = true;
+        log.fine(() -> "Suspended " + this);
+    }
+
+    /**
+     * Called when the chunk of this process loads.
+     * <p>
+     * Places the replace block if it was deferred and resumes a dormant timer. Processes that are overdue are queued
+     * for regeneration right away.
+     */
+    public void wake() {
+        BlockRegenPlugin plugin = BlockRegenPluginImpl.getInstance();
+
+        boolean due = shouldRegenerate() && regenerationTime <= System.currentTimeMillis();
+
+        if (replacePending) {
+            this.replacePending = false;
+            // No point replacing when it's regenerating right away.
+            if (!due) {
+                replaceBlock();
+            }
+        }
+
+        if (!dormant) {
+            return;
+        }
+        this.dormant = false;
+
+        if (!shouldRegenerate()) {
+            return;
+        }
+
+        if (due) {
+            plugin.getRegenerationManager().getQueue().add(this);
+        } else {
+            this.timeLeft = regenerationTime - System.currentTimeMillis();
+            startTask();
+        }
+        log.fine(() -> "Woke up " + this);
+    }
+
     /**
      * Regenerate the process and block.
      * <p>
@@ -144,13 +288,14 @@ public class RegenerationProcess {
     public void regenerate() {
         log.fine(() -> "Regenerating " + this + "...");
 
+        BlockRegenPlugin plugin = BlockRegenPluginImpl.getInstance();
+
         // Cancel the task if running.
         if (task != null) {
-            task.cancel();
+            plugin.getRegenerationManager().getScheduler().cancel(task);
+            this.task = null;
         }
 
-        BlockRegenPlugin plugin = BlockRegenPluginImpl.getInstance();
-
         // If this block requires a block under it, wait for it to be there,
         // only if there's a running process at the block directly under.
         //
@@ -176,6 +321,7 @@ public class RegenerationProcess {
                     log.fine(() -> "Delaying " + this + " to wait for " + processBelow + " delay: " + delay);
 
                     startTask();
+                    plugin.getRegenerationManager().updateProcess(this);
                 } else {
                     // no block under, no regeneration,... no hope
                     log.fine(() -> "No block under " + this + ", no point regenerating.");
@@ -223,9 +369,12 @@ public class RegenerationProcess {
             }
         }
 
-        regenerateInto.setType(block);
-        originalData.apply(block); // Apply original data
-        regenerateInto.applyData(block); // Override with configured data if any
+        // Presets that disable physics don't update neighbours at all.
+        boolean applyPhysics = !preset.isDisablePhysics();
+
+        regenerateInto.setType(block, applyPhysics);
+        originalData.apply(block, applyPhysics); // Apply original data
+        regenerateInto.applyData(block, applyPhysics); // Override with configured data if any
         log.fine(() -> "Regenerated " + this);
     }
 
@@ -269,12 +418,14 @@ public class RegenerationProcess {
             }
         }
 
-        replaceMaterial.setType(block);
-        this.originalData.apply(block); // Apply original data
-        replaceMaterial.applyData(block); // Apply configured data if any
+        boolean applyPhysics = !preset.isDisablePhysics();
+
+        replaceMaterial.setType(block, applyPhysics);
+        this.originalData.apply(block, applyPhysics); // Apply original data
+        replaceMaterial.applyData(block, applyPhysics); // Apply configured data if any
 
         // Otherwise skull textures wouldn't update.
-        Bukkit.getScheduler().runTaskLater(BlockRegenPluginImpl.getInstance(), () -> block.getState().update(true), 1L);
+        Bukkit.getScheduler().runTaskLater(BlockRegenPluginImpl.getInstance(), () -> block.getState().update(true, applyPhysics), 1L);
         log.fine(() -> "Replaced block for " + this);
     }
 
@@ -310,6 +461,12 @@ public class RegenerationProcess {
         return new MinecraftMaterial(BlockRegenPluginImpl.getInstance(), this.originalMaterial, this.originalData);
     }
 
+    // Stored type of the original block, without its data.
+    @Nullable
+    public XMaterial getOriginalType() {
+        return originalMaterial;
+    }
+
     // Convert stored Location pointer to the Block at the location.
     public boolean convertLocation() {
 
@@ -383,7 +540,7 @@ public class RegenerationProcess {
     public String toString() {
         return String.format("{id=%s; task=%s; presetName=%s; worldName=%s; regionName=%s; block=%s; originalData=%s; originalMaterial=%s; regenerateInto=%s; replaceMaterial=%s; timeLeft=%d; regenerationTime=%d}",
                 id,
-                task == null ? "null" : task.getTaskId(),
+                task == null ? "null" : task.getDeadline(),
                 presetName,
                 worldName,
                 regionName,
@@ -1,10 +1,16 @@
 package nl.aurorion.blockregen.regeneration.struct;
 
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 import org.bukkit.Bukkit;
 import org.bukkit.World;
 import org.bukkit.block.Block;
+import org.jetbrains.annotations.Nullable;
 
+import java.lang.ref.WeakReference;
 import java.util.Objects;
 
 @Data
@@ -13,6 +19,12 @@ public class SimpleLocation {
     private String world;
     private int x, y, z;
 
+    // Resolved world, looking it up by name every time is not free.
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private transient WeakReference<World> resolvedWorld;
+
     public SimpleLocation(Block block) {
         if (block == null) {
             throw new IllegalArgumentException("SimpleLocation#block cannot be null.");
@@ -24,6 +36,13 @@ public class SimpleLocation {
         this.z = block.getZ();
     }
 
+    public SimpleLocation(String world, int x, int y, int z) {
+        this.world = world;
+        this.x = x;
+        this.y = y;
+        this.z = z;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -40,8 +59,34 @@ public class SimpleLocation {
         return Objects.hash(world, x, y, z);
     }
 
+    @Nullable
+    public World toWorld() {
+        World world = resolvedWorld == null ? null : resolvedWorld.get();
+        if (world == null) {
+            world = Bukkit.getWorld(this.world);
+            if (world != null) {
+                this.resolvedWorld = new WeakReference<>(world);
+            }
+        }
+        return world;
+    }
+
+    // Doesn't load the chunk.
     public Block toBlock() {
-        World world = Bukkit.getWorld(this.world);
+        World world = toWorld();
         return world == null ? null : world.getBlockAt(this.x, this.y, this.z);
     }
+
+    public int getChunkX() {
+        return x >> 4;
+    }
+
+    public int getChunkZ() {
+        return z >> 4;
+    }
+
+    public boolean isChunkLoaded() {
+        World world = toWorld();
+        return world != null && world.isChunkLoaded(getChunkX(), getChunkZ());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,240 @@
+package nl.aurorion.blockregen.region;
+
+import nl.aurorion.blockregen.region.struct.RegenerationArea;
+import nl.aurorion.blockregen.region.struct.RegenerationRegion;
+import nl.aurorion.blockregen.region.struct.RegenerationWorld;
+import nl.aurorion.blockregen.util.BlockPositions;
+import nl.aurorion.blockregen.util.LongHashMap;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Finds the area with the highest priority at a block without going through all of them.
+ * <p>
+ * Regions are put into a bucket for every chunk they cover. Whole worlds and regions covering too many chunks are kept
+ * in a short list per world instead. Every bucket and list is ordered by priority, highest first. Areas with the same
+ * priority go in the order they were added in.
+ * <p>
+ * Not thread-safe.
+ */
+public class AreaIndex {
+
+    // Regions covering more chunks go into the per-world list.
+    private static final int MAX_CHUNKS = 1024;
+
+    private static final Entry[] EMPTY = new Entry[0];
+
+    private static final Comparator<Entry> ORDER = Comparator.comparingInt((Entry entry) -> -entry.priority)
+            .thenComparingLong(entry -> entry.sequence);
+
+    private static final class Entry {
+        private final RegenerationArea area;
+        // Captured when added, the area's priority can change before it's reindexed.
+        private final int priority;
+        private final long sequence;
+
+        private Entry(RegenerationArea area, long sequence) {
+            this.area = area;
+            this.priority = area.getPriority();
+            this.sequence = sequence;
+        }
+    }
+
+    private static final class WorldAreas {
+        private final LongHashMap<Entry[]> chunks = new LongHashMap<>();
+        // Whole worlds and large regions.
+        private Entry[] other = EMPTY;
+    }
+
+    private final Map<String, WorldAreas> worlds = new HashMap<>();
+
+    // Regions without a world apply to all of them.
+    private Entry[] anyWorld = EMPTY;
+
+    private final Map<RegenerationArea, Entry> entries = new IdentityHashMap<>();
+
+    private long sequence = 0;
+
+    public void add(@NotNull RegenerationArea area) {
+        if (!entries.containsKey(area)) {
+            insert(new Entry(area, sequence++));
+        }
+    }
+
+    public void remove(@NotNull RegenerationArea area) {
+        Entry entry = entries.get(area);
+        if (entry != null) {
+            delete(entry);
+        }
+    }
+
+    /**
+     * Reorder the area after its priority changed.
+     */
+    public void update(@NotNull RegenerationArea area) {
+        Entry entry = entries.get(area);
+        if (entry == null) {
+            add(area);
+            return;
+        }
+
+        delete(entry);
+        // Keeps its place among areas with the same priority.
+        insert(new Entry(area, entry.sequence));
+    }
+
+    /**
+     * Index the areas from scratch, in the order given.
+     */
+    public void rebuild(@NotNull Collection<RegenerationArea> areas) {
+        clear();
+        areas.forEach(this::add);
+    }
+
+    public void clear() {
+        worlds.clear();
+        entries.clear();
+        anyWorld = EMPTY;
+        sequence = 0;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Area with the highest priority containing the block, null if there's none.
+     */
+    @Nullable
+    public RegenerationArea find(@NotNull String worldName, int x, int y, int z) {
+        Entry best = null;
+
+        WorldAreas areas = worlds.get(worldName);
+        if (areas != null) {
+            Entry[] bucket = areas.chunks.get(BlockPositions.chunkKeyAt(x, z));
+            if (bucket != null) {
+                best = first(bucket, best, worldName, x, y, z);
+            }
+            best = first(areas.other, best, worldName, x, y, z);
+        }
+        best = first(anyWorld, best, worldName, x, y, z);
+
+        return best == null ? null : best.area;
+    }
+
+    // First entry containing the block that goes before the current best.
+    private static Entry first(Entry[] entries, Entry best, String worldName, int x, int y, int z) {
+        for (Entry entry : entries) {
+            if (best != null && ORDER.compare(entry, best) >= 0) {
+                // Ordered, nothing further can go before it.
+                break;
+            }
+            if (entry.area.contains(worldName, x, y, z)) {
+                return entry;
+            }
+        }
+        return best;
+    }
+
+    private void insert(Entry entry) {
+        entries.put(entry.area, entry);
+
+        RegenerationArea area = entry.area;
+
+        if (area instanceof RegenerationWorld) {
+            WorldAreas areas = worlds.computeIfAbsent(((RegenerationWorld) area).getWorldName(), k -> new WorldAreas());
+            areas.other = with(areas.other, entry);
+            return;
+        }
+
+        if (!(area instanceof RegenerationRegion) || ((RegenerationRegion) area).getWorldName() == null) {
+            anyWorld = with(anyWorld, entry);
+            return;
+        }
+
+        RegenerationRegion region = (RegenerationRegion) area;
+        WorldAreas areas = worlds.computeIfAbsent(region.getWorldName(), k -> new WorldAreas());
+
+        if (isLarge(region)) {
+            areas.other = with(areas.other, entry);
+            return;
+        }
+
+        for (int chunkX = region.getMinX() >> 4; chunkX <= region.getMaxX() >> 4; chunkX++) {
+            for (int chunkZ = region.getMinZ() >> 4; chunkZ <= region.getMaxZ() >> 4; chunkZ++) {
+                long key = BlockPositions.chunkKey(chunkX, chunkZ);
+                Entry[] bucket = areas.chunks.get(key);
+                areas.chunks.put(key, with(bucket == null ? EMPTY : bucket, entry));
+            }
+        }
+    }
+
+    private void delete(Entry entry) {
+        entries.remove(entry.area);
+
+        RegenerationArea area = entry.area;
+
+        if (area instanceof RegenerationWorld) {
+            WorldAreas areas = worlds.get(((RegenerationWorld) area).getWorldName());
+            areas.other = without(areas.other, entry);
+            return;
+        }
+
+        if (!(area instanceof RegenerationRegion) || ((RegenerationRegion) area).getWorldName() == null) {
+            anyWorld = without(anyWorld, entry);
+            return;
+        }
+
+        RegenerationRegion region = (RegenerationRegion) area;
+        WorldAreas areas = worlds.get(region.getWorldName());
+
+        if (isLarge(region)) {
+            areas.other = without(areas.other, entry);
+            return;
+        }
+
+        for (int chunkX = region.getMinX() >> 4; chunkX <= region.getMaxX() >> 4; chunkX++) {
+            for (int chunkZ = region.getMinZ() >> 4; chunkZ <= region.getMaxZ() >> 4; chunkZ++) {
+                long key = BlockPositions.chunkKey(chunkX, chunkZ);
+                Entry[] bucket = without(areas.chunks.get(key), entry);
+                if (bucket.length == 0) {
+                    areas.chunks.remove(key);
+                } else {
+                    areas.chunks.put(key, bucket);
+                }
+            }
+        }
+    }
+
+    private static boolean isLarge(RegenerationRegion region) {
+        long chunksX = (region.getMaxX() >> 4) - (region.getMinX() >> 4) + 1L;
+        long chunksZ = (region.getMaxZ() >> 4) - (region.getMinZ() >> 4) + 1L;
+        return chunksX * chunksZ > MAX_CHUNKS;
+    }
+
+    // Copy of the entries with the entry inserted in order. Lookups only ever see complete arrays.
+    private static Entry[] with(Entry[] entries, Entry entry) {
+        int index = Arrays.binarySearch(entries, entry, ORDER);
+        int at = index < 0 ? -index - 1 : index;
+
+        Entry[] result = new Entry[entries.length + 1];
+        System.arraycopy(entries, 0, result, 0, at);
+        result[at] = entry;
+        System.arraycopy(entries, at, result, at + 1, entries.length - at);
+        return result;
+    }
+
+    private static Entry[] without(Entry[] entries, Entry entry) {
+        for (int i = 0; i < entries.length; i++) {
+            if (entries[i] == entry) {
+                Entry[] result = new Entry[entries.length - 1];
+                System.arraycopy(entries, 0, result, 0, i);
+                System.arraycopy(entries, i + 1, result, i, entries.length - i - 1);
+                return result;
+            }
+        }
+        return entries;
+    }
+}
@@ -1,6 +1,7 @@
 package nl.aurorion.blockregen.region;
 
 import com.google.common.base.Strings;
+import lombok.Setter;
 import lombok.extern.java.Log;
 import nl.aurorion.blockregen.api.BlockRegenPlugin;
 import nl.aurorion.blockregen.preset.BlockPreset;
@@ -8,15 +9,19 @@ import nl.aurorion.blockregen.region.struct.RawRegion;
 import nl.aurorion.blockregen.region.struct.RegenerationArea;
 import nl.aurorion.blockregen.region.struct.RegenerationRegion;
 import nl.aurorion.blockregen.region.struct.RegenerationWorld;
+import nl.aurorion.blockregen.storage.PersistenceExecutor;
+import nl.aurorion.blockregen.storage.RegionStorage;
 import nl.aurorion.blockregen.util.Locations;
 import org.bukkit.Location;
 import org.bukkit.block.Block;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.IOException;
 import java.util.*;
 
 @Log
@@ -26,19 +31,46 @@ public class RegionManager {
 
     private final List<RegenerationArea> loadedAreas = new ArrayList<>();
 
+    // Areas by chunk for lookups by block.
+    private final AreaIndex areaIndex = new AreaIndex();
+
     // Set of regions that failed to load.
     private final Set<RawRegion> failedRegions = new HashSet<>();
 
     private final Map<UUID, RegionSelection> selections = new HashMap<>();
 
+    @Setter
+    private RegionStorage storage;
+
+    @Setter
+    private PersistenceExecutor persistence;
+
+    // Don't overwrite stored regions that failed to load.
+    private boolean loaded = false;
+
     public RegionManager(BlockRegenPlugin plugin) {
         this.plugin = plugin;
     }
 
+    /**
+     * Resort the areas and index them again. Prefer {@link #setPriority(RegenerationArea, int)}, which only reindexes
+     * the one area.
+     */
     public void sort() {
+        sortAreas();
+        areaIndex.rebuild(loadedAreas);
+    }
+
+    private void sortAreas() {
         loadedAreas.sort((o1, o2) -> Comparator.comparing(RegenerationArea::getPriority).reversed().compare(o1, o2));
     }
 
+    public void setPriority(@NotNull RegenerationArea area, int priority) {
+        area.setPriority(priority);
+        sortAreas();
+        areaIndex.update(area);
+    }
+
     // ---- Selection
 
     public boolean isSelecting(@NotNull Player player) {
@@ -111,8 +143,9 @@ public class RegionManager {
         boolean all = section.getBoolean("All", true);
         List<String> presets = section.getStringList("Presets");
         int priority = section.getInt("Priority", 1);
+        boolean authoritative = section.getBoolean("Authoritative", false);
 
-        RawRegion rawRegion = new RawRegion(name, minString, maxString, presets, all, priority);
+        RawRegion rawRegion = new RawRegion(name, minString, maxString, presets, all, priority, authoritative);
 
         if (Strings.isNullOrEmpty(minString) || Strings.isNullOrEmpty(maxString)) {
             this.failedRegions.add(rawRegion);
@@ -136,6 +169,7 @@ public class RegionManager {
         RegenerationWorld world = new RegenerationWorld(name, worldName);
         world.setPriority(section.getInt("Priority", 1));
         world.setAll(section.getBoolean("All", true));
+        world.setAuthoritative(section.getBoolean("Authoritative", false));
 
         List<String> presets = section.getStringList("Presets");
 
@@ -151,13 +185,23 @@ public class RegionManager {
 
         log.fine(() -> String.format("Loaded regeneration world %s", world));
         this.loadedAreas.add(world);
+        this.areaIndex.add(world);
     }
 
     public void load() {
         this.loadedAreas.clear();
-        plugin.getFiles().getRegions().load();
-
-        FileConfiguration regions = plugin.getFiles().getRegions().getFileConfiguration();
+        this.areaIndex.clear();
+
+        FileConfiguration regions;
+        try {
+            regions = storage.load();
+            this.loaded = true;
+        } catch (IOException e) {
+            this.loaded = false;
+            log.severe("Could not load regions: " + e.getMessage());
+            e.printStackTrace();
+            return;
+        }
 
         ConfigurationSection parentSection = regions.getConfigurationSection("Regions");
 
@@ -186,7 +230,7 @@ public class RegionManager {
             }
         }
 
-        this.sort();
+        this.sortAreas();
         log.info("Loaded " + this.loadedAreas.size() + " region(s)...");
     }
 
@@ -210,7 +254,8 @@ public class RegionManager {
         }
 
         this.loadedAreas.add(region);
-        this.sort();
+        this.areaIndex.add(region);
+        this.sortAreas();
         log.fine(() -> "Loaded region " + region);
         return true;
     }
@@ -238,11 +283,14 @@ public class RegionManager {
     }
 
     public void save() {
-        FileConfiguration regions = plugin.getFiles().getRegions().getFileConfiguration();
-
-        regions.set("Regions", null);
+        if (!loaded) {
+            log.warning("Regions failed to load, not saving them.");
+            return;
+        }
 
-        ConfigurationSection root = ensureRegionsSection(regions);
+        // Serialized here, written on the persistence thread.
+        FileConfiguration regions = new YamlConfiguration();
+        ConfigurationSection root = regions.createSection("Regions");
 
         // Save failed regions to preserve them for next run. Maybe the world comes back.
         for (RawRegion rawRegion : new HashSet<>(this.failedRegions)) {
@@ -252,6 +300,7 @@ public class RegionManager {
             regionSection.set("Max", rawRegion.getMax());
 
             regionSection.set("All", rawRegion.isAll());
+            regionSection.set("Authoritative", rawRegion.isAuthoritative());
             regionSection.set("Presets", rawRegion.getBlockPresets());
         }
 
@@ -260,13 +309,11 @@ public class RegionManager {
             area.serialize(section);
         }
 
-        plugin.getFiles().getRegions().save();
-
-        log.fine(() -> "Saved " + (this.loadedAreas.size() + this.failedRegions.size()) + " area(s)...");
-    }
-
-    private ConfigurationSection ensureRegionsSection(FileConfiguration configuration) {
-        return configuration.contains("Regions") ? configuration.getConfigurationSection("Regions") : configuration.createSection("Regions");
+        int count = this.loadedAreas.size() + this.failedRegions.size();
+        persistence.submit("regions", () -> {
+            storage.save(regions);
+            log.fine(() -> "Saved " + count + " area(s)...");
+        });
     }
 
     public boolean exists(String name) {
@@ -284,25 +331,21 @@ public class RegionManager {
 
             if (Objects.equals(area.getName(), name)) {
                 it.remove();
+                areaIndex.remove(area);
                 break;
             }
         }
-        this.sort();
     }
 
     @Nullable
     public RegenerationArea getArea(@NotNull Block block) {
-        for (RegenerationArea area : this.loadedAreas) {
-            if (area.contains(block)) {
-                return area;
-            }
-        }
-        return null;
+        return areaIndex.find(block.getWorld().getName(), block.getX(), block.getY(), block.getZ());
     }
 
     public void addArea(@NotNull RegenerationArea region) {
         this.loadedAreas.add(region);
-        this.sort();
+        this.areaIndex.add(region);
+        this.sortAreas();
         log.fine(() -> "Added area " + region);
         save();
     }
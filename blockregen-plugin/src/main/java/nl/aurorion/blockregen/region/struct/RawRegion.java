@@ -25,17 +25,21 @@ public class RawRegion {
     @Getter
     private final int priority;
 
+    @Getter
+    private final boolean authoritative;
+
     @Getter
     @Setter
     private boolean reattempt = false;
 
-    public RawRegion(String name, String min, String max, List<String> blockPresets, boolean all, int priority) {
+    public RawRegion(String name, String min, String max, List<String> blockPresets, boolean all, int priority, boolean authoritative) {
         this.name = name;
         this.min = min;
         this.max = max;
         this.blockPresets = blockPresets;
         this.all = all;
         this.priority = priority;
+        this.authoritative = authoritative;
     }
 
     public RegenerationRegion build() {
@@ -52,6 +56,7 @@ public class RawRegion {
         RegenerationRegion region = new RegenerationRegion(name, actualMin, actualMax);
         region.setPriority(priority);
         region.setAll(all);
+        region.setAuthoritative(authoritative);
         return region;
     }
 }
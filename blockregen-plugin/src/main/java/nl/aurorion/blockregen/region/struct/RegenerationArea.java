@@ -2,6 +2,7 @@ package nl.aurorion.blockregen.region.struct;
 
 import lombok.Getter;
 import lombok.Setter;
+import nl.aurorion.blockregen.permission.PermissionKey;
 import org.bukkit.block.Block;
 import org.bukkit.configuration.ConfigurationSection;
 import org.jetbrains.annotations.NotNull;
@@ -15,27 +16,42 @@ public abstract class RegenerationArea {
     @Getter
     protected final String name;
 
+    // blockregen.region.<name>
+    @Getter
+    protected final PermissionKey permission;
+
     protected final Set<String> presets = new HashSet<>();
 
     @Setter
     @Getter
     protected boolean all = true;
 
-    // After changing the priority, always call RegionManager#sort to resort the regions.
+    // Change the priority through RegionManager#setPriority, or call RegionManager#sort afterwards to resort the regions.
     @Getter
     @Setter
     protected int priority = 1;
 
+    // No other plugin protects blocks in here, don't ask them.
+    @Getter
+    @Setter
+    protected boolean authoritative = false;
+
     public RegenerationArea(String name) {
         this.name = name;
+        this.permission = new PermissionKey("blockregen.region", name);
     }
 
-    public abstract boolean contains(@NotNull Block block);
+    public boolean contains(@NotNull Block block) {
+        return contains(block.getWorld().getName(), block.getX(), block.getY(), block.getZ());
+    }
+
+    public abstract boolean contains(@NotNull String worldName, int x, int y, int z);
 
     public void serialize(ConfigurationSection section) {
         section.set("All", this.all);
         section.set("Presets", new ArrayList<>(this.presets));
         section.set("Priority", this.priority);
+        section.set("Authoritative", this.authoritative);
     }
 
     public boolean switchAll() {
@@ -43,6 +59,11 @@ public abstract class RegenerationArea {
         return isAll();
     }
 
+    public boolean switchAuthoritative() {
+        setAuthoritative(!isAuthoritative());
+        return isAuthoritative();
+    }
+
     public boolean hasPreset(@Nullable String preset) {
         return all || (preset != null && this.presets.contains(preset));
     }
@@ -3,9 +3,9 @@ package nl.aurorion.blockregen.region.struct;
 import lombok.Getter;
 import nl.aurorion.blockregen.util.Locations;
 import org.bukkit.Location;
-import org.bukkit.block.Block;
 import org.bukkit.configuration.ConfigurationSection;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 public class RegenerationRegion extends RegenerationArea {
 
@@ -14,23 +14,41 @@ public class RegenerationRegion extends RegenerationArea {
     @Getter
     private final Location max;
 
+    // Null if the region applies to any world.
+    @Getter
+    @Nullable
+    private final String worldName;
+
+    // Block bounds, both included.
+    @Getter
+    private final int minX, minY, minZ, maxX, maxY, maxZ;
+
     public RegenerationRegion(String name, Location min, Location max) {
         super(name);
         this.min = min;
         this.max = max;
+
+        this.worldName = max.getWorld() == null ? null : max.getWorld().getName();
+
+        this.minX = (int) Math.ceil(min.getX());
+        this.minY = (int) Math.ceil(min.getY());
+        this.minZ = (int) Math.ceil(min.getZ());
+        this.maxX = (int) Math.floor(max.getX());
+        this.maxY = (int) Math.floor(max.getY());
+        this.maxZ = (int) Math.floor(max.getZ());
     }
 
     @Override
-    public boolean contains(@NotNull Block block) {
+    public boolean contains(@NotNull String worldName, int x, int y, int z) {
         // Check world
-        if (max.getWorld() != null && !max.getWorld().equals(block.getWorld())) {
+        if (this.worldName != null && !this.worldName.equals(worldName)) {
             return false;
         }
 
         // Check coordinates
-        return block.getX() <= max.getX() && block.getX() >= min.getX()
-                && block.getZ() <= max.getZ() && block.getZ() >= min.getZ()
-                && block.getY() <= max.getY() && block.getY() >= min.getY();
+        return x <= maxX && x >= minX
+                && z <= maxZ && z >= minZ
+                && y <= maxY && y >= minY;
     }
 
     @Override
@@ -1,7 +1,6 @@
 package nl.aurorion.blockregen.region.struct;
 
 import lombok.Getter;
-import org.bukkit.block.Block;
 import org.bukkit.configuration.ConfigurationSection;
 import org.jetbrains.annotations.NotNull;
 
@@ -16,8 +15,8 @@ public class RegenerationWorld extends RegenerationArea {
     }
 
     @Override
-    public boolean contains(@NotNull Block block) {
-        return block.getWorld().getName().equals(this.worldName);
+    public boolean contains(@NotNull String worldName, int x, int y, int z) {
+        return worldName.equals(this.worldName);
     }
 
     @Override
@@ -0,0 +1,247 @@
+package nl.aurorion.blockregen.reward;
+
+import com.cryptomorin.xseries.messages.ActionBar;
+import lombok.Getter;
+import lombok.extern.java.Log;
+import nl.aurorion.blockregen.Message;
+import nl.aurorion.blockregen.api.BlockRegenPlugin;
+import nl.aurorion.blockregen.compatibility.ProviderContainer;
+import nl.aurorion.blockregen.compatibility.impl.EconomyProvider;
+import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.NotNull;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Money rewards collected per player and deposited together.
+ * <p>
+ * Every deposit can be a blocking round trip to the economy's storage. Rewards are added up here and deposited once per
+ * player on an interval, when the player leaves and when the plugin shuts down. Sums are kept as {@link BigDecimal}, the
+ * deposited total is exactly what the single deposits would have added up to.
+ * <p>
+ * Adding is safe from any thread and doesn't block other players, updates only contend on the same map bin.
+ */
+@Log
+public class PendingDeposits {
+
+    public enum Summary {
+        NONE, CHAT, ACTIONBAR;
+
+        @NotNull
+        public static Summary parse(String input) {
+            if (input != null) {
+                try {
+                    return valueOf(input.trim().toUpperCase(Locale.ROOT));
+                } catch (IllegalArgumentException ignored) {
+                }
+            }
+            return NONE;
+        }
+    }
+
+    @Getter
+    public static class Deposit {
+        private final OfflinePlayer player;
+        private final BigDecimal amount;
+        // Number of rewards added up.
+        private final int count;
+
+        Deposit(OfflinePlayer player, BigDecimal amount, int count) {
+            this.player = player;
+            this.amount = amount;
+            this.count = count;
+        }
+
+        private Deposit add(Deposit other) {
+            return new Deposit(player, amount.add(other.amount), count + other.count);
+        }
+    }
+
+    private final BlockRegenPlugin plugin;
+
+    private final ConcurrentHashMap<UUID, Deposit> pending = new ConcurrentHashMap<>();
+
+    // Rewards added and deposits made, the difference is how many deposits were saved.
+    private final LongAdder added = new LongAdder();
+    private final AtomicLong deposited = new AtomicLong();
+
+    @Getter
+    private volatile int lastFlushSize = 0;
+
+    @Getter
+    private volatile long lastFlushMillis = 0;
+
+    private volatile boolean collecting = false;
+
+    private BukkitTask task;
+
+    public PendingDeposits(BlockRegenPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * (Re)start the flush task with the interval from the settings.
+     */
+    public void start() {
+        if (task != null) {
+            task.cancel();
+            this.task = null;
+        }
+
+        long interval = plugin.getRuntimeSettings().getDepositIntervalTicks();
+        this.collecting = interval > 0;
+        if (collecting) {
+            this.task = schedule(interval);
+        }
+    }
+
+    /**
+     * Stop the flush task and deposit everything pending on the calling thread.
+     */
+    public void stop() {
+        this.collecting = false;
+        if (task != null) {
+            task.cancel();
+            this.task = null;
+        }
+        flush();
+    }
+
+    public void add(@NotNull OfflinePlayer player, double amount) {
+        if (amount <= 0) {
+            return;
+        }
+
+        added.increment();
+
+        Deposit deposit = new Deposit(player, BigDecimal.valueOf(amount), 1);
+
+        // Not collecting, deposit right away.
+        if (!collecting) {
+            depositCounted(deposit);
+            return;
+        }
+
+        pending.merge(player.getUniqueId(), deposit, Deposit::add);
+
+        // Stopped in the meantime, nothing would deposit it.
+        if (!collecting) {
+            flush(player.getUniqueId());
+        }
+    }
+
+    /**
+     * Deposit everything pending.
+     */
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+
+        List<Deposit> done = new ArrayList<>();
+        for (UUID id : pending.keySet()) {
+            // Removed atomically, anything added after this goes to the next flush.
+            Deposit deposit = pending.remove(id);
+            if (deposit != null && depositCounted(deposit)) {
+                done.add(deposit);
+            }
+        }
+
+        this.lastFlushSize = done.size();
+        this.lastFlushMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        log.fine(() -> String.format("Deposited money of %d player(s) in %dms.", lastFlushSize, lastFlushMillis));
+
+        sendSummaries(done);
+    }
+
+    /**
+     * Deposit what's pending for one player.
+     */
+    public void flush(@NotNull UUID id) {
+        Deposit deposit = pending.remove(id);
+        if (deposit != null) {
+            depositCounted(deposit);
+        }
+    }
+
+    /**
+     * Number of players with money pending.
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    public long getAdded() {
+        return added.sum();
+    }
+
+    public long getDeposited() {
+        return deposited.get();
+    }
+
+    private boolean depositCounted(Deposit deposit) {
+        deposited.incrementAndGet();
+        return deposit(deposit);
+    }
+
+    protected BukkitTask schedule(long interval) {
+        return Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, this::flush, interval, interval);
+    }
+
+    protected boolean deposit(@NotNull Deposit deposit) {
+        ProviderContainer<EconomyProvider> economy = plugin.getCompatibilityManager().getEconomy();
+
+        if (!economy.isLoaded()) {
+            log.warning(String.format("No economy to deposit %s to %s.", deposit.getAmount().toPlainString(), deposit.getPlayer().getName()));
+            return false;
+        }
+
+        if (!economy.get().depositPlayer(deposit.getPlayer(), deposit.getAmount().doubleValue())) {
+            log.warning(String.format("Failed to deposit %s to %s.", deposit.getAmount().toPlainString(), deposit.getPlayer().getName()));
+            return false;
+        }
+        return true;
+    }
+
+    private void sendSummaries(List<Deposit> deposits) {
+        Summary summary = plugin.getRuntimeSettings().getDepositSummary();
+
+        if (summary == Summary.NONE || deposits.isEmpty() || !plugin.isEnabled()) {
+            return;
+        }
+
+        ProviderContainer<EconomyProvider> economy = plugin.getCompatibilityManager().getEconomy();
+
+        Bukkit.getScheduler().runTask(plugin, () -> {
+            for (Deposit deposit : deposits) {
+                Player player = deposit.getPlayer().getPlayer();
+                if (player == null) {
+                    continue;
+                }
+
+                String message = Message.MONEY_EARNED.get(player)
+                        .replace("%amount%", economy.isLoaded() ? economy.get().format(deposit.getAmount().doubleValue()) : deposit.getAmount().toPlainString())
+                        .replace("%count%", String.valueOf(deposit.getCount()));
+
+                if (summary == Summary.ACTIONBAR) {
+                    ActionBar.sendActionBar(player, message);
+                } else {
+                    player.sendMessage(message);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,81 @@
+package nl.aurorion.blockregen.reward;
+
+import com.cryptomorin.xseries.XSound;
+import lombok.Getter;
+import lombok.Setter;
+import nl.aurorion.blockregen.util.PlaceholderContext;
+import nl.aurorion.blockregen.util.TextTemplate;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockState;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Everything a single break rewards, evaluated off the main thread and applied by the {@link RewardDispatcher}.
+ * <p>
+ * Filled by one thread, then handed over with {@link RewardDispatcher#submit(Reward)}. Not modified after that.
+ */
+@Getter
+public class Reward {
+
+    private final Player player;
+
+    // State of the block before it was broken.
+    private final BlockState state;
+
+    // Commands are rendered on the main thread, placeholders might not be safe to resolve async.
+    private final PlaceholderContext placeholders;
+
+    // Item -> drop naturally
+    private final Map<ItemStack, Boolean> drops = new LinkedHashMap<>();
+
+    @Setter
+    private int experience;
+
+    @Setter
+    private boolean experienceNaturally;
+
+    private final List<TextTemplate> playerCommands = new ArrayList<>();
+    private final List<TextTemplate> consoleCommands = new ArrayList<>();
+
+    // Trigger a Jobs block break action.
+    @Setter
+    private boolean jobs;
+
+    @Setter
+    @Nullable
+    private String particle;
+
+    @Setter
+    @Nullable
+    private XSound sound;
+
+    public Reward(@NotNull Player player, @NotNull BlockState state, @NotNull PlaceholderContext placeholders) {
+        this.player = player;
+        this.state = state;
+        this.placeholders = placeholders;
+    }
+
+    public Block getBlock() {
+        return state.getBlock();
+    }
+
+    public void addDrop(@NotNull ItemStack item, boolean naturally) {
+        drops.put(item, naturally);
+    }
+
+    public void addPlayerCommand(@NotNull TextTemplate command) {
+        playerCommands.add(command);
+    }
+
+    public void addConsoleCommand(@NotNull TextTemplate command) {
+        consoleCommands.add(command);
+    }
+}
@@ -0,0 +1,267 @@
+package nl.aurorion.blockregen.reward;
+
+import lombok.Getter;
+import lombok.extern.java.Log;
+import nl.aurorion.blockregen.api.BlockRegenPlugin;
+import nl.aurorion.blockregen.util.Locations;
+import nl.aurorion.blockregen.util.TextTemplate;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.entity.ExperienceOrb;
+import org.bukkit.entity.Item;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Applies rewards on the main thread, once per tick.
+ * <p>
+ * Rewards are evaluated async and queued here instead of each break posting its own tasks for items, experience,
+ * commands, Jobs and particles. A single repeating task drains the queue and applies all of them grouped by player,
+ * so a player breaking several blocks in a tick gets one inventory update and one experience change.
+ */
+@Log
+public class RewardDispatcher implements Runnable {
+
+    private static final BlockFace[] DROP_FACES = new BlockFace[]{BlockFace.UP, BlockFace.NORTH, BlockFace.EAST, BlockFace.SOUTH, BlockFace.WEST};
+
+    private final BlockRegenPlugin plugin;
+
+    private final Queue<Reward> queue = new ConcurrentLinkedQueue<>();
+
+    // ConcurrentLinkedQueue#size walks the whole queue.
+    private final AtomicInteger pending = new AtomicInteger();
+
+    @Getter
+    private int appliedLastTick = 0;
+
+    private BukkitTask task;
+
+    public RewardDispatcher(BlockRegenPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    public void start() {
+        if (task != null) {
+            return;
+        }
+        this.task = Bukkit.getScheduler().runTaskTimer(plugin, this, 1L, 1L);
+    }
+
+    /**
+     * Stop the task and apply whatever is still queued. Has to be called from the main thread.
+     */
+    public void stop() {
+        if (task != null) {
+            task.cancel();
+            this.task = null;
+        }
+        run();
+    }
+
+    /**
+     * Queue the reward to be applied on the next tick. Safe to call from any thread.
+     */
+    public void submit(@NotNull Reward reward) {
+        queue.offer(reward);
+        pending.incrementAndGet();
+    }
+
+    public int getPending() {
+        return pending.get();
+    }
+
+    @Override
+    public void run() {
+        // Only what's queued now, rewards submitted while flushing wait for the next tick.
+        int count = pending.get();
+
+        if (count == 0) {
+            this.appliedLastTick = 0;
+            return;
+        }
+
+        // Player -> rewards, in order of submission.
+        Map<UUID, List<Reward>> byPlayer = new LinkedHashMap<>();
+
+        for (int i = 0; i < count; i++) {
+            Reward reward = queue.poll();
+            if (reward == null) {
+                break;
+            }
+            pending.decrementAndGet();
+            byPlayer.computeIfAbsent(reward.getPlayer().getUniqueId(), k -> new ArrayList<>()).add(reward);
+        }
+
+        // Orbs dropped at the same location are merged.
+        Map<Location, Integer> orbs = new LinkedHashMap<>();
+
+        int applied = 0;
+        for (List<Reward> rewards : byPlayer.values()) {
+            // A failing player doesn't take the rewards of others with it.
+            try {
+                applyAll(rewards, orbs);
+            } catch (Exception e) {
+                log.severe("Could not give rewards to " + rewards.get(0).getPlayer().getName() + ": " + e.getMessage());
+                e.printStackTrace();
+            }
+            applied += rewards.size();
+        }
+
+        for (Map.Entry<Location, Integer> entry : orbs.entrySet()) {
+            Location location = entry.getKey();
+            try {
+                location.getWorld().spawn(location, ExperienceOrb.class).setExperience(entry.getValue());
+                log.fine(() -> String.format("Spawning xp (%d).", entry.getValue()));
+            } catch (Exception e) {
+                log.severe("Could not spawn experience at " + location + ": " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+
+        this.appliedLastTick = applied;
+    }
+
+    private void applyAll(List<Reward> rewards, Map<Location, Integer> orbs) {
+        Player player = rewards.get(0).getPlayer();
+
+        List<ItemStack> inventoryItems = new ArrayList<>();
+        int experience = 0;
+
+        for (Reward reward : rewards) {
+            try {
+                dropItems(reward, inventoryItems);
+            } catch (Exception e) {
+                fail(reward, "drops", e);
+            }
+
+            if (reward.getExperience() > 0) {
+                if (reward.isExperienceNaturally()) {
+                    Location location = reward.getBlock().getLocation();
+                    if (location.getWorld() != null) {
+                        orbs.merge(location, reward.getExperience(), Integer::sum);
+                    }
+                } else {
+                    experience += reward.getExperience();
+                }
+            }
+        }
+
+        if (!inventoryItems.isEmpty()) {
+            try {
+                player.getInventory().addItem(inventoryItems.toArray(new ItemStack[0]));
+                log.fine(() -> String.format("Giving %d item(s) to %s.", inventoryItems.size(), player.getName()));
+            } catch (Exception e) {
+                log.severe("Could not give items to " + player.getName() + ": " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+
+        if (experience > 0) {
+            try {
+                player.giveExp(experience);
+            } catch (Exception e) {
+                log.severe("Could not give experience to " + player.getName() + ": " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+
+        for (Reward reward : rewards) {
+            try {
+                applyOther(reward);
+            } catch (Exception e) {
+                fail(reward, "commands and effects", e);
+            }
+        }
+    }
+
+    private static void fail(Reward reward, String what, Exception e) {
+        log.severe(String.format("Could not apply %s of a reward for %s at %s: %s", what, reward.getPlayer().getName(),
+                Locations.locationToString(reward.getBlock().getLocation()), e.getMessage()));
+        e.printStackTrace();
+    }
+
+    // Drop natural items at the block, collect the rest for the inventory.
+    private void dropItems(Reward reward, List<ItemStack> inventoryItems) {
+        Player player = reward.getPlayer();
+        World world = reward.getState().getWorld();
+
+        List<Item> items = new ArrayList<>();
+        Location dropLocation = null;
+
+        for (Map.Entry<ItemStack, Boolean> entry : reward.getDrops().entrySet()) {
+            ItemStack item = entry.getKey();
+
+            if (entry.getValue()) {
+                if (dropLocation == null) {
+                    dropLocation = getOptimalDropLocation(reward.getBlock(), player);
+                }
+                items.add(world.dropItemNaturally(dropLocation, item));
+                log.fine(() -> "Dropping item " + item.getType() + "x" + item.getAmount());
+            } else {
+                inventoryItems.add(item);
+            }
+        }
+
+        // Fired even without drops, other plugins listen for it.
+        plugin.getVersionManager().getMethods().handleDropItemEvent(player, reward.getState(), items);
+    }
+
+    private void applyOther(Reward reward) {
+        Player player = reward.getPlayer();
+        Block block = reward.getBlock();
+
+        if (reward.isJobs() && plugin.getCompatibilityManager().getJobs().isLoaded()) {
+            plugin.getCompatibilityManager().getJobs().get().triggerBlockBreakAction(player, block);
+        }
+
+        for (TextTemplate command : reward.getPlayerCommands()) {
+            Bukkit.dispatchCommand(player, reward.getPlaceholders().render(command));
+        }
+
+        for (TextTemplate command : reward.getConsoleCommands()) {
+            Bukkit.dispatchCommand(Bukkit.getConsoleSender(), reward.getPlaceholders().render(command));
+        }
+
+        if (reward.getSound() != null) {
+            reward.getSound().play(block.getLocation());
+        }
+
+        if (reward.getParticle() != null) {
+            plugin.getParticleManager().displayParticle(reward.getParticle(), block);
+        }
+    }
+
+    private static Location getOptimalDropLocation(Block block, Player player) {
+        BlockFace closestFace = null;
+        double closestDistance = Double.MAX_VALUE;
+
+        for (BlockFace face : DROP_FACES) {
+            Block relative = block.getRelative(face);
+            if (relative.getType() != Material.AIR)
+                continue;
+
+            double distance = player.getLocation().distanceSquared(relative.getLocation());
+            if (distance < closestDistance) {
+                closestFace = face;
+                closestDistance = distance;
+            }
+        }
+
+        // drop items in the direction of the closest face
+        if (closestFace != null) {
+            return block.getRelative(closestFace).getLocation();
+        }
+
+        return block.getLocation();
+    }
+}
@@ -0,0 +1,68 @@
+package nl.aurorion.blockregen.storage;
+
+import nl.aurorion.blockregen.regeneration.struct.RegenerationProcess;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Process changes waiting to be written. Only the latest change of every process is kept.
+ * <p>
+ * Thread-safe.
+ */
+class ChangeSet {
+
+    static final class Change {
+        final RegenerationProcess process;
+        final boolean removed;
+
+        private Change(RegenerationProcess process, boolean removed) {
+            this.process = process;
+            this.removed = removed;
+        }
+    }
+
+    // Process id -> latest change. Guarded by itself.
+    private final Map<UUID, Change> changes = new LinkedHashMap<>();
+
+    void put(@NotNull RegenerationProcess process) {
+        synchronized (changes) {
+            changes.put(process.getId(), new Change(process, false));
+        }
+    }
+
+    void remove(@NotNull RegenerationProcess process) {
+        synchronized (changes) {
+            changes.put(process.getId(), new Change(process, true));
+        }
+    }
+
+    int size() {
+        synchronized (changes) {
+            return changes.size();
+        }
+    }
+
+    // Put back changes that failed to be written, unless they were superseded since.
+    void restore(@NotNull List<Change> failed) {
+        synchronized (changes) {
+            for (Change change : failed) {
+                changes.putIfAbsent(change.process.getId(), change);
+            }
+        }
+    }
+
+    // Take all changes out, in the order they were first made.
+    @NotNull
+    List<Change> drain() {
+        synchronized (changes) {
+            List<Change> drained = new ArrayList<>(changes.values());
+            changes.clear();
+            return drained;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package nl.aurorion.blockregen.storage;
+
+import lombok.extern.java.Log;
+import nl.aurorion.blockregen.GsonHelper;
+import nl.aurorion.blockregen.regeneration.struct.RegenerationProcess;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Default storage, a {@link ProcessSnapshot} (Data.dat) with a {@link ProcessJournal} (Data.journal) on top.
+ * <p>
+ * Processes are migrated from Data.json on the first save.
+ */
+@Log
+public class FileProcessStorage implements ProcessStorage {
+
+    // Don't compact small journals on every flush.
+    private static final int MIN_COMPACTION_RECORDS = 10_000;
+
+    private final GsonHelper gsonHelper;
+
+    private final ProcessSnapshot snapshot;
+    private final ProcessJournal journal;
+
+    // Data.json from before the binary snapshot.
+    private final Path legacyPath;
+
+    public FileProcessStorage(@NotNull GsonHelper gsonHelper, @NotNull Path dataFolder, boolean compressed) {
+        this.gsonHelper = gsonHelper;
+        this.snapshot = new ProcessSnapshot(gsonHelper, dataFolder.resolve("Data.dat"));
+        this.snapshot.setCompressed(compressed);
+        this.journal = new ProcessJournal(gsonHelper, snapshot, dataFolder.resolve("Data.journal"));
+        this.legacyPath = dataFolder.resolve("Data.json");
+    }
+
+    @Override
+    public @NotNull List<RegenerationProcess> load() throws IOException {
+        List<RegenerationProcess> processes = new ArrayList<>();
+
+        if (snapshot.exists()) {
+            snapshot.read(processes::add);
+        } else if (Files.exists(legacyPath)) {
+            // Written as a snapshot on the next save.
+            log.info("Loading processes from Data.json, they will be migrated to " + snapshot.getPath().getFileName() + ".");
+            List<RegenerationProcess> legacy = gsonHelper.load(legacyPath.toString(), GsonHelper.mapList(RegenerationProcess.class));
+            if (legacy != null) {
+                processes.addAll(legacy);
+            }
+        }
+        // Otherwise only the journal might exist after a crash before the first save.
+
+        return journal.replay(processes);
+    }
+
+    @Override
+    public void put(@NotNull RegenerationProcess process) {
+        journal.put(process);
+    }
+
+    @Override
+    public void remove(@NotNull RegenerationProcess process) {
+        journal.remove(process);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        journal.flush();
+    }
+
+    @Override
+    public boolean shouldSave(int processCount) {
+        return journal.getRecordCount() > Math.max(processCount, MIN_COMPACTION_RECORDS);
+    }
+
+    @Override
+    public void save(@NotNull Supplier<List<RegenerationProcess>> state) throws IOException {
+        journal.compact(state);
+
+        // Keep Data.json around as a backup once its processes are in the snapshot.
+        if (Files.exists(legacyPath)) {
+            Files.move(legacyPath, legacyPath.resolveSibling("Data.json.migrated"), StandardCopyOption.REPLACE_EXISTING);
+            log.info("Migrated Data.json to " + snapshot.getPath().getFileName() + ", the old file was renamed to Data.json.migrated.");
+        }
+    }
+}
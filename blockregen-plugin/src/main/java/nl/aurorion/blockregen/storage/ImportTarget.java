@@ -0,0 +1,34 @@
+package nl.aurorion.blockregen.storage;
+
+import nl.aurorion.blockregen.regeneration.struct.RegenerationProcess;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Storage that processes of the previous storage are imported into once, see {@link ImportingProcessStorage}.
+ */
+public interface ImportTarget extends ProcessStorage {
+
+    /**
+     * Whether processes were imported into the storage already. Valid after {@link #load()}.
+     */
+    boolean isImported();
+
+    /**
+     * Remember that the processes were imported, they're never imported again.
+     */
+    void markImported() throws IOException;
+
+    /**
+     * Write all processes and mark them as imported, in one step where the storage can do so.
+     */
+    default void saveImported(@NotNull List<RegenerationProcess> processes) throws IOException {
+        for (RegenerationProcess process : processes) {
+            put(process);
+        }
+        flush();
+        markImported();
+    }
+}
@@ -0,0 +1,102 @@
+package nl.aurorion.blockregen.storage;
+
+import lombok.extern.java.Log;
+import nl.aurorion.blockregen.regeneration.struct.RegenerationProcess;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Imports processes of the previous storage into a new one, e.g. when switching from files to the database.
+ * <p>
+ * Processes are loaded from the previous storage until the first full save stores all of them in the new one, which is
+ * marked as imported then. Until that, the previous storage is the only complete copy. A new storage that has processes
+ * but no mark was in use before the mark existed and is not imported into.
+ */
+@Log
+public class ImportingProcessStorage implements ProcessStorage {
+
+    private final ImportTarget target;
+    private final ProcessStorage source;
+
+    // Used in log messages, e.g. "the database".
+    private final String targetName;
+
+    // Imported on load, marked as imported on the next full save.
+    private volatile boolean importing = false;
+
+    public ImportingProcessStorage(@NotNull ImportTarget target, @NotNull ProcessStorage source, @NotNull String targetName) {
+        this.target = target;
+        this.source = source;
+        this.targetName = targetName;
+    }
+
+    @Override
+    public @NotNull List<RegenerationProcess> load() throws IOException {
+        List<RegenerationProcess> processes = target.load();
+
+        if (target.isImported()) {
+            return processes;
+        }
+
+        if (!processes.isEmpty()) {
+            // In use since before the mark, the previous storage is out of date.
+            target.markImported();
+            return processes;
+        }
+
+        // Stored into the target as they're started, and all of them on the next full save.
+        List<RegenerationProcess> processesToImport = source.load();
+        if (!processesToImport.isEmpty()) {
+            log.info("Importing " + processesToImport.size() + " process(es) into " + targetName + ".");
+        }
+        this.importing = true;
+        return processesToImport;
+    }
+
+    @Override
+    public void put(@NotNull RegenerationProcess process) {
+        target.put(process);
+    }
+
+    @Override
+    public void remove(@NotNull RegenerationProcess process) {
+        target.remove(process);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        target.flush();
+    }
+
+    @Override
+    public boolean shouldSave(int processCount) {
+        return target.shouldSave(processCount);
+    }
+
+    @Override
+    public boolean needsState() {
+        return importing || target.needsState();
+    }
+
+    @Override
+    public void save(@NotNull Supplier<List<RegenerationProcess>> state) throws IOException {
+        if (!importing) {
+            target.save(state);
+            return;
+        }
+
+        // Imported processes might not all be started yet.
+        target.saveImported(state.get());
+
+        this.importing = false;
+        log.info("Imported processes are stored in " + targetName + ", they won't be imported again.");
+    }
+
+    @Override
+    public void close() {
+        target.close();
+    }
+}
@@ -0,0 +1,671 @@
+package nl.aurorion.blockregen.storage;
+
+import com.cryptomorin.xseries.XMaterial;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import lombok.extern.java.Log;
+import nl.aurorion.blockregen.GsonHelper;
+import nl.aurorion.blockregen.regeneration.struct.RegenerationProcess;
+import nl.aurorion.blockregen.regeneration.struct.SimpleLocation;
+import nl.aurorion.blockregen.util.Dictionary;
+import nl.aurorion.blockregen.version.api.NodeData;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+/**
+ * Keeps every process in a fixed size slot of a memory mapped file.
+ * <p>
+ * A flush writes one slot per changed process and syncs only the segments it touched. Updates never overwrite a valid
+ * slot, the new state goes into a free slot with a higher sequence number. Old slots are freed only once the new ones
+ * are synced and aren't reused within the same flush, so a power loss at any point leaves either copy on disk. Slots
+ * are checksummed, a slot torn by a crash is ignored and the previous copy is used instead.
+ * <p>
+ * Free slots are tracked in a bitmap rebuilt from the slot states on open. Strings, materials and node data are
+ * referenced by id from an append-only dictionary file, synced before any slot referring to a new entry is written.
+ */
+@Log
+public class MappedProcessStorage implements ImportTarget {
+
+    private static final int MAGIC = 0x42524d50; // BRMP
+    private static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 64;
+    private static final int HEADER_TIME = 8;
+    private static final int HEADER_FLAGS = 16;
+
+    // Processes of the old storage were imported, they're never imported again.
+    private static final int HEADER_IMPORTED = 1;
+
+    static final int SLOT_SIZE = 64;
+    // Slots mapped at once, the file grows by a segment.
+    static final int SEGMENT_SLOTS = 16 * 1024;
+
+    // Slot layout.
+    private static final int CRC = 0;
+    private static final int STATE = 4;
+    private static final int FLAGS = 5;
+    private static final int SEQUENCE = 8;
+    private static final int ID_MOST = 16;
+    private static final int ID_LEAST = 24;
+    private static final int X = 32;
+    private static final int Y = 36;
+    private static final int Z = 40;
+    private static final int WORLD = 44;
+    private static final int PRESET = 46;
+    private static final int REGION = 48;
+    private static final int MATERIAL = 50;
+    private static final int NODE_DATA = 52;
+    private static final int TIME = 56;
+
+    private static final byte STATE_USED = 1;
+
+    // TIME holds the time left of a process that's not running, instead of the regeneration time.
+    private static final byte FLAG_TIME_LEFT = 1;
+
+    private final GsonHelper gsonHelper;
+
+    private final Path path;
+    private final Path dictionaryPath;
+
+    private final ChangeSet pending = new ChangeSet();
+
+    // Everything below is guarded by this.
+
+    private FileChannel channel;
+    private MappedByteBuffer header;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private final BitSet dirtySegments = new BitSet();
+
+    // Set bit = used slot.
+    private final BitSet used = new BitSet();
+
+    private final Map<UUID, Integer> slots = new HashMap<>();
+
+    private long sequence = 0;
+
+    private final Dictionary<String> worlds = new Dictionary<>();
+    private final Dictionary<String> presets = new Dictionary<>();
+    private final Dictionary<String> regions = new Dictionary<>();
+    private final Dictionary<XMaterial> materials = new Dictionary<>();
+    private final Dictionary<NodeData> nodeData = new Dictionary<>();
+
+    // Entries new in the current flush, added to the dictionaries only once they're appended to the file.
+    private final Staged<String> stagedWorlds = new Staged<>(worlds, "world");
+    private final Staged<String> stagedPresets = new Staged<>(presets, "preset");
+    private final Staged<String> stagedRegions = new Staged<>(regions, "region");
+    private final Staged<XMaterial> stagedMaterials = new Staged<>(materials, "material");
+    private final Staged<NodeData> stagedNodeData = new Staged<>(nodeData, "nodeData");
+
+    private final byte[] slot = new byte[SLOT_SIZE];
+    private final CRC32 crc = new CRC32();
+
+    public MappedProcessStorage(@NotNull GsonHelper gsonHelper, @NotNull Path path) {
+        this.gsonHelper = gsonHelper;
+        this.path = path;
+        this.dictionaryPath = path.resolveSibling(path.getFileName() + ".dict");
+    }
+
+    private void open() throws IOException {
+        if (channel != null) {
+            return;
+        }
+
+        boolean created = !Files.exists(path) || Files.size(path) < HEADER_SIZE;
+
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+
+        if (created) {
+            header.putInt(0, MAGIC);
+            header.putInt(4, VERSION);
+            header.putLong(HEADER_TIME, 0);
+            header.force();
+            // Slots from an older file are meaningless without it.
+            Files.deleteIfExists(dictionaryPath);
+        } else if (header.getInt(0) != MAGIC) {
+            channel.close();
+            this.channel = null;
+            throw new IOException("Not a process file: " + path);
+        } else if (header.getInt(4) > VERSION) {
+            channel.close();
+            this.channel = null;
+            throw new IOException(String.format("Process file version %d is newer than the supported version %d.", header.getInt(4), VERSION));
+        }
+
+        long segmentSize = (long) SEGMENT_SLOTS * SLOT_SIZE;
+        long segmentCount = (channel.size() - HEADER_SIZE + segmentSize - 1) / segmentSize;
+        for (int i = 0; i < segmentCount; i++) {
+            mapSegment();
+        }
+    }
+
+    private void mapSegment() throws IOException {
+        long segmentSize = (long) SEGMENT_SLOTS * SLOT_SIZE;
+        // Mapping past the end grows the file, existing mappings stay valid.
+        segments.add(channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE + segments.size() * segmentSize, segmentSize));
+    }
+
+    private MappedByteBuffer segmentOf(int slot) {
+        return segments.get(slot / SEGMENT_SLOTS);
+    }
+
+    private static int offsetOf(int slot) {
+        return (slot % SEGMENT_SLOTS) * SLOT_SIZE;
+    }
+
+    private int getCapacity() {
+        return segments.size() * SEGMENT_SLOTS;
+    }
+
+    @Override
+    public synchronized @NotNull List<RegenerationProcess> load() throws IOException {
+        open();
+
+        slots.clear();
+        used.clear();
+        readDictionary();
+
+        long lastTime = header.getLong(HEADER_TIME);
+
+        Map<UUID, RegenerationProcess> processes = new LinkedHashMap<>();
+        Map<UUID, Long> sequences = new HashMap<>();
+        int discarded = 0;
+
+        for (int i = 0; i < getCapacity(); i++) {
+            MappedByteBuffer segment = segmentOf(i);
+            int offset = offsetOf(i);
+
+            if (segment.get(offset + STATE) != STATE_USED) {
+                continue;
+            }
+
+            segment.position(offset);
+            segment.get(slot);
+
+            RegenerationProcess process = decode(lastTime);
+
+            if (process == null) {
+                // Torn by a crash or referring to a lost dictionary entry.
+                free(i);
+                discarded++;
+                continue;
+            }
+
+            long slotSequence = getLong(SEQUENCE);
+            sequence = Math.max(sequence, slotSequence);
+
+            // An update interrupted before the old slot was freed, keep the newer copy.
+            Integer previous = slots.get(process.getId());
+            if (previous != null) {
+                if (sequences.get(process.getId()) > slotSequence) {
+                    free(i);
+                    continue;
+                }
+                free(previous);
+            }
+
+            slots.put(process.getId(), i);
+            used.set(i);
+            sequences.put(process.getId(), slotSequence);
+            processes.put(process.getId(), process);
+        }
+
+        if (discarded > 0) {
+            log.warning(String.format("Discarded %d incomplete process record(s) from %s.", discarded, path.getFileName()));
+        }
+
+        force();
+
+        return new ArrayList<>(processes.values());
+    }
+
+    @Override
+    public synchronized boolean isImported() {
+        return header != null && (header.getInt(HEADER_FLAGS) & HEADER_IMPORTED) != 0;
+    }
+
+    @Override
+    public synchronized void markImported() throws IOException {
+        open();
+        header.putInt(HEADER_FLAGS, header.getInt(HEADER_FLAGS) | HEADER_IMPORTED);
+        header.force();
+    }
+
+    @Nullable
+    private RegenerationProcess decode(long lastTime) {
+        crc.reset();
+        crc.update(slot, STATE, SLOT_SIZE - STATE);
+        if ((int) crc.getValue() != getInt(CRC)) {
+            return null;
+        }
+
+        int world = getShort(WORLD);
+        int preset = getShort(PRESET);
+        int region = getShort(REGION);
+        int material = getShort(MATERIAL);
+        int data = getInt(NODE_DATA);
+
+        if (world < 0 || world >= worlds.size() || preset >= presets.size() || region >= regions.size()
+                || material >= materials.size() || data >= nodeData.size()) {
+            return null;
+        }
+
+        RegenerationProcess process = new RegenerationProcess(new UUID(getLong(ID_MOST), getLong(ID_LEAST)),
+                new SimpleLocation(worlds.get(world), getInt(X), getInt(Y), getInt(Z)),
+                materials.get(material), nodeData.get(data), presets.get(preset));
+        process.setRegionName(regions.get(region));
+
+        long time = getLong(TIME);
+        process.setTimeLeft((slot[FLAGS] & FLAG_TIME_LEFT) != 0 ? time : Math.max(time - lastTime, 0));
+        return process;
+    }
+
+    private void encode(RegenerationProcess process, List<String> dictionaryEntries) {
+        Arrays.fill(slot, (byte) 0);
+
+        SimpleLocation location = process.getLocation();
+
+        slot[STATE] = STATE_USED;
+        putLong(SEQUENCE, ++sequence);
+        putLong(ID_MOST, process.getId().getMostSignificantBits());
+        putLong(ID_LEAST, process.getId().getLeastSignificantBits());
+        putInt(X, location.getX());
+        putInt(Y, location.getY());
+        putInt(Z, location.getZ());
+        putShort(WORLD, idOf(stagedWorlds, location.getWorld(), dictionaryEntries));
+        putShort(PRESET, idOf(stagedPresets, process.getPresetName(), dictionaryEntries));
+        putShort(REGION, idOf(stagedRegions, process.getRegionName(), dictionaryEntries));
+        putShort(MATERIAL, idOf(stagedMaterials, process.getOriginalType(), dictionaryEntries));
+        putInt(NODE_DATA, idOf(stagedNodeData, process.getOriginalData(), dictionaryEntries));
+
+        if (process.getRegenerationTime() > 0) {
+            putLong(TIME, process.getRegenerationTime());
+        } else {
+            slot[FLAGS] = FLAG_TIME_LEFT;
+            putLong(TIME, process.getTimeLeft());
+        }
+
+        crc.reset();
+        crc.update(slot, STATE, SLOT_SIZE - STATE);
+        putInt(CRC, (int) crc.getValue());
+    }
+
+    private <T> int idOf(Staged<T> staged, @Nullable T value, List<String> dictionaryEntries) {
+        int size = staged.size();
+        int id = staged.idOf(value);
+
+        if (id == size) {
+            JsonObject entry = new JsonObject();
+            entry.addProperty("type", staged.type);
+            entry.addProperty("id", id);
+            if (value instanceof NodeData) {
+                entry.add("value", gsonHelper.toJsonTree(value));
+            } else if (value instanceof XMaterial) {
+                entry.addProperty("value", ((XMaterial) value).name());
+            } else {
+                entry.addProperty("value", (String) value);
+            }
+            dictionaryEntries.add(entry.toString());
+        }
+        return id;
+    }
+
+    private void readDictionary() throws IOException {
+        worlds.clear();
+        presets.clear();
+        regions.clear();
+        materials.clear();
+        nodeData.clear();
+
+        if (!Files.exists(dictionaryPath)) {
+            return;
+        }
+
+        byte[] bytes = Files.readAllBytes(dictionaryPath);
+
+        // End of the last complete entry.
+        int good = 0;
+        int start = 0;
+
+        while (start < bytes.length) {
+            int end = start;
+            while (end < bytes.length && bytes[end] != '\n') {
+                end++;
+            }
+
+            if (end == bytes.length) {
+                // Written without its line end, the slots referring to it never were.
+                log.warning("Incomplete dictionary entry at the end of " + dictionaryPath.getFileName() + ", ignoring it.");
+                break;
+            }
+
+            String line = new String(bytes, start, end - start, StandardCharsets.UTF_8);
+            start = end + 1;
+
+            if (line.trim().isEmpty()) {
+                good = start;
+                continue;
+            }
+
+            try {
+                JsonObject entry = JsonParser.parseString(line).getAsJsonObject();
+                String type = entry.get("type").getAsString();
+                // Read before the value is added, an entry without an id is not kept.
+                int expected = entry.get("id").getAsInt();
+
+                // Positional, a value that's in the dictionary already still takes up its own id.
+                int id;
+                switch (type) {
+                    case "world":
+                        id = worlds.add(entry.get("value").getAsString());
+                        break;
+                    case "preset":
+                        id = presets.add(entry.get("value").getAsString());
+                        break;
+                    case "region":
+                        id = regions.add(entry.get("value").getAsString());
+                        break;
+                    case "material":
+                        String name = entry.get("value").getAsString();
+                        XMaterial material = XMaterial.matchXMaterial(name).orElse(null);
+                        if (material == null) {
+                            log.warning("Unknown material " + name + " in " + dictionaryPath.getFileName() + ", using air.");
+                            material = XMaterial.AIR;
+                        }
+                        id = materials.add(material);
+                        break;
+                    case "nodeData":
+                        id = nodeData.add(gsonHelper.fromJson(entry.get("value"), NodeData.class));
+                        break;
+                    default:
+                        throw new JsonParseException("Unknown dictionary type " + type);
+                }
+
+                if (id != expected) {
+                    throw new JsonParseException(String.format("Dictionary %s is out of order at id %d.", type, id));
+                }
+            } catch (JsonParseException | IllegalStateException | NullPointerException e) {
+                // The rest was never synced, slots referring to it are discarded.
+                log.warning("Incomplete dictionary entry in " + dictionaryPath.getFileName() + ", ignoring the rest: " + e.getMessage());
+                break;
+            }
+
+            good = start;
+        }
+
+        if (good < bytes.length) {
+            // Cut the torn tail off, entries appended after it would be ignored on the next load.
+            try (FileChannel dictionary = FileChannel.open(dictionaryPath, StandardOpenOption.WRITE)) {
+                dictionary.truncate(good);
+                dictionary.force(false);
+            }
+        }
+    }
+
+    @Override
+    public void put(@NotNull RegenerationProcess process) {
+        pending.put(process);
+    }
+
+    @Override
+    public void remove(@NotNull RegenerationProcess process) {
+        pending.remove(process);
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        open();
+
+        List<ChangeSet.Change> changes = pending.drain();
+
+        try {
+            write(changes);
+        } catch (IOException | RuntimeException e) {
+            // Slots written before the failure are written again, the newer copy wins on load.
+            pending.restore(changes);
+            throw e;
+        }
+
+        if (!changes.isEmpty()) {
+            log.fine(() -> String.format("Wrote %d change(s) to %s.", changes.size(), path.getFileName()));
+        }
+    }
+
+    private void write(List<ChangeSet.Change> changes) throws IOException {
+        // Encode first, new dictionary entries have to be durable before any slot refers to them.
+        List<String> dictionaryEntries = new ArrayList<>();
+        List<byte[]> encoded = new ArrayList<>(changes.size());
+        try {
+            for (ChangeSet.Change change : changes) {
+                if (change.removed) {
+                    encoded.add(null);
+                    continue;
+                }
+                encode(change.process, dictionaryEntries);
+                encoded.add(slot.clone());
+            }
+
+            appendDictionary(dictionaryEntries);
+        } catch (IOException | RuntimeException e) {
+            // Not on disk, the ids are handed out again on the next try.
+            stagedWorlds.discard();
+            stagedPresets.discard();
+            stagedRegions.discard();
+            stagedMaterials.discard();
+            stagedNodeData.discard();
+            throw e;
+        }
+
+        stagedWorlds.commit();
+        stagedPresets.commit();
+        stagedRegions.commit();
+        stagedMaterials.commit();
+        stagedNodeData.commit();
+
+        // Old slots stay marked as used until the new copies are synced, allocate doesn't hand them out again.
+        List<Integer> replaced = new ArrayList<>();
+
+        for (int i = 0; i < changes.size(); i++) {
+            UUID id = changes.get(i).process.getId();
+            byte[] data = encoded.get(i);
+
+            Integer previous;
+            if (data == null) {
+                previous = slots.remove(id);
+            } else {
+                int target = allocate();
+                MappedByteBuffer segment = segmentOf(target);
+                segment.position(offsetOf(target));
+                segment.put(data);
+                dirtySegments.set(target / SEGMENT_SLOTS);
+
+                previous = slots.put(id, target);
+            }
+
+            if (previous != null) {
+                replaced.add(previous);
+            }
+        }
+
+        force();
+
+        for (int previous : replaced) {
+            free(previous);
+        }
+
+        // Timers stop counting here if the server doesn't shut down properly.
+        header.putLong(HEADER_TIME, System.currentTimeMillis());
+        force();
+    }
+
+    private void appendDictionary(List<String> entries) throws IOException {
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        try (FileChannel dictionary = FileChannel.open(dictionaryPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            Writer writer = Channels.newWriter(dictionary, StandardCharsets.UTF_8.newEncoder(), -1);
+            for (String entry : entries) {
+                writer.write(entry);
+                writer.write('\n');
+            }
+            writer.flush();
+            dictionary.force(false);
+        }
+    }
+
+    private int allocate() throws IOException {
+        int free = used.nextClearBit(0);
+        if (free >= getCapacity()) {
+            mapSegment();
+        }
+        used.set(free);
+        return free;
+    }
+
+    private void free(int slot) {
+        segmentOf(slot).put(offsetOf(slot) + STATE, (byte) 0);
+        dirtySegments.set(slot / SEGMENT_SLOTS);
+        used.clear(slot);
+    }
+
+    // Sync touched segments, then the header.
+    private void force() {
+        for (int i = dirtySegments.nextSetBit(0); i >= 0; i = dirtySegments.nextSetBit(i + 1)) {
+            segments.get(i).force();
+        }
+        dirtySegments.clear();
+        header.force();
+    }
+
+    @Override
+    public boolean shouldSave(int processCount) {
+        return false;
+    }
+
+    @Override
+    public boolean needsState() {
+        // Only imports read the state, through #saveImported.
+        return false;
+    }
+
+    @Override
+    public void save(@NotNull Supplier<List<RegenerationProcess>> state) throws IOException {
+        // Slots are always up to date.
+        flush();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (channel == null) {
+            return;
+        }
+
+        force();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.severe("Could not close " + path.getFileName() + ": " + e.getMessage());
+            e.printStackTrace();
+        }
+        this.channel = null;
+        this.header = null;
+        segments.clear();
+    }
+
+    public synchronized int getUsedSlots() {
+        return used.cardinality();
+    }
+
+    /**
+     * Dictionary ids handed out by a flush. New values get ids after the dictionary, but are only added to it on commit.
+     */
+    private static final class Staged<T> {
+        private final Dictionary<T> dictionary;
+        private final String type;
+
+        // Value -> id, in order of the ids.
+        private final Map<T, Integer> added = new LinkedHashMap<>();
+
+        private Staged(Dictionary<T> dictionary, String type) {
+            this.dictionary = dictionary;
+            this.type = type;
+        }
+
+        private int idOf(@Nullable T value) {
+            if (value == null) {
+                return -1;
+            }
+
+            int id = dictionary.find(value);
+            if (id >= 0) {
+                return id;
+            }
+            return added.computeIfAbsent(value, v -> size());
+        }
+
+        private int size() {
+            return dictionary.size() + added.size();
+        }
+
+        private void commit() {
+            for (T value : added.keySet()) {
+                dictionary.add(value);
+            }
+            added.clear();
+        }
+
+        private void discard() {
+            added.clear();
+        }
+    }
+
+    // --- Slot access, big endian.
+
+    private int getInt(int offset) {
+        return (slot[offset] & 0xFF) << 24 | (slot[offset + 1] & 0xFF) << 16 | (slot[offset + 2] & 0xFF) << 8 | (slot[offset + 3] & 0xFF);
+    }
+
+    private void putInt(int offset, int value) {
+        slot[offset] = (byte) (value >>> 24);
+        slot[offset + 1] = (byte) (value >>> 16);
+        slot[offset + 2] = (byte) (value >>> 8);
+        slot[offset + 3] = (byte) value;
+    }
+
+    // Stored plus one, -1 (null) becomes 0.
+    private int getShort(int offset) {
+        return ((slot[offset] & 0xFF) << 8 | (slot[offset + 1] & 0xFF)) - 1;
+    }
+
+    private void putShort(int offset, int value) {
+        if (value + 1 > 0xFFFF) {
+            throw new IllegalStateException("Too many dictionary entries.");
+        }
+        slot[offset] = (byte) ((value + 1) >>> 8);
+        slot[offset + 1] = (byte) (value + 1);
+    }
+
+    private long getLong(int offset) {
+        return (long) getInt(offset) << 32 | (getInt(offset + 4) & 0xFFFFFFFFL);
+    }
+
+    private void putLong(int offset, long value) {
+        putInt(offset, (int) (value >>> 32));
+        putInt(offset + 4, (int) value);
+    }
+}
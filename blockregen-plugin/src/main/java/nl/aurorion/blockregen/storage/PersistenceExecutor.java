@@ -0,0 +1,154 @@
+package nl.aurorion.blockregen.storage;
+
+import lombok.Getter;
+import lombok.extern.java.Log;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * Single thread that performs every write of the plugin's data.
+ * <p>
+ * Writes are submitted under a key naming what they save. A write that's still queued is replaced by a newer one with
+ * the same key and both callers get the same result, back-to-back saves of the same data are written once. At most one
+ * write per key waits in the queue, callers can check {@link #isPending(String)} to notice saves falling behind.
+ */
+@Log
+public class PersistenceExecutor {
+
+    public interface Write {
+        void run() throws IOException;
+    }
+
+    private static class Task {
+        private final String key;
+        private final long requested = System.nanoTime();
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private Write write;
+
+        private Task(String key, Write write) {
+            this.key = key;
+            this.write = write;
+        }
+    }
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "BlockRegen Persistence");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Queued, not yet started writes by key. Guarded by this.
+    private final Map<String, Task> queued = new HashMap<>();
+
+    private volatile boolean shutdown = false;
+
+    // Milliseconds the last write took.
+    @Getter
+    private volatile long lastDuration = -1;
+
+    // Milliseconds from the first request of the last write until it was done.
+    @Getter
+    private volatile long lastLatency = -1;
+
+    @Getter
+    private volatile long writeCount = 0;
+
+    // Requests merged into an already queued write.
+    @Getter
+    private volatile long coalescedCount = 0;
+
+    /**
+     * Queue a write. Replaces a queued write with the same key.
+     * <p>
+     * Failures are logged and complete the future exceptionally. After {@link #shutdown(long)} the write runs on the
+     * calling thread.
+     */
+    @NotNull
+    public CompletableFuture<Void> submit(@NotNull String key, @NotNull Write write) {
+        Task task;
+        synchronized (this) {
+            if (!shutdown) {
+                task = queued.get(key);
+
+                if (task != null) {
+                    task.write = write;
+                    coalescedCount++;
+                    log.fine(() -> "Coalesced write of " + key + ".");
+                    return task.future;
+                }
+
+                Task created = new Task(key, write);
+                queued.put(key, created);
+                executor.execute(() -> run(created));
+                return created.future;
+            }
+        }
+
+        task = new Task(key, write);
+        run(task);
+        return task.future;
+    }
+
+    public synchronized boolean isPending(@NotNull String key) {
+        return queued.containsKey(key);
+    }
+
+    public synchronized int getPendingCount() {
+        return queued.size();
+    }
+
+    private void run(Task task) {
+        Write write;
+        synchronized (this) {
+            // Later requests queue a new write, the state might have changed since this one started.
+            queued.remove(task.key, task);
+            write = task.write;
+        }
+
+        long start = System.nanoTime();
+        try {
+            write.run();
+        } catch (Exception e) {
+            log.severe("Could not write " + task.key + ": " + e.getMessage());
+            e.printStackTrace();
+            task.future.completeExceptionally(e);
+            return;
+        }
+
+        long end = System.nanoTime();
+        this.lastDuration = TimeUnit.NANOSECONDS.toMillis(end - start);
+        this.lastLatency = TimeUnit.NANOSECONDS.toMillis(end - task.requested);
+        this.writeCount++;
+
+        log.fine(() -> String.format("Wrote %s in %dms (%dms after the request).", task.key, lastDuration, lastLatency));
+        task.future.complete(null);
+    }
+
+    /**
+     * Finish queued writes and stop the thread. Writes submitted after this run on the calling thread.
+     *
+     * @return False if queued writes didn't finish in time.
+     */
+    public boolean shutdown(long timeoutMillis) {
+        synchronized (this) {
+            this.shutdown = true;
+        }
+
+        executor.shutdown();
+        try {
+            if (executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        log.severe("Data writes did not finish in " + timeoutMillis + "ms, some changes might be lost.");
+        return false;
+    }
+}
@@ -0,0 +1,358 @@
+package nl.aurorion.blockregen.storage;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import lombok.Getter;
+import lombok.extern.java.Log;
+import nl.aurorion.blockregen.GsonHelper;
+import nl.aurorion.blockregen.regeneration.struct.RegenerationProcess;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Write-ahead journal of process changes on top of the {@link ProcessSnapshot}.
+ * <p>
+ * Changes are collected in memory, only the latest change of every process is kept, and appended to the journal as
+ * one json record per line on {@link #flush()}. The cost of a flush depends on the number of changed processes, not
+ * on the total count. Once the journal grows larger than the state itself, it's compacted into a new snapshot.
+ * <p>
+ * Records are idempotent puts and removals by process id. The journal starts with the time of the snapshot it belongs
+ * to, a journal left over from an earlier snapshot by a crash during compaction is not replayed.
+ */
+@Log
+public class ProcessJournal {
+
+    private enum Operation {
+        // Start of the journal, the time the snapshot was taken. Missing if there's no snapshot.
+        SNAPSHOT,
+        // Time of a flush without changes.
+        MARK,
+        PUT,
+        REMOVE
+    }
+
+    private final GsonHelper gsonHelper;
+
+    private final ProcessSnapshot snapshot;
+    private final Path journalPath;
+
+    private final ChangeSet pending = new ChangeSet();
+
+    // Records in the journal since the last compaction.
+    @Getter
+    private volatile int recordCount = 0;
+
+    // Time of the current snapshot, -1 if there's none yet.
+    private long snapshotTime = -1;
+
+    public ProcessJournal(@NotNull GsonHelper gsonHelper, @NotNull ProcessSnapshot snapshot, @NotNull Path journalPath) {
+        this.gsonHelper = gsonHelper;
+        this.snapshot = snapshot;
+        this.journalPath = journalPath;
+    }
+
+    public void put(@NotNull RegenerationProcess process) {
+        pending.put(process);
+    }
+
+    public void remove(@NotNull RegenerationProcess process) {
+        pending.remove(process);
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Append pending changes to the journal and sync it to disk.
+     */
+    public synchronized void flush() throws IOException {
+        List<ChangeSet.Change> changes = pending.drain();
+
+        long time = System.currentTimeMillis();
+
+        try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            long start = channel.size();
+
+            try {
+                Writer writer = Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), -1);
+
+                // Keep track of time even without changes, timers stop counting at the last record on recovery.
+                if (changes.isEmpty()) {
+                    writeRecord(writer, Operation.MARK, time, null);
+                }
+
+                for (ChangeSet.Change change : changes) {
+                    if (change.removed) {
+                        JsonObject record = new JsonObject();
+                        record.addProperty("id", change.process.getId().toString());
+                        writeRecord(writer, Operation.REMOVE, time, record);
+                    } else {
+                        JsonObject record = new JsonObject();
+                        record.addProperty("regenerationTime", change.process.getRegenerationTime());
+                        record.add("process", gsonHelper.toJsonTree(change.process));
+                        writeRecord(writer, Operation.PUT, time, record);
+                    }
+                }
+
+                writer.flush();
+                channel.force(false);
+            } catch (IOException | RuntimeException e) {
+                // Don't leave part of a record behind, the next flush would append to it.
+                try {
+                    channel.truncate(start);
+                } catch (IOException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+                throw e;
+            }
+        } catch (IOException | RuntimeException e) {
+            // Records are idempotent, writing them again is fine.
+            pending.restore(changes);
+            throw e;
+        }
+
+        this.recordCount += changes.size();
+
+        if (!changes.isEmpty()) {
+            log.fine(() -> String.format("Journaled %d change(s).", changes.size()));
+        }
+    }
+
+    private void writeRecord(Writer writer, Operation operation, long time, JsonObject record) throws IOException {
+        if (record == null) {
+            record = new JsonObject();
+        }
+        record.addProperty("op", operation.name());
+        record.addProperty("time", time);
+
+        // JsonElement#toString is always compact, one record per line.
+        writer.write(record.toString());
+        writer.write('\n');
+    }
+
+    /**
+     * Write a new snapshot and start a fresh journal on top of it.
+     * <p>
+     * Pending changes are kept and journaled on top of the snapshot by the next flush, the state might have been taken
+     * before some of them were made. Those it already holds are written again, records are idempotent.
+     *
+     * @param state Supplies the current state. Called with the journal locked.
+     */
+    public synchronized void compact(@NotNull Supplier<List<RegenerationProcess>> state) throws IOException {
+        // Unique, the old journal must not match the new snapshot.
+        long time = Math.max(System.currentTimeMillis(), snapshotTime + 1);
+        List<RegenerationProcess> processes = state.get();
+
+        snapshot.write(processes, time);
+        this.snapshotTime = time;
+
+        reset(time);
+
+        log.info("Saved " + processes.size() + " regeneration processes..");
+    }
+
+    // Start an empty journal on top of the snapshot taken at the time.
+    private void reset(long time) throws IOException {
+        try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            Writer writer = Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), -1);
+            writeRecord(writer, Operation.SNAPSHOT, time, null);
+            writer.flush();
+            channel.force(false);
+        }
+
+        this.recordCount = 0;
+    }
+
+    // Time in the SNAPSHOT record at the start of the journal, -1 if there's none.
+    private long readSnapshotTime() throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(journalPath, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+
+                try {
+                    JsonObject record = JsonParser.parseString(line).getAsJsonObject();
+                    if (Operation.valueOf(record.get("op").getAsString()) == Operation.SNAPSHOT) {
+                        return record.get("time").getAsLong();
+                    }
+                } catch (JsonParseException | IllegalStateException | IllegalArgumentException | NullPointerException e) {
+                    // Torn, handled by the replay.
+                }
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Apply the journal to processes loaded from the snapshot.
+     * <p>
+     * Timers don't run while the server is off, remaining times are counted up to the last record in the journal. A
+     * record cut short by a crash ends the replay and is cut off the journal, so new records aren't appended to it. A
+     * journal that doesn't belong to the snapshot is discarded.
+     */
+    @NotNull
+    public synchronized List<RegenerationProcess> replay(@NotNull List<RegenerationProcess> loaded) throws IOException {
+        boolean snapshotExists = snapshot.exists();
+        this.snapshotTime = snapshotExists ? snapshot.readTime() : -1;
+
+        if (!Files.exists(journalPath)) {
+            if (snapshotExists && snapshotTime != ProcessSnapshot.UNKNOWN_TIME) {
+                // Changes from now on belong to the snapshot.
+                reset(snapshotTime);
+            }
+            return loaded;
+        }
+
+        // Without a snapshot, or one of the first version which didn't store its time, any journal goes.
+        if (snapshotExists && snapshotTime != ProcessSnapshot.UNKNOWN_TIME && readSnapshotTime() != snapshotTime) {
+            // Written before the snapshot, which already holds all of its changes.
+            log.warning("Data.journal belongs to an older snapshot, discarding it.");
+            reset(snapshotTime);
+            return loaded;
+        }
+
+        Map<UUID, RegenerationProcess> processes = new LinkedHashMap<>();
+        for (RegenerationProcess process : loaded) {
+            if (process != null) {
+                processes.put(process.getId(), process);
+            }
+        }
+
+        // Absolute regeneration times of processes put by the journal.
+        Map<UUID, Long> regenerationTimes = new HashMap<>();
+
+        long journalSnapshotTime = -1;
+        long lastTime = -1;
+        int replayed = 0;
+
+        // Length of the journal up to the end of the last complete record.
+        long validLength = 0;
+
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(journalPath))) {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            long offset = 0;
+            int lineNumber = 0;
+
+            int next;
+            while ((next = in.read()) != -1) {
+                offset++;
+                if (next != '\n') {
+                    buffer.write(next);
+                    continue;
+                }
+
+                lineNumber++;
+                String line = new String(buffer.toByteArray(), StandardCharsets.UTF_8);
+                buffer.reset();
+
+                if (line.trim().isEmpty()) {
+                    validLength = offset;
+                    continue;
+                }
+
+                try {
+                    JsonObject record = JsonParser.parseString(line).getAsJsonObject();
+
+                    long time = record.get("time").getAsLong();
+                    lastTime = Math.max(lastTime, time);
+
+                    switch (Operation.valueOf(record.get("op").getAsString())) {
+                        case SNAPSHOT:
+                            journalSnapshotTime = time;
+                            break;
+                        case PUT: {
+                            RegenerationProcess process = gsonHelper.fromJson(record.get("process"), RegenerationProcess.class);
+                            processes.put(process.getId(), process);
+                            regenerationTimes.put(process.getId(), record.get("regenerationTime").getAsLong());
+                            replayed++;
+                            break;
+                        }
+                        case REMOVE: {
+                            UUID id = UUID.fromString(record.get("id").getAsString());
+                            processes.remove(id);
+                            regenerationTimes.remove(id);
+                            replayed++;
+                            break;
+                        }
+                        default:
+                            break;
+                    }
+                } catch (JsonParseException | IllegalStateException | IllegalArgumentException | NullPointerException e) {
+                    log.warning(String.format("Journal record on line %d is incomplete, ignoring the rest of the journal.", lineNumber));
+                    break;
+                }
+
+                validLength = offset;
+            }
+
+            // Without the line break, the record was cut short even if it parses.
+            if (next == -1 && buffer.size() > 0) {
+                log.warning(String.format("Journal record on line %d is incomplete, ignoring it.", lineNumber + 1));
+            }
+        }
+
+        long elapsed = journalSnapshotTime < 0 ? 0 : lastTime - journalSnapshotTime;
+
+        for (RegenerationProcess process : processes.values()) {
+            Long regenerationTime = regenerationTimes.get(process.getId());
+
+            if (regenerationTime != null) {
+                // Not started when journaled, keeps the time left it has.
+                if (regenerationTime > 0) {
+                    process.setTimeLeft(Math.max(regenerationTime - lastTime, 0));
+                }
+            } else if (process.getTimeLeft() > 0) {
+                process.setTimeLeft(Math.max(process.getTimeLeft() - elapsed, 0));
+            }
+        }
+
+        this.recordCount = replayed;
+
+        List<RegenerationProcess> result = new ArrayList<>(processes.values());
+
+        if (validLength < Files.size(journalPath)) {
+            discardTail(validLength, result);
+        }
+
+        int finalReplayed = replayed;
+        log.fine(() -> String.format("Replayed %d journal record(s).", finalReplayed));
+        return result;
+    }
+
+    // Cut the incomplete records off the journal. Records appended after them would be lost on the next replay.
+    private void discardTail(long length, List<RegenerationProcess> processes) throws IOException {
+        try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.WRITE)) {
+            channel.truncate(length);
+            channel.force(false);
+            return;
+        } catch (IOException e) {
+            log.warning("Could not cut the incomplete records off Data.journal, saving a new snapshot instead: " + e.getMessage());
+        }
+
+        // Holds everything replayed so far, the journal starts over on top of it.
+        long time = Math.max(System.currentTimeMillis(), snapshotTime + 1);
+        snapshot.write(processes, time);
+        this.snapshotTime = time;
+
+        reset(time);
+    }
+}
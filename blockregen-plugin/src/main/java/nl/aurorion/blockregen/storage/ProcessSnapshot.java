@@ -0,0 +1,325 @@
+package nl.aurorion.blockregen.storage;
+
+import com.cryptomorin.xseries.XMaterial;
+import com.google.gson.JsonParser;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.java.Log;
+import nl.aurorion.blockregen.GsonHelper;
+import nl.aurorion.blockregen.regeneration.struct.RegenerationProcess;
+import nl.aurorion.blockregen.regeneration.struct.SimpleLocation;
+import nl.aurorion.blockregen.util.AtomicFiles;
+import nl.aurorion.blockregen.util.Dictionary;
+import nl.aurorion.blockregen.version.api.NodeData;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Binary snapshot of all processes, replaces Data.json.
+ * <p>
+ * The header is a magic number, the format version, flags and the time the snapshot was taken. The body, deflated if compressed, holds dictionaries of
+ * worlds, presets, regions, materials and distinct node data, followed by one record per process. Records refer to
+ * the dictionaries by id and pack numbers into variable length ints, a process takes around 30 bytes.
+ * <p>
+ * Both reading and writing is streamed, a snapshot is never held in memory as a whole.
+ */
+@Log
+public class ProcessSnapshot {
+
+    private static final int MAGIC = 0x42524753; // BRGS
+
+    // 2: Time the snapshot was taken in the header.
+    private static final int VERSION = 2;
+
+    // Time of a snapshot written before the time was stored.
+    public static final long UNKNOWN_TIME = -1;
+
+    private static final int FLAG_COMPRESSED = 1;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final GsonHelper gsonHelper;
+
+    @Getter
+    private final Path path;
+
+    // Deflate the body on the next write.
+    @Getter
+    @Setter
+    private boolean compressed = false;
+
+    public ProcessSnapshot(@NotNull GsonHelper gsonHelper, @NotNull Path path) {
+        this.gsonHelper = gsonHelper;
+        this.path = path;
+    }
+
+    public boolean exists() {
+        return Files.exists(path);
+    }
+
+    public void write(@NotNull List<RegenerationProcess> processes) throws IOException {
+        write(processes, System.currentTimeMillis());
+    }
+
+    /**
+     * Write the processes into a temporary file and replace the snapshot with it once synced.
+     *
+     * @param time Time the state was taken, identifies the snapshot.
+     */
+    public void write(@NotNull List<RegenerationProcess> processes, long time) throws IOException {
+        Dictionary<String> worlds = new Dictionary<>();
+        Dictionary<String> presets = new Dictionary<>();
+        Dictionary<String> regions = new Dictionary<>();
+        Dictionary<XMaterial> materials = new Dictionary<>();
+        Dictionary<NodeData> nodeData = new Dictionary<>();
+
+        List<RegenerationProcess> valid = new ArrayList<>(processes.size());
+        for (RegenerationProcess process : processes) {
+            if (process == null || process.getLocation() == null) {
+                continue;
+            }
+
+            worlds.idOf(process.getLocation().getWorld());
+            presets.idOf(process.getPresetName());
+            regions.idOf(process.getRegionName());
+            materials.idOf(process.getOriginalType());
+            nodeData.idOf(process.getOriginalData());
+            valid.add(process);
+        }
+
+        AtomicFiles.write(path, stream -> {
+            OutputStream file = new BufferedOutputStream(stream, BUFFER_SIZE);
+            Deflater compressor = new Deflater(Deflater.BEST_SPEED);
+
+            try {
+                DataOutputStream header = new DataOutputStream(file);
+                header.writeInt(MAGIC);
+                header.writeByte(VERSION);
+                header.writeByte(compressed ? FLAG_COMPRESSED : 0);
+                header.writeLong(time);
+
+                DeflaterOutputStream deflater = compressed ? new DeflaterOutputStream(file, compressor, BUFFER_SIZE) : null;
+                // Deflating byte by byte is slow, buffer in front of it.
+                DataOutputStream out = new DataOutputStream(deflater == null ? file : new BufferedOutputStream(deflater, BUFFER_SIZE));
+
+                writeStrings(out, worlds);
+                writeStrings(out, presets);
+                writeStrings(out, regions);
+
+                writeVarInt(out, materials.size());
+                for (int i = 0; i < materials.size(); i++) {
+                    out.writeUTF(materials.get(i).name());
+                }
+
+                // Node data is stored as json, once per distinct state.
+                writeVarInt(out, nodeData.size());
+                for (int i = 0; i < nodeData.size(); i++) {
+                    out.writeUTF(gsonHelper.toJsonTree(nodeData.get(i)).toString());
+                }
+
+                writeVarInt(out, valid.size());
+                for (RegenerationProcess process : valid) {
+                    SimpleLocation location = process.getLocation();
+
+                    out.writeLong(process.getId().getMostSignificantBits());
+                    out.writeLong(process.getId().getLeastSignificantBits());
+
+                    writeVarInt(out, worlds.find(location.getWorld()));
+                    writeVarInt(out, zigZag(location.getX()));
+                    writeVarInt(out, zigZag(location.getY()));
+                    writeVarInt(out, zigZag(location.getZ()));
+
+                    // Shifted by one, null is -1.
+                    writeVarInt(out, presets.find(process.getPresetName()) + 1);
+                    writeVarInt(out, regions.find(process.getRegionName()) + 1);
+                    writeVarInt(out, materials.find(process.getOriginalType()) + 1);
+                    writeVarInt(out, nodeData.find(process.getOriginalData()) + 1);
+
+                    writeVarLong(out, zigZag(process.getTimeLeft()));
+                }
+
+                out.flush();
+                if (deflater != null) {
+                    deflater.finish();
+                }
+                file.flush();
+            } finally {
+                compressor.end();
+            }
+        });
+    }
+
+    /**
+     * Read the time the snapshot was taken from its header.
+     *
+     * @return The time or {@link #UNKNOWN_TIME} for snapshots of the first version.
+     */
+    public long readTime() throws IOException {
+        try (DataInputStream header = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 16))) {
+            int version = readHeader(header);
+            // Flags.
+            header.readUnsignedByte();
+            return version >= 2 ? header.readLong() : UNKNOWN_TIME;
+        }
+    }
+
+    // Check the magic number and return the version.
+    private int readHeader(DataInputStream header) throws IOException {
+        if (header.readInt() != MAGIC) {
+            throw new IOException("Not a process snapshot: " + path);
+        }
+
+        int version = header.readUnsignedByte();
+        if (version > VERSION) {
+            throw new IOException(String.format("Process snapshot version %d is newer than the supported version %d.", version, VERSION));
+        }
+        return version;
+    }
+
+    /**
+     * Read the snapshot and pass every process to the consumer as it's decoded.
+     *
+     * @return Number of processes read.
+     */
+    public int read(@NotNull Consumer<RegenerationProcess> consumer) throws IOException {
+        try (InputStream file = new BufferedInputStream(Files.newInputStream(path), BUFFER_SIZE)) {
+            DataInputStream header = new DataInputStream(file);
+
+            int version = readHeader(header);
+
+            int flags = header.readUnsignedByte();
+            if (version >= 2) {
+                header.readLong();
+            }
+
+            DataInputStream in = (flags & FLAG_COMPRESSED) != 0 ?
+                    new DataInputStream(new BufferedInputStream(new InflaterInputStream(file), BUFFER_SIZE)) : header;
+
+            String[] worlds = readStrings(in);
+            String[] presets = readStrings(in);
+            String[] regions = readStrings(in);
+
+            XMaterial[] materials = new XMaterial[readVarInt(in)];
+            for (int i = 0; i < materials.length; i++) {
+                String name = in.readUTF();
+                materials[i] = XMaterial.matchXMaterial(name).orElse(null);
+                if (materials[i] == null) {
+                    log.warning("Unknown material " + name + " in the process snapshot.");
+                }
+            }
+
+            NodeData[] nodeData = new NodeData[readVarInt(in)];
+            for (int i = 0; i < nodeData.length; i++) {
+                nodeData[i] = gsonHelper.fromJson(JsonParser.parseString(in.readUTF()), NodeData.class);
+            }
+
+            int count = readVarInt(in);
+            for (int i = 0; i < count; i++) {
+                UUID id = new UUID(in.readLong(), in.readLong());
+
+                SimpleLocation location = new SimpleLocation(worlds[readVarInt(in)],
+                        unZigZag(readVarInt(in)), unZigZag(readVarInt(in)), unZigZag(readVarInt(in)));
+
+                String preset = lookup(presets, readVarInt(in));
+                String region = lookup(regions, readVarInt(in));
+                XMaterial material = lookup(materials, readVarInt(in));
+                NodeData data = lookup(nodeData, readVarInt(in));
+
+                RegenerationProcess process = new RegenerationProcess(id, location, material, data, preset);
+                process.setRegionName(region);
+                process.setTimeLeft(unZigZag(readVarLong(in)));
+
+                consumer.accept(process);
+            }
+            return count;
+        }
+    }
+
+    private static <T> T lookup(T[] values, int id) {
+        return id == 0 ? null : values[id - 1];
+    }
+
+    private static void writeStrings(DataOutputStream out, Dictionary<String> dictionary) throws IOException {
+        writeVarInt(out, dictionary.size());
+        for (int i = 0; i < dictionary.size(); i++) {
+            out.writeUTF(dictionary.get(i));
+        }
+    }
+
+    private static String[] readStrings(DataInputStream in) throws IOException {
+        String[] strings = new String[readVarInt(in)];
+        for (int i = 0; i < strings.length; i++) {
+            // Shared across processes like Gson never does.
+            strings[i] = in.readUTF().intern();
+        }
+        return strings;
+    }
+
+    // --- Variable length ints, 7 bits per byte, the highest bit marks a following byte.
+
+    private static int zigZag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static int unZigZag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed variable length int.");
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed variable length long.");
+    }
+}
@@ -0,0 +1,56 @@
+package nl.aurorion.blockregen.storage;
+
+import nl.aurorion.blockregen.regeneration.struct.RegenerationProcess;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Persists regeneration processes between restarts.
+ * <p>
+ * Changes are reported as they happen and written in batches on {@link #flush()}. Methods are called both from the
+ * main thread and from async tasks.
+ */
+public interface ProcessStorage {
+
+    /**
+     * Load all stored processes. Timers don't run while the server is off, remaining times are counted up to the last
+     * write.
+     */
+    @NotNull
+    List<RegenerationProcess> load() throws IOException;
+
+    void put(@NotNull RegenerationProcess process);
+
+    void remove(@NotNull RegenerationProcess process);
+
+    /**
+     * Write changes reported since the last flush.
+     */
+    void flush() throws IOException;
+
+    /**
+     * Whether the stored changes grew big enough to be replaced with a full {@link #save(Supplier)}.
+     */
+    boolean shouldSave(int processCount);
+
+    /**
+     * Write the complete state. Changes reported after the state was taken are kept and written by the next flush.
+     *
+     * @param state Supplies all processes, only called when the storage needs them.
+     */
+    void save(@NotNull Supplier<List<RegenerationProcess>> state) throws IOException;
+
+    /**
+     * Whether {@link #save(Supplier)} uses the state. Storages that are always up to date don't, the state isn't
+     * collected for them.
+     */
+    default boolean needsState() {
+        return true;
+    }
+
+    default void close() {
+    }
+}
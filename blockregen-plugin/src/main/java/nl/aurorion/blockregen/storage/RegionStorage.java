@@ -0,0 +1,18 @@
+package nl.aurorion.blockregen.storage;
+
+import org.bukkit.configuration.file.FileConfiguration;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+
+/**
+ * Persists regions. Regions are exchanged as a configuration with one section per region under "Regions", the
+ * format of Regions.yml.
+ */
+public interface RegionStorage {
+
+    @NotNull
+    FileConfiguration load() throws IOException;
+
+    void save(@NotNull FileConfiguration regions) throws IOException;
+}
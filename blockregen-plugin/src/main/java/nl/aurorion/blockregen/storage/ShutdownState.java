@@ -0,0 +1,89 @@
+package nl.aurorion.blockregen.storage;
+
+import lombok.extern.java.Log;
+import nl.aurorion.blockregen.util.AtomicFiles;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Remembers that the server stopped without reverting blocks, Shutdown.dat.
+ * <p>
+ * Replace blocks stay in the world in that case and don't have to be placed again on the next start. Only processes
+ * whose replace block wasn't placed before the shutdown are listed, the file is removed once read.
+ */
+@Log
+public class ShutdownState {
+
+    private static final int MAGIC = 0x42525344; // BRSD
+
+    private final Path path;
+
+    public ShutdownState(@NotNull Path dataFolder) {
+        this.path = dataFolder.resolve("Shutdown.dat");
+    }
+
+    /**
+     * Record a shutdown that left the blocks in place.
+     *
+     * @param replacePending Ids of processes whose replace block is not placed.
+     */
+    public void markPersisted(@NotNull Collection<UUID> replacePending) throws IOException {
+        AtomicFiles.write(path, stream -> {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+            out.writeInt(MAGIC);
+            out.writeLong(System.currentTimeMillis());
+            out.writeInt(replacePending.size());
+            for (UUID id : replacePending) {
+                out.writeLong(id.getMostSignificantBits());
+                out.writeLong(id.getLeastSignificantBits());
+            }
+            out.flush();
+        });
+    }
+
+    /**
+     * Read and remove the state.
+     *
+     * @return Ids of processes whose replace block has to be placed, null if the blocks were reverted on shutdown.
+     */
+    @Nullable
+    public Set<UUID> consumePersisted() {
+        if (!Files.exists(path)) {
+            return null;
+        }
+
+        Set<UUID> replacePending = null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a shutdown state file.");
+            }
+            in.readLong();
+
+            int count = in.readInt();
+            Set<UUID> ids = new HashSet<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                ids.add(new UUID(in.readLong(), in.readLong()));
+            }
+            replacePending = ids;
+        } catch (IOException e) {
+            // Placing all replace blocks again is safe, only slower.
+            log.warning("Could not read " + path.getFileName() + ", placing all replace blocks: " + e.getMessage());
+        }
+
+        try {
+            Files.delete(path);
+        } catch (IOException e) {
+            log.severe("Could not remove " + path.getFileName() + ": " + e.getMessage());
+            e.printStackTrace();
+        }
+        return replacePending;
+    }
+}
@@ -0,0 +1,84 @@
+package nl.aurorion.blockregen.storage;
+
+import lombok.extern.java.Log;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Single connection to an embedded SQLite database. The driver ships with the server.
+ * <p>
+ * All access goes through {@link #transaction(Work)}, one at a time.
+ */
+@Log
+public class SqlDatabase {
+
+    @FunctionalInterface
+    public interface Work<T> {
+        T run(Connection connection) throws SQLException;
+    }
+
+    private final Path path;
+
+    private Connection connection;
+
+    public SqlDatabase(@NotNull Path path) {
+        this.path = path;
+    }
+
+    public synchronized void open() throws SQLException {
+        try {
+            Class.forName("org.sqlite.JDBC");
+        } catch (ClassNotFoundException e) {
+            throw new SQLException("SQLite driver is not available on this server.", e);
+        }
+
+        this.connection = DriverManager.getConnection("jdbc:sqlite:" + path.toAbsolutePath());
+
+        try (Statement statement = connection.createStatement()) {
+            // Readers don't block the writer, commits don't wait for a full sync.
+            statement.execute("PRAGMA journal_mode=WAL");
+            statement.execute("PRAGMA synchronous=NORMAL");
+        }
+        log.info("Opened database " + path.getFileName());
+    }
+
+    /**
+     * Run the work in a transaction. Rolled back if it throws.
+     */
+    public synchronized <T> T transaction(@NotNull Work<T> work) throws SQLException {
+        if (connection == null) {
+            throw new SQLException("Database " + path.getFileName() + " is not open.");
+        }
+
+        connection.setAutoCommit(false);
+        try {
+            T result = work.run(connection);
+            connection.commit();
+            return result;
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    public synchronized void close() {
+        if (connection == null) {
+            return;
+        }
+
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            log.severe("Could not close database " + path.getFileName() + ": " + e.getMessage());
+            e.printStackTrace();
+        }
+        this.connection = null;
+    }
+}
@@ -0,0 +1,284 @@
+package nl.aurorion.blockregen.storage;
+
+import com.cryptomorin.xseries.XMaterial;
+import com.google.gson.JsonParser;
+import lombok.extern.java.Log;
+import nl.aurorion.blockregen.GsonHelper;
+import nl.aurorion.blockregen.regeneration.struct.RegenerationProcess;
+import nl.aurorion.blockregen.regeneration.struct.SimpleLocation;
+import nl.aurorion.blockregen.version.api.NodeData;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.sql.*;
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Keeps one row per process in an embedded database, indexed by chunk, preset and region.
+ * <p>
+ * Changed processes are upserted and removed ones deleted on every flush, in a single transaction. Rows are always up
+ * to date, a full save only flushes. Node data is stored as json, one row per distinct state.
+ */
+@Log
+public class SqlProcessStorage implements ImportTarget {
+
+    private static final String[] SCHEMA = {
+            "CREATE TABLE IF NOT EXISTS node_data (id INTEGER PRIMARY KEY, data TEXT NOT NULL UNIQUE)",
+            "CREATE TABLE IF NOT EXISTS processes (" +
+                    "id TEXT PRIMARY KEY, world TEXT NOT NULL, x INTEGER NOT NULL, y INTEGER NOT NULL, z INTEGER NOT NULL, " +
+                    "chunk_x INTEGER NOT NULL, chunk_z INTEGER NOT NULL, preset TEXT, region TEXT, material TEXT, " +
+                    "node_data INTEGER REFERENCES node_data (id), regeneration_time INTEGER NOT NULL, time_left INTEGER NOT NULL)",
+            "CREATE INDEX IF NOT EXISTS processes_chunk ON processes (world, chunk_x, chunk_z)",
+            "CREATE INDEX IF NOT EXISTS processes_preset ON processes (preset)",
+            "CREATE INDEX IF NOT EXISTS processes_region ON processes (region)",
+            "CREATE TABLE IF NOT EXISTS process_meta (key TEXT PRIMARY KEY, value INTEGER NOT NULL)"
+    };
+
+    private static final String UPSERT = "INSERT OR REPLACE INTO processes " +
+            "(id, world, x, y, z, chunk_x, chunk_z, preset, region, material, node_data, regeneration_time, time_left) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final SqlDatabase database;
+    private final GsonHelper gsonHelper;
+
+    private final ChangeSet pending = new ChangeSet();
+
+    private volatile boolean imported = false;
+
+    // Node data -> row id. Guarded by the database.
+    private final Map<NodeData, Long> nodeDataIds = new HashMap<>();
+
+    public SqlProcessStorage(@NotNull SqlDatabase database, @NotNull GsonHelper gsonHelper) {
+        this.database = database;
+        this.gsonHelper = gsonHelper;
+    }
+
+    private void createSchema(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : SCHEMA) {
+                statement.execute(sql);
+            }
+        }
+    }
+
+    @Override
+    public @NotNull List<RegenerationProcess> load() throws IOException {
+        try {
+            return database.transaction(connection -> {
+                createSchema(connection);
+                List<RegenerationProcess> loaded = loadProcesses(connection);
+                this.imported = readMeta(connection, "imported") != null;
+                return loaded;
+            });
+        } catch (SQLException e) {
+            throw new IOException("Could not load processes from the database.", e);
+        }
+    }
+
+    @Override
+    public boolean isImported() {
+        return imported;
+    }
+
+    @Override
+    public void markImported() throws IOException {
+        try {
+            database.transaction(connection -> {
+                createSchema(connection);
+                markImported(connection);
+                return null;
+            });
+        } catch (SQLException e) {
+            throw new IOException("Could not mark processes as imported in the database.", e);
+        }
+        this.imported = true;
+    }
+
+    @Nullable
+    private static Long readMeta(Connection connection, String key) throws SQLException {
+        try (PreparedStatement select = connection.prepareStatement("SELECT value FROM process_meta WHERE key = ?")) {
+            select.setString(1, key);
+            try (ResultSet result = select.executeQuery()) {
+                return result.next() ? result.getLong(1) : null;
+            }
+        }
+    }
+
+    private static void markImported(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("INSERT OR REPLACE INTO process_meta (key, value) VALUES ('imported', 1)");
+        }
+    }
+
+    private List<RegenerationProcess> loadProcesses(Connection connection) throws SQLException {
+        Long time = readMeta(connection, "time");
+        long lastTime = time == null ? 0 : time;
+
+        Map<Long, NodeData> nodeData = new HashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("SELECT id, data FROM node_data")) {
+            while (result.next()) {
+                NodeData data = gsonHelper.fromJson(JsonParser.parseString(result.getString(2)), NodeData.class);
+                nodeData.put(result.getLong(1), data);
+                nodeDataIds.put(data, result.getLong(1));
+            }
+        }
+
+        List<RegenerationProcess> processes = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("SELECT id, world, x, y, z, preset, region, material, node_data, regeneration_time, time_left FROM processes")) {
+            while (result.next()) {
+                String materialName = result.getString(8);
+                XMaterial material = materialName == null ? null : XMaterial.matchXMaterial(materialName).orElse(null);
+
+                RegenerationProcess process = new RegenerationProcess(UUID.fromString(result.getString(1)),
+                        new SimpleLocation(result.getString(2), result.getInt(3), result.getInt(4), result.getInt(5)),
+                        material, nodeData.get(result.getLong(9)), result.getString(6));
+                process.setRegionName(result.getString(7));
+
+                long regenerationTime = result.getLong(10);
+                process.setTimeLeft(regenerationTime > 0 ? Math.max(regenerationTime - lastTime, 0) : result.getLong(11));
+                processes.add(process);
+            }
+        }
+        return processes;
+    }
+
+    @Override
+    public void put(@NotNull RegenerationProcess process) {
+        pending.put(process);
+    }
+
+    @Override
+    public void remove(@NotNull RegenerationProcess process) {
+        pending.remove(process);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        flush(false);
+    }
+
+    private void flush(boolean imported) throws IOException {
+        List<ChangeSet.Change> changes = pending.drain();
+        long time = System.currentTimeMillis();
+
+        try {
+            database.transaction(connection -> {
+                createSchema(connection);
+
+                try (PreparedStatement upsert = connection.prepareStatement(UPSERT);
+                     PreparedStatement delete = connection.prepareStatement("DELETE FROM processes WHERE id = ?")) {
+                    for (ChangeSet.Change change : changes) {
+                        RegenerationProcess process = change.process;
+
+                        if (change.removed) {
+                            delete.setString(1, process.getId().toString());
+                            delete.addBatch();
+                            continue;
+                        }
+
+                        SimpleLocation location = process.getLocation();
+                        upsert.setString(1, process.getId().toString());
+                        upsert.setString(2, location.getWorld());
+                        upsert.setInt(3, location.getX());
+                        upsert.setInt(4, location.getY());
+                        upsert.setInt(5, location.getZ());
+                        upsert.setInt(6, location.getX() >> 4);
+                        upsert.setInt(7, location.getZ() >> 4);
+                        upsert.setString(8, process.getPresetName());
+                        upsert.setString(9, process.getRegionName());
+                        upsert.setString(10, process.getOriginalType() == null ? null : process.getOriginalType().name());
+                        if (process.getOriginalData() == null) {
+                            upsert.setNull(11, Types.INTEGER);
+                        } else {
+                            upsert.setLong(11, nodeDataId(connection, process.getOriginalData()));
+                        }
+                        upsert.setLong(12, process.getRegenerationTime());
+                        upsert.setLong(13, process.getTimeLeft());
+                        upsert.addBatch();
+                    }
+
+                    upsert.executeBatch();
+                    delete.executeBatch();
+                }
+
+                // Timers stop counting here if the server doesn't shut down properly.
+                try (PreparedStatement meta = connection.prepareStatement("INSERT OR REPLACE INTO process_meta (key, value) VALUES ('time', ?)")) {
+                    meta.setLong(1, time);
+                    meta.executeUpdate();
+                }
+
+                if (imported) {
+                    markImported(connection);
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            pending.restore(changes);
+            // Rows inserted in the transaction are gone.
+            synchronized (database) {
+                nodeDataIds.clear();
+            }
+            throw new IOException("Could not write processes to the database.", e);
+        }
+
+        if (!changes.isEmpty()) {
+            log.fine(() -> String.format("Wrote %d change(s) to the database.", changes.size()));
+        }
+    }
+
+    private long nodeDataId(Connection connection, NodeData nodeData) throws SQLException {
+        Long id = nodeDataIds.get(nodeData);
+        if (id != null) {
+            return id;
+        }
+
+        String data = gsonHelper.toJsonTree(nodeData).toString();
+
+        try (PreparedStatement insert = connection.prepareStatement("INSERT OR IGNORE INTO node_data (data) VALUES (?)")) {
+            insert.setString(1, data);
+            insert.executeUpdate();
+        }
+
+        try (PreparedStatement select = connection.prepareStatement("SELECT id FROM node_data WHERE data = ?")) {
+            select.setString(1, data);
+            try (ResultSet result = select.executeQuery()) {
+                result.next();
+                id = result.getLong(1);
+            }
+        }
+
+        nodeDataIds.put(nodeData, id);
+        return id;
+    }
+
+    @Override
+    public boolean shouldSave(int processCount) {
+        return false;
+    }
+
+    @Override
+    public boolean needsState() {
+        // Only imports read the state, through #saveImported.
+        return false;
+    }
+
+    @Override
+    public void save(@NotNull Supplier<List<RegenerationProcess>> state) throws IOException {
+        // Rows are always up to date.
+        flush();
+    }
+
+    @Override
+    public void saveImported(@NotNull List<RegenerationProcess> processes) throws IOException {
+        // Marked in the same transaction as the rows.
+        for (RegenerationProcess process : processes) {
+            put(process);
+        }
+        flush(true);
+        this.imported = true;
+    }
+}
@@ -0,0 +1,121 @@
+package nl.aurorion.blockregen.storage;
+
+import lombok.extern.java.Log;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+
+/**
+ * Keeps one row per region in an embedded database. A row holds the region's section from Regions.yml.
+ */
+@Log
+public class SqlRegionStorage implements RegionStorage {
+
+    private static final String SCHEMA = "CREATE TABLE IF NOT EXISTS regions (name TEXT PRIMARY KEY, data TEXT NOT NULL)";
+
+    private final SqlDatabase database;
+
+    // Loaded when the table is empty, e.g. when switching from Regions.yml.
+    @Nullable
+    private final RegionStorage importFrom;
+
+    public SqlRegionStorage(@NotNull SqlDatabase database, @Nullable RegionStorage importFrom) {
+        this.database = database;
+        this.importFrom = importFrom;
+    }
+
+    @Override
+    public @NotNull FileConfiguration load() throws IOException {
+        YamlConfiguration regions = new YamlConfiguration();
+        ConfigurationSection root = regions.createSection("Regions");
+
+        int count;
+        try {
+            count = database.transaction(connection -> {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute(SCHEMA);
+                }
+
+                int rows = 0;
+                try (Statement statement = connection.createStatement();
+                     ResultSet result = statement.executeQuery("SELECT name, data FROM regions")) {
+                    while (result.next()) {
+                        YamlConfiguration data = new YamlConfiguration();
+                        try {
+                            data.loadFromString(result.getString(2));
+                        } catch (InvalidConfigurationException e) {
+                            log.severe("Could not load region " + result.getString(1) + " from the database: " + e.getMessage());
+                            continue;
+                        }
+                        copy(data, root.createSection(result.getString(1)));
+                        rows++;
+                    }
+                }
+                return rows;
+            });
+        } catch (SQLException e) {
+            throw new IOException("Could not load regions from the database.", e);
+        }
+
+        if (count == 0 && importFrom != null) {
+            // Stored into the database on the next save.
+            return importFrom.load();
+        }
+        return regions;
+    }
+
+    @Override
+    public void save(@NotNull FileConfiguration regions) throws IOException {
+        ConfigurationSection root = regions.getConfigurationSection("Regions");
+
+        try {
+            database.transaction(connection -> {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute(SCHEMA);
+                    statement.execute("DELETE FROM regions");
+                }
+
+                if (root == null) {
+                    return null;
+                }
+
+                try (PreparedStatement insert = connection.prepareStatement("INSERT INTO regions (name, data) VALUES (?, ?)")) {
+                    for (String name : root.getKeys(false)) {
+                        ConfigurationSection section = root.getConfigurationSection(name);
+                        if (section == null) {
+                            continue;
+                        }
+
+                        YamlConfiguration data = new YamlConfiguration();
+                        copy(section, data);
+
+                        insert.setString(1, name);
+                        insert.setString(2, data.saveToString());
+                        insert.addBatch();
+                    }
+                    insert.executeBatch();
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            throw new IOException("Could not save regions to the database.", e);
+        }
+    }
+
+    // Region sections only hold plain values.
+    private static void copy(ConfigurationSection from, ConfigurationSection to) {
+        for (Map.Entry<String, Object> entry : from.getValues(false).entrySet()) {
+            to.set(entry.getKey(), entry.getValue());
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package nl.aurorion.blockregen.storage;
+
+import nl.aurorion.blockregen.configuration.ConfigFile;
+import nl.aurorion.blockregen.util.AtomicFiles;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Default region storage, Regions.yml.
+ */
+public class YamlRegionStorage implements RegionStorage {
+
+    private final ConfigFile file;
+
+    public YamlRegionStorage(@NotNull ConfigFile file) {
+        this.file = file;
+    }
+
+    @Override
+    public @NotNull FileConfiguration load() {
+        file.load();
+        return file.getFileConfiguration();
+    }
+
+    @Override
+    public void save(@NotNull FileConfiguration regions) throws IOException {
+        AtomicFiles.write(file.getFile().toPath(), regions.saveToString().getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,57 @@
+package nl.aurorion.blockregen.util;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Replace files without leaving them half written. Data goes into a temporary file next to the target, which is synced
+ * and renamed over the target. A crash leaves either the old or the new file.
+ */
+public class AtomicFiles {
+
+    public interface Output {
+        void write(@NotNull OutputStream out) throws IOException;
+    }
+
+    public static void write(@NotNull Path path, byte[] data) throws IOException {
+        write(path, out -> out.write(data));
+    }
+
+    /**
+     * @param output Writes the content. The stream is not buffered.
+     */
+    public static void write(@NotNull Path path, @NotNull Output output) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream out = Channels.newOutputStream(channel);
+            output.write(out);
+            out.flush();
+            channel.force(true);
+        }
+
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory(path.toAbsolutePath().getParent());
+    }
+
+    // Make the rename durable. Directories can't be opened on Windows, the rename is durable there already.
+    private static void syncDirectory(Path directory) {
+        if (directory == null) {
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Not supported
+        }
+    }
+}
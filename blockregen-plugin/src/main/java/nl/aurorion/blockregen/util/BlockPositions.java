@@ -0,0 +1,52 @@
+package nl.aurorion.blockregen.util;
+
+/**
+ * Pack block and chunk coordinates into primitive longs for use as hash keys.
+ * <p>
+ * Block keys use 26 bits for x and z and 12 bits for y, which covers the whole world border and heights from -2048 to
+ * 2047.
+ */
+public class BlockPositions {
+
+    private static final int XZ_BITS = 26;
+    private static final int Y_BITS = 12;
+
+    private static final long XZ_MASK = (1L << XZ_BITS) - 1;
+    private static final long Y_MASK = (1L << Y_BITS) - 1;
+
+    private static final int X_SHIFT = XZ_BITS + Y_BITS;
+    private static final int Z_SHIFT = Y_BITS;
+
+    public static long pack(int x, int y, int z) {
+        return ((x & XZ_MASK) << X_SHIFT) | ((z & XZ_MASK) << Z_SHIFT) | (y & Y_MASK);
+    }
+
+    public static int unpackX(long key) {
+        return (int) (key >> X_SHIFT);
+    }
+
+    public static int unpackY(long key) {
+        return (int) (key << (64 - Y_BITS) >> (64 - Y_BITS));
+    }
+
+    public static int unpackZ(long key) {
+        return (int) (key << (64 - X_SHIFT) >> (64 - XZ_BITS));
+    }
+
+    public static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    // Chunk key of the chunk containing the block.
+    public static long chunkKeyAt(int blockX, int blockZ) {
+        return chunkKey(blockX >> 4, blockZ >> 4);
+    }
+
+    public static int chunkX(long chunkKey) {
+        return (int) (chunkKey >> 32);
+    }
+
+    public static int chunkZ(long chunkKey) {
+        return (int) chunkKey;
+    }
+}
@@ -0,0 +1,72 @@
+package nl.aurorion.blockregen.util;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Assigns small dense ids to values, in order of first appearance. Ids are never reused.
+ * <p>
+ * Null is always mapped to -1.
+ * <p>
+ * Not thread-safe.
+ *
+ * @param <T> Type of the values.
+ */
+public class Dictionary<T> {
+
+    private final Map<T, Integer> ids = new HashMap<>();
+    private final List<T> values = new ArrayList<>();
+
+    /**
+     * Get the id of the value, assign a new one if it's not in the dictionary yet.
+     */
+    public int idOf(@Nullable T value) {
+        if (value == null) {
+            return -1;
+        }
+
+        Integer id = ids.get(value);
+        if (id == null) {
+            id = values.size();
+            ids.put(value, id);
+            values.add(value);
+        }
+        return id;
+    }
+
+    /**
+     * Add the value under the next id even if it's in the dictionary already, for reading stored ids back in order.
+     * Lookups return the first id of the value.
+     */
+    public int add(@NotNull T value) {
+        int id = values.size();
+        values.add(value);
+        ids.putIfAbsent(value, id);
+        return id;
+    }
+
+    // Id of the value or -1 if it's not in the dictionary.
+    public int find(@Nullable T value) {
+        Integer id = value == null ? null : ids.get(value);
+        return id == null ? -1 : id;
+    }
+
+    @Nullable
+    public T get(int id) {
+        return id < 0 ? null : values.get(id);
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    public void clear() {
+        ids.clear();
+        values.clear();
+    }
+}
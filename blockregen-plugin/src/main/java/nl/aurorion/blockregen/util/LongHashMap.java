@@ -0,0 +1,241 @@
+package nl.aurorion.blockregen.util;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Open-addressing hash map with primitive long keys.
+ * <p>
+ * Uses linear probing with backward-shift deletion, so there are no tombstones and lookups stay short even under
+ * heavy churn. Values cannot be null, a null value marks an empty slot.
+ * <p>
+ * Not thread-safe.
+ *
+ * @param <V> Type of the values.
+ */
+public class LongHashMap<V> {
+
+    public interface Consumer<V> {
+        void accept(long key, V value);
+    }
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+    private Object[] values;
+
+    private int mask;
+    private int size;
+    private int threshold;
+
+    public LongHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public LongHashMap(int expected) {
+        allocate(tableSize(expected));
+    }
+
+    private static int tableSize(int expected) {
+        int needed = (int) Math.ceil(Math.max(expected, 2) / LOAD_FACTOR);
+        int capacity = Integer.highestOneBit(needed - 1) << 1;
+        return Math.max(capacity, 2);
+    }
+
+    // Murmur3 finalizer, spreads packed coordinates over the whole table.
+    private static int mix(long key) {
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+    private void allocate(int capacity) {
+        this.keys = new long[capacity];
+        this.values = new Object[capacity];
+        this.mask = capacity - 1;
+        this.threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private int find(long key) {
+        int slot = mix(key) & mask;
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -(slot + 1);
+    }
+
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int slot = find(key);
+        return slot < 0 ? null : (V) values[slot];
+    }
+
+    public boolean containsKey(long key) {
+        return find(key) >= 0;
+    }
+
+    /**
+     * @return The previous value or null.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public V put(long key, @NotNull V value) {
+        Objects.requireNonNull(value);
+
+        int slot = find(key);
+        if (slot >= 0) {
+            V previous = (V) values[slot];
+            values[slot] = value;
+            return previous;
+        }
+
+        slot = -slot - 1;
+        keys[slot] = key;
+        values[slot] = value;
+
+        if (++size > threshold) {
+            rehash(values.length << 1);
+        }
+        return null;
+    }
+
+    /**
+     * Insert the value only if there's no value mapped to the key yet.
+     *
+     * @return The existing value, or null if the value was inserted.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public V putIfAbsent(long key, @NotNull V value) {
+        int slot = find(key);
+        if (slot >= 0) {
+            return (V) values[slot];
+        }
+        put(key, value);
+        return null;
+    }
+
+    /**
+     * @return The removed value or null.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int slot = find(key);
+        if (slot < 0) {
+            return null;
+        }
+
+        V previous = (V) values[slot];
+        shiftBack(slot);
+        size--;
+        return previous;
+    }
+
+    /**
+     * Remove the mapping only if the key is currently mapped to the given value.
+     */
+    public boolean remove(long key, @NotNull V value) {
+        int slot = find(key);
+        if (slot < 0 || !values[slot].equals(value)) {
+            return false;
+        }
+
+        shiftBack(slot);
+        size--;
+        return true;
+    }
+
+    // Close the gap after a removal by moving back entries that probed past it.
+    private void shiftBack(int slot) {
+        int last = slot;
+        int current = (slot + 1) & mask;
+
+        while (values[current] != null) {
+            int ideal = mix(keys[current]) & mask;
+
+            // Move the entry if the freed slot lies cyclically between its ideal slot and its current slot.
+            boolean move = last <= current
+                    ? ideal <= last || ideal > current
+                    : ideal <= last && ideal > current;
+
+            if (move) {
+                keys[last] = keys[current];
+                values[last] = values[current];
+                last = current;
+            }
+            current = (current + 1) & mask;
+        }
+
+        keys[last] = 0L;
+        values[last] = null;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = this.keys;
+        Object[] oldValues = this.values;
+
+        allocate(capacity);
+
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] == null) {
+                continue;
+            }
+
+            int slot = mix(oldKeys[i]) & mask;
+            while (values[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(@NotNull Consumer<V> consumer) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                consumer.accept(keys[i], (V) values[i]);
+            }
+        }
+    }
+
+    @NotNull
+    @SuppressWarnings("unchecked")
+    public Collection<V> values() {
+        List<V> result = new ArrayList<>(size);
+        for (Object value : values) {
+            if (value != null) {
+                result.add((V) value);
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        allocate(DEFAULT_CAPACITY);
+        size = 0;
+    }
+}
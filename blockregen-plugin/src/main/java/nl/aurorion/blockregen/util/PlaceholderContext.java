@@ -0,0 +1,44 @@
+package nl.aurorion.blockregen.util;
+
+import com.google.common.base.Strings;
+import lombok.Getter;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.function.Function;
+
+/**
+ * Player and block to render placeholders with.
+ * <p>
+ * Renders compiled templates directly, works as a parser for strings that aren't compiled (names of items from other
+ * plugins,...).
+ */
+@Getter
+public class PlaceholderContext implements Function<String, String> {
+
+    @Nullable
+    private final Player player;
+
+    @Nullable
+    private final Block block;
+
+    public PlaceholderContext(@Nullable Player player, @Nullable Block block) {
+        this.player = player;
+        this.block = block;
+    }
+
+    @NotNull
+    public String render(@NotNull TextTemplate template) {
+        return template.render(player, block);
+    }
+
+    @Override
+    public String apply(String str) {
+        if (Strings.isNullOrEmpty(str)) {
+            return str;
+        }
+        return TextTemplate.compile(str).render(player, block);
+    }
+}
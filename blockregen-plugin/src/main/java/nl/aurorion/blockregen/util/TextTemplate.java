@@ -0,0 +1,240 @@
+package nl.aurorion.blockregen.util;
+
+import lombok.Getter;
+import me.clip.placeholderapi.PlaceholderAPI;
+import nl.aurorion.blockregen.Message;
+import nl.aurorion.blockregen.api.BlockRegenPlugin;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A string with placeholders, split into literal and placeholder segments once.
+ * <p>
+ * Rendering is a single pass over the segments into a per-thread builder. Builtin placeholders ({@code %prefix%},
+ * {@code %player%}, {@code %block_x%}, {@code %block_y%}, {@code %block_z%}, {@code %block_world%}) are matched
+ * case-insensitively, same as {@link Text#parse(String, Object...)}. PlaceholderAPI is only called when the string
+ * contains something else that looks like a placeholder.
+ * <p>
+ * Immutable and thread-safe.
+ */
+public class TextTemplate {
+
+    private enum Builtin {
+        PREFIX, PLAYER, BLOCK_X, BLOCK_Y, BLOCK_Z, BLOCK_WORLD;
+
+        private static final Map<String, Builtin> BY_NAME = new HashMap<>();
+
+        static {
+            for (Builtin builtin : values()) {
+                BY_NAME.put(builtin.name().toLowerCase(Locale.ROOT), builtin);
+            }
+        }
+    }
+
+    // Builders above this capacity are not kept around.
+    private static final int MAX_POOLED_CAPACITY = 4096;
+
+    private static final ThreadLocal<StringBuilder> BUILDER = ThreadLocal.withInitial(() -> new StringBuilder(256));
+
+    // Compiled Message.PREFIX, replaced when the prefix changes.
+    private static volatile TextTemplate prefix;
+
+    @Getter
+    private final String source;
+
+    // Segment i is a placeholder when placeholders[i] is not null. Otherwise, or when the placeholder has no value,
+    // texts[i] is written as is.
+    private final String[] texts;
+    private final Builtin[] placeholders;
+
+    private final boolean hasPrefix;
+
+    // Contains text PlaceholderAPI might replace.
+    private final boolean usesPlaceholderAPI;
+
+    private TextTemplate(String source, String[] texts, Builtin[] placeholders, boolean hasPrefix, boolean usesPlaceholderAPI) {
+        this.source = source;
+        this.texts = texts;
+        this.placeholders = placeholders;
+        this.hasPrefix = hasPrefix;
+        this.usesPlaceholderAPI = usesPlaceholderAPI;
+    }
+
+    @NotNull
+    public static TextTemplate compile(@NotNull String source) {
+        List<String> texts = new ArrayList<>();
+        List<Builtin> placeholders = new ArrayList<>();
+
+        StringBuilder literal = new StringBuilder();
+        int percents = 0;
+        boolean hasPrefix = false;
+
+        int i = 0;
+        while (i < source.length()) {
+            char c = source.charAt(i);
+
+            if (c == '%') {
+                int end = source.indexOf('%', i + 1);
+                Builtin builtin = end == -1 ? null : Builtin.BY_NAME.get(source.substring(i + 1, end).toLowerCase(Locale.ROOT));
+
+                if (builtin != null) {
+                    if (literal.length() > 0) {
+                        texts.add(literal.toString());
+                        placeholders.add(null);
+                        literal.setLength(0);
+                    }
+
+                    texts.add(source.substring(i, end + 1));
+                    placeholders.add(builtin);
+                    hasPrefix |= builtin == Builtin.PREFIX;
+
+                    i = end + 1;
+                    continue;
+                }
+
+                // Not ours, the closing % might still start a builtin.
+                percents++;
+            }
+
+            literal.append(c);
+            i++;
+        }
+
+        if (literal.length() > 0) {
+            texts.add(literal.toString());
+            placeholders.add(null);
+        }
+
+        return new TextTemplate(source, texts.toArray(new String[0]), placeholders.toArray(new Builtin[0]), hasPrefix, percents >= 2);
+    }
+
+    /**
+     * Render with the first {@link Player} and {@link Block} in the context, like {@link Text#parse(String, Object...)}.
+     */
+    @NotNull
+    public String render(Object... context) {
+        Player player = null;
+        Block block = null;
+
+        for (Object o : context) {
+            if (player == null && o instanceof Player) {
+                player = (Player) o;
+            } else if (block == null && o instanceof Block) {
+                block = (Block) o;
+            }
+        }
+
+        return render(player, block);
+    }
+
+    @NotNull
+    public String render(@Nullable Player player, @Nullable Block block) {
+        String result;
+
+        if (placeholders.length == 1 && placeholders[0] == null) {
+            // Only text.
+            result = texts[0];
+        } else if (texts.length == 0) {
+            result = "";
+        } else {
+            StringBuilder builder = BUILDER.get();
+            builder.setLength(0);
+
+            appendTo(builder, player, block, true);
+
+            result = builder.toString();
+
+            if (builder.capacity() > MAX_POOLED_CAPACITY) {
+                BUILDER.remove();
+            }
+        }
+
+        if (player != null && (usesPlaceholderAPI || (hasPrefix && prefix().usesPlaceholderAPI)) && isPlaceholderAPIEnabled()) {
+            result = PlaceholderAPI.setPlaceholders(player, result);
+        }
+
+        return result;
+    }
+
+    private void appendTo(StringBuilder builder, @Nullable Player player, @Nullable Block block, boolean expandPrefix) {
+        for (int i = 0; i < texts.length; i++) {
+            Builtin placeholder = placeholders[i];
+
+            if (placeholder == null) {
+                builder.append(texts[i]);
+                continue;
+            }
+
+            switch (placeholder) {
+                case PREFIX:
+                    if (expandPrefix) {
+                        prefix().appendTo(builder, player, block, false);
+                        continue;
+                    }
+                    break;
+                case PLAYER:
+                    if (player != null) {
+                        builder.append(player.getName());
+                        continue;
+                    }
+                    break;
+                case BLOCK_X:
+                    if (block != null) {
+                        builder.append(block.getX());
+                        continue;
+                    }
+                    break;
+                case BLOCK_Y:
+                    if (block != null) {
+                        builder.append(block.getY());
+                        continue;
+                    }
+                    break;
+                case BLOCK_Z:
+                    if (block != null) {
+                        builder.append(block.getZ());
+                        continue;
+                    }
+                    break;
+                case BLOCK_WORLD:
+                    if (block != null) {
+                        builder.append(block.getWorld().getName());
+                        continue;
+                    }
+                    break;
+            }
+
+            // No value in this context, leave it.
+            builder.append(texts[i]);
+        }
+    }
+
+    private static boolean isPlaceholderAPIEnabled() {
+        BlockRegenPlugin plugin = BlockRegenPlugin.getInstance();
+        return plugin != null && plugin.isUsePlaceholderAPI();
+    }
+
+    private static TextTemplate prefix() {
+        String value = Message.PREFIX.getValue();
+
+        TextTemplate template = TextTemplate.prefix;
+        if (template == null || !template.source.equals(value)) {
+            template = compile(value);
+            TextTemplate.prefix = template;
+        }
+        return template;
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+}
@@ -0,0 +1,171 @@
+package nl.aurorion.blockregen.util;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.function.Consumer;
+
+/**
+ * Hashed timing wheel with a granularity of one tick.
+ * <p>
+ * Entries are hashed into a fixed number of slots by their deadline tick, each slot is an intrusive doubly linked
+ * list. Scheduling and cancelling is O(1), advancing by a tick only visits the entries of a single slot. Entries with
+ * deadlines more than a full revolution away simply stay in their slot until their deadline comes up.
+ * <p>
+ * Not thread-safe.
+ *
+ * @param <T> Type of the scheduled payload.
+ */
+public class TimingWheel<T> {
+
+    /**
+     * Handle of a scheduled entry.
+     */
+    public static final class Timeout<T> {
+        private final T payload;
+        private final long deadline;
+
+        private TimingWheel<T> wheel;
+
+        private Timeout<T> prev;
+        private Timeout<T> next;
+
+        private Timeout(T payload, long deadline) {
+            this.payload = payload;
+            this.deadline = deadline;
+        }
+
+        public T getPayload() {
+            return payload;
+        }
+
+        // Tick at which the entry fires.
+        public long getDeadline() {
+            return deadline;
+        }
+
+        public boolean isPending() {
+            return wheel != null;
+        }
+
+        /**
+         * @return True if the entry was pending and got cancelled.
+         */
+        public boolean cancel() {
+            if (wheel == null) {
+                return false;
+            }
+            wheel.unlink(this);
+            return true;
+        }
+    }
+
+    private final Timeout<T>[] slots;
+    private final int mask;
+
+    private long tick = 0;
+    private int size = 0;
+
+    /**
+     * @param slotCount Number of slots, rounded up to a power of two.
+     */
+    @SuppressWarnings("unchecked")
+    public TimingWheel(int slotCount) {
+        int capacity = Integer.highestOneBit(Math.max(slotCount, 2) - 1) << 1;
+        this.slots = (Timeout<T>[]) new Timeout[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Schedule the payload to fire after the given number of ticks. Delays below one tick fire on the next tick.
+     */
+    @NotNull
+    public Timeout<T> schedule(@NotNull T payload, long delay) {
+        Timeout<T> timeout = new Timeout<>(payload, tick + Math.max(delay, 1));
+
+        int slot = (int) (timeout.deadline & mask);
+
+        Timeout<T> head = slots[slot];
+        timeout.next = head;
+        if (head != null) {
+            head.prev = timeout;
+        }
+        slots[slot] = timeout;
+
+        timeout.wheel = this;
+        size++;
+        return timeout;
+    }
+
+    /**
+     * Move the wheel forward by one tick and pass every payload that's due to the consumer.
+     * <p>
+     * The due entries are unlinked before the consumer is called, so it's safe to schedule from inside it.
+     */
+    public void advance(@NotNull Consumer<T> consumer) {
+        tick++;
+
+        int slot = (int) (tick & mask);
+
+        Timeout<T> due = null;
+
+        Timeout<T> current = slots[slot];
+        while (current != null) {
+            Timeout<T> next = current.next;
+            if (current.deadline <= tick) {
+                unlink(current);
+                current.next = due;
+                due = current;
+            }
+            current = next;
+        }
+
+        while (due != null) {
+            Timeout<T> next = due.next;
+            due.next = null;
+            consumer.accept(due.payload);
+            due = next;
+        }
+    }
+
+    private void unlink(Timeout<T> timeout) {
+        int slot = (int) (timeout.deadline & mask);
+
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            slots[slot] = timeout.next;
+        }
+
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+
+        timeout.prev = null;
+        timeout.next = null;
+        timeout.wheel = null;
+        size--;
+    }
+
+    public void clear() {
+        for (int i = 0; i < slots.length; i++) {
+            Timeout<T> current = slots[i];
+            while (current != null) {
+                Timeout<T> next = current.next;
+                current.prev = null;
+                current.next = null;
+                current.wheel = null;
+                current = next;
+            }
+            slots[i] = null;
+        }
+        size = 0;
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    public int size() {
+        return size;
+    }
+}
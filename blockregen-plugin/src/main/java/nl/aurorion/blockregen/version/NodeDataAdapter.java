@@ -4,7 +4,9 @@ import com.google.gson.*;
 import lombok.extern.java.Log;
 import nl.aurorion.blockregen.version.api.NodeData;
 
+import java.lang.reflect.Method;
 import java.lang.reflect.Type;
+import java.util.Map;
 
 @Log
 public class NodeDataAdapter<T extends NodeData> implements JsonDeserializer<T>, JsonSerializer<T> {
@@ -22,12 +24,66 @@ public class NodeDataAdapter<T extends NodeData> implements JsonDeserializer<T>,
 
         log.fine(() -> String.format("Deserializing %s (%s) into %s", jsonElement, type, clazz.getName()));
 
-        return simpleGson.fromJson(jsonElement, clazz);
+        if (!PackedNodeData.class.isAssignableFrom(clazz)) {
+            return simpleGson.fromJson(jsonElement, clazz);
+        }
+
+        // One property per field, set them through the setters.
+        return deserializeProperties(jsonObject, clazz);
+    }
+
+    private T deserializeProperties(JsonObject jsonObject, Class<T> clazz) {
+        T nodeData;
+        try {
+            nodeData = clazz.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new JsonParseException("Could not create node data " + clazz.getName(), e);
+        }
+
+        for (Map.Entry<String, JsonElement> entry : jsonObject.entrySet()) {
+            if (entry.getKey().equals("className") || entry.getValue().isJsonNull()) {
+                continue;
+            }
+
+            Method setter = findSetter(clazz, entry.getKey());
+
+            if (setter == null) {
+                log.warning(String.format("Unknown node data property %s in %s, skipping it.", entry.getKey(), jsonObject));
+                continue;
+            }
+
+            try {
+                // Not inlined, it would be inferred as the varargs array.
+                Object value = simpleGson.fromJson(entry.getValue(), setter.getGenericParameterTypes()[0]);
+                setter.invoke(nodeData, value);
+            } catch (ReflectiveOperationException | IllegalArgumentException e) {
+                throw new JsonParseException(String.format("Invalid value for node data property %s: %s", entry.getKey(), entry.getValue()), e);
+            }
+        }
+        return nodeData;
+    }
+
+    private Method findSetter(Class<T> clazz, String property) {
+        String name = "set" + Character.toUpperCase(property.charAt(0)) + property.substring(1);
+        for (Method method : clazz.getMethods()) {
+            if (method.getName().equals(name) && method.getParameterCount() == 1) {
+                return method;
+            }
+        }
+        return null;
     }
 
     @Override
     public JsonElement serialize(T t, Type type, JsonSerializationContext jsonSerializationContext) {
-        JsonElement element = simpleGson.toJsonTree(t, type);
+        JsonElement element;
+        if (t instanceof PackedNodeData) {
+            // Enums by name, the packed ordinals change between server versions.
+            JsonObject properties = new JsonObject();
+            ((PackedNodeData) t).getProperties().forEach((key, value) -> properties.add(key, simpleGson.toJsonTree(value)));
+            element = properties;
+        } else {
+            element = simpleGson.toJsonTree(t, type);
+        }
 
         // Add className to properly deserialize correctly later.
         element.getAsJsonObject().addProperty("className", t.getClass().getName());
@@ -40,6 +40,9 @@ public class VersionManagerImpl implements VersionManager {
     @Getter
     private NodeDataParser nodeDataParser;
 
+    @Getter
+    private final NodeDataPalette nodeDataPalette = new NodeDataPalette();
+
     // 1.14+
     private boolean customModelData = false;
 
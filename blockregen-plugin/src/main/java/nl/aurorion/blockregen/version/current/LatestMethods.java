@@ -90,7 +90,12 @@ public class LatestMethods implements Methods {
 
     @Override
     public void setType(@NotNull Block block, @NotNull XMaterial xMaterial) {
-        XBlock.setType(block, xMaterial);
+        setType(block, xMaterial, true);
+    }
+
+    @Override
+    public void setType(@NotNull Block block, @NotNull XMaterial xMaterial, boolean applyPhysics) {
+        XBlock.setType(block, xMaterial, applyPhysics);
     }
 
     @Override
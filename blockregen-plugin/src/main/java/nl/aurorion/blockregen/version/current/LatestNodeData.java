@@ -3,12 +3,12 @@ package nl.aurorion.blockregen.version.current;
 import com.cryptomorin.xseries.profiles.builder.XSkull;
 import com.cryptomorin.xseries.profiles.exceptions.InvalidProfileContainerException;
 import com.cryptomorin.xseries.profiles.objects.Profileable;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
-import lombok.Setter;
-import lombok.ToString;
 import lombok.extern.java.Log;
 import nl.aurorion.blockregen.util.Serialization;
-import nl.aurorion.blockregen.version.api.NodeData;
+import nl.aurorion.blockregen.version.PackedField;
+import nl.aurorion.blockregen.version.PackedNodeData;
 import org.bukkit.Axis;
 import org.bukkit.Instrument;
 import org.bukkit.Note;
@@ -18,54 +18,120 @@ import org.bukkit.block.Skull;
 import org.bukkit.block.data.*;
 import org.bukkit.block.data.type.NoteBlock;
 import org.bukkit.block.data.type.Stairs;
+import org.jetbrains.annotations.NotNull;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
 import java.util.stream.Collectors;
 
 @Log
-@ToString
 @NoArgsConstructor
-@Setter
-public class LatestNodeData implements NodeData {
+@EqualsAndHashCode
+public class LatestNodeData implements PackedNodeData {
+
+    private static final BlockFace[] BLOCK_FACES = BlockFace.values();
+    private static final Stairs.Shape[] STAIR_SHAPES = Stairs.Shape.values();
+    private static final Axis[] AXES = Axis.values();
+    private static final Instrument[] INSTRUMENTS = Instrument.values();
+    private static final Note.Tone[] TONES = Note.Tone.values();
+
+    // Multiple facing blocks only use the first six block faces (north, east, south, west, up, down).
+    private static final int FACE_COUNT = 6;
+
+    private static final PackedField FACING = PackedField.first(5);
+    private static final PackedField STAIR_SHAPE = FACING.next(3);
+    private static final PackedField AXIS = STAIR_SHAPE.next(2);
+    private static final PackedField ROTATION = AXIS.next(5);
+    private static final PackedField AGE = ROTATION.next(7);
+    // -- Note Blocks
+    private static final PackedField POWERED = AGE.next(2);
+    private static final PackedField INSTRUMENT = POWERED.next(6);
+    private static final PackedField NOTE_ID = INSTRUMENT.next(6);
+    // Most resource packs should only use the internal noteId (maybe powered).
+    // But just in case include other properties.
+    private static final PackedField OCTAVE = NOTE_ID.next(3);
+    private static final PackedField TONE = OCTAVE.next(3);
+    private static final PackedField SHARPED = TONE.next(2);
+    // -- Multiface, one bit per face
+    private static final PackedField FACES = SHARPED.next(FACE_COUNT);
 
-    private BlockFace facing;
+    // All the properties packed, see the fields above. Persisted through getProperties().
+    private long state;
 
-    private Stairs.Shape stairShape;
+    private String skull;
 
-    private Axis axis;
+    public void setFacing(BlockFace facing) {
+        this.state = FACING.setEnum(state, facing);
+    }
 
-    private BlockFace rotation;
+    public void setStairShape(Stairs.Shape stairShape) {
+        this.state = STAIR_SHAPE.setEnum(state, stairShape);
+    }
 
-    private Integer age;
+    public void setAxis(Axis axis) {
+        this.state = AXIS.setEnum(state, axis);
+    }
 
-    private String skull;
+    public void setRotation(BlockFace rotation) {
+        this.state = ROTATION.setEnum(state, rotation);
+    }
 
-    // -- Note Blocks
+    public void setAge(Integer age) {
+        this.state = AGE.setInt(state, age);
+    }
 
-    private Boolean powered;
+    public void setSkull(String skull) {
+        this.skull = skull;
+    }
 
-    private Instrument instrument;
-    private Byte noteId;
+    public void setPowered(Boolean powered) {
+        this.state = POWERED.setBoolean(state, powered);
+    }
 
-    // Most resource packs should only use the internal noteId (maybe powered).
-    // But just in case include other properties.
-    private Integer octave;
-    private Note.Tone tone;
-    private Boolean sharped;
+    public void setInstrument(Instrument instrument) {
+        this.state = INSTRUMENT.setEnum(state, instrument);
+    }
 
-    // -- Multiface
+    public void setNoteId(Byte noteId) {
+        this.state = NOTE_ID.setInt(state, noteId == null ? null : (int) noteId);
+    }
 
-    private final Set<BlockFace> faces = new HashSet<>();
+    public void setOctave(Integer octave) {
+        this.state = OCTAVE.setInt(state, octave);
+    }
+
+    public void setTone(Note.Tone tone) {
+        this.state = TONE.setEnum(state, tone);
+    }
+
+    public void setSharped(Boolean sharped) {
+        this.state = SHARPED.setBoolean(state, sharped);
+    }
+
+    public void setFaces(Collection<BlockFace> faces) {
+        this.state = FACES.set(state, 0);
+        faces.forEach(this::addFace);
+    }
 
     public void addFace(BlockFace face) {
-        this.faces.add(face);
+        if (face.ordinal() >= FACE_COUNT) {
+            throw new IllegalArgumentException("Face " + face + " cannot be used for multiple facing blocks.");
+        }
+        this.state = FACES.set(state, FACES.get(state) | (1L << face.ordinal()));
     }
 
     public boolean hasFace(BlockFace face) {
-        return this.faces.contains(face);
+        return face.ordinal() < FACE_COUNT && (FACES.get(state) & (1L << face.ordinal())) != 0;
+    }
+
+    private boolean hasFaces() {
+        return FACES.isSet(state);
+    }
+
+    // Faces set, in the same order as BlockFace.
+    private Collection<BlockFace> getFaces() {
+        return Arrays.stream(BLOCK_FACES, 0, FACE_COUNT)
+                .filter(this::hasFace)
+                .collect(Collectors.toList());
     }
 
     @Override
@@ -87,75 +153,83 @@ public class LatestNodeData implements NodeData {
             }
         }
 
-        if (data instanceof Directional && this.facing != null) {
+        if (data instanceof Directional && FACING.isSet(state)) {
             Directional directional = (Directional) data;
-            if (directional.getFacing() != this.facing) {
+            if (directional.getFacing() != FACING.getEnum(state, BLOCK_FACES)) {
                 return false;
             }
         }
 
-        if (data instanceof Stairs && this.stairShape != null) {
+        if (data instanceof Stairs && STAIR_SHAPE.isSet(state)) {
             Stairs stairs = (Stairs) data;
-            if (stairs.getShape() != this.stairShape) {
+            if (stairs.getShape() != STAIR_SHAPE.getEnum(state, STAIR_SHAPES)) {
                 return false;
             }
         }
 
-        if (data instanceof Orientable && this.axis != null) {
+        if (data instanceof Orientable && AXIS.isSet(state)) {
             Orientable orientable = (Orientable) data;
-            if (orientable.getAxis() != this.axis) {
+            if (orientable.getAxis() != AXIS.getEnum(state, AXES)) {
                 return false;
             }
         }
 
-        if (data instanceof Rotatable && this.rotation != null) {
+        if (data instanceof Rotatable && ROTATION.isSet(state)) {
             Rotatable rotatable = (Rotatable) data;
-            if (rotatable.getRotation() != this.rotation) {
+            if (rotatable.getRotation() != ROTATION.getEnum(state, BLOCK_FACES)) {
                 return false;
             }
         }
 
-        if (data instanceof Ageable && this.age != null) {
+        if (data instanceof Ageable && AGE.isSet(state)) {
             Ageable ageable = (Ageable) data;
-            if (ageable.getAge() != this.age) {
+            if (ageable.getAge() != AGE.get(state) - 1) {
                 return false;
             }
         }
 
         if (data instanceof NoteBlock) {
             NoteBlock noteBlock = (NoteBlock) data;
-            if (this.octave != null && this.octave != noteBlock.getNote().getOctave()) {
+            if (OCTAVE.isSet(state) && OCTAVE.get(state) - 1 != noteBlock.getNote().getOctave()) {
                 return false;
             }
 
-            if (this.noteId != null && this.noteId != noteBlock.getNote().getId()) {
+            if (NOTE_ID.isSet(state) && NOTE_ID.get(state) - 1 != noteBlock.getNote().getId()) {
                 return false;
             }
 
-            if (this.tone != null && this.tone != noteBlock.getNote().getTone()) {
+            if (TONE.isSet(state) && TONE.getEnum(state, TONES) != noteBlock.getNote().getTone()) {
                 return false;
             }
 
-            if (this.sharped != null && this.sharped != noteBlock.getNote().isSharped()) {
+            if (SHARPED.isSet(state) && SHARPED.getBoolean(state) != noteBlock.getNote().isSharped()) {
                 return false;
             }
 
-            if (this.instrument != null && this.instrument != noteBlock.getInstrument()) {
+            if (INSTRUMENT.isSet(state) && INSTRUMENT.getEnum(state, INSTRUMENTS) != noteBlock.getInstrument()) {
                 return false;
             }
         }
 
         if (data instanceof Powerable) {
             Powerable powerable = (Powerable) data;
-            if (this.powered != null && this.powered != powerable.isPowered()) {
+            if (POWERED.isSet(state) && POWERED.getBoolean(state) != powerable.isPowered()) {
                 return false;
             }
         }
 
-        if (data instanceof MultipleFacing) {
+        if (data instanceof MultipleFacing && hasFaces()) {
             MultipleFacing multipleFacing = (MultipleFacing) data;
             // Has to have the exact same faces
-            if (!this.faces.isEmpty() && !this.faces.equals(multipleFacing.getFaces())) {
+            long faces = 0;
+            for (BlockFace face : multipleFacing.getFaces()) {
+                if (face.ordinal() >= FACE_COUNT) {
+                    return false;
+                }
+                faces |= 1L << face.ordinal();
+            }
+
+            if (faces != FACES.get(state)) {
                 return false;
             }
         }
@@ -173,47 +247,46 @@ public class LatestNodeData implements NodeData {
 
         if (data instanceof Directional) {
             Directional directional = (Directional) data;
-            this.facing = directional.getFacing();
+            setFacing(directional.getFacing());
         }
 
         if (data instanceof Stairs) {
             Stairs stairs = (Stairs) data;
-            this.stairShape = stairs.getShape();
+            setStairShape(stairs.getShape());
         }
 
         if (data instanceof Orientable) {
             Orientable orientable = (Orientable) data;
-            this.axis = orientable.getAxis();
+            setAxis(orientable.getAxis());
         }
 
         if (data instanceof Rotatable) {
             Rotatable rotatable = (Rotatable) data;
-            this.rotation = rotatable.getRotation();
+            setRotation(rotatable.getRotation());
         }
 
         if (data instanceof Ageable) {
             Ageable ageable = (Ageable) data;
-            this.age = ageable.getAge();
+            setAge(ageable.getAge());
         }
 
         if (data instanceof NoteBlock) {
             NoteBlock noteBlock = (NoteBlock) data;
-            this.instrument = noteBlock.getInstrument();
-            this.octave = noteBlock.getNote().getOctave();
-            this.tone = noteBlock.getNote().getTone();
-            this.sharped = noteBlock.getNote().isSharped();
-            this.noteId = noteBlock.getNote().getId();
+            setInstrument(noteBlock.getInstrument());
+            setOctave(noteBlock.getNote().getOctave());
+            setTone(noteBlock.getNote().getTone());
+            setSharped(noteBlock.getNote().isSharped());
+            setNoteId(noteBlock.getNote().getId());
         }
 
         if (data instanceof Powerable) {
             Powerable powerable = (Powerable) data;
-            this.powered = powerable.isPowered();
+            setPowered(powerable.isPowered());
         }
 
         if (data instanceof MultipleFacing) {
             MultipleFacing multipleFacing = (MultipleFacing) data;
-            this.faces.clear();
-            this.faces.addAll(multipleFacing.getFaces());
+            setFaces(multipleFacing.getFaces());
         }
 
         log.fine(() -> String.format("Loaded block data %s (%s)", block.getType(), this));
@@ -221,67 +294,68 @@ public class LatestNodeData implements NodeData {
 
     @Override
     public void apply(Block block) {
+        apply(block, true);
+    }
+
+    @Override
+    public void apply(Block block, boolean applyPhysics) {
         BlockData blockData = block.getBlockData();
 
-        if (blockData instanceof Directional && this.facing != null) {
-            ((Directional) blockData).setFacing(this.facing);
+        if (blockData instanceof Directional && FACING.isSet(state)) {
+            ((Directional) blockData).setFacing(FACING.getEnum(state, BLOCK_FACES));
         }
 
-        if (blockData instanceof Stairs && this.stairShape != null) {
-            ((Stairs) blockData).setShape(this.stairShape);
+        if (blockData instanceof Stairs && STAIR_SHAPE.isSet(state)) {
+            ((Stairs) blockData).setShape(STAIR_SHAPE.getEnum(state, STAIR_SHAPES));
         }
 
-        if (blockData instanceof Orientable && this.axis != null) {
-            ((Orientable) blockData).setAxis(this.axis);
+        if (blockData instanceof Orientable && AXIS.isSet(state)) {
+            ((Orientable) blockData).setAxis(AXIS.getEnum(state, AXES));
         }
 
-        if (blockData instanceof Rotatable && this.rotation != null) {
-            ((Rotatable) blockData).setRotation(this.rotation);
+        if (blockData instanceof Rotatable && ROTATION.isSet(state)) {
+            ((Rotatable) blockData).setRotation(ROTATION.getEnum(state, BLOCK_FACES));
         }
 
-        if (blockData instanceof Ageable && this.age != null) {
+        if (blockData instanceof Ageable && AGE.isSet(state)) {
             Ageable ageable = (Ageable) blockData;
-            if (this.age > ageable.getMaximumAge()) {
-                ageable.setAge(ageable.getMaximumAge());
-            } else {
-                ageable.setAge(this.age);
-            }
+            ageable.setAge((int) Math.min(AGE.get(state) - 1, ageable.getMaximumAge()));
         }
 
         if (blockData instanceof NoteBlock) {
             NoteBlock noteBlock = (NoteBlock) blockData;
-            if (this.instrument != null) {
-                noteBlock.setInstrument(this.instrument);
+            if (INSTRUMENT.isSet(state)) {
+                noteBlock.setInstrument(INSTRUMENT.getEnum(state, INSTRUMENTS));
             }
 
-            if (this.noteId != null) {
-                Note note = new Note(this.noteId);
+            if (NOTE_ID.isSet(state)) {
+                Note note = new Note((int) NOTE_ID.get(state) - 1);
                 noteBlock.setNote(note);
             }
 
-            if (this.tone != null && this.octave != null) {
-                Note note = new Note(this.octave, this.tone, this.sharped != null && sharped);
+            if (TONE.isSet(state) && OCTAVE.isSet(state)) {
+                Note note = new Note((int) OCTAVE.get(state) - 1, TONE.getEnum(state, TONES), SHARPED.get(state) == 2);
                 noteBlock.setNote(note);
             }
         }
 
         if (blockData instanceof Powerable) {
             Powerable powerable = (Powerable) blockData;
-            if (this.powered != null) {
-                powerable.setPowered(this.powered);
+            if (POWERED.isSet(state)) {
+                powerable.setPowered(POWERED.getBoolean(state));
             }
         }
 
         if (blockData instanceof MultipleFacing) {
             MultipleFacing multipleFacing = (MultipleFacing) blockData;
-            if (!this.faces.isEmpty()) {
+            if (hasFaces()) {
                 for (BlockFace face : multipleFacing.getAllowedFaces()) {
-                    multipleFacing.setFace(face, this.faces.contains(face));
+                    multipleFacing.setFace(face, hasFace(face));
                 }
             }
         }
 
-        block.setBlockData(blockData);
+        block.setBlockData(blockData, applyPhysics);
 
         if (this.skull != null && block.getState() instanceof Skull) {
             XSkull.of(block)
@@ -290,43 +364,59 @@ public class LatestNodeData implements NodeData {
         }
     }
 
+    @Override
+    public @NotNull Map<String, Object> getProperties() {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("facing", FACING.getEnum(state, BLOCK_FACES));
+        properties.put("stairShape", STAIR_SHAPE.getEnum(state, STAIR_SHAPES));
+        properties.put("axis", AXIS.getEnum(state, AXES));
+        properties.put("rotation", ROTATION.getEnum(state, BLOCK_FACES));
+        properties.put("age", AGE.getInt(state));
+        properties.put("skull", this.skull);
+        properties.put("powered", POWERED.getBoolean(state));
+        properties.put("instrument", INSTRUMENT.getEnum(state, INSTRUMENTS));
+        properties.put("noteId", NOTE_ID.getInt(state));
+        properties.put("octave", OCTAVE.getInt(state));
+        properties.put("tone", TONE.getEnum(state, TONES));
+        properties.put("sharped", SHARPED.getBoolean(state));
+        if (hasFaces()) {
+            properties.put("faces", getFaces());
+        }
+        properties.values().removeIf(Objects::isNull);
+        return properties;
+    }
+
     @Override
     public boolean isEmpty() {
-        return this.facing == null &&
-                this.stairShape == null &&
-                this.axis == null &&
-                this.rotation == null &&
-                this.age == null &&
-                this.instrument == null &&
-                this.octave == null &&
-                this.noteId == null &&
-                this.tone == null &&
-                this.sharped == null &&
-                this.powered == null &&
-                this.faces.isEmpty();
+        return this.state == 0;
     }
 
     @Override
     public String getPrettyString() {
         Map<String, Object> entries = new HashMap<>();
-        entries.put("facing", this.facing);
-        entries.put("shape", this.stairShape);
-        entries.put("axis", this.axis);
-        entries.put("rotation", this.rotation);
-        entries.put("age", this.age);
+        entries.put("facing", FACING.getEnum(state, BLOCK_FACES));
+        entries.put("shape", STAIR_SHAPE.getEnum(state, STAIR_SHAPES));
+        entries.put("axis", AXIS.getEnum(state, AXES));
+        entries.put("rotation", ROTATION.getEnum(state, BLOCK_FACES));
+        entries.put("age", AGE.getInt(state));
         entries.put("skull", this.skull);
-        entries.put("noteId", this.noteId);
-        entries.put("octave", this.octave);
-        entries.put("tone", this.tone);
-        entries.put("instrument", this.instrument);
-        entries.put("sharped", this.sharped);
+        entries.put("noteId", NOTE_ID.getInt(state));
+        entries.put("octave", OCTAVE.getInt(state));
+        entries.put("tone", TONE.getEnum(state, TONES));
+        entries.put("instrument", INSTRUMENT.getEnum(state, INSTRUMENTS));
+        entries.put("sharped", SHARPED.getBoolean(state));
 
         String serialized = Serialization.serializeNodeDataEntries(entries);
-        if (!this.faces.isEmpty()) {
+        if (hasFaces()) {
             log.fine(serialized);
-            String faces = this.faces.stream().map(face -> String.format("%s=true", face)).collect(Collectors.joining(","));
+            String faces = getFaces().stream().map(face -> String.format("%s=true", face)).collect(Collectors.joining(","));
             serialized = serialized.substring(0, serialized.length() - 1) + faces + "]";
         }
         return serialized;
     }
+
+    @Override
+    public String toString() {
+        return "LatestNodeData" + getPrettyString();
+    }
 }
@@ -0,0 +1,93 @@
+package nl.aurorion.blockregen;
+
+import nl.aurorion.blockregen.mock.MockProxies;
+import nl.aurorion.blockregen.region.AreaIndex;
+import nl.aurorion.blockregen.region.struct.RegenerationArea;
+import nl.aurorion.blockregen.region.struct.RegenerationRegion;
+import nl.aurorion.blockregen.region.struct.RegenerationWorld;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AreaIndexTests {
+
+    private static final World WORLD = MockProxies.world("world");
+
+    private static RegenerationRegion region(String name, int priority, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        RegenerationRegion region = new RegenerationRegion(name, new Location(WORLD, minX, minY, minZ), new Location(WORLD, maxX, maxY, maxZ));
+        region.setPriority(priority);
+        return region;
+    }
+
+    @Test
+    public void findsHighestPriority() {
+        AreaIndex index = new AreaIndex();
+
+        RegenerationWorld world = new RegenerationWorld("world", "world");
+        RegenerationRegion mine = region("mine", 2, 0, 0, 0, 31, 100, 31);
+        RegenerationRegion vein = region("vein", 5, 10, 10, 10, 12, 12, 12);
+        RegenerationRegion huge = region("huge", 3, -100_000, 0, -100_000, 100_000, 255, 100_000);
+
+        world.setPriority(1);
+        index.add(world);
+        index.add(mine);
+        index.add(vein);
+
+        assertSame(vein, index.find("world", 11, 11, 11));
+        assertSame(mine, index.find("world", 20, 50, 20));
+        assertSame(world, index.find("world", 500, 50, 500));
+        assertNull(index.find("world_nether", 11, 11, 11));
+
+        index.add(huge);
+        assertSame(vein, index.find("world", 11, 11, 11));
+        assertSame(huge, index.find("world", 20, 50, 20));
+
+        index.remove(huge);
+        index.remove(vein);
+        assertSame(mine, index.find("world", 11, 11, 11));
+
+        // Lower than the world now.
+        mine.setPriority(0);
+        index.update(mine);
+        assertSame(world, index.find("world", 11, 11, 11));
+    }
+
+    @Test
+    public void matchesLinearScan() {
+        Random random = new Random(42);
+        AreaIndex index = new AreaIndex();
+
+        List<RegenerationArea> areas = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            int x = random.nextInt(2000) - 1000, y = random.nextInt(200), z = random.nextInt(2000) - 1000;
+            int size = random.nextInt(10) == 0 ? 1000 : 5 + random.nextInt(60);
+            RegenerationRegion region = region("r" + i, random.nextInt(5), x, y, z, x + size, y + random.nextInt(50), z + size);
+            areas.add(region);
+            index.add(region);
+        }
+
+        // Same ordering as the manager, priority first and the order they were added in.
+        List<RegenerationArea> sorted = new ArrayList<>(areas);
+        sorted.sort(Comparator.comparing(RegenerationArea::getPriority).reversed());
+
+        for (int i = 0; i < 20_000; i++) {
+            int x = random.nextInt(2400) - 1200, y = random.nextInt(256), z = random.nextInt(2400) - 1200;
+
+            RegenerationArea expected = null;
+            for (RegenerationArea area : sorted) {
+                if (area.contains("world", x, y, z)) {
+                    expected = area;
+                    break;
+                }
+            }
+            assertSame(expected, index.find("world", x, y, z));
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package nl.aurorion.blockregen;
+
+import nl.aurorion.blockregen.mock.MockProcesses;
+import nl.aurorion.blockregen.regeneration.CompactProcessStore;
+import nl.aurorion.blockregen.regeneration.struct.RegenerationProcess;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompactProcessStoreTests {
+
+    private static RegenerationProcess process(String world, int x, int y, int z) {
+        RegenerationProcess process = MockProcesses.process(world, x, y, z);
+        process.setRegionName("region");
+        process.setRegenerationTime(System.currentTimeMillis() + 10_000);
+        return process;
+    }
+
+    @Test
+    public void materializesStoredFields() {
+        CompactProcessStore store = new CompactProcessStore();
+
+        RegenerationProcess process = process("world", -17, -64, 33);
+        process.setReplacePending(true);
+        store.add(process);
+
+        assertTrue(store.contains("world", -17, -64, 33));
+        assertFalse(store.contains("world_nether", -17, -64, 33));
+
+        RegenerationProcess restored = store.remove("world", -17, -64, 33);
+        assertNotNull(restored);
+
+        assertEquals(process, restored);
+        assertEquals(process.getLocation(), restored.getLocation());
+        assertEquals("world", restored.getWorldName());
+        assertEquals("region", restored.getRegionName());
+        assertEquals("preset", restored.getPresetName());
+        assertEquals(process.getRegenerationTime(), restored.getRegenerationTime());
+        assertSame(process.getOriginalData(), restored.getOriginalData());
+        assertTrue(restored.isReplacePending());
+
+        assertEquals(0, store.size());
+        assertNull(store.remove("world", -17, -64, 33));
+    }
+
+    @Test
+    public void walksSlotsOneAtATime() {
+        CompactProcessStore store = new CompactProcessStore();
+
+        List<RegenerationProcess> processes = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            RegenerationProcess process = process("world", i, 64, 0);
+            processes.add(process);
+            store.add(process);
+        }
+        store.remove("world", 0, 64, 0);
+        store.remove("world", 3, 64, 0);
+
+        List<RegenerationProcess> walked = new ArrayList<>();
+        for (int slot = store.nextSlot(0); slot >= 0; slot = store.nextSlot(slot + 1)) {
+            walked.add(store.materializeAt(slot));
+        }
+
+        assertEquals(Arrays.asList(processes.get(1), processes.get(2), processes.get(4)), walked);
+        assertEquals(-1, new CompactProcessStore().nextSlot(0));
+    }
+
+    @Test
+    public void removesWholeChunks() {
+        CompactProcessStore store = new CompactProcessStore();
+
+        List<RegenerationProcess> inChunk = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            RegenerationProcess process = process("world", 16 + i, 64, 16 + i);
+            inChunk.add(process);
+            store.add(process);
+        }
+        store.add(process("world", 32, 64, 16));
+        store.add(process("other", 16, 64, 16));
+
+        List<RegenerationProcess> removed = store.removeChunk("world", 1, 1);
+        assertEquals(16, removed.size());
+        assertTrue(removed.containsAll(inChunk));
+
+        assertEquals(2, store.size());
+        assertTrue(store.removeChunk("world", 1, 1).isEmpty());
+        assertTrue(store.contains("world", 32, 64, 16));
+        assertTrue(store.contains("other", 16, 64, 16));
+    }
+
+    @Test
+    public void queriesStoredProcesses() {
+        CompactProcessStore store = new CompactProcessStore();
+
+        store.add(process("world", 0, 64, 0));
+        store.add(process("world", 1, 64, 0));
+        RegenerationProcess other = process("World_Nether", 2, 64, 0);
+        other.setRegionName(null);
+        store.add(other);
+
+        RegenerationProcess view = store.get("world", 1, 64, 0);
+        assertNotNull(view);
+        assertTrue(store.contains("world", 1, 64, 0));
+        assertNull(store.get("world", 3, 64, 0));
+
+        List<RegenerationProcess> matching = new ArrayList<>();
+        store.forEachMatching("preset", "REGION", null, matching::add);
+        assertEquals(2, matching.size());
+
+        matching.clear();
+        store.forEachMatching(null, null, "world_nether", matching::add);
+        assertEquals(Collections.singletonList(other), matching);
+
+        Map<String, Map<String, Map<String, Integer>>> counts = new HashMap<>();
+        store.addCounts(counts);
+        assertEquals(2, counts.get("world").get("region").get("preset").intValue());
+        assertEquals(1, counts.get("World_Nether").get(null).get("preset").intValue());
+
+        // Flagged until the chunk loads.
+        assertEquals(1, store.markRegenerate(null, null, "WORLD_NETHER"));
+        assertTrue(store.removeChunk("World_Nether", 0, 0).get(0).isRegenerateOnLoad());
+        assertFalse(store.remove("world", 0, 64, 0).isRegenerateOnLoad());
+    }
+
+    @Test
+    public void keepsQueuedRegeneration() {
+        CompactProcessStore store = new CompactProcessStore();
+
+        // Queued by a command, the chunk unloads before the queue gets to it.
+        RegenerationProcess process = process("world", 0, 64, 0);
+        process.setQueued(true);
+        process.suspend();
+        assertFalse(process.isQueued());
+        store.add(process);
+
+        assertTrue(store.remove("world", 0, 64, 0).isRegenerateOnLoad());
+    }
+
+    @Test
+    public void reusesFreedSlots() {
+        CompactProcessStore store = new CompactProcessStore();
+
+        for (int i = 0; i < 1000; i++) {
+            store.add(process("world", i, 64, 0));
+        }
+        long memory = store.getMemoryUsage();
+
+        for (int i = 0; i < 1000; i++) {
+            assertNotNull(store.remove("world", i, 64, 0));
+            store.add(process("world", i, 65, 0));
+        }
+
+        assertEquals(1000, store.size());
+        assertEquals(memory, store.getMemoryUsage());
+
+        List<RegenerationProcess> all = new ArrayList<>();
+        store.forEach(all::add);
+        assertEquals(1000, all.size());
+    }
+}
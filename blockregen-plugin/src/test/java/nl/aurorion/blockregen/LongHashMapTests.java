@@ -0,0 +1,86 @@
+package nl.aurorion.blockregen;
+
+import nl.aurorion.blockregen.util.BlockPositions;
+import nl.aurorion.blockregen.util.LongHashMap;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LongHashMapTests {
+
+    @Test
+    public void putGetAndRemove() {
+        LongHashMap<String> map = new LongHashMap<>();
+
+        assertNull(map.put(1L, "a"));
+        assertEquals("a", map.put(1L, "b"));
+        assertEquals("b", map.get(1L));
+        assertEquals(1, map.size());
+
+        assertEquals("b", map.remove(1L));
+        assertNull(map.get(1L));
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void putIfAbsentKeepsExisting() {
+        LongHashMap<String> map = new LongHashMap<>();
+
+        assertNull(map.putIfAbsent(5L, "a"));
+        assertEquals("a", map.putIfAbsent(5L, "b"));
+        assertEquals("a", map.get(5L));
+    }
+
+    @Test
+    public void conditionalRemoveChecksValue() {
+        LongHashMap<String> map = new LongHashMap<>();
+        map.put(5L, "a");
+
+        assertFalse(map.remove(5L, "b"));
+        assertTrue(map.remove(5L, "a"));
+        assertFalse(map.containsKey(5L));
+    }
+
+    @Test
+    public void matchesHashMapUnderChurn() {
+        Random random = new Random(42);
+
+        LongHashMap<Integer> map = new LongHashMap<>();
+        Map<Long, Integer> expected = new HashMap<>();
+
+        for (int i = 0; i < 200_000; i++) {
+            long key = BlockPositions.pack(random.nextInt(64) - 32, random.nextInt(384) - 64, random.nextInt(64) - 32);
+
+            switch (random.nextInt(3)) {
+                case 0:
+                    assertEquals(expected.put(key, i), map.put(key, i));
+                    break;
+                case 1:
+                    assertEquals(expected.remove(key), map.remove(key));
+                    break;
+                default:
+                    assertEquals(expected.get(key), map.get(key));
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        expected.forEach((key, value) -> assertEquals(value, map.get(key)));
+    }
+
+    @Test
+    public void blockPositionsRoundTrip() {
+        int[][] positions = {{0, 0, 0}, {-1, -64, -1}, {29_999_999, 319, -29_999_999}, {-30_000_000, -2048, 30_000_000}};
+
+        for (int[] position : positions) {
+            long key = BlockPositions.pack(position[0], position[1], position[2]);
+
+            assertEquals(position[0], BlockPositions.unpackX(key));
+            assertEquals(position[1], BlockPositions.unpackY(key));
+            assertEquals(position[2], BlockPositions.unpackZ(key));
+        }
+    }
+}
@@ -0,0 +1,366 @@
+package nl.aurorion.blockregen;
+
+import com.cryptomorin.xseries.XMaterial;
+import com.google.gson.GsonBuilder;
+import nl.aurorion.blockregen.mock.MockProcessStorage;
+import nl.aurorion.blockregen.mock.MockProcesses;
+import nl.aurorion.blockregen.regeneration.struct.RegenerationProcess;
+import nl.aurorion.blockregen.regeneration.struct.SimpleLocation;
+import nl.aurorion.blockregen.storage.ImportingProcessStorage;
+import nl.aurorion.blockregen.storage.MappedProcessStorage;
+import nl.aurorion.blockregen.storage.ProcessStorage;
+import nl.aurorion.blockregen.version.NodeDataAdapter;
+import nl.aurorion.blockregen.version.api.NodeData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MappedProcessStorageTests {
+
+    // Header + slot index * slot size.
+    private static final int HEADER_SIZE = 64;
+    private static final int SLOT_SIZE = 64;
+    // Offset of the state in a slot, 1 when used.
+    private static final int STATE = 4;
+
+    @TempDir
+    Path folder;
+
+    private static GsonHelper gsonHelper() {
+        return new GsonHelper(new GsonBuilder().registerTypeHierarchyAdapter(NodeData.class, new NodeDataAdapter<>()));
+    }
+
+    private static MappedProcessStorage storage(Path folder) {
+        return new MappedProcessStorage(gsonHelper(), folder.resolve("Data.map"));
+    }
+
+    private ProcessStorage importing(ProcessStorage importFrom) {
+        return new ImportingProcessStorage(storage(folder), importFrom, "Data.map");
+    }
+
+    // Coordinates derived from the id, a record mixed from two processes doesn't match.
+    private static RegenerationProcess process(UUID id, long regenerationTime) {
+        int x = (int) id.getLeastSignificantBits() & 0xFFFF;
+        RegenerationProcess process = MockProcesses.process(id, "world", x, 64, -x, XMaterial.STONE, "preset");
+        process.setRegionName("mine");
+        process.setRegenerationTime(regenerationTime);
+        return process;
+    }
+
+    private static Map<UUID, RegenerationProcess> byId(List<RegenerationProcess> processes) {
+        Map<UUID, RegenerationProcess> map = new HashMap<>();
+        for (RegenerationProcess process : processes) {
+            assertNull(map.put(process.getId(), process), "Duplicate process " + process.getId());
+        }
+        return map;
+    }
+
+    private static void assertIntact(RegenerationProcess process) {
+        int x = (int) process.getId().getLeastSignificantBits() & 0xFFFF;
+        assertEquals(new SimpleLocation("world", x, 64, -x), process.getLocation());
+        assertEquals("preset", process.getPresetName());
+        assertEquals("mine", process.getRegionName());
+        assertEquals(XMaterial.STONE, process.getOriginalType());
+        assertNotNull(process.getOriginalData());
+    }
+
+    private void corruptSlot(int slot) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(folder.resolve("Data.map").toFile(), "rw")) {
+            // Half of the record written, the rest stale.
+            file.seek(HEADER_SIZE + (long) slot * SLOT_SIZE + SLOT_SIZE / 2);
+            file.write(new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+        }
+    }
+
+    private byte[] readSlot(int slot) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(folder.resolve("Data.map").toFile(), "r")) {
+            byte[] data = new byte[SLOT_SIZE];
+            file.seek(HEADER_SIZE + (long) slot * SLOT_SIZE);
+            file.readFully(data);
+            return data;
+        }
+    }
+
+    private void writeSlot(int slot, byte[] data) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(folder.resolve("Data.map").toFile(), "rw")) {
+            file.seek(HEADER_SIZE + (long) slot * SLOT_SIZE);
+            file.write(data);
+        }
+    }
+
+    @Test
+    public void updatesInPlace() throws IOException {
+        long now = System.currentTimeMillis();
+
+        RegenerationProcess a = process(UUID.randomUUID(), now + 60_000);
+        RegenerationProcess b = process(UUID.randomUUID(), now + 60_000);
+        RegenerationProcess c = process(UUID.randomUUID(), 0);
+        c.setTimeLeft(-1);
+
+        MappedProcessStorage storage = storage(folder);
+        storage.load();
+        storage.put(a);
+        storage.put(b);
+        storage.put(c);
+        storage.flush();
+
+        storage.remove(a);
+        b.setRegenerationTime(now + 120_000);
+        storage.put(b);
+        storage.flush();
+        assertEquals(2, storage.getUsedSlots());
+        storage.close();
+
+        Map<UUID, RegenerationProcess> loaded = byId(storage(folder).load());
+        assertEquals(new HashSet<>(Arrays.asList(b.getId(), c.getId())), loaded.keySet());
+        loaded.values().forEach(MappedProcessStorageTests::assertIntact);
+
+        long timeLeft = loaded.get(b.getId()).getTimeLeft();
+        assertTrue(timeLeft > 60_000 && timeLeft <= 120_000);
+        assertEquals(-1, loaded.get(c.getId()).getTimeLeft());
+    }
+
+    @Test
+    public void ignoresTornSlot() throws IOException {
+        long now = System.currentTimeMillis();
+        RegenerationProcess a = process(UUID.randomUUID(), now + 60_000);
+
+        MappedProcessStorage storage = storage(folder);
+        storage.load();
+        storage.put(a);
+        storage.flush();
+        byte[] first = readSlot(0);
+
+        // Goes into slot 1, slot 0 is freed.
+        a.setRegenerationTime(now + 120_000);
+        storage.put(a);
+        storage.flush();
+        storage.close();
+
+        // Killed before freeing the old copy, both are valid. The newer one wins.
+        writeSlot(0, first);
+        List<RegenerationProcess> loaded = storage(folder).load();
+        assertEquals(1, loaded.size());
+        assertTrue(loaded.get(0).getTimeLeft() > 60_000);
+
+        // Killed while writing the new copy. The old one is used.
+        writeSlot(0, first);
+        corruptSlot(1);
+        loaded = storage(folder).load();
+        assertEquals(1, loaded.size());
+        assertIntact(loaded.get(0));
+        assertTrue(loaded.get(0).getTimeLeft() <= 60_000);
+    }
+
+    @Test
+    public void keepsReplacedSlotsUntilSynced() throws IOException {
+        long now = System.currentTimeMillis();
+        RegenerationProcess a = process(UUID.randomUUID(), now + 60_000);
+        RegenerationProcess b = process(UUID.randomUUID(), now + 60_000);
+        RegenerationProcess c = process(UUID.randomUUID(), now + 60_000);
+
+        MappedProcessStorage storage = storage(folder);
+        storage.load();
+        storage.put(a);
+        storage.put(b);
+        storage.flush();
+
+        // Goes into slot 2, c must not take slot 0 while the new copy of a might not be on disk yet.
+        a.setRegenerationTime(now + 120_000);
+        storage.put(a);
+        storage.put(c);
+        storage.flush();
+        storage.close();
+
+        assertEquals(0, readSlot(0)[STATE]);
+        assertEquals(1, readSlot(2)[STATE]);
+        assertEquals(1, readSlot(3)[STATE]);
+        assertEquals(3, storage(folder).load().size());
+    }
+
+    @Test
+    public void retriesFailedDictionaryAppend() throws IOException {
+        RegenerationProcess a = process(UUID.randomUUID(), System.currentTimeMillis() + 60_000);
+
+        MappedProcessStorage storage = storage(folder);
+        storage.load();
+
+        // The dictionary can't be opened for writing.
+        Path dictionary = folder.resolve("Data.map.dict");
+        Files.createDirectory(dictionary);
+        storage.put(a);
+        assertThrows(IOException.class, storage::flush);
+        assertEquals(0, storage.getUsedSlots());
+
+        // The entries are written again along with the process.
+        Files.delete(dictionary);
+        storage.flush();
+        storage.close();
+
+        List<RegenerationProcess> loaded = storage(folder).load();
+        assertEquals(1, loaded.size());
+        assertIntact(loaded.get(0));
+    }
+
+    @Test
+    public void importsOnce() throws IOException {
+        RegenerationProcess a = process(UUID.randomUUID(), System.currentTimeMillis() + 60_000);
+
+        MockProcessStorage legacy = new MockProcessStorage(a);
+
+        // Not started before the save.
+        ProcessStorage storage = importing(legacy);
+        assertEquals(Collections.singletonList(a), storage.load());
+        storage.save(() -> Collections.singletonList(a));
+        storage.close();
+
+        storage = importing(legacy);
+        assertEquals(Collections.singletonList(a), storage.load());
+        storage.remove(a);
+        storage.flush();
+        storage.close();
+
+        // All finished, the old storage stays out of it.
+        storage = importing(legacy);
+        assertTrue(storage.load().isEmpty());
+        storage.close();
+        assertEquals(1, legacy.getLoads());
+    }
+
+    @Test
+    public void keepsDictionaryWithUnknownMaterials() throws IOException {
+        long now = System.currentTimeMillis();
+        RegenerationProcess a = process(UUID.randomUUID(), now + 60_000);
+        RegenerationProcess b = MockProcesses.process(UUID.randomUUID(), "world", 1, 2, 3, XMaterial.DIAMOND_ORE, "preset");
+        RegenerationProcess c = MockProcesses.process(UUID.randomUUID(), "world", 4, 5, 6, XMaterial.STONE, "other");
+        b.setRegenerationTime(now + 60_000);
+        c.setRegenerationTime(now + 60_000);
+
+        MappedProcessStorage storage = storage(folder);
+        storage.load();
+        storage.put(a);
+        storage.put(b);
+        storage.put(c);
+        storage.flush();
+        storage.close();
+
+        // Both removed from the server, they end up as the same material.
+        Path dictionary = folder.resolve("Data.map.dict");
+        String entries = new String(Files.readAllBytes(dictionary), StandardCharsets.UTF_8);
+        Files.write(dictionary, entries.replace("\"STONE\"", "\"REMOVED_ONE\"").replace("\"DIAMOND_ORE\"", "\"REMOVED_TWO\"")
+                .getBytes(StandardCharsets.UTF_8));
+
+        Map<UUID, RegenerationProcess> loaded = byId(storage(folder).load());
+        assertEquals(new HashSet<>(Arrays.asList(a.getId(), b.getId(), c.getId())), loaded.keySet());
+        assertEquals(XMaterial.AIR, loaded.get(b.getId()).getOriginalType());
+        assertEquals("other", loaded.get(c.getId()).getPresetName());
+    }
+
+    @Test
+    public void truncatesTornDictionary() throws IOException {
+        long now = System.currentTimeMillis();
+        RegenerationProcess a = process(UUID.randomUUID(), now + 60_000);
+
+        MappedProcessStorage storage = storage(folder);
+        storage.load();
+        storage.put(a);
+        storage.flush();
+        storage.close();
+
+        // Killed while appending a new entry.
+        Files.write(folder.resolve("Data.map.dict"), "{\"type\":\"preset\",\"id\":1,\"val".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+
+        storage = storage(folder);
+        assertEquals(1, storage.load().size());
+
+        // The next entry doesn't end up on the torn line.
+        RegenerationProcess b = MockProcesses.process(UUID.randomUUID(), "world", 1, 2, 3, XMaterial.STONE, "other");
+        b.setRegenerationTime(now + 60_000);
+        storage.put(b);
+        storage.flush();
+        storage.close();
+
+        Map<UUID, RegenerationProcess> loaded = byId(storage(folder).load());
+        assertEquals(new HashSet<>(Arrays.asList(a.getId(), b.getId())), loaded.keySet());
+        assertIntact(loaded.get(a.getId()));
+        assertEquals("other", loaded.get(b.getId()).getPresetName());
+    }
+
+    // Only covers torn slots and dictionary entries. The page cache survives a killed process, so writes reaching the disk
+    // out of order, as on a power loss, are not tested here.
+    @Test
+    public void survivesKilledWriter() throws Exception {
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        Process writer = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                Writer.class.getName(), folder.toString())
+                .redirectErrorStream(true)
+                .start();
+
+        int flushed = 0;
+        try (BufferedReader output = new BufferedReader(new InputStreamReader(writer.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            int flushes = 0;
+            while (flushes < 20 && (line = output.readLine()) != null) {
+                if (line.startsWith("flushed ")) {
+                    flushed = Integer.parseInt(line.substring("flushed ".length()));
+                    flushes++;
+                }
+            }
+            assertEquals(20, flushes, "Writer stopped early.");
+        } finally {
+            // In the middle of a flush most of the time.
+            writer.destroyForcibly();
+            assertTrue(writer.waitFor(10, TimeUnit.SECONDS));
+        }
+
+        Map<UUID, RegenerationProcess> loaded = byId(storage(folder).load());
+        loaded.values().forEach(MappedProcessStorageTests::assertIntact);
+        // The writer only adds, everything flushed before the kill is there.
+        assertTrue(loaded.size() >= flushed, loaded.size() + " < " + flushed);
+    }
+
+    /**
+     * Adds and updates processes until it's killed. Reports the number of processes after every flush.
+     */
+    public static class Writer {
+        public static void main(String[] args) throws IOException {
+            MappedProcessStorage storage = storage(new File(args[0]).toPath());
+            storage.load();
+
+            Random random = new Random();
+            List<RegenerationProcess> processes = new ArrayList<>();
+
+            while (true) {
+                for (int i = 0; i < 500; i++) {
+                    RegenerationProcess process = process(UUID.randomUUID(), System.currentTimeMillis() + 60_000);
+                    processes.add(process);
+                    storage.put(process);
+                }
+
+                for (int i = 0; i < 500; i++) {
+                    RegenerationProcess process = processes.get(random.nextInt(processes.size()));
+                    process.setRegenerationTime(System.currentTimeMillis() + random.nextInt(60_000));
+                    storage.put(process);
+                }
+
+                storage.flush();
+                System.out.println("flushed " + processes.size());
+            }
+        }
+    }
+}
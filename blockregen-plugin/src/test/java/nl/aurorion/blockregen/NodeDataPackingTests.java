@@ -0,0 +1,102 @@
+package nl.aurorion.blockregen;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import nl.aurorion.blockregen.version.NodeDataAdapter;
+import nl.aurorion.blockregen.version.NodeDataPalette;
+import nl.aurorion.blockregen.version.PackedField;
+import nl.aurorion.blockregen.version.api.NodeData;
+import nl.aurorion.blockregen.version.current.LatestNodeData;
+import org.bukkit.Axis;
+import org.bukkit.Instrument;
+import org.bukkit.block.BlockFace;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NodeDataPackingTests {
+
+    private final Gson gson = new GsonBuilder()
+            .registerTypeHierarchyAdapter(NodeData.class, new NodeDataAdapter<>())
+            .create();
+
+    private static LatestNodeData sample() {
+        LatestNodeData nodeData = new LatestNodeData();
+        nodeData.setFacing(BlockFace.NORTH);
+        nodeData.setAxis(Axis.Y);
+        nodeData.setAge(7);
+        nodeData.setInstrument(Instrument.BANJO);
+        nodeData.setNoteId((byte) 24);
+        nodeData.setPowered(false);
+        nodeData.addFace(BlockFace.EAST);
+        nodeData.addFace(BlockFace.UP);
+        return nodeData;
+    }
+
+    @Test
+    public void packedFieldsRoundTrip() {
+        PackedField first = PackedField.first(5);
+        PackedField second = first.next(2);
+
+        long state = first.setEnum(0, BlockFace.SOUTH);
+        state = second.setBoolean(state, false);
+
+        assertEquals(BlockFace.SOUTH, first.getEnum(state, BlockFace.values()));
+        assertEquals(Boolean.FALSE, second.getBoolean(state));
+
+        state = first.setEnum(state, null);
+        assertFalse(first.isSet(state));
+        assertTrue(second.isSet(state));
+
+        assertThrows(IllegalArgumentException.class, () -> second.setInt(0, 3));
+        assertThrows(IllegalArgumentException.class, () -> second.setInt(0, -1));
+    }
+
+    @Test
+    public void equalStatesAreInterned() {
+        LatestNodeData a = sample();
+        LatestNodeData b = sample();
+
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertEquals(a.getPrettyString(), b.getPrettyString());
+        assertTrue(a.hasFace(BlockFace.UP));
+        assertFalse(a.hasFace(BlockFace.DOWN));
+
+        NodeDataPalette palette = new NodeDataPalette();
+        assertSame(a, palette.intern(a));
+        assertSame(a, palette.intern(b));
+
+        b.setAge(8);
+        assertNotEquals(a, b);
+    }
+
+    @Test
+    public void roundTripsThroughJson() {
+        LatestNodeData nodeData = sample();
+
+        String json = gson.toJson(nodeData);
+        assertEquals(nodeData, gson.fromJson(json, NodeData.class));
+    }
+
+    @Test
+    public void storesEnumsByName() {
+        JsonObject json = gson.toJsonTree(sample(), NodeData.class).getAsJsonObject();
+
+        // Ordinals change between server versions.
+        assertFalse(json.has("state"));
+        assertEquals("NORTH", json.get("facing").getAsString());
+        assertEquals("BANJO", json.get("instrument").getAsString());
+        assertEquals(2, json.getAsJsonArray("faces").size());
+        assertEquals(sample(), gson.fromJson(json, NodeData.class));
+    }
+
+    @Test
+    public void readsUnpackedJson() {
+        String json = "{\"facing\":\"NORTH\",\"axis\":\"Y\",\"age\":7,\"instrument\":\"BANJO\",\"noteId\":24,\"powered\":false," +
+                "\"faces\":[\"UP\",\"EAST\"],\"className\":\"" + LatestNodeData.class.getName() + "\"}";
+
+        assertEquals(sample(), gson.fromJson(json, NodeData.class));
+    }
+}
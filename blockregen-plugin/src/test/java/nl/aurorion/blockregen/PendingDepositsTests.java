@@ -0,0 +1,94 @@
+package nl.aurorion.blockregen;
+
+import nl.aurorion.blockregen.mock.MockBlockRegenPlugin;
+import nl.aurorion.blockregen.mock.MockProxies;
+import nl.aurorion.blockregen.reward.PendingDeposits;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PendingDepositsTests {
+
+    // Records deposits instead of going to an economy.
+    private static class RecordingDeposits extends PendingDeposits {
+        private final Map<UUID, BigDecimal> balances = new ConcurrentHashMap<>();
+
+        RecordingDeposits() {
+            super(new MockBlockRegenPlugin());
+        }
+
+        @Override
+        protected BukkitTask schedule(long interval) {
+            return null;
+        }
+
+        @Override
+        protected boolean deposit(@NotNull Deposit deposit) {
+            balances.merge(deposit.getPlayer().getUniqueId(), deposit.getAmount(), BigDecimal::add);
+            return true;
+        }
+    }
+
+    private static OfflinePlayer player() {
+        UUID id = UUID.randomUUID();
+        return MockProxies.stub(OfflinePlayer.class, (method, args) -> method.equals("getUniqueId") ? id : null);
+    }
+
+    @Test
+    public void keepsExactTotalsWhileFlushing() throws InterruptedException {
+        RecordingDeposits deposits = new RecordingDeposits();
+        deposits.start();
+
+        OfflinePlayer first = player();
+        OfflinePlayer second = player();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Thread thread = new Thread(() -> {
+                for (int j = 0; j < 2500; j++) {
+                    deposits.add(first, 0.1);
+                    deposits.add(second, 0.01);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        // Flush while rewards are still coming in.
+        while (threads.stream().anyMatch(Thread::isAlive)) {
+            deposits.flush();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        deposits.stop();
+
+        assertEquals(0, deposits.getPendingCount());
+        assertEquals(0, new BigDecimal("1000").compareTo(deposits.balances.get(first.getUniqueId())));
+        assertEquals(0, new BigDecimal("100").compareTo(deposits.balances.get(second.getUniqueId())));
+
+        assertEquals(20000, deposits.getAdded());
+        // At least one deposit per player, at most one per reward.
+        assertTrue(deposits.getDeposited() >= 2 && deposits.getDeposited() <= deposits.getAdded());
+    }
+
+    @Test
+    public void depositsRightAwayWhenStopped() {
+        RecordingDeposits deposits = new RecordingDeposits();
+        OfflinePlayer player = player();
+
+        deposits.add(player, 2.5);
+        assertEquals(0, deposits.getPendingCount());
+        assertEquals(0, new BigDecimal("2.5").compareTo(deposits.balances.get(player.getUniqueId())));
+    }
+}
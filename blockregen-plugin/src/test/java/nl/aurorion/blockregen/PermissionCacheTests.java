@@ -0,0 +1,84 @@
+package nl.aurorion.blockregen;
+
+import nl.aurorion.blockregen.mock.MockProxies;
+import nl.aurorion.blockregen.permission.PermissionCache;
+import nl.aurorion.blockregen.permission.PermissionKey;
+import org.bukkit.entity.Player;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PermissionCacheTests {
+
+    private static final UUID ID = UUID.randomUUID();
+
+    // Player with only the given permissions set, counting the checks made.
+    private static Player player(Map<String, Boolean> permissions, AtomicInteger checks) {
+        return MockProxies.stub(Player.class, (method, args) -> {
+            switch (method) {
+                case "getUniqueId":
+                    return ID;
+                case "hasPermission":
+                    checks.incrementAndGet();
+                    return permissions.getOrDefault((String) args[0], false);
+                case "isPermissionSet":
+                    checks.incrementAndGet();
+                    return permissions.containsKey((String) args[0]);
+                default:
+                    return null;
+            }
+        });
+    }
+
+    @Test
+    public void resolvesWildcards() {
+        PermissionKey key = new PermissionKey("blockregen.preset", "diamond");
+        AtomicInteger checks = new AtomicInteger();
+
+        Map<String, Boolean> permissions = new HashMap<>();
+        // Nothing set, allowed.
+        assertFalse(PermissionCache.lacksPermission(player(permissions, checks), key));
+
+        permissions.put("blockregen.preset.*", false);
+        assertTrue(PermissionCache.lacksPermission(player(permissions, checks), key));
+
+        // Specific takes precedence.
+        permissions.put("blockregen.preset.diamond", true);
+        assertFalse(PermissionCache.lacksPermission(player(permissions, checks), key));
+    }
+
+    @Test
+    public void remembersDecisions() {
+        PermissionCache cache = new PermissionCache();
+        PermissionKey key = new PermissionKey("blockregen.region", "mine");
+        AtomicInteger checks = new AtomicInteger();
+
+        Map<String, Boolean> permissions = new HashMap<>();
+        permissions.put("blockregen.region.*", false);
+        Player player = player(permissions, checks);
+
+        assertTrue(cache.lacksPermission(player, key, 10_000));
+        int first = checks.get();
+
+        // Equal keys share the decision.
+        assertTrue(cache.lacksPermission(player, new PermissionKey("blockregen.region", "mine"), 10_000));
+        assertEquals(first, checks.get());
+
+        permissions.put("blockregen.region.mine", true);
+        assertTrue(cache.lacksPermission(player, key, 10_000));
+
+        cache.invalidate(ID);
+        assertFalse(cache.lacksPermission(player, key, 10_000));
+
+        // Not cached at all.
+        checks.set(0);
+        cache.lacksPermission(player, key, 0);
+        cache.lacksPermission(player, key, 0);
+        assertEquals(2 * first, checks.get());
+    }
+}
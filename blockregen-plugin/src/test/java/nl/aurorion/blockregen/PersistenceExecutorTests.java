@@ -0,0 +1,106 @@
+package nl.aurorion.blockregen;
+
+import nl.aurorion.blockregen.storage.PersistenceExecutor;
+import nl.aurorion.blockregen.util.AtomicFiles;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PersistenceExecutorTests {
+
+    @TempDir
+    Path folder;
+
+    @Test
+    public void coalescesQueuedWrites() throws Exception {
+        PersistenceExecutor executor = new PersistenceExecutor();
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> written = Collections.synchronizedList(new ArrayList<>());
+
+        // Keep the thread busy so the following writes queue up.
+        CompletableFuture<Void> running = executor.submit("regions", () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            written.add("regions 1");
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<Void> first = executor.submit("regions", () -> written.add("regions 2"));
+        CompletableFuture<Void> second = executor.submit("regions", () -> written.add("regions 3"));
+        CompletableFuture<Void> other = executor.submit("processes", () -> written.add("processes"));
+
+        assertSame(first, second);
+        assertTrue(executor.isPending("regions"));
+        assertEquals(2, executor.getPendingCount());
+        assertEquals(1, executor.getCoalescedCount());
+
+        release.countDown();
+        CompletableFuture.allOf(running, second, other).get(5, TimeUnit.SECONDS);
+
+        // In order, the replaced write never runs.
+        assertEquals(3, written.size());
+        assertEquals("regions 1", written.get(0));
+        assertEquals("regions 3", written.get(1));
+        assertEquals("processes", written.get(2));
+        assertEquals(0, executor.getPendingCount());
+        assertTrue(executor.getLastLatency() >= executor.getLastDuration());
+
+        assertTrue(executor.shutdown(5000));
+    }
+
+    @Test
+    public void reportsFailures() throws Exception {
+        PersistenceExecutor executor = new PersistenceExecutor();
+
+        CompletableFuture<Void> failed = executor.submit("processes", () -> {
+            throw new IOException("Disk full");
+        });
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof IOException);
+
+        // Still writing after a failure.
+        executor.submit("processes", () -> {
+        }).get(5, TimeUnit.SECONDS);
+
+        assertTrue(executor.shutdown(5000));
+
+        // Runs on the caller once shut down.
+        Thread caller = Thread.currentThread();
+        executor.submit("regions", () -> assertSame(caller, Thread.currentThread())).get();
+    }
+
+    @Test
+    public void replacesFilesWhole() throws IOException {
+        Path path = folder.resolve("Regions.yml");
+        AtomicFiles.write(path, "old".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(IOException.class, () -> AtomicFiles.write(path, out -> {
+            out.write("new, cut short".getBytes(StandardCharsets.UTF_8));
+            throw new IOException("Crash");
+        }));
+        assertEquals("old", new String(Files.readAllBytes(path), StandardCharsets.UTF_8));
+
+        AtomicFiles.write(path, "new".getBytes(StandardCharsets.UTF_8));
+        assertEquals("new", new String(Files.readAllBytes(path), StandardCharsets.UTF_8));
+    }
+}
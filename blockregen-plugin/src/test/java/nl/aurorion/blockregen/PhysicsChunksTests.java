@@ -0,0 +1,57 @@
+package nl.aurorion.blockregen;
+
+import nl.aurorion.blockregen.mock.MockProcesses;
+import nl.aurorion.blockregen.preset.BlockPreset;
+import nl.aurorion.blockregen.regeneration.PhysicsChunks;
+import nl.aurorion.blockregen.regeneration.struct.RegenerationProcess;
+import org.junit.jupiter.api.Test;
+
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PhysicsChunksTests {
+
+    private static RegenerationProcess process(BlockPreset preset, String world, int x, int y, int z) {
+        RegenerationProcess process = MockProcesses.process(world, x, y, z, preset.getName());
+        process.setPreset(preset);
+        return process;
+    }
+
+    @Test
+    public void tracksChunksWithPhysicsDisabled() {
+        BlockPreset sand = new BlockPreset("sand");
+        sand.setDisablePhysics(true);
+        BlockPreset stone = new BlockPreset("stone");
+
+        PhysicsChunks chunks = new PhysicsChunks();
+
+        RegenerationProcess first = process(sand, "world", 1, 64, 1);
+        RegenerationProcess second = process(sand, "world", 15, 70, 15);
+        RegenerationProcess negative = process(sand, "world", -1, 64, -17);
+        RegenerationProcess ignored = process(stone, "world", 40, 64, 40);
+
+        chunks.add(first);
+        chunks.add(second);
+        chunks.add(negative);
+        chunks.add(ignored);
+
+        assertEquals(3, chunks.size());
+        assertTrue(chunks.contains("world", 0, 0));
+        assertTrue(chunks.contains("world", -1, -2));
+        assertFalse(chunks.contains("world", 2, 2));
+        assertFalse(chunks.contains("world_nether", 0, 0));
+
+        // Still one left in the chunk.
+        chunks.remove(first);
+        assertTrue(chunks.contains("world", 0, 0));
+
+        chunks.remove(second);
+        assertFalse(chunks.contains("world", 0, 0));
+
+        chunks.remove(ignored);
+        assertEquals(1, chunks.size());
+
+        chunks.clear();
+        assertFalse(chunks.contains("world", -1, -2));
+    }
+}
@@ -0,0 +1,108 @@
+package nl.aurorion.blockregen;
+
+import nl.aurorion.blockregen.mock.MockBlockRegenPlugin;
+import nl.aurorion.blockregen.mock.MockProcesses;
+import nl.aurorion.blockregen.mock.MockProxies;
+import nl.aurorion.blockregen.preset.BlockPreset;
+import nl.aurorion.blockregen.regeneration.RegenerationManager;
+import nl.aurorion.blockregen.regeneration.struct.RegenerationProcess;
+import nl.aurorion.blockregen.region.AreaIndex;
+import nl.aurorion.blockregen.region.struct.RegenerationArea;
+import nl.aurorion.blockregen.region.struct.RegenerationRegion;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Cost of a physics event away from regenerating blocks, with and without the chunk check in front.
+ * <p>
+ * Run with {@code mvn test -Dtest=PhysicsEventBenchmark -Dblockregen.benchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "blockregen.benchmark", matches = "true")
+public class PhysicsEventBenchmark {
+
+    private static final int PROCESSES = 100_000;
+    private static final int REGIONS = 200;
+    private static final int EVENTS = 5_000_000;
+
+    private static final int SPREAD = 4096;
+
+    private interface Handler {
+        boolean handle(int x, int y, int z);
+    }
+
+    private static int measure(String name, int[][] positions, Handler handler) {
+        // Warm up.
+        for (int[] position : positions) {
+            handler.handle(position[0], position[1], position[2]);
+        }
+
+        int cancelled = 0;
+        long start = System.nanoTime();
+        for (int[] position : positions) {
+            if (handler.handle(position[0], position[1], position[2])) {
+                cancelled++;
+            }
+        }
+        long took = System.nanoTime() - start;
+
+        System.out.printf("%s: %.1f ns per event, %d cancelled%n", name, (double) took / positions.length, cancelled);
+        return cancelled;
+    }
+
+    @Test
+    public void compare() {
+        Random random = new Random(42);
+
+        RegenerationManager manager = new RegenerationManager(new MockBlockRegenPlugin());
+
+        // Most presets leave physics alone.
+        BlockPreset ore = new BlockPreset("ore");
+        BlockPreset sand = new BlockPreset("sand");
+        sand.setDisablePhysics(true);
+
+        for (int i = 0; i < PROCESSES; i++) {
+            RegenerationProcess process = MockProcesses.process("world", random.nextInt(SPREAD), random.nextInt(128), random.nextInt(SPREAD));
+            process.setPreset(i % 100 == 0 ? sand : ore);
+            manager.registerProcess(process);
+        }
+
+        World world = MockProxies.world("world");
+        AreaIndex areas = new AreaIndex();
+        for (int i = 0; i < REGIONS; i++) {
+            int x = random.nextInt(SPREAD), z = random.nextInt(SPREAD);
+            areas.add(new RegenerationRegion("r" + i, new Location(world, x, 0, z), new Location(world, x + 64, 255, z + 64)));
+        }
+
+        int[][] positions = new int[EVENTS][];
+        for (int i = 0; i < EVENTS; i++) {
+            positions[i] = new int[]{random.nextInt(SPREAD), random.nextInt(128), random.nextInt(SPREAD)};
+        }
+
+        // Region lookup and the process at the source block for every event.
+        int before = measure("Area and process lookup", positions, (x, y, z) -> {
+            RegenerationArea area = areas.find("world", x, y, z);
+            RegenerationProcess process = manager.getProcess("world", x, y, z);
+            return area != null && process != null && process.getPreset().isDisablePhysics();
+        });
+
+        // Chunk check first, the rest only in chunks with a process that disables physics.
+        int after = measure("Chunk check first", positions, (x, y, z) -> {
+            if (!manager.mayDisablePhysics("world", x, z)) {
+                return false;
+            }
+            RegenerationProcess process = manager.getProcess("world", x, y, z);
+            if (process == null || !process.getPreset().isDisablePhysics()) {
+                return false;
+            }
+            return areas.find("world", x, y, z) != null;
+        });
+
+        assertEquals(before, after);
+    }
+}
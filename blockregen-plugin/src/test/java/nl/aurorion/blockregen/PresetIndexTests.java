@@ -0,0 +1,72 @@
+package nl.aurorion.blockregen;
+
+import com.cryptomorin.xseries.XMaterial;
+import nl.aurorion.blockregen.api.BlockRegenPlugin;
+import nl.aurorion.blockregen.material.BlockRegenMaterial;
+import nl.aurorion.blockregen.material.MinecraftMaterial;
+import nl.aurorion.blockregen.mock.MockBlockRegenPlugin;
+import nl.aurorion.blockregen.preset.BlockPreset;
+import nl.aurorion.blockregen.preset.PresetIndex;
+import nl.aurorion.blockregen.preset.material.TargetMaterial;
+import org.bukkit.block.Block;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PresetIndexTests {
+
+    private final BlockRegenPlugin plugin = new MockBlockRegenPlugin();
+
+    private static final BlockRegenMaterial CUSTOM = new BlockRegenMaterial() {
+        @Override
+        public boolean check(Block block) {
+            return false;
+        }
+
+        @Override
+        public void setType(Block block) {
+            //
+        }
+    };
+
+    private static BlockPreset preset(String name, BlockRegenMaterial... materials) {
+        BlockPreset preset = new BlockPreset(name);
+        preset.setTargetMaterial(TargetMaterial.of(Arrays.asList(materials)));
+        return preset;
+    }
+
+    @Test
+    public void narrowsByType() {
+        BlockPreset stone = preset("stone", new MinecraftMaterial(plugin, XMaterial.STONE));
+        BlockPreset ores = preset("ores", new MinecraftMaterial(plugin, XMaterial.COAL_ORE), new MinecraftMaterial(plugin, XMaterial.IRON_ORE));
+
+        PresetIndex index = new PresetIndex(Arrays.asList(stone, ores));
+
+        assertArrayEquals(new BlockPreset[]{stone}, index.getCandidates(XMaterial.STONE));
+        assertArrayEquals(new BlockPreset[]{ores}, index.getCandidates(XMaterial.IRON_ORE));
+        assertEquals(0, index.getCandidates(XMaterial.DIRT).length);
+        assertEquals(0, index.getCandidates(null).length);
+
+        assertTrue(index.mightMatch(XMaterial.COAL_ORE));
+        assertFalse(index.mightMatch(XMaterial.DIRT));
+        assertFalse(index.mightMatch(null));
+    }
+
+    @Test
+    public void keepsCustomPresetsInOrder() {
+        BlockPreset first = preset("first", new MinecraftMaterial(plugin, XMaterial.STONE));
+        BlockPreset custom = preset("custom", CUSTOM);
+        BlockPreset last = preset("last", new MinecraftMaterial(plugin, XMaterial.STONE), CUSTOM);
+
+        PresetIndex index = new PresetIndex(Arrays.asList(first, custom, last));
+
+        assertArrayEquals(new BlockPreset[]{first, custom, last}, index.getCandidates(XMaterial.STONE));
+        assertArrayEquals(new BlockPreset[]{custom, last}, index.getCandidates(XMaterial.DIRT));
+        assertArrayEquals(new BlockPreset[]{custom, last}, index.getCandidates(null));
+
+        // Custom materials can be any type.
+        assertTrue(index.mightMatch(XMaterial.DIRT));
+    }
+}
@@ -0,0 +1,83 @@
+package nl.aurorion.blockregen;
+
+import nl.aurorion.blockregen.mock.MockProcesses;
+import nl.aurorion.blockregen.regeneration.ProcessIndex;
+import nl.aurorion.blockregen.regeneration.struct.RegenerationProcess;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProcessIndexTests {
+
+    private static RegenerationProcess process(String world, String region, String preset) {
+        RegenerationProcess process = MockProcesses.process(world, 0, 64, 0, preset);
+        process.setRegionName(region);
+        return process;
+    }
+
+    @Test
+    public void queriesByAllFilters() {
+        ProcessIndex index = new ProcessIndex();
+
+        RegenerationProcess stone = process("world", "mine", "stone");
+        RegenerationProcess ore = process("world", "mine", "ore");
+        RegenerationProcess outside = process("world", null, "stone");
+        RegenerationProcess nether = process("world_nether", "Mine", "stone");
+
+        index.add(stone);
+        index.add(ore);
+        index.add(outside);
+        index.add(nether);
+        // Added twice, counted once.
+        index.add(stone);
+
+        assertEquals(4, index.size());
+        assertEquals(4, index.query(null, null, null).size());
+
+        List<RegenerationProcess> inMine = index.query(null, "MINE", null);
+        assertEquals(3, inMine.size());
+        assertFalse(inMine.contains(outside));
+
+        List<RegenerationProcess> stoneInMine = index.query("stone", "mine", "WORLD");
+        assertEquals(1, stoneInMine.size());
+        assertSame(stone, stoneInMine.get(0));
+
+        assertTrue(index.query("gravel", null, null).isEmpty());
+        assertTrue(index.query("stone", "unknown", null).isEmpty());
+    }
+
+    @Test
+    public void countsFollowRemovals() {
+        ProcessIndex index = new ProcessIndex();
+
+        RegenerationProcess first = process("world", "mine", "stone");
+        RegenerationProcess second = process("world", "mine", "stone");
+        RegenerationProcess outside = process("world", null, "ore");
+
+        index.add(first);
+        index.add(second);
+        index.add(outside);
+
+        Map<String, Map<String, Map<String, Integer>>> counts = index.getCounts();
+        assertEquals(2, counts.get("world").get("mine").get("stone").intValue());
+        assertEquals(1, counts.get("world").get(null).get("ore").intValue());
+
+        index.remove(first);
+        // Not indexed anymore, ignored.
+        index.remove(first);
+
+        counts = index.getCounts();
+        assertEquals(1, counts.get("world").get("mine").get("stone").intValue());
+        assertEquals(2, index.size());
+
+        index.remove(second);
+        index.remove(outside);
+
+        assertTrue(index.getCounts().isEmpty());
+        assertEquals(0, index.size());
+        assertTrue(index.query(null, "mine", null).isEmpty());
+    }
+}
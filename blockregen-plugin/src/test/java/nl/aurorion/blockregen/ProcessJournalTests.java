@@ -0,0 +1,213 @@
+package nl.aurorion.blockregen;
+
+import com.google.gson.GsonBuilder;
+import nl.aurorion.blockregen.mock.MockProcesses;
+import nl.aurorion.blockregen.regeneration.struct.RegenerationProcess;
+import nl.aurorion.blockregen.storage.ProcessJournal;
+import nl.aurorion.blockregen.storage.ProcessSnapshot;
+import nl.aurorion.blockregen.version.NodeDataAdapter;
+import nl.aurorion.blockregen.version.api.NodeData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProcessJournalTests {
+
+    @TempDir
+    Path folder;
+
+    private final GsonHelper gsonHelper = new GsonHelper(new GsonBuilder()
+            .registerTypeHierarchyAdapter(NodeData.class, new NodeDataAdapter<>()));
+
+    private static RegenerationProcess process(int x, long regenerationTime) {
+        RegenerationProcess process = MockProcesses.process("world", x, 64, 0);
+        process.setRegenerationTime(regenerationTime);
+        process.setTimeLeft(regenerationTime - System.currentTimeMillis());
+        return process;
+    }
+
+    private ProcessSnapshot snapshot() {
+        return new ProcessSnapshot(gsonHelper, folder.resolve("Data.dat"));
+    }
+
+    private ProcessJournal journal() {
+        return new ProcessJournal(gsonHelper, snapshot(), folder.resolve("Data.journal"));
+    }
+
+    private List<RegenerationProcess> reload() throws IOException {
+        List<RegenerationProcess> processes = new ArrayList<>();
+        snapshot().read(processes::add);
+        return journal().replay(processes);
+    }
+
+    private static Set<UUID> ids(Collection<RegenerationProcess> processes) {
+        Set<UUID> ids = new HashSet<>();
+        processes.forEach(process -> ids.add(process.getId()));
+        return ids;
+    }
+
+    @Test
+    public void replaysChangesOnTopOfSnapshot() throws IOException {
+        long now = System.currentTimeMillis();
+
+        RegenerationProcess a = process(0, now + 60_000);
+        RegenerationProcess b = process(1, now + 60_000);
+        RegenerationProcess c = process(2, now + 60_000);
+
+        ProcessJournal journal = journal();
+        journal.compact(() -> Arrays.asList(a, b));
+
+        journal.put(c);
+        journal.remove(a);
+        // Only the latest change is kept.
+        journal.put(b);
+        journal.remove(b);
+        journal.flush();
+
+        assertEquals(3, journal.getRecordCount());
+        assertEquals(ids(Collections.singletonList(c)), ids(reload()));
+
+        journal.compact(() -> Collections.singletonList(c));
+        assertEquals(0, journal.getRecordCount());
+        assertEquals(ids(Collections.singletonList(c)), ids(reload()));
+    }
+
+    @Test
+    public void keepsChangesMadeAfterStateWasTaken() throws IOException {
+        long now = System.currentTimeMillis();
+
+        RegenerationProcess a = process(0, now + 60_000);
+        RegenerationProcess b = process(1, now + 60_000);
+
+        ProcessJournal journal = journal();
+
+        // Taken on the main thread before the compaction gets to run.
+        List<RegenerationProcess> state = Collections.singletonList(a);
+        journal.put(b);
+        journal.compact(() -> state);
+        journal.flush();
+
+        assertEquals(ids(Arrays.asList(a, b)), ids(reload()));
+    }
+
+    @Test
+    public void discardsJournalOfOlderSnapshot() throws IOException {
+        long now = System.currentTimeMillis();
+
+        RegenerationProcess a = process(0, now + 60_000);
+        RegenerationProcess b = process(1, now + 60_000);
+        RegenerationProcess c = process(2, now + 60_000);
+
+        ProcessJournal journal = journal();
+        journal.compact(() -> Arrays.asList(a, b));
+        journal.put(c);
+        journal.remove(a);
+        journal.flush();
+
+        // A crash after the new snapshot was written, before the journal was started over.
+        Path journalPath = folder.resolve("Data.journal");
+        byte[] oldJournal = Files.readAllBytes(journalPath);
+        journal.compact(() -> Arrays.asList(b, c));
+        Files.write(journalPath, oldJournal);
+
+        List<RegenerationProcess> processes = reload();
+        assertEquals(ids(Arrays.asList(b, c)), ids(processes));
+        // Not counted down twice.
+        for (RegenerationProcess process : processes) {
+            assertEquals(process.getId().equals(b.getId()) ? b.getTimeLeft() : c.getTimeLeft(), process.getTimeLeft());
+        }
+
+        // Started over, changes from now on are kept.
+        journal = journal();
+        journal.remove(b);
+        journal.flush();
+        assertEquals(ids(Collections.singletonList(c)), ids(reload()));
+    }
+
+    @Test
+    public void discardsJournalOfNoSnapshot() throws IOException {
+        long now = System.currentTimeMillis();
+
+        RegenerationProcess a = process(0, now + 60_000);
+        RegenerationProcess b = process(1, now + 60_000);
+
+        // Journaled before the first snapshot.
+        ProcessJournal journal = journal();
+        journal.put(a);
+        journal.flush();
+
+        // Finished, the removal only makes it into the snapshot. A crash during the first compaction.
+        journal.remove(a);
+        Path journalPath = folder.resolve("Data.journal");
+        byte[] oldJournal = Files.readAllBytes(journalPath);
+        journal.compact(() -> Collections.singletonList(b));
+        Files.write(journalPath, oldJournal);
+
+        assertEquals(ids(Collections.singletonList(b)), ids(reload()));
+    }
+
+    @Test
+    public void ignoresTornRecord() throws IOException {
+        long now = System.currentTimeMillis();
+
+        RegenerationProcess a = process(0, now + 60_000);
+        RegenerationProcess b = process(1, now + 60_000);
+
+        ProcessJournal journal = journal();
+        journal.compact(Collections::emptyList);
+        journal.put(a);
+        journal.flush();
+
+        // A crash in the middle of a flush.
+        String line = "{\"op\":\"PUT\",\"regenerationTime\":0,\"process\":{\"id\":\"" + b.getId() + "\"";
+        Files.write(folder.resolve("Data.journal"), line.getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        List<RegenerationProcess> processes = reload();
+        assertEquals(ids(Collections.singletonList(a)), ids(processes));
+
+        // Time left is counted from the regeneration time to the last record.
+        long timeLeft = processes.get(0).getTimeLeft();
+        assertTrue(timeLeft > 0 && timeLeft <= 60_000);
+    }
+
+    @Test
+    public void keepsChangesAfterTornRecord() throws IOException {
+        long now = System.currentTimeMillis();
+
+        RegenerationProcess a = process(0, now + 60_000);
+        RegenerationProcess b = process(1, now + 60_000);
+        RegenerationProcess c = process(2, now + 60_000);
+
+        ProcessJournal journal = journal();
+        journal.compact(Collections::emptyList);
+        journal.put(a);
+        journal.flush();
+
+        // A crash in the middle of a flush.
+        Path journalPath = folder.resolve("Data.journal");
+        long length = Files.size(journalPath);
+        String line = "{\"op\":\"PUT\",\"regenerationTime\":0,\"process\":{\"id\":\"" + b.getId() + "\"";
+        Files.write(journalPath, line.getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        // Replayed on start, the torn record is cut off.
+        List<RegenerationProcess> processes = new ArrayList<>();
+        snapshot().read(processes::add);
+        journal = journal();
+        assertEquals(ids(Collections.singletonList(a)), ids(journal.replay(processes)));
+        assertEquals(length, Files.size(journalPath));
+
+        journal.put(c);
+        journal.remove(a);
+        journal.flush();
+
+        assertEquals(ids(Collections.singletonList(c)), ids(reload()));
+    }
+}
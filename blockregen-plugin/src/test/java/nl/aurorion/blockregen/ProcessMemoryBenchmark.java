@@ -0,0 +1,73 @@
+package nl.aurorion.blockregen;
+
+import nl.aurorion.blockregen.mock.MockNodeData;
+import nl.aurorion.blockregen.regeneration.CompactProcessStore;
+import nl.aurorion.blockregen.regeneration.struct.RegenerationProcess;
+import nl.aurorion.blockregen.regeneration.struct.SimpleLocation;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Measures heap used per process as live objects and in the compact store.
+ * <p>
+ * Live processes are built the way they are loaded from Data.json, with their own strings and node data. Their
+ * Block, BlockPreset and scheduler entry are not included, so the real difference is bigger.
+ * <p>
+ * Run with {@code mvn test -Dtest=ProcessMemoryBenchmark -Dblockregen.benchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "blockregen.benchmark", matches = "true")
+public class ProcessMemoryBenchmark {
+
+    private static final int COUNT = 1_000_000;
+
+    private static RegenerationProcess process(int i) {
+        // New strings for every process, like Gson creates them.
+        RegenerationProcess process = new RegenerationProcess(UUID.randomUUID(), new SimpleLocation(new String("world"), i % 4096, 64, i / 4096),
+                null, new MockNodeData(), new String("diamond-ore"));
+        process.setWorldName(new String("world"));
+        process.setRegionName(new String("mine"));
+        process.setRegenerationTime(System.currentTimeMillis() + i);
+        return process;
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    @Test
+    public void measure() {
+        long before = usedMemory();
+
+        List<RegenerationProcess> live = new ArrayList<>(COUNT);
+        for (int i = 0; i < COUNT; i++) {
+            live.add(process(i));
+        }
+
+        long liveBytes = usedMemory() - before;
+        assertEquals(COUNT, live.size());
+        live = null;
+
+        before = usedMemory();
+
+        CompactProcessStore store = new CompactProcessStore();
+        for (int i = 0; i < COUNT; i++) {
+            store.add(process(i));
+        }
+
+        long storeBytes = usedMemory() - before;
+        assertEquals(COUNT, store.size());
+
+        System.out.printf("Live: %d bytes/process%n", liveBytes / COUNT);
+        System.out.printf("Compact: %d bytes/process (reported %d)%n", storeBytes / COUNT, store.getMemoryUsage() / COUNT);
+    }
+}
@@ -0,0 +1,106 @@
+package nl.aurorion.blockregen;
+
+import com.cryptomorin.xseries.XMaterial;
+import com.google.gson.GsonBuilder;
+import nl.aurorion.blockregen.mock.MockProcesses;
+import nl.aurorion.blockregen.regeneration.struct.RegenerationProcess;
+import nl.aurorion.blockregen.storage.ProcessSnapshot;
+import nl.aurorion.blockregen.version.NodeDataAdapter;
+import nl.aurorion.blockregen.version.api.NodeData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares saving and loading processes through Gson (Data.json) and the binary snapshot.
+ * <p>
+ * Run with {@code mvn test -Dtest=ProcessSnapshotBenchmark -Dblockregen.benchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "blockregen.benchmark", matches = "true")
+public class ProcessSnapshotBenchmark {
+
+    private static final int COUNT = 1_000_000;
+
+    @TempDir
+    Path folder;
+
+    private final GsonHelper gsonHelper = new GsonHelper(new GsonBuilder()
+            .registerTypeHierarchyAdapter(NodeData.class, new NodeDataAdapter<>())
+            .setPrettyPrinting());
+
+    private static List<RegenerationProcess> processes() {
+        List<RegenerationProcess> processes = new ArrayList<>(COUNT);
+        for (int i = 0; i < COUNT; i++) {
+            RegenerationProcess process = MockProcesses.process(UUID.randomUUID(), "world", i % 4096, 64, i / 4096, XMaterial.DIAMOND_ORE, "diamond-ore");
+            process.setRegionName("mine");
+            process.setTimeLeft(i);
+            processes.add(process);
+        }
+        return processes;
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private void report(String name, Path path, long writeNanos, long readNanos, long peakBytes) throws IOException {
+        System.out.printf("%s: %d KiB, write %d ms, read %d ms, heap used after read %d MiB%n", name, Files.size(path) / 1024,
+                writeNanos / 1_000_000, readNanos / 1_000_000, peakBytes / (1024 * 1024));
+    }
+
+    @Test
+    public void compare() throws Exception {
+        List<RegenerationProcess> processes = processes();
+
+        // Gson
+        Path json = folder.resolve("Data.json");
+
+        long start = System.nanoTime();
+        gsonHelper.save(processes, json.toString()).join();
+        long write = System.nanoTime() - start;
+
+        long before = usedMemory();
+        start = System.nanoTime();
+        List<RegenerationProcess> read = gsonHelper.loadListAsync(json.toString(), RegenerationProcess.class).join();
+        long readTime = System.nanoTime() - start;
+        // Only the result is left at this point, the buffer and string are garbage.
+        long peak = Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory() - before;
+
+        assertEquals(COUNT, read.size());
+        report("Gson", json, write, readTime, peak);
+        read = null;
+
+        for (boolean compressed : new boolean[]{false, true}) {
+            Path path = folder.resolve(compressed ? "Data.dat.deflate" : "Data.dat");
+            ProcessSnapshot snapshot = new ProcessSnapshot(gsonHelper, path);
+            snapshot.setCompressed(compressed);
+
+            start = System.nanoTime();
+            snapshot.write(processes);
+            write = System.nanoTime() - start;
+
+            before = usedMemory();
+            start = System.nanoTime();
+            List<RegenerationProcess> result = new ArrayList<>(COUNT);
+            snapshot.read(result::add);
+            readTime = System.nanoTime() - start;
+            peak = Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory() - before;
+
+            assertEquals(COUNT, result.size());
+            report(compressed ? "Snapshot (deflate)" : "Snapshot", path, write, readTime, peak);
+        }
+    }
+}
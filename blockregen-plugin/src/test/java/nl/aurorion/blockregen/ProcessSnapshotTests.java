@@ -0,0 +1,107 @@
+package nl.aurorion.blockregen;
+
+import com.cryptomorin.xseries.XMaterial;
+import com.google.gson.GsonBuilder;
+import nl.aurorion.blockregen.mock.MockProcesses;
+import nl.aurorion.blockregen.regeneration.struct.RegenerationProcess;
+import nl.aurorion.blockregen.storage.FileProcessStorage;
+import nl.aurorion.blockregen.storage.ProcessSnapshot;
+import nl.aurorion.blockregen.storage.ProcessStorage;
+import nl.aurorion.blockregen.version.NodeDataAdapter;
+import nl.aurorion.blockregen.version.api.NodeData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProcessSnapshotTests {
+
+    @TempDir
+    Path folder;
+
+    private final GsonHelper gsonHelper = new GsonHelper(new GsonBuilder()
+            .registerTypeHierarchyAdapter(NodeData.class, new NodeDataAdapter<>()));
+
+    private static RegenerationProcess process(String world, int x, int y, int z, String region, long timeLeft) {
+        RegenerationProcess process = MockProcesses.process(UUID.randomUUID(), world, x, y, z, XMaterial.DIAMOND_ORE, "diamond-ore");
+        process.setRegionName(region);
+        process.setTimeLeft(timeLeft);
+        return process;
+    }
+
+    private List<RegenerationProcess> roundTrip(List<RegenerationProcess> processes, boolean compressed) throws IOException {
+        ProcessSnapshot snapshot = new ProcessSnapshot(gsonHelper, folder.resolve("Data.dat"));
+        snapshot.setCompressed(compressed);
+        snapshot.write(processes);
+
+        List<RegenerationProcess> read = new ArrayList<>();
+        assertEquals(processes.size(), snapshot.read(read::add));
+        return read;
+    }
+
+    private static void assertSameProcess(RegenerationProcess expected, RegenerationProcess actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getLocation(), actual.getLocation());
+        assertEquals(expected.getWorldName(), actual.getWorldName());
+        assertEquals(expected.getRegionName(), actual.getRegionName());
+        assertEquals(expected.getPresetName(), actual.getPresetName());
+        assertEquals(expected.getOriginalType(), actual.getOriginalType());
+        assertEquals(expected.getOriginalData(), actual.getOriginalData());
+        assertEquals(expected.getTimeLeft(), actual.getTimeLeft());
+    }
+
+    @Test
+    public void roundTrips() throws IOException {
+        List<RegenerationProcess> processes = Arrays.asList(
+                process("world", 0, 64, 0, "mine", 60_000),
+                process("world", -30_000_000, -64, 29_999_999, null, -1),
+                process("world_nether", 12, 320, -7, "mine", Long.MAX_VALUE));
+
+        for (boolean compressed : new boolean[]{false, true}) {
+            List<RegenerationProcess> read = roundTrip(processes, compressed);
+
+            assertEquals(processes.size(), read.size());
+            for (int i = 0; i < processes.size(); i++) {
+                assertSameProcess(processes.get(i), read.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void rejectsOtherFiles() throws IOException {
+        Path path = folder.resolve("Data.dat");
+        Files.write(path, "[{\"id\":\"x\"}]".getBytes());
+
+        assertThrows(IOException.class, () -> new ProcessSnapshot(gsonHelper, path).read(process -> fail("Nothing should be read.")));
+    }
+
+    @Test
+    public void migratesDataJson() throws IOException {
+        List<RegenerationProcess> processes = Collections.singletonList(process("world", 1, 2, 3, "mine", 1000));
+        gsonHelper.save(processes, folder.resolve("Data.json").toString()).join();
+
+        ProcessStorage storage = new FileProcessStorage(gsonHelper, folder, false);
+
+        List<RegenerationProcess> loaded = storage.load();
+        assertEquals(1, loaded.size());
+        assertSameProcess(processes.get(0), loaded.get(0));
+
+        storage.save(() -> loaded);
+
+        assertTrue(Files.exists(folder.resolve("Data.dat")));
+        assertFalse(Files.exists(folder.resolve("Data.json")));
+        assertTrue(Files.exists(folder.resolve("Data.json.migrated")));
+
+        List<RegenerationProcess> reloaded = new FileProcessStorage(gsonHelper, folder, false).load();
+        assertSameProcess(processes.get(0), reloaded.get(0));
+    }
+}
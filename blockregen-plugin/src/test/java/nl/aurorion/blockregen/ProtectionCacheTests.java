@@ -0,0 +1,56 @@
+package nl.aurorion.blockregen;
+
+import nl.aurorion.blockregen.compatibility.ProtectionCache;
+import nl.aurorion.blockregen.listener.EventType;
+import nl.aurorion.blockregen.mock.MockProxies;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Player;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProtectionCacheTests {
+
+    private static final World WORLD = MockProxies.world("world");
+
+    private static Block block(int x, int z) {
+        return MockProxies.block(WORLD, x, 64, z);
+    }
+
+    @Test
+    public void reusesOutcomesWithinChunk() {
+        ProtectionCache cache = new ProtectionCache();
+        UUID id = UUID.randomUUID();
+        Player player = MockProxies.player(id, "player");
+
+        AtomicInteger checks = new AtomicInteger();
+
+        assertTrue(cache.isProtected(ProtectionCache.Provider.TOWNY, player, block(1, 1), EventType.BLOCK_BREAK, 10_000,
+                () -> checks.incrementAndGet() > 0));
+        // Same chunk.
+        assertTrue(cache.isProtected(ProtectionCache.Provider.TOWNY, player, block(15, 15), EventType.BLOCK_BREAK, 10_000,
+                () -> checks.incrementAndGet() > 0));
+        assertEquals(1, checks.get());
+
+        // Other chunk, other provider and other type are asked.
+        cache.isProtected(ProtectionCache.Provider.TOWNY, player, block(16, 1), EventType.BLOCK_BREAK, 10_000, () -> checks.incrementAndGet() > 0);
+        cache.isProtected(ProtectionCache.Provider.RESIDENCE, player, block(1, 1), EventType.BLOCK_BREAK, 10_000, () -> checks.incrementAndGet() > 0);
+        cache.isProtected(ProtectionCache.Provider.TOWNY, player, block(1, 1), EventType.TRAMPLING, 10_000, () -> checks.incrementAndGet() > 0);
+        assertEquals(4, checks.get());
+
+        // One of the four Towny checks was cached.
+        assertEquals(0.25, cache.getHitRate(ProtectionCache.Provider.TOWNY), 0.0001);
+
+        cache.invalidate(id);
+        assertEquals(0, cache.size());
+
+        // Not cached.
+        cache.isProtected(ProtectionCache.Provider.TOWNY, player, block(1, 1), EventType.BLOCK_BREAK, 0, () -> checks.incrementAndGet() > 0);
+        cache.isProtected(ProtectionCache.Provider.TOWNY, player, block(1, 1), EventType.BLOCK_BREAK, 0, () -> checks.incrementAndGet() > 0);
+        assertEquals(6, checks.get());
+    }
+}
@@ -0,0 +1,208 @@
+package nl.aurorion.blockregen;
+
+import nl.aurorion.blockregen.mock.MockBlockRegenPlugin;
+import nl.aurorion.blockregen.mock.MockNodeData;
+import nl.aurorion.blockregen.regeneration.RegenerationQueue;
+import nl.aurorion.blockregen.regeneration.struct.RegenerationProcess;
+import nl.aurorion.blockregen.regeneration.struct.SimpleLocation;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RegenerationQueueTests {
+
+    // Records the order of regeneration instead of placing blocks.
+    private static class QueuedProcess extends RegenerationProcess {
+        private final String name;
+        private final List<String> placed;
+
+        private int failuresLeft = 0;
+        private long sleepMillis = 0;
+        private int attempts = 0;
+
+        private QueuedProcess(String name, List<String> placed, SimpleLocation location) {
+            super(UUID.randomUUID(), location, null, new MockNodeData(), "preset");
+            this.name = name;
+            this.placed = placed;
+        }
+
+        @Override
+        public void regenerate() {
+            attempts++;
+            if (failuresLeft > 0) {
+                failuresLeft--;
+                throw new IllegalStateException("Broken block");
+            }
+            if (sleepMillis > 0) {
+                try {
+                    Thread.sleep(sleepMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            placed.add(name);
+        }
+    }
+
+    private final List<String> placed = new ArrayList<>();
+
+    private QueuedProcess process(String name, String world, int x, int z) {
+        return process(name, world, x, z, true);
+    }
+
+    private QueuedProcess process(String name, String world, int x, int z, boolean loaded) {
+        SimpleLocation location = new SimpleLocation(world, x, 64, z) {
+            @Override
+            public boolean isChunkLoaded() {
+                return loaded;
+            }
+        };
+        return new QueuedProcess(name, placed, location);
+    }
+
+    private static RegenerationQueue queue(double budget) {
+        MockBlockRegenPlugin plugin = new MockBlockRegenPlugin();
+        plugin.getConfig().set("Regeneration.Tick-Budget", budget);
+
+        RegenerationQueue queue = new RegenerationQueue(plugin);
+        queue.load();
+        return queue;
+    }
+
+    @Test
+    public void takesTurnsBetweenWorlds() {
+        RegenerationQueue queue = queue(1000);
+
+        queue.add(process("a1", "a", 0, 0));
+        queue.add(process("a2", "a", 16, 0));
+        // Same chunk as a1, placed together with it.
+        queue.add(process("a3", "a", 1, 1));
+        queue.add(process("b1", "b", 0, 0));
+        queue.add(process("b2", "b", 32, 0));
+        assertEquals(5, queue.getSize());
+
+        queue.drain();
+
+        assertEquals(Arrays.asList("a1", "a3", "b1", "a2", "b2"), placed);
+        assertEquals(0, queue.getSize());
+        assertEquals(5, queue.getDrainedLastTick());
+    }
+
+    @Test
+    public void limitsBatchPerChunk() {
+        RegenerationQueue queue = queue(1000);
+
+        for (int i = 0; i < 100; i++) {
+            queue.add(process("a", "a", i % 16, 0));
+        }
+        queue.add(process("b", "b", 0, 0));
+
+        queue.drain();
+
+        assertEquals(101, placed.size());
+        // 64 of a single chunk, then the other world gets its turn.
+        assertEquals(64, placed.indexOf("b"));
+        assertEquals(100, placed.stream().filter("a"::equals).count());
+    }
+
+    @Test
+    public void stopsAtDeadline() {
+        RegenerationQueue queue = queue(1);
+
+        for (int i = 0; i < 3; i++) {
+            QueuedProcess process = process("a" + i, "a", i, 0);
+            process.sleepMillis = 5;
+            queue.add(process);
+        }
+
+        // Over the budget with each process, one per tick.
+        queue.drain();
+        assertEquals(Arrays.asList("a0"), placed);
+        assertEquals(1, queue.getDrainedLastTick());
+        assertEquals(2, queue.getSize());
+
+        queue.drain();
+        assertEquals(Arrays.asList("a0", "a1"), placed);
+        assertEquals(1, queue.getSize());
+
+        queue.drain();
+        assertEquals(Arrays.asList("a0", "a1", "a2"), placed);
+        assertEquals(0, queue.getSize());
+    }
+
+    @Test
+    public void requeuesFailures() {
+        RegenerationQueue queue = queue(1000);
+
+        QueuedProcess flaky = process("flaky", "a", 0, 0);
+        flaky.failuresLeft = 1;
+        queue.add(flaky);
+
+        queue.drain();
+        // Not retried in the same tick.
+        assertEquals(1, flaky.attempts);
+        assertTrue(placed.isEmpty());
+        assertTrue(flaky.isQueued());
+        assertEquals(1, queue.getSize());
+
+        queue.drain();
+        assertEquals(2, flaky.attempts);
+        assertEquals(Arrays.asList("flaky"), placed);
+        assertFalse(flaky.isQueued());
+        assertEquals(0, queue.getSize());
+    }
+
+    @Test
+    public void dropsProcessThatKeepsFailing() {
+        RegenerationQueue queue = queue(1000);
+
+        QueuedProcess broken = process("broken", "a", 0, 0);
+        broken.failuresLeft = Integer.MAX_VALUE;
+        queue.add(broken);
+
+        for (int i = 0; i < 5; i++) {
+            queue.drain();
+        }
+
+        assertEquals(3, broken.attempts);
+        assertFalse(broken.isQueued());
+        assertEquals(0, queue.getSize());
+    }
+
+    @Test
+    public void defersUnloadedChunks() {
+        RegenerationQueue queue = queue(1000);
+
+        QueuedProcess unloaded = process("unloaded", "a", 0, 0, false);
+        queue.add(unloaded);
+        queue.add(process("loaded", "a", 16, 0));
+
+        queue.drain();
+
+        assertEquals(Arrays.asList("loaded"), placed);
+        assertEquals(0, unloaded.attempts);
+        assertTrue(unloaded.isDormant());
+        assertTrue(unloaded.isRegenerateOnLoad());
+        assertEquals(0, queue.getSize());
+    }
+
+    @Test
+    public void skipsProcessesRemovedWhileQueued() {
+        RegenerationQueue queue = queue(1000);
+
+        QueuedProcess removed = process("removed", "a", 0, 0);
+        queue.add(removed);
+        queue.add(process("kept", "a", 1, 0));
+
+        removed.setQueued(false);
+        queue.drain();
+
+        assertEquals(Arrays.asList("kept"), placed);
+        assertEquals(0, queue.getSize());
+    }
+}
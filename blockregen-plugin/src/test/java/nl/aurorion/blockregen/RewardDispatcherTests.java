@@ -0,0 +1,129 @@
+package nl.aurorion.blockregen;
+
+import nl.aurorion.blockregen.mock.MockBlockRegenPlugin;
+import nl.aurorion.blockregen.mock.MockProxies;
+import nl.aurorion.blockregen.reward.Reward;
+import nl.aurorion.blockregen.reward.RewardDispatcher;
+import nl.aurorion.blockregen.util.PlaceholderContext;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.BlockState;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.PlayerInventory;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RewardDispatcherTests {
+
+    private static final World WORLD = MockProxies.world(null);
+
+    private static final BlockState STATE = MockProxies.stub(BlockState.class, (method, args) -> method.equals("getWorld") ? WORLD : null);
+
+    // Records inventory additions and experience given.
+    private static class FakePlayer {
+        private final UUID id = UUID.randomUUID();
+        private final List<ItemStack[]> additions = new ArrayList<>();
+        private final List<Integer> experience = new ArrayList<>();
+
+        // Inventory throws, like a plugin hooking into it could.
+        private boolean broken = false;
+
+        private final PlayerInventory inventory = MockProxies.stub(PlayerInventory.class, (method, args) -> {
+            if (method.equals("addItem")) {
+                if (broken) {
+                    throw new IllegalStateException("Broken inventory");
+                }
+                additions.add((ItemStack[]) args[0]);
+            }
+            return null;
+        });
+
+        private final Player player = MockProxies.stub(Player.class, (method, args) -> {
+            switch (method) {
+                case "getUniqueId":
+                    return id;
+                case "getName":
+                    return "player";
+                case "getInventory":
+                    return inventory;
+                case "giveExp":
+                    experience.add((Integer) args[0]);
+                    return null;
+                default:
+                    return null;
+            }
+        });
+    }
+
+    private static Reward reward(FakePlayer player, int experience, ItemStack... items) {
+        Reward reward = new Reward(player.player, STATE, new PlaceholderContext(player.player, null));
+        reward.setExperience(experience);
+        for (ItemStack item : items) {
+            reward.addDrop(item, false);
+        }
+        return reward;
+    }
+
+    @Test
+    public void appliesQueuedRewardsPerPlayer() {
+        RewardDispatcher dispatcher = new RewardDispatcher(new MockBlockRegenPlugin());
+
+        FakePlayer first = new FakePlayer();
+        FakePlayer second = new FakePlayer();
+
+        dispatcher.submit(reward(first, 3, new ItemStack(Material.STONE)));
+        dispatcher.submit(reward(second, 1));
+        dispatcher.submit(reward(first, 2, new ItemStack(Material.DIRT), new ItemStack(Material.COBBLESTONE)));
+        assertEquals(3, dispatcher.getPending());
+
+        dispatcher.run();
+
+        assertEquals(0, dispatcher.getPending());
+        assertEquals(3, dispatcher.getAppliedLastTick());
+
+        // One inventory update and one experience change per player.
+        assertEquals(1, first.additions.size());
+        assertEquals(Arrays.asList(Material.STONE, Material.DIRT, Material.COBBLESTONE),
+                Arrays.stream(first.additions.get(0)).map(ItemStack::getType).collect(Collectors.toList()));
+        assertEquals(Arrays.asList(5), first.experience);
+
+        assertTrue(second.additions.isEmpty());
+        assertEquals(Arrays.asList(1), second.experience);
+
+        // Nothing left to apply.
+        dispatcher.run();
+        assertEquals(0, dispatcher.getAppliedLastTick());
+        assertEquals(1, first.additions.size());
+    }
+
+    @Test
+    public void keepsApplyingAfterFailure() {
+        RewardDispatcher dispatcher = new RewardDispatcher(new MockBlockRegenPlugin());
+
+        FakePlayer broken = new FakePlayer();
+        broken.broken = true;
+        FakePlayer other = new FakePlayer();
+
+        dispatcher.submit(reward(broken, 2, new ItemStack(Material.STONE)));
+        dispatcher.submit(reward(other, 1, new ItemStack(Material.DIRT)));
+
+        dispatcher.run();
+
+        assertEquals(2, dispatcher.getAppliedLastTick());
+        assertEquals(0, dispatcher.getPending());
+
+        // Experience still given to the player with the failing inventory.
+        assertEquals(Arrays.asList(2), broken.experience);
+
+        assertEquals(1, other.additions.size());
+        assertEquals(Arrays.asList(1), other.experience);
+    }
+}
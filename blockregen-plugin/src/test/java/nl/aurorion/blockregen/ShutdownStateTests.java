@@ -0,0 +1,42 @@
+package nl.aurorion.blockregen;
+
+import nl.aurorion.blockregen.storage.ShutdownState;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShutdownStateTests {
+
+    @TempDir
+    Path folder;
+
+    @Test
+    public void consumedOnce() throws IOException {
+        ShutdownState state = new ShutdownState(folder);
+
+        // Reverted on shutdown.
+        assertNull(state.consumePersisted());
+
+        Set<UUID> pending = new HashSet<>(Arrays.asList(UUID.randomUUID(), UUID.randomUUID()));
+        state.markPersisted(pending);
+
+        assertEquals(pending, state.consumePersisted());
+        assertFalse(Files.exists(folder.resolve("Shutdown.dat")));
+        assertNull(state.consumePersisted());
+    }
+
+    @Test
+    public void replacesAllWhenUnreadable() throws IOException {
+        Files.write(folder.resolve("Shutdown.dat"), new byte[]{1, 2, 3});
+
+        // Treated as a reverting shutdown, all replace blocks get placed.
+        assertNull(new ShutdownState(folder).consumePersisted());
+        assertFalse(Files.exists(folder.resolve("Shutdown.dat")));
+    }
+}
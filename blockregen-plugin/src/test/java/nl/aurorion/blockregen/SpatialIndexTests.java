@@ -0,0 +1,114 @@
+package nl.aurorion.blockregen;
+
+import nl.aurorion.blockregen.api.RegeneratingBlock;
+import nl.aurorion.blockregen.mock.MockProcesses;
+import nl.aurorion.blockregen.regeneration.CompactProcessStore;
+import nl.aurorion.blockregen.regeneration.SpatialIndex;
+import nl.aurorion.blockregen.regeneration.struct.RegenerationProcess;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SpatialIndexTests {
+
+    private static RegenerationProcess process(String world, int x, int y, int z) {
+        RegenerationProcess process = MockProcesses.process(world, x, y, z);
+        process.setRegenerationTime(1000L + x);
+        return process;
+    }
+
+    private static long distance(RegenerationProcess process, int x, int y, int z) {
+        return new RegeneratingBlock(process).distanceSquared(x, y, z);
+    }
+
+    @Test
+    public void queriesRanges() {
+        SpatialIndex index = new SpatialIndex();
+
+        RegenerationProcess inside = process("world", 5, 64, 5);
+        RegenerationProcess corner = process("world", -20, 70, 40);
+        RegenerationProcess tooHigh = process("world", 0, 100, 0);
+        RegenerationProcess otherWorld = process("world_nether", 5, 64, 5);
+
+        for (RegenerationProcess process : Arrays.asList(inside, corner, tooHigh, otherWorld)) {
+            index.add(process);
+        }
+
+        List<RegenerationProcess> found = new ArrayList<>();
+        index.forEachInRange("world", -20, 0, 0, 10, 70, 40, found::add);
+        assertEquals(2, found.size());
+        assertTrue(found.containsAll(Arrays.asList(inside, corner)));
+
+        // A range wider than the populated chunks takes the other path.
+        found.clear();
+        index.forEachInRange("world", -100_000, 0, -100_000, 100_000, 99, 100_000, found::add);
+        assertEquals(2, found.size());
+
+        assertEquals(1, index.getChunk("world", -2, 2).size());
+
+        index.remove(corner);
+        assertNull(index.getChunk("world", -2, 2));
+    }
+
+    @Test
+    public void findsNearestLikeBruteForce() {
+        SpatialIndex index = new SpatialIndex();
+        Random random = new Random(42);
+
+        List<RegenerationProcess> processes = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            RegenerationProcess process = process("world", random.nextInt(2000) - 1000, random.nextInt(128), random.nextInt(2000) - 1000);
+            processes.add(process);
+            index.add(process);
+        }
+
+        for (int i = 0; i < 200; i++) {
+            int x = random.nextInt(2400) - 1200, y = random.nextInt(128), z = random.nextInt(2400) - 1200;
+            int maxDistance = 1 + random.nextInt(300);
+
+            long expected = Long.MAX_VALUE;
+            for (RegenerationProcess process : processes) {
+                long distance = distance(process, x, y, z);
+                if (distance <= (long) maxDistance * maxDistance) {
+                    expected = Math.min(expected, distance);
+                }
+            }
+
+            RegenerationProcess nearest = index.findNearest("world", x, y, z, maxDistance);
+            if (expected == Long.MAX_VALUE) {
+                assertNull(nearest);
+            } else {
+                assertNotNull(nearest);
+                assertEquals(expected, distance(nearest, x, y, z));
+            }
+        }
+    }
+
+    @Test
+    public void queriesStoredProcesses() {
+        CompactProcessStore store = new CompactProcessStore();
+
+        RegenerationProcess near = process("world", 10, 64, 10);
+        RegenerationProcess far = process("world", 200, 64, 200);
+        store.add(near);
+        store.add(far);
+
+        List<RegeneratingBlock> found = new ArrayList<>();
+        store.forEachInRange("world", 0, 0, 0, 15, 255, 15, found::add);
+        assertEquals(1, found.size());
+
+        RegeneratingBlock block = found.get(0);
+        assertEquals(10, block.getX());
+        assertEquals("preset", block.getPresetName());
+        assertEquals(near.getRegenerationTime(), block.getRegenerationTime());
+        assertFalse(block.isLoaded());
+
+        RegeneratingBlock nearest = store.findNearest("world", 190, 64, 190, 50);
+        assertNotNull(nearest);
+        assertEquals(200, nearest.getX());
+        assertNull(store.findNearest("world", 100, 64, 100, 20));
+        assertNull(store.findNearest("world_nether", 10, 64, 10, 20));
+    }
+}
@@ -0,0 +1,99 @@
+package nl.aurorion.blockregen;
+
+import nl.aurorion.blockregen.mock.MockProcesses;
+import nl.aurorion.blockregen.regeneration.SpatialIndex;
+import nl.aurorion.blockregen.regeneration.struct.RegenerationProcess;
+import nl.aurorion.blockregen.regeneration.struct.SimpleLocation;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Cost of spatial queries over the chunk grid compared to going through all processes.
+ * <p>
+ * Run with {@code mvn test -Dtest=SpatialQueryBenchmark -Dblockregen.benchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "blockregen.benchmark", matches = "true")
+public class SpatialQueryBenchmark {
+
+    private static final int COUNT = 1_000_000;
+    private static final int QUERIES = 10_000;
+
+    // Processes spread over a 4096 x 4096 area, about 16 per chunk.
+    private static final int SPREAD = 4096;
+
+    private interface Query {
+        int run(int x, int y, int z);
+    }
+
+    private static void measure(String name, int[][] positions, Query query) {
+        // Warm up.
+        for (int[] position : positions) {
+            query.run(position[0], position[1], position[2]);
+        }
+
+        long found = 0;
+        long start = System.nanoTime();
+        for (int[] position : positions) {
+            found += query.run(position[0], position[1], position[2]);
+        }
+        long took = System.nanoTime() - start;
+
+        System.out.printf("%s: %.2f us per query, %.1f results on average%n", name,
+                took / 1000.0 / positions.length, (double) found / positions.length);
+    }
+
+    @Test
+    public void compare() {
+        Random random = new Random(42);
+
+        SpatialIndex index = new SpatialIndex();
+        List<RegenerationProcess> processes = new ArrayList<>(COUNT);
+        for (int i = 0; i < COUNT; i++) {
+            RegenerationProcess process = MockProcesses.process("world", random.nextInt(SPREAD), random.nextInt(128), random.nextInt(SPREAD));
+            processes.add(process);
+            index.add(process);
+        }
+
+        int[][] positions = new int[QUERIES][];
+        for (int i = 0; i < QUERIES; i++) {
+            positions[i] = new int[]{random.nextInt(SPREAD), random.nextInt(128), random.nextInt(SPREAD)};
+        }
+
+        measure("Cuboid 32x32x32", positions, (x, y, z) -> {
+            int[] count = new int[1];
+            index.forEachInRange("world", x, y, z, x + 31, y + 31, z + 31, process -> count[0]++);
+            return count[0];
+        });
+
+        measure("Chunk", positions, (x, y, z) -> {
+            Collection<RegenerationProcess> chunk = index.getChunk("world", x >> 4, z >> 4);
+            return chunk == null ? 0 : chunk.size();
+        });
+
+        measure("Nearest within 64", positions, (x, y, z) -> index.findNearest("world", x, y, z, 64) == null ? 0 : 1);
+
+        // The only option before, a few queries are enough to see the difference.
+        int[][] linear = new int[100][];
+        System.arraycopy(positions, 0, linear, 0, linear.length);
+        measure("Cuboid 32x32x32, linear", linear, (x, y, z) -> {
+            int count = 0;
+            for (RegenerationProcess process : processes) {
+                SimpleLocation location = process.getLocation();
+                if (location.getX() >= x && location.getX() <= x + 31 && location.getY() >= y && location.getY() <= y + 31
+                        && location.getZ() >= z && location.getZ() <= z + 31) {
+                    count++;
+                }
+            }
+            return count;
+        });
+
+        assertTrue(index.findNearest("world", SPREAD / 2, 64, SPREAD / 2, 64) != null);
+    }
+}
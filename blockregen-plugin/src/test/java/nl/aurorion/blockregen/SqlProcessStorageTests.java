@@ -0,0 +1,173 @@
+package nl.aurorion.blockregen;
+
+import com.cryptomorin.xseries.XMaterial;
+import com.google.gson.GsonBuilder;
+import nl.aurorion.blockregen.mock.MockProcessStorage;
+import nl.aurorion.blockregen.mock.MockProcesses;
+import nl.aurorion.blockregen.regeneration.struct.RegenerationProcess;
+import nl.aurorion.blockregen.regeneration.struct.SimpleLocation;
+import nl.aurorion.blockregen.storage.ImportingProcessStorage;
+import nl.aurorion.blockregen.storage.ProcessStorage;
+import nl.aurorion.blockregen.storage.SqlDatabase;
+import nl.aurorion.blockregen.storage.SqlProcessStorage;
+import nl.aurorion.blockregen.version.NodeDataAdapter;
+import nl.aurorion.blockregen.version.api.NodeData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SqlProcessStorageTests {
+
+    @TempDir
+    Path folder;
+
+    private final List<SqlDatabase> databases = new ArrayList<>();
+
+    private static GsonHelper gsonHelper() {
+        return new GsonHelper(new GsonBuilder().registerTypeHierarchyAdapter(NodeData.class, new NodeDataAdapter<>()));
+    }
+
+    // A new connection each time, like a restart.
+    private ProcessStorage storage(ProcessStorage importFrom) throws SQLException {
+        SqlDatabase database = new SqlDatabase(folder.resolve("Data.db"));
+        database.open();
+        databases.add(database);
+        SqlProcessStorage storage = new SqlProcessStorage(database, gsonHelper());
+        return importFrom == null ? storage : new ImportingProcessStorage(storage, importFrom, "the database");
+    }
+
+    private void restart() {
+        databases.forEach(SqlDatabase::close);
+        databases.clear();
+    }
+
+    @AfterEach
+    public void close() {
+        restart();
+    }
+
+    private static RegenerationProcess process(int x, long regenerationTime) {
+        RegenerationProcess process = MockProcesses.process(UUID.randomUUID(), "world", x, 64, -x, XMaterial.STONE, "preset");
+        process.setRegionName("mine");
+        process.setRegenerationTime(regenerationTime);
+        return process;
+    }
+
+    private static Map<UUID, RegenerationProcess> byId(List<RegenerationProcess> processes) {
+        Map<UUID, RegenerationProcess> map = new HashMap<>();
+        for (RegenerationProcess process : processes) {
+            assertNull(map.put(process.getId(), process), "Duplicate process " + process.getId());
+        }
+        return map;
+    }
+
+    @Test
+    public void writesChanges() throws SQLException, IOException {
+        long now = System.currentTimeMillis();
+
+        RegenerationProcess a = process(1, now + 60_000);
+        RegenerationProcess b = process(2, now + 60_000);
+        RegenerationProcess c = process(3, 0);
+        c.setTimeLeft(-1);
+
+        ProcessStorage storage = storage(null);
+        assertTrue(storage.load().isEmpty());
+        storage.put(a);
+        storage.put(b);
+        storage.put(c);
+        storage.flush();
+
+        storage.remove(a);
+        b.setRegenerationTime(now + 120_000);
+        storage.put(b);
+        storage.flush();
+        restart();
+
+        Map<UUID, RegenerationProcess> loaded = byId(storage(null).load());
+        assertEquals(new HashSet<>(Arrays.asList(b.getId(), c.getId())), loaded.keySet());
+
+        RegenerationProcess loadedB = loaded.get(b.getId());
+        assertEquals(new SimpleLocation("world", 2, 64, -2), loadedB.getLocation());
+        assertEquals("preset", loadedB.getPresetName());
+        assertEquals("mine", loadedB.getRegionName());
+        assertEquals(XMaterial.STONE, loadedB.getOriginalType());
+        assertNotNull(loadedB.getOriginalData());
+
+        long timeLeft = loadedB.getTimeLeft();
+        assertTrue(timeLeft > 60_000 && timeLeft <= 120_000);
+        assertEquals(-1, loaded.get(c.getId()).getTimeLeft());
+    }
+
+    @Test
+    public void importsOnce() throws SQLException, IOException {
+        RegenerationProcess a = process(1, System.currentTimeMillis() + 60_000);
+
+        MockProcessStorage legacy = new MockProcessStorage(a);
+
+        // Not started before the save.
+        ProcessStorage storage = storage(legacy);
+        assertEquals(Collections.singletonList(a), storage.load());
+        storage.save(() -> Collections.singletonList(a));
+        restart();
+
+        storage = storage(legacy);
+        List<RegenerationProcess> loaded = storage.load();
+        assertEquals(1, loaded.size());
+        assertEquals(a.getId(), loaded.get(0).getId());
+        storage.remove(a);
+        storage.flush();
+        restart();
+
+        // All finished, the old storage stays out of it.
+        assertTrue(storage(legacy).load().isEmpty());
+        assertEquals(1, legacy.getLoads());
+    }
+
+    @Test
+    public void importsAgainIfNotSaved() throws SQLException, IOException {
+        RegenerationProcess a = process(1, System.currentTimeMillis() + 60_000);
+
+        MockProcessStorage legacy = new MockProcessStorage(a);
+
+        // Stopped before the first full save, the old storage is still the only complete copy.
+        ProcessStorage storage = storage(legacy);
+        storage.load();
+        restart();
+
+        assertEquals(Collections.singletonList(a), storage(legacy).load());
+        assertEquals(2, legacy.getLoads());
+    }
+
+    @Test
+    public void keepsExistingDatabase() throws SQLException, IOException {
+        RegenerationProcess a = process(1, System.currentTimeMillis() + 60_000);
+        RegenerationProcess b = process(2, System.currentTimeMillis() + 60_000);
+
+        ProcessStorage storage = storage(null);
+        storage.load();
+        storage.put(a);
+        storage.flush();
+        restart();
+
+        // In use before the old storage was configured, the rows win.
+        MockProcessStorage legacy = new MockProcessStorage(b);
+        storage = storage(legacy);
+        List<RegenerationProcess> loaded = storage.load();
+        assertEquals(1, loaded.size());
+        assertEquals(a.getId(), loaded.get(0).getId());
+
+        storage.remove(a);
+        storage.flush();
+        restart();
+
+        assertTrue(storage(legacy).load().isEmpty());
+        assertEquals(0, legacy.getLoads());
+    }
+}
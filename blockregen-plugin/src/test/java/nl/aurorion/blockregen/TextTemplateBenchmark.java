@@ -0,0 +1,91 @@
+package nl.aurorion.blockregen;
+
+import nl.aurorion.blockregen.mock.MockProxies;
+import nl.aurorion.blockregen.util.TextTemplate;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Player;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Placeholders of a drop name, lore and commands on a break. Regex replacement as Text#parse did it before, against
+ * templates compiled up front.
+ * <p>
+ * Run with {@code mvn test -Dtest=TextTemplateBenchmark -Dblockregen.benchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "blockregen.benchmark", matches = "true")
+public class TextTemplateBenchmark {
+
+    private static final int BREAKS = 1_000_000;
+
+    private static final List<String> STRINGS = Arrays.asList(
+            "&6Gold nugget of %player%",
+            "&7Mined at %block_x%, %block_y%, %block_z%",
+            "&7in %block_world%",
+            "&8Lucky drop",
+            "eco give %player% 5",
+            "say %player% found gold in %block_world%!"
+    );
+
+    // Text#parse without PlaceholderAPI, before templates.
+    private static String regexParse(String string, Player player, Block block) {
+        string = string.replaceAll("(?i)%prefix%", Message.PREFIX.getValue());
+        string = string.replaceAll("(?i)%player%", player.getName());
+        string = string.replaceAll("(?i)%block_x%", String.valueOf(block.getX()));
+        string = string.replaceAll("(?i)%block_y%", String.valueOf(block.getY()));
+        string = string.replaceAll("(?i)%block_z%", String.valueOf(block.getZ()));
+        string = string.replaceAll("(?i)%block_world%", block.getWorld().getName());
+        return string;
+    }
+
+    private static long measure(String name, Function<Integer, Integer> run) {
+        // Warm up.
+        run.apply(BREAKS / 10);
+
+        long start = System.nanoTime();
+        int length = run.apply(BREAKS);
+        long took = System.nanoTime() - start;
+
+        System.out.printf("%s: %.1f ns per break (%d chars)%n", name, (double) took / BREAKS, length);
+        return took;
+    }
+
+    @Test
+    public void compare() {
+        Block block = MockProxies.block(MockProxies.world("world"), 120, 64, -3400);
+        Player player = MockProxies.player(null, "Notch");
+
+        List<TextTemplate> templates = new ArrayList<>();
+        for (String string : STRINGS) {
+            templates.add(TextTemplate.compile(string));
+            assertEquals(regexParse(string, player, block), TextTemplate.compile(string).render(player, block));
+        }
+
+        measure("Regex", breaks -> {
+            int length = 0;
+            for (int i = 0; i < breaks; i++) {
+                for (String string : STRINGS) {
+                    length += regexParse(string, player, block).length();
+                }
+            }
+            return length;
+        });
+
+        measure("Templates", breaks -> {
+            int length = 0;
+            for (int i = 0; i < breaks; i++) {
+                for (TextTemplate template : templates) {
+                    length += template.render(player, block).length();
+                }
+            }
+            return length;
+        });
+    }
+}
@@ -0,0 +1,66 @@
+package nl.aurorion.blockregen;
+
+import nl.aurorion.blockregen.mock.MockProxies;
+import nl.aurorion.blockregen.util.TextTemplate;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Player;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class TextTemplateTests {
+
+    private static final Block BLOCK = MockProxies.block(MockProxies.world("world_nether"), 10, -5, 300);
+
+    private static Player player(String name) {
+        return MockProxies.player(null, name);
+    }
+
+    @Test
+    public void rendersBuiltinPlaceholders() {
+        TextTemplate template = TextTemplate.compile("eco give %player% 10 at %block_x% %BLOCK_Y% %Block_Z% in %block_world%");
+
+        assertEquals("eco give Notch 10 at 10 -5 300 in world_nether", template.render(player("Notch"), BLOCK));
+        // Context order doesn't matter.
+        assertEquals("eco give Notch 10 at 10 -5 300 in world_nether", template.render(BLOCK, player("Notch")));
+    }
+
+    @Test
+    public void leavesPlaceholdersWithoutContext() {
+        TextTemplate template = TextTemplate.compile("%player% broke %block_x%");
+
+        assertEquals("Notch broke %block_x%", template.render(player("Notch"), null));
+        assertEquals("%player% broke 10", template.render(null, BLOCK));
+    }
+
+    @Test
+    public void keepsOtherText() {
+        assertEquals("100% of %player", TextTemplate.compile("100% of %player").render(player("Notch"), null));
+        assertEquals("100% for Notch", TextTemplate.compile("100% for %player%").render(player("Notch"), null));
+        assertEquals("%Notch%", TextTemplate.compile("%%player%%").render(player("Notch"), null));
+        assertEquals("%unknown% Notch", TextTemplate.compile("%unknown% %player%").render(player("Notch"), null));
+        assertEquals("plain text", TextTemplate.compile("plain text").render(player("Notch"), BLOCK));
+        assertEquals("", TextTemplate.compile("").render(player("Notch"), BLOCK));
+    }
+
+    @Test
+    public void insertsValuesAsIs() {
+        // replaceAll treated $ and \ in values as group references.
+        assertEquals("Hi $1\\", TextTemplate.compile("Hi %player%").render(player("$1\\"), null));
+    }
+
+    @Test
+    public void rendersPrefix() {
+        String prefix = Message.PREFIX.getValue();
+        try {
+            Message.PREFIX.setValue("[%player%] ");
+            assertEquals("[Notch] hello", TextTemplate.compile("%prefix%hello").render(player("Notch"), null));
+
+            // Picks up a changed prefix.
+            Message.PREFIX.setValue("> ");
+            assertEquals("> hello", TextTemplate.compile("%prefix%hello").render(player("Notch"), null));
+        } finally {
+            Message.PREFIX.setValue(prefix);
+        }
+    }
+}
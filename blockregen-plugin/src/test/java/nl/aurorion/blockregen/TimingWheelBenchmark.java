@@ -0,0 +1,136 @@
+package nl.aurorion.blockregen;
+
+import nl.aurorion.blockregen.util.TimingWheel;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the timing wheel against one task per process.
+ * <p>
+ * The per-task side mirrors what CraftScheduler does for #runTaskLater: one task object per process in a priority
+ * queue ordered by the next run tick, cancellation marks the task and it's dropped once it reaches the head.
+ * <p>
+ * Run with {@code mvn test -Dtest=TimingWheelBenchmark -Dblockregen.benchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "blockregen.benchmark", matches = "true")
+public class TimingWheelBenchmark {
+
+    private static final int[] SIZES = {10_000, 100_000, 1_000_000};
+
+    // Regen delays between 3 and 60 seconds.
+    private static final int MAX_DELAY = 1200;
+    private static final int MIN_DELAY = 60;
+
+    private static final class Task implements Comparable<Task> {
+        final long nextRun;
+        boolean cancelled;
+
+        Task(long nextRun) {
+            this.nextRun = nextRun;
+        }
+
+        @Override
+        public int compareTo(Task o) {
+            return Long.compare(nextRun, o.nextRun);
+        }
+    }
+
+    private static long[] delays(int count) {
+        Random random = new Random(count);
+        long[] delays = new long[count];
+        for (int i = 0; i < count; i++) {
+            delays[i] = MIN_DELAY + random.nextInt(MAX_DELAY - MIN_DELAY);
+        }
+        return delays;
+    }
+
+    private static long[] runPerTask(long[] delays) {
+        long start = System.nanoTime();
+
+        PriorityQueue<Task> queue = new PriorityQueue<>();
+        List<Task> tasks = new ArrayList<>(delays.length);
+        for (long delay : delays) {
+            Task task = new Task(delay);
+            queue.add(task);
+            tasks.add(task);
+        }
+        long scheduled = System.nanoTime();
+
+        // Cancel every tenth one (blocks broken in bypass, reverted,...)
+        for (int i = 0; i < tasks.size(); i += 10) {
+            tasks.get(i).cancelled = true;
+        }
+        long cancelled = System.nanoTime();
+
+        int fired = 0;
+        for (long tick = 0; tick <= MAX_DELAY; tick++) {
+            while (!queue.isEmpty() && queue.peek().nextRun <= tick) {
+                if (!queue.poll().cancelled) {
+                    fired++;
+                }
+            }
+        }
+        long done = System.nanoTime();
+
+        return new long[]{scheduled - start, cancelled - scheduled, done - cancelled, fired};
+    }
+
+    private static long[] runWheel(long[] delays) {
+        long start = System.nanoTime();
+
+        TimingWheel<Object> wheel = new TimingWheel<>(1024);
+        Object payload = new Object();
+        List<TimingWheel.Timeout<Object>> timeouts = new ArrayList<>(delays.length);
+        for (long delay : delays) {
+            timeouts.add(wheel.schedule(payload, delay));
+        }
+        long scheduled = System.nanoTime();
+
+        for (int i = 0; i < timeouts.size(); i += 10) {
+            timeouts.get(i).cancel();
+        }
+        long cancelled = System.nanoTime();
+
+        int[] fired = {0};
+        for (long tick = 0; tick <= MAX_DELAY; tick++) {
+            wheel.advance(o -> fired[0]++);
+        }
+        long done = System.nanoTime();
+
+        return new long[]{scheduled - start, cancelled - scheduled, done - cancelled, fired[0]};
+    }
+
+    private static String format(String name, long[] result) {
+        return String.format("  %-9s schedule %8.2fms  cancel %7.2fms  fire %8.2fms", name,
+                result[0] / 1e6, result[1] / 1e6, result[2] / 1e6);
+    }
+
+    @Test
+    public void compare() {
+        for (int size : SIZES) {
+            long[] delays = delays(size);
+
+            // Warm up
+            for (int i = 0; i < 3; i++) {
+                runPerTask(delays);
+                runWheel(delays);
+            }
+
+            long[] perTask = runPerTask(delays);
+            long[] wheel = runWheel(delays);
+
+            assertEquals(perTask[3], wheel[3]);
+
+            System.out.println(size + " processes:");
+            System.out.println(format("per-task", perTask));
+            System.out.println(format("wheel", wheel));
+        }
+    }
+}
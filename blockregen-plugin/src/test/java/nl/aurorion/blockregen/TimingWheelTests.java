@@ -0,0 +1,85 @@
+package nl.aurorion.blockregen;
+
+import nl.aurorion.blockregen.util.TimingWheel;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TimingWheelTests {
+
+    @Test
+    public void firesOnDeadline() {
+        TimingWheel<String> wheel = new TimingWheel<>(8);
+        wheel.schedule("a", 3);
+
+        List<String> fired = new ArrayList<>();
+        wheel.advance(fired::add);
+        wheel.advance(fired::add);
+        assertTrue(fired.isEmpty());
+
+        wheel.advance(fired::add);
+        assertEquals(1, fired.size());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void delaysLongerThanRevolutionWait() {
+        TimingWheel<String> wheel = new TimingWheel<>(8);
+        wheel.schedule("a", 20);
+
+        List<Long> fired = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            wheel.advance(s -> fired.add(wheel.getTick()));
+        }
+
+        assertEquals(1, fired.size());
+        assertEquals(20L, (long) fired.get(0));
+    }
+
+    @Test
+    public void zeroDelayFiresNextTick() {
+        TimingWheel<String> wheel = new TimingWheel<>(8);
+        wheel.schedule("a", 0);
+
+        List<String> fired = new ArrayList<>();
+        wheel.advance(fired::add);
+        assertEquals(1, fired.size());
+    }
+
+    @Test
+    public void cancelledEntriesDoNotFire() {
+        TimingWheel<String> wheel = new TimingWheel<>(8);
+        TimingWheel.Timeout<String> a = wheel.schedule("a", 2);
+        TimingWheel.Timeout<String> b = wheel.schedule("b", 2);
+
+        assertTrue(a.cancel());
+        assertFalse(a.cancel());
+        assertTrue(b.isPending());
+
+        List<String> fired = new ArrayList<>();
+        wheel.advance(fired::add);
+        wheel.advance(fired::add);
+
+        assertEquals(1, fired.size());
+        assertEquals("b", fired.get(0));
+        assertFalse(b.isPending());
+    }
+
+    @Test
+    public void reschedulingFromConsumerWorks() {
+        TimingWheel<String> wheel = new TimingWheel<>(8);
+        wheel.schedule("a", 1);
+
+        List<String> fired = new ArrayList<>();
+        wheel.advance(s -> {
+            fired.add(s);
+            wheel.schedule(s, 1);
+        });
+        wheel.advance(fired::add);
+
+        assertEquals(2, fired.size());
+    }
+}
@@ -7,17 +7,23 @@ import nl.aurorion.blockregen.api.BlockRegenPlugin;
 import nl.aurorion.blockregen.api.version.VersionManager;
 import nl.aurorion.blockregen.compatibility.CompatibilityManager;
 import nl.aurorion.blockregen.configuration.Files;
+import nl.aurorion.blockregen.configuration.RuntimeSettings;
 import nl.aurorion.blockregen.drop.ItemManager;
 import nl.aurorion.blockregen.event.EventManager;
 import nl.aurorion.blockregen.material.MaterialManager;
 import nl.aurorion.blockregen.particle.ParticleManager;
+import nl.aurorion.blockregen.permission.PermissionCache;
 import nl.aurorion.blockregen.preset.PresetManager;
 import nl.aurorion.blockregen.regeneration.RegenerationManager;
 import nl.aurorion.blockregen.region.RegionManager;
+import nl.aurorion.blockregen.reward.PendingDeposits;
+import nl.aurorion.blockregen.reward.RewardDispatcher;
+import nl.aurorion.blockregen.storage.PersistenceExecutor;
 import org.bukkit.Server;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
 import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.generator.BiomeProvider;
 import org.bukkit.generator.ChunkGenerator;
 import org.bukkit.plugin.PluginDescriptionFile;
@@ -41,6 +47,16 @@ public class MockBlockRegenPlugin implements BlockRegenPlugin {
     @Getter
     private final Files files = new Files(this);
 
+    private final FileConfiguration config = new YamlConfiguration();
+
+    private final Random random = new Random(42);
+
+    @Getter
+    private final RuntimeSettings runtimeSettings = RuntimeSettings.compile(new YamlConfiguration(), versionManager);
+
+    @Getter
+    private final PermissionCache permissionCache = new PermissionCache();
+
     @Getter
     private final PresetManager presetManager = new PresetManager(this);
 
@@ -56,6 +72,12 @@ public class MockBlockRegenPlugin implements BlockRegenPlugin {
     @Getter
     private final EventManager eventManager = new EventManager(this);
 
+    @Getter
+    private final RewardDispatcher rewardDispatcher = new RewardDispatcher(this);
+
+    @Getter
+    private final PendingDeposits pendingDeposits = new PendingDeposits(this);
+
     @Getter
     private final MaterialManager materialManager = new MaterialManager(this);
 
@@ -92,7 +114,7 @@ public class MockBlockRegenPlugin implements BlockRegenPlugin {
 
     @Override
     public @NotNull FileConfiguration getConfig() {
-        return null;
+        return config;
     }
 
     @Override
@@ -182,7 +204,7 @@ public class MockBlockRegenPlugin implements BlockRegenPlugin {
 
     @Override
     public Random getRandom() {
-        return null;
+        return random;
     }
 
     @Override
@@ -195,6 +217,11 @@ public class MockBlockRegenPlugin implements BlockRegenPlugin {
         return null;
     }
 
+    @Override
+    public PersistenceExecutor getPersistence() {
+        return null;
+    }
+
     @Override
     public ConsoleHandler getConsoleHandler() {
         return null;
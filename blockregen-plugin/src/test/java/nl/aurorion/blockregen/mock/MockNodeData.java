@@ -28,4 +28,15 @@ public class MockNodeData implements NodeData {
     public String getPrettyString() {
         return "mock";
     }
+
+    // All mock data is the same state.
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof MockNodeData;
+    }
+
+    @Override
+    public int hashCode() {
+        return MockNodeData.class.hashCode();
+    }
 }
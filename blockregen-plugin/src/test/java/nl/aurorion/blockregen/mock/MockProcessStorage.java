@@ -0,0 +1,53 @@
+package nl.aurorion.blockregen.mock;
+
+import nl.aurorion.blockregen.regeneration.struct.RegenerationProcess;
+import nl.aurorion.blockregen.storage.ProcessStorage;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+// Old storage to import from, counts the loads.
+public class MockProcessStorage implements ProcessStorage {
+
+    private final List<RegenerationProcess> processes;
+
+    private int loads = 0;
+
+    public MockProcessStorage(RegenerationProcess... processes) {
+        this.processes = new ArrayList<>(Arrays.asList(processes));
+    }
+
+    public int getLoads() {
+        return loads;
+    }
+
+    @Override
+    public @NotNull List<RegenerationProcess> load() {
+        loads++;
+        return new ArrayList<>(processes);
+    }
+
+    @Override
+    public void put(@NotNull RegenerationProcess process) {
+    }
+
+    @Override
+    public void remove(@NotNull RegenerationProcess process) {
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public boolean shouldSave(int processCount) {
+        return false;
+    }
+
+    @Override
+    public void save(@NotNull Supplier<List<RegenerationProcess>> state) {
+    }
+}
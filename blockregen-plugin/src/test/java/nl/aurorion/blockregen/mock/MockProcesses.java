@@ -0,0 +1,26 @@
+package nl.aurorion.blockregen.mock;
+
+import com.cryptomorin.xseries.XMaterial;
+import nl.aurorion.blockregen.regeneration.struct.RegenerationProcess;
+import nl.aurorion.blockregen.regeneration.struct.SimpleLocation;
+
+import java.util.UUID;
+
+// Processes as restored from storage, without a block or a resolved preset.
+public final class MockProcesses {
+
+    private MockProcesses() {
+    }
+
+    public static RegenerationProcess process(String world, int x, int y, int z) {
+        return process(world, x, y, z, "preset");
+    }
+
+    public static RegenerationProcess process(String world, int x, int y, int z, String preset) {
+        return process(UUID.randomUUID(), world, x, y, z, null, preset);
+    }
+
+    public static RegenerationProcess process(UUID id, String world, int x, int y, int z, XMaterial material, String preset) {
+        return new RegenerationProcess(id, new SimpleLocation(world, x, y, z), material, new MockNodeData(), preset);
+    }
+}
@@ -0,0 +1,71 @@
+package nl.aurorion.blockregen.mock;
+
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Player;
+
+import java.lang.reflect.Proxy;
+import java.util.UUID;
+
+// Bukkit interfaces implemented by proxies, only the methods a test needs are answered.
+public final class MockProxies {
+
+    @FunctionalInterface
+    public interface Answer {
+        // Return value of the method, null for methods the test doesn't use.
+        Object answer(String method, Object[] args);
+    }
+
+    private MockProxies() {
+    }
+
+    // Equal only to itself.
+    public static <T> T stub(Class<T> type, Answer answer) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class[]{type}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return type.getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(proxy));
+                default:
+                    return answer.answer(method.getName(), args);
+            }
+        }));
+    }
+
+    public static World world(String name) {
+        return stub(World.class, (method, args) -> method.equals("getName") ? name : null);
+    }
+
+    public static Block block(World world, int x, int y, int z) {
+        return stub(Block.class, (method, args) -> {
+            switch (method) {
+                case "getWorld":
+                    return world;
+                case "getX":
+                    return x;
+                case "getY":
+                    return y;
+                case "getZ":
+                    return z;
+                default:
+                    return null;
+            }
+        });
+    }
+
+    public static Player player(UUID id, String name) {
+        return stub(Player.class, (method, args) -> {
+            switch (method) {
+                case "getUniqueId":
+                    return id;
+                case "getName":
+                    return name;
+                default:
+                    return null;
+            }
+        });
+    }
+}
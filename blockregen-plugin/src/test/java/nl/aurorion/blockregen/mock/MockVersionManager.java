@@ -1,6 +1,7 @@
 package nl.aurorion.blockregen.mock;
 
 import nl.aurorion.blockregen.api.version.VersionManager;
+import nl.aurorion.blockregen.version.NodeDataPalette;
 import nl.aurorion.blockregen.version.api.*;
 
 public class MockVersionManager implements VersionManager {
@@ -63,4 +64,9 @@ public class MockVersionManager implements VersionManager {
     public NodeDataParser getNodeDataParser() {
         return null;
     }
+
+    @Override
+    public NodeDataPalette getNodeDataPalette() {
+        return new NodeDataPalette();
+    }
 }
@@ -0,0 +1,291 @@
+package nl.aurorion.blockregen.regeneration;
+
+import nl.aurorion.blockregen.mock.MockBlockRegenPlugin;
+import nl.aurorion.blockregen.mock.MockNodeData;
+import nl.aurorion.blockregen.mock.MockProxies;
+import nl.aurorion.blockregen.preset.BlockPreset;
+import nl.aurorion.blockregen.regeneration.struct.RegenerationProcess;
+import nl.aurorion.blockregen.regeneration.struct.SimpleLocation;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// In the package of ProcessRestorer, it's package-private.
+public class ProcessRestorerTests {
+
+    private static final World WORLD = MockProxies.world("world");
+
+    private final MockBlockRegenPlugin plugin = new MockBlockRegenPlugin();
+    private final RegenerationManager manager = new RegenerationManager(plugin);
+
+    // Chunks reported as loaded, as "x,z" in the world "world".
+    private final Set<String> loadedChunks = new HashSet<>();
+    private final List<Player> players = new ArrayList<>();
+
+    // Names of started processes in order, dormant ones prefixed with "dormant:".
+    private final List<String> started = new ArrayList<>();
+    private final List<String> reverted = new ArrayList<>();
+
+    private final AtomicBoolean finished = new AtomicBoolean();
+
+    // Records starts and reverts instead of placing blocks.
+    private class RestoredProcess extends RegenerationProcess {
+        private final String name;
+        private long startedWithTimeLeft = -2;
+
+        private RestoredProcess(String name, SimpleLocation location, long timeLeft) {
+            super(UUID.randomUUID(), location, null, new MockNodeData(), "preset");
+            this.name = name;
+            setTimeLeft(timeLeft);
+        }
+
+        @Override
+        public boolean start(boolean replace) {
+            this.startedWithTimeLeft = getTimeLeft();
+            started.add(name);
+            return true;
+        }
+
+        @Override
+        public void startDormant(boolean replace) {
+            started.add("dormant:" + name);
+        }
+
+        @Override
+        public boolean shouldRegenerate() {
+            return true;
+        }
+
+        @Override
+        public void revert() {
+            reverted.add(name);
+        }
+    }
+
+    private RestoredProcess process(String name, int x, int z) {
+        return process(name, x, z, 10_000);
+    }
+
+    private RestoredProcess process(String name, int x, int z, long timeLeft) {
+        return new RestoredProcess(name, location(x, z), timeLeft);
+    }
+
+    private SimpleLocation location(int x, int z) {
+        return new SimpleLocation("world", x, 64, z) {
+            @Override
+            public boolean isChunkLoaded() {
+                return loadedChunks.contains((x >> 4) + "," + (z >> 4));
+            }
+
+            @Override
+            public Block toBlock() {
+                return null;
+            }
+        };
+    }
+
+    private void loadChunk(int chunkX, int chunkZ) {
+        loadedChunks.add(chunkX + "," + chunkZ);
+    }
+
+    private void addPlayer(int x, int z) {
+        Location location = new Location(WORLD, x, 64, z);
+        players.add(MockProxies.stub(Player.class, (method, args) -> method.equals("getLocation") ? location : null));
+    }
+
+    private ProcessRestorer restorer(List<RegenerationProcess> processes, List<RegenerationProcess> invalid) {
+        return new ProcessRestorer(plugin, manager, processes, invalid, null, () -> finished.set(true)) {
+            @Override
+            BukkitTask schedule() {
+                // Ticked by the test.
+                return null;
+            }
+
+            @Override
+            Collection<? extends Player> getOnlinePlayers() {
+                return players;
+            }
+
+            @Override
+            boolean isChunkLoaded(String worldName, int chunkX, int chunkZ) {
+                return worldName.equals("world") && loadedChunks.contains(chunkX + "," + chunkZ);
+            }
+        };
+    }
+
+    private ProcessRestorer restorer(RegenerationProcess... processes) {
+        return restorer(Arrays.asList(processes), Collections.emptyList());
+    }
+
+    @Test
+    public void restoresLoadedChunksClosestToPlayersFirst() {
+        loadChunk(0, 0);
+        loadChunk(10, 0);
+        addPlayer(200, 0);
+
+        ProcessRestorer restorer = restorer(
+                process("unloaded", 80, 80),
+                process("loaded", 0, 0),
+                process("closest", 160, 0),
+                process("closest-2", 161, 1));
+        restorer.start();
+        restorer.run();
+
+        assertEquals(Arrays.asList("closest", "closest-2", "loaded", "dormant:unloaded"), started);
+        assertEquals(1, manager.getDormantCount());
+        assertTrue(finished.get());
+    }
+
+    @Test
+    public void staysWithinTickBudget() {
+        plugin.getConfig().set("Restoration.Tick-Budget", 1.0);
+        loadChunk(0, 0);
+
+        List<RegenerationProcess> processes = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            processes.add(new RestoredProcess("p" + i, location(i, 0), 10_000) {
+                @Override
+                public boolean start(boolean replace) {
+                    // Over the budget with each process.
+                    try {
+                        Thread.sleep(5);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return super.start(replace);
+                }
+            });
+        }
+
+        ProcessRestorer restorer = restorer(processes, Collections.emptyList());
+        restorer.start();
+
+        restorer.run();
+        assertEquals(Arrays.asList("p0"), started);
+        assertFalse(finished.get());
+
+        restorer.run();
+        assertEquals(Arrays.asList("p0", "p1"), started);
+
+        restorer.run();
+        assertEquals(Arrays.asList("p0", "p1", "p2"), started);
+        assertTrue(finished.get());
+    }
+
+    @Test
+    public void spreadsOverdueProcesses() {
+        plugin.getConfig().set("Restoration.Overdue-Jitter", 30);
+        loadChunk(0, 0);
+
+        RestoredProcess overdue = process("overdue", 0, 0, 0);
+        RestoredProcess running = process("running", 1, 0, 60_000);
+
+        ProcessRestorer restorer = restorer(overdue, running);
+        restorer.start();
+        restorer.run();
+
+        assertTrue(overdue.startedWithTimeLeft >= 1 && overdue.startedWithTimeLeft <= 30_000,
+                "Overdue process starts within the jitter, got " + overdue.startedWithTimeLeft);
+        // Not overdue, only the time spent restoring is taken off.
+        assertTrue(running.startedWithTimeLeft > 50_000 && running.startedWithTimeLeft <= 60_000);
+    }
+
+    @Test
+    public void keepsOverdueProcessesDueWithoutJitter() {
+        plugin.getConfig().set("Restoration.Overdue-Jitter", 0);
+        loadChunk(0, 0);
+
+        RestoredProcess overdue = process("overdue", 0, 0, 0);
+
+        ProcessRestorer restorer = restorer(overdue);
+        restorer.start();
+        restorer.run();
+
+        assertEquals(0, overdue.startedWithTimeLeft);
+    }
+
+    @Test
+    public void restoresPendingProcessOnLookup() {
+        loadChunk(0, 0);
+
+        RestoredProcess first = process("first", 0, 0);
+        RestoredProcess second = process("second", 1, 0);
+
+        ProcessRestorer restorer = restorer(first, second);
+        restorer.start();
+
+        assertSame(second, restorer.getPending("world", 1, 64, 0));
+        assertNull(restorer.getPending("world", 2, 64, 0));
+        assertNull(restorer.getPending("world_nether", 1, 64, 0));
+
+        // Restored ahead of its turn, replacing the pending one.
+        restorer.restoreAt("world", 1, 64, 0);
+        assertEquals(Arrays.asList("second"), started);
+        assertNull(restorer.getPending("world", 1, 64, 0));
+
+        List<RegenerationProcess> pending = new ArrayList<>();
+        restorer.forEachPending(pending::add);
+        assertEquals(Collections.singletonList(first), pending);
+
+        // Not started again.
+        restorer.run();
+        assertEquals(Arrays.asList("second", "first"), started);
+        assertTrue(finished.get());
+    }
+
+    @Test
+    public void countsPendingProcessesForPhysics() {
+        loadChunk(0, 0);
+
+        BlockPreset sand = new BlockPreset("sand");
+        sand.setDisablePhysics(true);
+
+        RestoredProcess loaded = process("loaded", 0, 0);
+        loaded.setPreset(sand);
+        RestoredProcess unloaded = process("unloaded", 80, 80);
+        unloaded.setPreset(sand);
+
+        ProcessRestorer restorer = restorer(loaded, unloaded);
+        assertFalse(manager.mayDisablePhysics("world", 0, 0));
+
+        restorer.start();
+        assertTrue(manager.mayDisablePhysics("world", 0, 0));
+        assertTrue(manager.mayDisablePhysics("world", 80, 80));
+        assertFalse(manager.mayDisablePhysics("world", 32, 0));
+
+        // Not registered by the recording process, only the restorer counted them.
+        restorer.run();
+        assertFalse(manager.mayDisablePhysics("world", 0, 0));
+        assertFalse(manager.mayDisablePhysics("world", 80, 80));
+        assertTrue(finished.get());
+    }
+
+    @Test
+    public void revertsInvalidProcessesOnceTheirChunkLoads() {
+        loadChunk(0, 0);
+
+        RestoredProcess loaded = process("loaded", 0, 0);
+        RestoredProcess unloaded = process("unloaded", 80, 80, 5_000);
+
+        long before = System.currentTimeMillis();
+        ProcessRestorer restorer = restorer(Collections.emptyList(), Arrays.asList(loaded, unloaded));
+        restorer.start();
+
+        // The chunk isn't loaded to revert it, the process waits in the compact store for the chunk to load.
+        assertEquals(Arrays.asList("loaded"), reverted);
+        assertEquals(1, manager.getDormantCount());
+        assertTrue(unloaded.getRegenerationTime() >= before + 5_000);
+
+        restorer.run();
+        assertTrue(started.isEmpty());
+        assertTrue(finished.get());
+    }
+}
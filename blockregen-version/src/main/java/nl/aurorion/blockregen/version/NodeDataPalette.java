@@ -0,0 +1,31 @@
+package nl.aurorion.blockregen.version;
+
+import nl.aurorion.blockregen.version.api.NodeData;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns equal node data, so processes breaking blocks in the same state share a single instance.
+ * <p>
+ * Interned instances are shared and must not be modified.
+ */
+public class NodeDataPalette {
+
+    private final Map<NodeData, NodeData> palette = new ConcurrentHashMap<>();
+
+    @NotNull
+    public NodeData intern(@NotNull NodeData nodeData) {
+        NodeData existing = palette.putIfAbsent(nodeData, nodeData);
+        return existing == null ? nodeData : existing;
+    }
+
+    public int size() {
+        return palette.size();
+    }
+
+    public void clear() {
+        palette.clear();
+    }
+}
@@ -0,0 +1,83 @@
+package nl.aurorion.blockregen.version;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A range of bits in a long holding a single optional property of packed node data.
+ * <p>
+ * Zero always means the property is not set. Enums are stored as their ordinal + 1, numbers as their value + 1 and
+ * booleans as 1 (false) or 2 (true). Ordinals change between server versions, the state is not persisted, see
+ * {@link PackedNodeData}.
+ */
+public class PackedField {
+
+    private final int shift;
+    private final int bits;
+    private final long mask;
+
+    private PackedField(int shift, int bits) {
+        if (shift + bits > Long.SIZE) {
+            throw new IllegalArgumentException("Packed fields don't fit into a long.");
+        }
+        this.shift = shift;
+        this.bits = bits;
+        this.mask = ((1L << bits) - 1) << shift;
+    }
+
+    public static PackedField first(int bits) {
+        return new PackedField(0, bits);
+    }
+
+    // Field placed right after this one.
+    public PackedField next(int bits) {
+        return new PackedField(shift + this.bits, bits);
+    }
+
+    public long get(long state) {
+        return (state & mask) >>> shift;
+    }
+
+    public long set(long state, long value) {
+        if (value < 0 || value > mask >>> shift) {
+            throw new IllegalArgumentException(String.format("Value %d is out of range for a %d bit field.", value, bits));
+        }
+        return (state & ~mask) | (value << shift);
+    }
+
+    public boolean isSet(long state) {
+        return (state & mask) != 0;
+    }
+
+    @Nullable
+    public <E extends Enum<E>> E getEnum(long state, E[] values) {
+        int value = (int) get(state);
+        return value == 0 ? null : values[value - 1];
+    }
+
+    public long setEnum(long state, @Nullable Enum<?> value) {
+        return set(state, value == null ? 0 : value.ordinal() + 1);
+    }
+
+    @Nullable
+    public Integer getInt(long state) {
+        int value = (int) get(state);
+        return value == 0 ? null : value - 1;
+    }
+
+    public long setInt(long state, @Nullable Integer value) {
+        if (value != null && value < 0) {
+            throw new IllegalArgumentException("Value " + value + " cannot be negative.");
+        }
+        return set(state, value == null ? 0 : value + 1);
+    }
+
+    @Nullable
+    public Boolean getBoolean(long state) {
+        int value = (int) get(state);
+        return value == 0 ? null : value == 2;
+    }
+
+    public long setBoolean(long state, @Nullable Boolean value) {
+        return set(state, value == null ? 0 : (value ? 2 : 1));
+    }
+}
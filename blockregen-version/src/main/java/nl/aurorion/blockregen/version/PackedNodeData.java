@@ -0,0 +1,21 @@
+package nl.aurorion.blockregen.version;
+
+import nl.aurorion.blockregen.version.api.NodeData;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Map;
+
+/**
+ * Node data with its properties packed into a long, see {@link PackedField}.
+ * <p>
+ * The packed state only lives in memory. Enum ordinals change between server versions, it's persisted as its
+ * properties instead.
+ */
+public interface PackedNodeData extends NodeData {
+
+    /**
+     * Properties that are set, keyed by the name of their setter. Enums are stored by their name.
+     */
+    @NotNull
+    Map<String, Object> getProperties();
+}
@@ -29,6 +29,13 @@ public interface Methods {
 
     void setType(@NotNull Block block, @NotNull XMaterial xMaterial);
 
+    /**
+     * Set the type without updating neighbouring blocks when applyPhysics is false.
+     */
+    default void setType(@NotNull Block block, @NotNull XMaterial xMaterial, boolean applyPhysics) {
+        setType(block, xMaterial);
+    }
+
     /**
      * @throws IllegalArgumentException If the block is invalid.
      */
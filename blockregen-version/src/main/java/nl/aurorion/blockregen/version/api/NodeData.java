@@ -13,6 +13,11 @@ public interface NodeData {
     // Place the block with corresponding Block data.
     void apply(Block block);
 
+    // Same as #apply(Block), without updating neighbouring blocks when applyPhysics is false.
+    default void apply(Block block, boolean applyPhysics) {
+        apply(block);
+    }
+
     // Check NodeData against a placed block.
     boolean matches(Block block);
 